@@ -0,0 +1,58 @@
+package com.expense.segmentation.config;
+
+import com.expense.segmentation.service.ApiKeyRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Authenticates machine-to-machine requests carrying an {@code X-API-Key} header. Keys are checked
+ * against the in-memory {@link ApiKeyRegistry}, so no password hashing or database access happens
+ * on the request path. Requests with an unknown key stay unauthenticated and are rejected by the
+ * security chain like any other anonymous request.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final ApiKeyRegistry apiKeyRegistry;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            apiKeyRegistry
+                    .authenticate(apiKey)
+                    .ifPresentOrElse(
+                            principal -> authenticate(principal, request),
+                            () -> logger.debug("Rejecting unknown or revoked API key"));
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(AuthenticatedUser principal, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(
+                        principal,
+                        null,
+                        List.of(new SimpleGrantedAuthority("ROLE_" + principal.role().name())));
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
+}
@@ -0,0 +1,56 @@
+package com.expense.segmentation.config;
+
+import com.expense.segmentation.model.Department;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import java.util.Arrays;
+import java.util.UUID;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * The identity of the caller for the current request. Resolved at most once per request by {@link
+ * com.expense.segmentation.service.CurrentUserProvider} and injected into controller methods that
+ * declare a parameter of this type.
+ *
+ * @param id the user ID
+ * @param email the user email
+ * @param role the user's role
+ * @param departmentId the user's department ID, or null if unassigned
+ */
+public record AuthenticatedUser(UUID id, String email, RoleType role, UUID departmentId)
+        implements AuthenticatedPrincipal {
+
+    public static AuthenticatedUser from(User user) {
+        Department department = user.getDepartment();
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getEmail(),
+                user.getRole() != null ? user.getRole().getName() : null,
+                department != null ? department.getId() : null);
+    }
+
+    public static AuthenticatedUser from(JwtPrincipal principal) {
+        return new AuthenticatedUser(
+                principal.userId(),
+                principal.username(),
+                principal.role(),
+                principal.departmentId());
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean hasRole(RoleType roleType) {
+        return role == roleType;
+    }
+
+    public boolean hasAnyRole(RoleType... roleTypes) {
+        return Arrays.asList(roleTypes).contains(role);
+    }
+
+    public boolean isFinanceOrAdmin() {
+        return hasAnyRole(RoleType.FINANCE, RoleType.ADMIN);
+    }
+}
@@ -0,0 +1,82 @@
+package com.expense.segmentation.config;
+
+import com.expense.segmentation.model.RoleType;
+import io.jsonwebtoken.Claims;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Immutable view of a verified JWT. Produced once per token by {@link JwtTokenUtil#verify(String)}
+ * so callers never have to re-parse the token to read its claims. The token is self-contained:
+ * it carries everything needed to build the {@code Authentication} without a database lookup.
+ *
+ * @param username the token subject (user email)
+ * @param userId the user ID
+ * @param role the user's role at the time the token was issued
+ * @param departmentId the user's department ID, or null if unassigned
+ * @param epoch the user's token epoch at the time the token was issued
+ * @param sessionId the login session the token belongs to, or null if the claim is absent
+ * @param issuedAt when the token was issued, or null if the claim is absent
+ * @param expiresAt when the token expires, or null if the claim is absent
+ */
+public record JwtPrincipal(
+        String username,
+        UUID userId,
+        RoleType role,
+        UUID departmentId,
+        long epoch,
+        UUID sessionId,
+        Instant issuedAt,
+        Instant expiresAt)
+        implements AuthenticatedPrincipal {
+
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_DEPARTMENT_ID = "dept";
+    static final String CLAIM_EPOCH = "epoch";
+    static final String CLAIM_SESSION_ID = "sid";
+
+    static JwtPrincipal fromClaims(Claims claims) {
+        return new JwtPrincipal(
+                claims.getSubject(),
+                toUuid(claims.get(CLAIM_USER_ID, String.class)),
+                toRole(claims.get(CLAIM_ROLE, String.class)),
+                toUuid(claims.get(CLAIM_DEPARTMENT_ID, String.class)),
+                toLong(claims.get(CLAIM_EPOCH)),
+                toUuid(claims.get(CLAIM_SESSION_ID, String.class)),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()));
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    /** Tokens issued before identity claims were introduced cannot authenticate on their own. */
+    public boolean isSelfContained() {
+        return username != null && userId != null && role != null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+
+    private static UUID toUuid(String value) {
+        return value != null ? UUID.fromString(value) : null;
+    }
+
+    private static RoleType toRole(String value) {
+        return value != null ? RoleType.valueOf(value) : null;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+}
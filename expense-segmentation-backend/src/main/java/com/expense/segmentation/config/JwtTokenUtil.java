@@ -1,17 +1,31 @@
 package com.expense.segmentation.config;
 
+import com.expense.segmentation.model.Department;
+import com.expense.segmentation.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.Optional;
+import java.util.UUID;
 import javax.crypto.SecretKey;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 public class JwtTokenUtil {
 
@@ -21,71 +35,138 @@ public class JwtTokenUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    // Extract username from token
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize = 10_000;
+
+    // Built once from the secret; both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
 
-    // Extract expiration date from token
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // Tokens that already passed signature verification, keyed by SHA-256 of the token
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = buildSigningKey();
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens =
+                Caffeine.newBuilder()
+                        .maximumSize(verifiedCacheMaxSize)
+                        .expireAfter(new ExpireAtTokenExpiry())
+                        .build();
     }
 
-    // Extract specific claim from token
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Verifies the token signature and expiry, parsing it at most once. Tokens that were verified
+     * before are served from a bounded cache until they expire.
+     *
+     * @param token the compact JWT
+     * @return the verified principal, or empty if the token is invalid or expired
+     */
+    public Optional<JwtPrincipal> verify(String token) {
+        String cacheKey = hashToken(token);
+        JwtPrincipal cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached.isExpired(Instant.now()) ? Optional.empty() : Optional.of(cached);
+        }
+
+        try {
+            JwtPrincipal principal = JwtPrincipal.fromClaims(extractAllClaims(token));
+            if (!principal.isSelfContained()) {
+                log.debug("Rejecting JWT without identity claims");
+                return Optional.empty();
+            }
+            if (principal.expiresAt() != null) {
+                verifiedTokens.put(cacheKey, principal);
+            }
+            return Optional.of(principal);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("JWT verification failed: {}", e.getMessage());
+            return Optional.empty();
+        }
     }
 
     // Extract all claims from token
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
-    // Check if token is expired
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    // Generate token for user
-    public String generateToken(UserDetails userDetails) {
-        return createToken(userDetails.getUsername());
+    /**
+     * Generates a self-contained token for the user. The user ID, role, department, token epoch
+     * and login session are embedded as claims so requests can be authenticated without loading
+     * the user.
+     *
+     * @param user the user the token is issued to
+     * @param epoch the user's current token epoch
+     * @param sessionId the login session the token belongs to
+     * @return the signed compact JWT
+     */
+    public String generateToken(User user, long epoch, UUID sessionId) {
+        return createToken(user, epoch, sessionId);
     }
 
     // Create token with claims
-    private String createToken(String subject) {
+    private String createToken(User user, long epoch, UUID sessionId) {
+        Department department = user.getDepartment();
         return Jwts.builder()
-                .subject(subject)
+                .subject(user.getEmail())
+                .claim(JwtPrincipal.CLAIM_USER_ID, user.getId().toString())
+                .claim(JwtPrincipal.CLAIM_ROLE, user.getRole().getName().name())
+                .claim(
+                        JwtPrincipal.CLAIM_DEPARTMENT_ID,
+                        department != null ? department.getId().toString() : null)
+                .claim(JwtPrincipal.CLAIM_EPOCH, epoch)
+                .claim(
+                        JwtPrincipal.CLAIM_SESSION_ID,
+                        sessionId != null ? sessionId.toString() : null)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    // Validate token
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-        } catch (ExpiredJwtException e) {
-            return false;
-        }
-    }
-
-    // Get signing key
-    private SecretKey getSigningKey() {
+    // Build signing key
+    private SecretKey buildSigningKey() {
         // Decode the Base64 encoded secret or use raw bytes if not Base64
         byte[] keyBytes;
         try {
             keyBytes = Base64.getDecoder().decode(secret);
         } catch (IllegalArgumentException e) {
             // If not Base64, use the secret as-is (ensure it's at least 256 bits)
-            keyBytes = secret.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         }
         return Keys.hmacShaKeyFor(keyBytes);
     }
+
+    private static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Evicts each cached principal at the moment its token expires. */
+    private static final class ExpireAtTokenExpiry implements Expiry<String, JwtPrincipal> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+            Duration remaining = Duration.between(Instant.now(), principal.expiresAt());
+            return Math.max(0L, remaining.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, principal, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+                String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
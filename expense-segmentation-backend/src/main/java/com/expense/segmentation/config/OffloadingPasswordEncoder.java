@@ -0,0 +1,54 @@
+package com.expense.segmentation.config;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt encoder that runs every hash and match on the {@link PasswordHashingExecutor}. Because it
+ * is the application's only {@link PasswordEncoder}, login through {@code
+ * DaoAuthenticationProvider} and registration both get the executor's backpressure without further
+ * changes.
+ *
+ * <p>Hashes created with a different cost than the configured one report {@link
+ * #upgradeEncoding(String)}, so the authentication provider rehashes them on the next successful
+ * login.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+    private final int strength;
+
+    public OffloadingPasswordEncoder(int strength, PasswordHashingExecutor executor) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.executor = executor;
+        this.strength = strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+}
@@ -7,15 +7,22 @@ import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.info.License;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import org.springdoc.core.utils.SpringDocUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class OpenApiConfig {
 
+    static {
+        // Resolved from the security context, not bound from the request
+        SpringDocUtils.getConfig().addRequestWrapperToIgnore(AuthenticatedUser.class);
+    }
+
     @Bean
     public OpenAPI expenseSegmentationOpenAPI() {
         final String securitySchemeName = "bearerAuth";
+        final String apiKeySchemeName = "apiKeyAuth";
 
         return new OpenAPI()
                 .info(
@@ -35,6 +42,7 @@ public class OpenApiConfig {
                                                 .url(
                                                         "https://www.apache.org/licenses/LICENSE-2.0.html")))
                 .addSecurityItem(new SecurityRequirement().addList(securitySchemeName))
+                .addSecurityItem(new SecurityRequirement().addList(apiKeySchemeName))
                 .components(
                         new Components()
                                 .addSecuritySchemes(
@@ -46,6 +54,15 @@ public class OpenApiConfig {
                                                 .bearerFormat("JWT")
                                                 .description(
                                                         "Enter JWT Bearer token (obtain from"
-                                                            + " /auth/login or /auth/register)")));
+                                                            + " /auth/login or /auth/register)"))
+                                .addSecuritySchemes(
+                                        apiKeySchemeName,
+                                        new SecurityScheme()
+                                                .name(ApiKeyAuthenticationFilter.API_KEY_HEADER)
+                                                .type(SecurityScheme.Type.APIKEY)
+                                                .in(SecurityScheme.In.HEADER)
+                                                .description(
+                                                        "API key for machine-to-machine access"
+                                                                + " (issued via /api-keys)")));
     }
 }
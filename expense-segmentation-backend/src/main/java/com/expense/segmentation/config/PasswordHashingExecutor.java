@@ -0,0 +1,113 @@
+package com.expense.segmentation.config;
+
+import com.expense.segmentation.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded pool that runs password hashing off the request threads. BCrypt is deliberately slow, so
+ * a burst of logins could otherwise occupy every servlet thread and stall unrelated endpoints.
+ *
+ * <p>The pool has a fixed number of threads and a bounded queue. When both are full, {@link
+ * #execute(Callable)} fails fast with {@link TooManyRequestsException} instead of queueing more
+ * callers, which caps how many request threads can be waiting on hashing at any time. Pool size
+ * and queue depth are published as {@code executor.*} meters tagged {@code name=password-hashing}.
+ */
+@Slf4j
+public class PasswordHashingExecutor implements MeterBinder {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+
+    /**
+     * @param threads number of hashing threads, or 0 to use one per available processor
+     * @param queueCapacity how many hashing tasks may wait for a free thread
+     * @param retryAfter how long rejected clients are asked to wait before retrying
+     */
+    public PasswordHashingExecutor(int threads, int queueCapacity, Duration retryAfter) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor =
+                new ThreadPoolExecutor(
+                        poolSize,
+                        poolSize,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        new HashingThreadFactory(),
+                        new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+        log.info(
+                "Password hashing executor started with {} threads and queue capacity {}",
+                poolSize,
+                queueCapacity);
+    }
+
+    /**
+     * Runs the task on the hashing pool and waits for its result.
+     *
+     * @param task the hashing work
+     * @return the task result
+     * @throws TooManyRequestsException if the pool and its queue are full
+     */
+    public <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing queue is full, rejecting request");
+            throw new TooManyRequestsException(
+                    "Too many authentication requests. Please retry shortly.", retryAfter);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "password-hashing", List.of()).bindTo(registry);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
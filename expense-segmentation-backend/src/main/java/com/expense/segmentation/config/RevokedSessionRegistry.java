@@ -0,0 +1,77 @@
+package com.expense.segmentation.config;
+
+import com.expense.segmentation.repository.RefreshTokenRepository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks login sessions that were ended before their access tokens expired (logout, deactivation
+ * or refresh token reuse). The JWT filter consults it on every request without any I/O.
+ *
+ * <p>Every few seconds the set of sessions ended within the last access token lifetime is reloaded
+ * from the database into an immutable set, so sessions ended on other instances are picked up
+ * within one refresh interval. Sessions ended on this instance take effect immediately. Older
+ * sessions need no entry: their access tokens have expired anyway.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RevokedSessionRegistry {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.expiration}")
+    private long accessTokenTtlMillis;
+
+    private volatile Set<UUID> recentlyEnded = Set.of();
+
+    // Sessions ended by this instance, kept until their access tokens can no longer be valid
+    private final Map<UUID, Instant> locallyRevoked = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether access tokens of the given session must be rejected.
+     *
+     * @param sessionId the session ID from the token, or null for tokens without a session
+     * @return true if the session has been ended
+     */
+    public boolean isRevoked(UUID sessionId) {
+        if (sessionId == null) {
+            return false;
+        }
+        return recentlyEnded.contains(sessionId) || locallyRevoked.containsKey(sessionId);
+    }
+
+    /**
+     * Marks sessions as ended on this instance without waiting for the next refresh.
+     *
+     * @param sessionIds the ended sessions
+     */
+    public void revoke(Iterable<UUID> sessionIds) {
+        Instant keepUntil = Instant.now().plusMillis(accessTokenTtlMillis);
+        sessionIds.forEach(sessionId -> locallyRevoked.put(sessionId, keepUntil));
+    }
+
+    /** Reloads recently ended sessions from the database. */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        LocalDateTime since = LocalDateTime.now().minusNanos(accessTokenTtlMillis * 1_000_000L);
+        try {
+            recentlyEnded = Set.copyOf(refreshTokenRepository.findEndedSessionIdsSince(since));
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh revoked sessions, keeping previously loaded sessions", e);
+        }
+
+        Instant now = Instant.now();
+        locallyRevoked.values().removeIf(keepUntil -> keepUntil.isBefore(now));
+    }
+}
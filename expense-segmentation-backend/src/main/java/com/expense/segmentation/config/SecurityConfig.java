@@ -1,9 +1,11 @@
 package com.expense.segmentation.config;
 
 import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -15,8 +17,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -31,15 +33,33 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
     private final UserDetailsService userDetailsService;
 
+    @Value("${password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength = 10;
+
+    @Value("${password-hashing.threads:0}")
+    private int hashingThreads = 0;
+
+    @Value("${password-hashing.queue-capacity:64}")
+    private int hashingQueueCapacity = 64;
+
+    @Value("${password-hashing.retry-after:1s}")
+    private Duration hashingRetryAfter = Duration.ofSeconds(1);
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(
                         auth ->
-                                auth.requestMatchers("/health", "/auth/register", "/auth/login")
+                                auth.requestMatchers(
+                                                "/health",
+                                                "/auth/register",
+                                                "/auth/login",
+                                                "/auth/refresh",
+                                                "/auth/logout")
                                         .permitAll()
                                         .requestMatchers(
                                                 "/v3/api-docs/**",
@@ -58,6 +78,8 @@ public class SecurityConfig {
                 .sessionManagement(
                         session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider())
+                .addFilterBefore(
+                        apiKeyAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(
                         jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -78,9 +100,14 @@ public class SecurityConfig {
         return source;
     }
 
+    @Bean
+    public PasswordHashingExecutor passwordHashingExecutor() {
+        return new PasswordHashingExecutor(hashingThreads, hashingQueueCapacity, hashingRetryAfter);
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new OffloadingPasswordEncoder(bcryptStrength, passwordHashingExecutor());
     }
 
     @Bean
@@ -88,6 +115,10 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehash stored passwords whose BCrypt cost differs from the configured strength
+        if (userDetailsService instanceof UserDetailsPasswordService passwordService) {
+            authProvider.setUserDetailsPasswordService(passwordService);
+        }
         return authProvider;
     }
 
@@ -0,0 +1,128 @@
+package com.expense.segmentation.config;
+
+import com.expense.segmentation.repository.TokenEpochRow;
+import com.expense.segmentation.repository.UserRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-user token epochs, consulted by the JWT filter on every request without any I/O. Every access
+ * token carries the epoch that was current when it was issued; raising a user's epoch invalidates
+ * all of that user's outstanding tokens.
+ *
+ * <p>The epoch is stored in {@code users.token_epoch} and raised, with {@code
+ * token_epoch_raised_at}, in the transaction that changes the user. Only a raise within the access
+ * token lifetime can reject a token that has not expired anyway, so every few seconds just those
+ * epochs are reloaded from the database; this honours revocations on other instances and before a
+ * restart. Older raises drop out, and tokens are then judged by their expiry alone. Revocations on
+ * this instance take effect as soon as they commit.
+ */
+@Slf4j
+@Component
+public class TokenEpochRegistry {
+
+    // Allows for clocks of instances and database drifting apart
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    private final UserRepository userRepository;
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    private volatile Map<UUID, Long> loaded = Map.of();
+
+    // Epochs raised by this instance that the last reload did not reflect yet
+    private final Map<UUID, Raise> locallyRaised = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenEpochRegistry(
+            UserRepository userRepository, @Value("${jwt.expiration}") long accessTokenMillis) {
+        this(userRepository, accessTokenMillis, System::currentTimeMillis);
+    }
+
+    TokenEpochRegistry(UserRepository userRepository, long accessTokenMillis, LongSupplier clock) {
+        this.userRepository = userRepository;
+        this.windowMillis = accessTokenMillis + CLOCK_SKEW.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the latest epoch known for the given user.
+     *
+     * @param userId the user ID
+     * @return the current epoch (0 if the user's tokens were not revoked within the access token
+     *     lifetime)
+     */
+    public long currentEpoch(UUID userId) {
+        Raise raise = locallyRaised.get(userId);
+        return Math.max(loaded.getOrDefault(userId, 0L), raise != null ? raise.epoch() : 0L);
+    }
+
+    /**
+     * Checks whether a token issued with the given epoch is still valid for the user. A token newer
+     * than the known epoch was issued after a revocation this instance has not loaded yet, and is
+     * valid.
+     *
+     * @param userId the user ID from the token
+     * @param epoch the epoch claim from the token
+     * @return true if the token has not been revoked
+     */
+    public boolean isCurrent(UUID userId, long epoch) {
+        return epoch >= currentEpoch(userId);
+    }
+
+    /**
+     * Records a committed epoch raise, revoking every token issued to the user before it.
+     *
+     * @param userId the user ID
+     * @param epoch the user's new epoch
+     */
+    public void revokeTokens(UUID userId, long epoch) {
+        Raise raise = new Raise(epoch, clock.getAsLong());
+        locallyRaised.merge(
+                userId, raise, (kept, added) -> kept.epoch() >= added.epoch() ? kept : added);
+        log.info("Revoked tokens for user {} (epoch now {})", userId, epoch);
+    }
+
+    /** Reloads the epochs raised within the access token lifetime from the database. */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        long since = clock.getAsLong() - windowMillis;
+        try {
+            Map<UUID, Long> reloaded =
+                    userRepository
+                            .findTokenEpochsRaisedSince(
+                                    LocalDateTime.ofInstant(
+                                            Instant.ofEpochMilli(since), ZoneId.systemDefault()))
+                            .stream()
+                            .collect(
+                                    Collectors.toUnmodifiableMap(
+                                            TokenEpochRow::userId, TokenEpochRow::epoch));
+            loaded = reloaded;
+            // Raises the database already reflects, or too old to matter, need no local entry
+            locallyRaised
+                    .entrySet()
+                    .removeIf(
+                            entry ->
+                                    entry.getValue().epoch()
+                                                    <= reloaded.getOrDefault(entry.getKey(), 0L)
+                                            || entry.getValue().raisedAtMillis() < since);
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh token epochs, keeping previous epochs", e);
+        }
+    }
+
+    private record Raise(long epoch, long raisedAtMillis) {}
+}
@@ -0,0 +1,60 @@
+package com.expense.segmentation.controller;
+
+import com.expense.segmentation.dto.ApiKeyResponse;
+import com.expense.segmentation.dto.CreateApiKeyRequest;
+import com.expense.segmentation.service.ApiKeyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api-keys")
+@RequiredArgsConstructor
+@Tag(name = "API Keys", description = "API key management for machine-to-machine access")
+@SecurityRequirement(name = "bearerAuth")
+public class ApiKeyController {
+
+    private final ApiKeyService apiKeyService;
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Create API key",
+            description =
+                    "Admin only - issues a key acting on behalf of a user. The full key is only"
+                            + " returned in this response")
+    public ResponseEntity<ApiKeyResponse> createApiKey(
+            @Valid @RequestBody CreateApiKeyRequest request) {
+        log.info("POST /api-keys - Admin creating API key for user: {}", request.getUserId());
+        ApiKeyResponse response = apiKeyService.createApiKey(request);
+        log.info("POST /api-keys - API key created: {}", response.getPrefix());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get all API keys", description = "Admin only - secrets are never shown")
+    public ResponseEntity<List<ApiKeyResponse>> getAllApiKeys() {
+        log.info("GET /api-keys - Admin retrieving all API keys");
+        return ResponseEntity.ok(apiKeyService.getAllApiKeys());
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Revoke API key", description = "Admin only - the key stops working")
+    public ResponseEntity<Void> revokeApiKey(@PathVariable UUID id) {
+        log.info("DELETE /api-keys/{} - Admin revoking API key", id);
+        apiKeyService.revokeApiKey(id);
+        return ResponseEntity.noContent().build();
+    }
+}
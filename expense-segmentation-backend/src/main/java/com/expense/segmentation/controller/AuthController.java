@@ -1,10 +1,13 @@
 package com.expense.segmentation.controller;
 
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.dto.AuthResponse;
 import com.expense.segmentation.dto.LoginRequest;
+import com.expense.segmentation.dto.RefreshTokenRequest;
 import com.expense.segmentation.dto.RegisterRequest;
 import com.expense.segmentation.dto.UserResponse;
 import com.expense.segmentation.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,17 +34,33 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<AuthResponse> login(
+            @Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         log.info("POST /auth/login - Login request received for email: {}", request.getEmail());
-        AuthResponse response = authService.login(request);
+        // The client's address only when server.forward-headers-strategy matches the deployment
+        AuthResponse response = authService.login(request, httpRequest.getRemoteAddr());
         log.info("POST /auth/login - User logged in successfully: {}", request.getEmail());
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        log.debug("POST /auth/refresh - Token refresh request received");
+        AuthResponse response = authService.refresh(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        log.debug("POST /auth/logout - Logout request received");
+        authService.logout(request);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/me")
-    public ResponseEntity<UserResponse> getCurrentUser() {
+    public ResponseEntity<UserResponse> getCurrentUser(AuthenticatedUser currentUser) {
         log.debug("GET /auth/me - Fetching current user details");
-        UserResponse response = authService.getCurrentUser();
+        UserResponse response = authService.getCurrentUser(currentUser);
         return ResponseEntity.ok(response);
     }
 }
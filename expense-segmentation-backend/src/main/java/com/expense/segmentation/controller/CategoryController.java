@@ -38,7 +38,7 @@ public class CategoryController {
     }
 
     @PostMapping
-    @PreAuthorize("@expenseAuthorizationService.canManageCategories(authentication.name)")
+    @PreAuthorize("@expenseAuthorizationService.canManageCategories()")
     @Operation(
             summary = "Create new category",
             description =
@@ -52,7 +52,7 @@ public class CategoryController {
     }
 
     @DeleteMapping("/{id}")
-    @PreAuthorize("@expenseAuthorizationService.canManageCategories(authentication.name)")
+    @PreAuthorize("@expenseAuthorizationService.canManageCategories()")
     @Operation(
             summary = "Deactivate category",
             description =
@@ -12,12 +12,14 @@ import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 @Slf4j
@@ -48,10 +50,16 @@ public class ExpenseAttachmentController {
     @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'FINANCE', 'ADMIN')")
     @Operation(summary = "List attachments", description = "Get all attachments for an expense")
     public ResponseEntity<List<AttachmentResponse>> listAttachments(
-            @Parameter(description = "Expense ID") @PathVariable UUID expenseId) {
+            @Parameter(description = "Expense ID") @PathVariable UUID expenseId,
+            WebRequest webRequest) {
         log.info("GET /expenses/{}/attachments - Listing attachments", expenseId);
+        if (webRequest.checkNotModified(attachmentService.getAttachmentsETag(expenseId))) {
+            // The 304 status and ETag header are already set
+            log.debug("GET /expenses/{}/attachments - Not modified", expenseId);
+            return null;
+        }
         List<AttachmentResponse> attachments = attachmentService.getAttachmentsByExpense(expenseId);
-        return ResponseEntity.ok(attachments);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(attachments);
     }
 
     @GetMapping("/{attachmentId}")
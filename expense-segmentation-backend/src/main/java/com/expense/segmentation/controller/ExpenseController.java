@@ -1,5 +1,7 @@
 package com.expense.segmentation.controller;
 
+import com.expense.segmentation.dto.BulkExpenseSegmentsRequest;
+import com.expense.segmentation.dto.BulkExpenseSegmentsResponse;
 import com.expense.segmentation.dto.CreateExpenseRequest;
 import com.expense.segmentation.dto.CreateExpenseSegmentRequest;
 import com.expense.segmentation.dto.CreateMultipleExpenseSegmentsRequest;
@@ -8,6 +10,10 @@ import com.expense.segmentation.dto.ExpenseSegmentResponse;
 import com.expense.segmentation.dto.PagedExpenseResponse;
 import com.expense.segmentation.model.ExpenseStatus;
 import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.service.ExpenseExportFormat;
+import com.expense.segmentation.service.ExpenseExportService;
+import com.expense.segmentation.service.ExpenseInclude;
+import com.expense.segmentation.service.ExpenseSegmentBulkService;
 import com.expense.segmentation.service.ExpenseSegmentService;
 import com.expense.segmentation.service.ExpenseService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,14 +23,21 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -36,6 +49,8 @@ public class ExpenseController {
 
     private final ExpenseService expenseService;
     private final ExpenseSegmentService expenseSegmentService;
+    private final ExpenseExportService expenseExportService;
+    private final ExpenseSegmentBulkService expenseSegmentBulkService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'FINANCE', 'ADMIN')")
@@ -56,7 +71,9 @@ public class ExpenseController {
             summary = "Get expenses with pagination and filters",
             description =
                     "Retrieves expenses with pagination and optional filters. Employees see only"
-                            + " their own expenses. Finance and Admin see all expenses.")
+                            + " their own expenses. Finance and Admin see all expenses. Pass"
+                            + " nextCursor back as cursor for keyset paging that stays fast on"
+                            + " deep pages.")
     public ResponseEntity<PagedExpenseResponse> getExpenses(
             @Parameter(description = "Page number (0-indexed)", example = "0")
                     @RequestParam(defaultValue = "0")
@@ -76,18 +93,158 @@ public class ExpenseController {
                     ExpenseType type,
             @Parameter(description = "Filter by status", example = "SUBMITTED")
                     @RequestParam(required = false)
-                    ExpenseStatus status) {
+                    ExpenseStatus status,
+            @Parameter(
+                            description =
+                                    "Cursor from a previous response's nextCursor. When given,"
+                                            + " the page after that cursor is returned and the"
+                                            + " page number is only echoed back")
+                    @RequestParam(required = false)
+                    String cursor,
+            @Parameter(
+                            description =
+                                    "Slice mode: skip the total count and only report whether"
+                                            + " another page follows (last/nextCursor)")
+                    @RequestParam(defaultValue = "false")
+                    boolean slice,
+            @Parameter(
+                            description =
+                                    "Truncate descriptions to at most this many characters",
+                            example = "100")
+                    @RequestParam(required = false)
+                    Integer descriptionLength,
+            @Parameter(
+                            description =
+                                    "Child collections to embed in each expense:"
+                                            + " segments, attachments",
+                            example = "segments,attachments")
+                    @RequestParam(required = false)
+                    List<String> include) {
         log.info(
                 "GET /expenses - page: {}, size: {}, dateFrom: {}, dateTo: {}, type: {}, status:"
-                        + " {}",
+                        + " {}, cursor: {}, slice: {}, descriptionLength: {}, include: {}",
                 page,
                 size,
                 dateFrom,
                 dateTo,
                 type,
-                status);
+                status,
+                cursor,
+                slice,
+                descriptionLength,
+                include);
+        return ResponseEntity.ok(
+                expenseService.getExpensesWithFilters(
+                        page,
+                        size,
+                        dateFrom,
+                        dateTo,
+                        type,
+                        status,
+                        cursor,
+                        slice,
+                        descriptionLength,
+                        ExpenseInclude.parse(include)));
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'FINANCE', 'ADMIN')")
+    @Operation(
+            summary = "Search expenses",
+            description =
+                    "Full-text searches expense vendors and descriptions, best match first."
+                            + " Employees find only their own expenses. Finance and Admin search"
+                            + " all expenses. Pass nextCursor back as cursor for the next page.")
+    public ResponseEntity<PagedExpenseResponse> searchExpenses(
+            @Parameter(
+                            description =
+                                    "Search text; supports quoted phrases, OR and -term",
+                            example = "taxi airport")
+                    @RequestParam(required = false)
+                    String q,
+            @Parameter(description = "Page size", example = "10") @RequestParam(defaultValue = "10")
+                    int size,
+            @Parameter(description = "Cursor from a previous response's nextCursor")
+                    @RequestParam(required = false)
+                    String cursor,
+            @Parameter(
+                            description =
+                                    "Truncate descriptions to at most this many characters",
+                            example = "100")
+                    @RequestParam(required = false)
+                    Integer descriptionLength) {
+        log.info(
+                "GET /expenses/search - q: {}, size: {}, cursor: {}, descriptionLength: {}",
+                q,
+                size,
+                cursor,
+                descriptionLength);
         return ResponseEntity.ok(
-                expenseService.getExpensesWithFilters(page, size, dateFrom, dateTo, type, status));
+                expenseService.searchExpenses(q, size, cursor, descriptionLength));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'FINANCE', 'ADMIN')")
+    @Operation(
+            summary = "Export expenses",
+            description =
+                    "Streams all expenses matching the filters as CSV or NDJSON in a single"
+                            + " response. Employees export only their own expenses. Finance and"
+                            + " Admin export all expenses.")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(
+            @Parameter(description = "Output format: csv or ndjson", example = "csv")
+                    @RequestParam(defaultValue = "csv")
+                    String format,
+            @Parameter(description = "Filter by date from (inclusive)", example = "2024-01-01")
+                    @RequestParam(required = false)
+                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate dateFrom,
+            @Parameter(description = "Filter by date to (inclusive)", example = "2024-12-31")
+                    @RequestParam(required = false)
+                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate dateTo,
+            @Parameter(description = "Filter by expense type", example = "EXPENSE")
+                    @RequestParam(required = false)
+                    ExpenseType type,
+            @Parameter(description = "Filter by status", example = "SUBMITTED")
+                    @RequestParam(required = false)
+                    ExpenseStatus status,
+            @Parameter(
+                            description =
+                                    "Include segments: one CSV line per segment, or a segments"
+                                            + " array per NDJSON line")
+                    @RequestParam(defaultValue = "false")
+                    boolean segments,
+            @Parameter(
+                            description =
+                                    "Read with several workers from one database snapshot;"
+                                            + " rows are then ordered by ID. Only a few run at"
+                                            + " once; further requests get 429")
+                    @RequestParam(defaultValue = "false")
+                    boolean parallel) {
+        log.info(
+                "GET /expenses/export - format: {}, dateFrom: {}, dateTo: {}, type: {}, status:"
+                        + " {}, segments: {}, parallel: {}",
+                format,
+                dateFrom,
+                dateTo,
+                type,
+                status,
+                segments,
+                parallel);
+        ExpenseExportFormat exportFormat = ExpenseExportFormat.parse(format);
+        StreamingResponseBody body =
+                expenseExportService.export(
+                        exportFormat, dateFrom, dateTo, type, status, segments, parallel);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment()
+                                .filename("expenses." + exportFormat.getFileExtension())
+                                .build()
+                                .toString())
+                .body(body);
     }
 
     @GetMapping("/{id}")
@@ -95,9 +252,26 @@ public class ExpenseController {
     @Operation(
             summary = "Get expense by ID",
             description = "Retrieves a specific expense or invoice by its ID")
-    public ResponseEntity<ExpenseResponse> getExpenseById(@PathVariable UUID id) {
+    public ResponseEntity<ExpenseResponse> getExpenseById(
+            @PathVariable UUID id,
+            @Parameter(
+                            description =
+                                    "Child collections to embed in the expense:"
+                                            + " segments, attachments",
+                            example = "segments,attachments")
+                    @RequestParam(required = false)
+                    List<String> include,
+            WebRequest webRequest) {
         log.info("GET /expenses/{} - Retrieving expense", id);
-        return ResponseEntity.ok(expenseService.getExpenseById(id));
+        Set<ExpenseInclude> includes = ExpenseInclude.parse(include);
+        if (webRequest.checkNotModified(expenseService.getExpenseETag(id, includes))) {
+            // The 304 status and ETag header are already set
+            log.debug("GET /expenses/{} - Not modified", id);
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(expenseService.getExpenseById(id, includes));
     }
 
     @GetMapping("/user/{userId}")
@@ -105,11 +279,70 @@ public class ExpenseController {
     @Operation(
             summary = "Get expenses by user",
             description =
-                    "Retrieves expenses for a specific user. Users can only view their own expenses"
-                            + " unless they have FINANCE or ADMIN role")
-    public ResponseEntity<List<ExpenseResponse>> getExpensesByUser(@PathVariable UUID userId) {
-        log.info("GET /expenses/user/{} - Retrieving expenses for user", userId);
-        return ResponseEntity.ok(expenseService.getExpensesByUser(userId));
+                    "Retrieves one page of a user's expenses, newest first. Users can only view"
+                            + " their own expenses unless they have FINANCE or ADMIN role. Pass"
+                            + " nextCursor back as cursor for the next page.")
+    public ResponseEntity<PagedExpenseResponse> getExpensesByUser(
+            @PathVariable UUID userId,
+            @Parameter(description = "Page size", example = "10") @RequestParam(defaultValue = "10")
+                    int size,
+            @Parameter(description = "Cursor from a previous response's nextCursor")
+                    @RequestParam(required = false)
+                    String cursor,
+            @Parameter(description = "Filter by date from (inclusive)", example = "2024-01-01")
+                    @RequestParam(required = false)
+                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate dateFrom,
+            @Parameter(description = "Filter by date to (inclusive)", example = "2024-12-31")
+                    @RequestParam(required = false)
+                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate dateTo,
+            @Parameter(
+                            description =
+                                    "Truncate descriptions to at most this many characters",
+                            example = "100")
+                    @RequestParam(required = false)
+                    Integer descriptionLength) {
+        log.info(
+                "GET /expenses/user/{} - size: {}, cursor: {}, dateFrom: {}, dateTo: {},"
+                        + " descriptionLength: {}",
+                userId,
+                size,
+                cursor,
+                dateFrom,
+                dateTo,
+                descriptionLength);
+        return ResponseEntity.ok(
+                expenseService.getExpensesByUser(
+                        userId, size, cursor, dateFrom, dateTo, descriptionLength));
+    }
+
+    @GetMapping("/user/{userId}/stream")
+    @PreAuthorize("hasAnyRole('MANAGER', 'FINANCE', 'ADMIN')")
+    @Operation(
+            summary = "Stream expenses by user",
+            description =
+                    "Streams all of a user's expenses matching the dates as one JSON array,"
+                            + " newest first, without paging. Users can only view their own"
+                            + " expenses unless they have FINANCE or ADMIN role")
+    public ResponseEntity<StreamingResponseBody> streamExpensesByUser(
+            @PathVariable UUID userId,
+            @Parameter(description = "Filter by date from (inclusive)", example = "2024-01-01")
+                    @RequestParam(required = false)
+                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate dateFrom,
+            @Parameter(description = "Filter by date to (inclusive)", example = "2024-12-31")
+                    @RequestParam(required = false)
+                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate dateTo) {
+        log.info(
+                "GET /expenses/user/{}/stream - dateFrom: {}, dateTo: {}",
+                userId,
+                dateFrom,
+                dateTo);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(expenseExportService.streamExpensesByUser(userId, dateFrom, dateTo));
     }
 
     @GetMapping("/{id}/segments")
@@ -117,13 +350,20 @@ public class ExpenseController {
     @Operation(
             summary = "Get expense segments",
             description = "Retrieves the segment breakdown for a specific expense")
-    public ResponseEntity<List<ExpenseSegmentResponse>> getExpenseSegments(@PathVariable UUID id) {
+    public ResponseEntity<List<ExpenseSegmentResponse>> getExpenseSegments(
+            @PathVariable UUID id, WebRequest webRequest) {
         log.info("GET /expenses/{}/segments - Retrieving expense segments", id);
-        return ResponseEntity.ok(expenseSegmentService.getSegmentsByExpenseId(id));
+        if (webRequest.checkNotModified(expenseSegmentService.getSegmentsETag(id))) {
+            log.debug("GET /expenses/{}/segments - Not modified", id);
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(expenseSegmentService.getSegmentsByExpenseId(id));
     }
 
     @PostMapping("/{id}/segments")
-    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id, authentication.name)")
+    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id)")
     @Operation(
             summary = "Add expense segment",
             description =
@@ -138,7 +378,7 @@ public class ExpenseController {
     }
 
     @PostMapping("/{id}/segments/batch")
-    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id, authentication.name)")
+    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id)")
     @Operation(
             summary = "Add multiple expense segments",
             description =
@@ -153,8 +393,25 @@ public class ExpenseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responses);
     }
 
+    @PostMapping("/segments/bulk")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'FINANCE', 'ADMIN')")
+    @Operation(
+            summary = "Replace segments of many expenses",
+            description =
+                    "Replaces the segments of up to 5000 expenses in one request, with the same"
+                            + " rules as PUT /expenses/{id}/segments applied to each. Expenses"
+                            + " are authorized and validated individually and reported in"
+                            + " request order; one that is rejected does not stop the others.")
+    public ResponseEntity<BulkExpenseSegmentsResponse> replaceSegmentsInBulk(
+            @Valid @RequestBody BulkExpenseSegmentsRequest request) {
+        log.info(
+                "POST /expenses/segments/bulk - Replacing segments of {} expenses",
+                request.getExpenses().size());
+        return ResponseEntity.ok(expenseSegmentBulkService.replaceSegments(request));
+    }
+
     @PutMapping("/{id}/segments")
-    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id, authentication.name)")
+    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id)")
     @Operation(
             summary = "Replace all expense segments",
             description =
@@ -170,7 +427,7 @@ public class ExpenseController {
     }
 
     @PutMapping("/{id}/segments/{segmentId}")
-    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id, authentication.name)")
+    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id)")
     @Operation(
             summary = "Update expense segment",
             description =
@@ -187,7 +444,7 @@ public class ExpenseController {
     }
 
     @DeleteMapping("/{id}/segments/{segmentId}")
-    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id, authentication.name)")
+    @PreAuthorize("@expenseAuthorizationService.canModifySegments(#id)")
     @Operation(
             summary = "Delete expense segment",
             description =
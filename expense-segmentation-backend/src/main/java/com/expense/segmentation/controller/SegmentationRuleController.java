@@ -0,0 +1,75 @@
+package com.expense.segmentation.controller;
+
+import com.expense.segmentation.dto.CreateSegmentationRuleRequest;
+import com.expense.segmentation.dto.SegmentationRuleResponse;
+import com.expense.segmentation.service.SegmentationRuleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/segmentation-rules")
+@RequiredArgsConstructor
+@Tag(
+        name = "Segmentation Rules",
+        description = "Rules that split new expenses into segments automatically")
+@SecurityRequirement(name = "bearerAuth")
+public class SegmentationRuleController {
+
+    private final SegmentationRuleService segmentationRuleService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get all segmentation rules",
+            description = "Admin only - lists active and inactive rules in priority order")
+    public ResponseEntity<List<SegmentationRuleResponse>> getAllRules() {
+        log.info("GET /segmentation-rules - Admin retrieving all segmentation rules");
+        return ResponseEntity.ok(segmentationRuleService.getAllRules());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Create segmentation rule",
+            description =
+                    "Admin only - new expenses whose vendor and description contain the rule's"
+                            + " patterns are split into its allocations. The lowest priority"
+                            + " wins when several rules match")
+    public ResponseEntity<SegmentationRuleResponse> createRule(
+            @Valid @RequestBody CreateSegmentationRuleRequest request) {
+        log.info("POST /segmentation-rules - Admin creating rule: {}", request.getName());
+        SegmentationRuleResponse response = segmentationRuleService.createRule(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Update segmentation rule", description = "Admin only - replaces the rule")
+    public ResponseEntity<SegmentationRuleResponse> updateRule(
+            @PathVariable UUID id, @Valid @RequestBody CreateSegmentationRuleRequest request) {
+        log.info("PUT /segmentation-rules/{} - Admin updating rule", id);
+        return ResponseEntity.ok(segmentationRuleService.updateRule(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Delete segmentation rule",
+            description = "Admin only - segments the rule already created are kept")
+    public ResponseEntity<Void> deleteRule(@PathVariable UUID id) {
+        log.info("DELETE /segmentation-rules/{} - Admin deleting rule", id);
+        segmentationRuleService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+}
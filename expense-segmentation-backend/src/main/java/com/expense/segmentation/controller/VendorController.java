@@ -0,0 +1,61 @@
+package com.expense.segmentation.controller;
+
+import com.expense.segmentation.dto.CreateVendorAliasRequest;
+import com.expense.segmentation.dto.VendorResponse;
+import com.expense.segmentation.service.VendorService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/vendors")
+@RequiredArgsConstructor
+@Tag(name = "Vendor Directory", description = "Canonical vendor lookup APIs")
+@SecurityRequirement(name = "bearerAuth")
+public class VendorController {
+
+    private final VendorService vendorService;
+
+    @GetMapping("/autocomplete")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'MANAGER', 'FINANCE', 'ADMIN')")
+    @Operation(
+            summary = "Autocomplete vendor names",
+            description =
+                    "Suggests canonical vendors for a typed prefix, the caller's most-used"
+                            + " vendors first. Served from memory.")
+    public ResponseEntity<List<VendorResponse>> autocomplete(
+            @Parameter(description = "Text typed so far", example = "ub")
+                    @RequestParam(defaultValue = "")
+                    String prefix,
+            @Parameter(description = "Maximum number of suggestions (1-10)", example = "10")
+                    @RequestParam(defaultValue = "10")
+                    int limit) {
+        log.debug("GET /vendors/autocomplete - prefix: {}, limit: {}", prefix, limit);
+        return ResponseEntity.ok(vendorService.autocomplete(prefix, limit));
+    }
+
+    @PostMapping("/{id}/aliases")
+    @PreAuthorize("hasAnyRole('FINANCE', 'ADMIN')")
+    @Operation(
+            summary = "Add vendor alias",
+            description =
+                    "Maps another spelling onto a canonical vendor, so expenses entered with it"
+                            + " resolve to that vendor. Only finance and admin users can add"
+                            + " aliases.")
+    public ResponseEntity<VendorResponse> addAlias(
+            @PathVariable UUID id, @Valid @RequestBody CreateVendorAliasRequest request) {
+        log.info("POST /vendors/{}/aliases - Adding alias: {}", id, request.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(vendorService.addAlias(id, request));
+    }
+}
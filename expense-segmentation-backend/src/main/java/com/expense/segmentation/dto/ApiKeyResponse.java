@@ -0,0 +1,28 @@
+package com.expense.segmentation.dto;
+
+import com.expense.segmentation.model.RoleType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApiKeyResponse {
+    private UUID id;
+    private String name;
+    private String prefix;
+    private UUID userId;
+    private String userEmail;
+    private RoleType role;
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime revokedAt;
+
+    /** The full key. Only returned when the key is created; it cannot be retrieved later. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String key;
+}
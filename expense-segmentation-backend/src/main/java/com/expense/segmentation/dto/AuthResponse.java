@@ -11,10 +11,17 @@ public class AuthResponse {
 
     private String token;
     private String type = "Bearer";
+    private String refreshToken;
     private UserResponse user;
 
     public AuthResponse(String token, UserResponse user) {
         this.token = token;
         this.user = user;
     }
+
+    public AuthResponse(String token, String refreshToken, UserResponse user) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.user = user;
+    }
 }
@@ -0,0 +1,20 @@
+package com.expense.segmentation.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkExpenseSegmentsRequest {
+
+    @NotEmpty(message = "At least one expense is required")
+    @Size(max = 5000, message = "Cannot segment more than 5000 expenses at once")
+    @Valid
+    private List<ExpenseSegmentsItem> expenses;
+}
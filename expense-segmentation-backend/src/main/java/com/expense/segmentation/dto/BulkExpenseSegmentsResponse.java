@@ -0,0 +1,23 @@
+package com.expense.segmentation.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkExpenseSegmentsResponse {
+
+    /** Number of expenses whose segments were replaced. */
+    private int updated;
+
+    /** Number of expenses left unchanged because of an error. */
+    private int failed;
+
+    /** One result per requested expense, in request order. */
+    private List<ExpenseSegmentsResult> results;
+}
@@ -0,0 +1,31 @@
+package com.expense.segmentation.dto;
+
+import com.expense.segmentation.model.RoleType;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateApiKeyRequest {
+
+    @NotBlank(message = "API key name is required")
+    @Size(max = 100, message = "API key name must not exceed 100 characters")
+    private String name;
+
+    @NotNull(message = "User ID is required")
+    private UUID userId;
+
+    /** Role the key acts with; defaults to the owner's role. */
+    private RoleType role;
+
+    @Future(message = "Expiry must be in the future")
+    private LocalDateTime expiresAt;
+}
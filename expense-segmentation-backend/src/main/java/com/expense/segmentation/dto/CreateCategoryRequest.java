@@ -12,7 +12,7 @@ import lombok.NoArgsConstructor;
 public class CreateCategoryRequest {
 
     @NotBlank(message = "Category name is required")
-    @Size(max = 50, message = "Category name must not exceed 50 characters")
+    @Size(max = 100, message = "Category name must not exceed 100 characters")
     private String name;
 
     @Size(max = 255, message = "Description must not exceed 255 characters")
@@ -0,0 +1,37 @@
+package com.expense.segmentation.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateSegmentationRuleRequest {
+
+    @NotBlank(message = "Rule name is required")
+    @Size(max = 100, message = "Rule name must not exceed 100 characters")
+    private String name;
+
+    @Size(max = 255, message = "Vendor pattern must not exceed 255 characters")
+    private String vendorPattern;
+
+    @Size(max = 255, message = "Description pattern must not exceed 255 characters")
+    private String descriptionPattern;
+
+    /** Lower values win when several rules match; defaults to 0. */
+    private Integer priority;
+
+    /** Defaults to true. */
+    private Boolean active;
+
+    @NotEmpty(message = "At least one allocation is required")
+    @Size(max = 20, message = "A rule can split into at most 20 segments")
+    @Valid
+    private List<SegmentAllocationRequest> allocations;
+}
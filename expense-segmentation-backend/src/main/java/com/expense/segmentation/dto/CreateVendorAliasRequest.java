@@ -0,0 +1,17 @@
+package com.expense.segmentation.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateVendorAliasRequest {
+
+    @NotBlank(message = "Alias name is required")
+    @Size(max = 255, message = "Alias name must not exceed 255 characters")
+    private String name;
+}
@@ -2,9 +2,11 @@ package com.expense.segmentation.dto;
 
 import com.expense.segmentation.model.ExpenseStatus;
 import com.expense.segmentation.model.ExpenseType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -29,4 +31,12 @@ public class ExpenseResponse {
     private ExpenseStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    /** Segments of the expense; only present when requested with include=segments. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ExpenseSegmentResponse> segments;
+
+    /** Attachment metadata of the expense; only present when requested with include=attachments. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<AttachmentResponse> attachments;
 }
@@ -0,0 +1,26 @@
+package com.expense.segmentation.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The complete set of segments one expense should end up with. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseSegmentsItem {
+
+    @NotNull(message = "Expense ID is required")
+    private UUID expenseId;
+
+    @NotEmpty(message = "At least one segment is required")
+    @Size(max = 20, message = "Cannot create more than 20 segments at once")
+    @Valid
+    private List<CreateExpenseSegmentRequest> segments;
+}
@@ -0,0 +1,34 @@
+package com.expense.segmentation.dto;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseSegmentsResult {
+
+    private UUID expenseId;
+    private Status status;
+
+    /** Number of segments the expense now has, or null if it was not updated. */
+    private Integer segmentCount;
+
+    /** Why the expense was not updated, or null if it was. */
+    private String message;
+
+    public enum Status {
+        /** Segments replaced. */
+        UPDATED,
+        /** No expense with this ID. */
+        NOT_FOUND,
+        /** The caller may not modify this expense's segments. */
+        FORBIDDEN,
+        /** The segments break a validation rule; see the message. */
+        INVALID,
+        /** Valid, but the write failed; retrying may succeed. */
+        FAILED
+    }
+}
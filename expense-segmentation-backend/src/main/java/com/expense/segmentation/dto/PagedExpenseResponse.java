@@ -15,8 +15,28 @@ public class PagedExpenseResponse {
     private List<ExpenseResponse> expenses;
     private int page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+
+    /** Total number of matching expenses, or null in slice mode. */
+    private Long totalElements;
+
+    /** Total number of pages, or null in slice mode. */
+    private Integer totalPages;
+
+    /** Where {@link #totalElements} came from. */
+    private TotalSource totalSource;
+
     private boolean first;
     private boolean last;
+
+    /** Opaque cursor for the page after this one, or null on the last page. */
+    private String nextCursor;
+
+    public enum TotalSource {
+        /** Counted for this request. */
+        EXACT,
+        /** Served from a short-lived cache; may lag recent changes made by other instances. */
+        CACHED,
+        /** Not computed because the client asked for a slice. */
+        NONE
+    }
 }
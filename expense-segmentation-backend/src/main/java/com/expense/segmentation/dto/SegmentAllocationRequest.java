@@ -0,0 +1,28 @@
+package com.expense.segmentation.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SegmentAllocationRequest {
+
+    @NotBlank(message = "Category is required")
+    @Size(max = 100, message = "Category must not exceed 100 characters")
+    private String category;
+
+    @NotNull(message = "Percentage is required")
+    @Digits(integer = 3, fraction = 2, message = "Percentage must have at most 2 decimal places")
+    @DecimalMin(value = "0.01", message = "Percentage must be positive")
+    @DecimalMax(value = "100.00", message = "Percentage must not exceed 100")
+    private BigDecimal percentage;
+}
@@ -0,0 +1,23 @@
+package com.expense.segmentation.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SegmentationRuleResponse {
+    private UUID id;
+    private String name;
+    private String vendorPattern;
+    private String descriptionPattern;
+    private Integer priority;
+    private Boolean active;
+    private List<SegmentAllocationRequest> allocations;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
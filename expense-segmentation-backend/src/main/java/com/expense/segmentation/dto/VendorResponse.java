@@ -0,0 +1,14 @@
+package com.expense.segmentation.dto;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorResponse {
+    private UUID id;
+    private String name;
+}
@@ -0,0 +1,12 @@
+package com.expense.segmentation.exception;
+
+/**
+ * Exception thrown when a refresh token is unknown, expired, revoked or reused. This typically
+ * results in an HTTP 401 Unauthorized response.
+ */
+public class InvalidTokenException extends BusinessException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.expense.segmentation.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when the server is temporarily unable to accept more work of a given kind. This
+ * typically results in an HTTP 429 Too Many Requests response with a Retry-After header.
+ */
+public class TooManyRequestsException extends BusinessException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,38 @@
+package com.expense.segmentation.mapper;
+
+import com.expense.segmentation.dto.ApiKeyResponse;
+import com.expense.segmentation.model.ApiKey;
+import org.springframework.stereotype.Component;
+
+/** Mapper class for converting ApiKey entities to ApiKeyResponse DTOs. Never exposes secrets. */
+@Component
+public class ApiKeyMapper {
+
+    /**
+     * Converts an ApiKey entity to an ApiKeyResponse DTO.
+     *
+     * @param apiKey the API key entity to convert
+     * @return the converted ApiKeyResponse DTO
+     */
+    public ApiKeyResponse toResponse(ApiKey apiKey) {
+        if (apiKey == null) {
+            return null;
+        }
+
+        ApiKeyResponse response = new ApiKeyResponse();
+        response.setId(apiKey.getId());
+        response.setName(apiKey.getName());
+        response.setPrefix(apiKey.getPrefix());
+        response.setRole(apiKey.getRole());
+        response.setExpiresAt(apiKey.getExpiresAt());
+        response.setCreatedAt(apiKey.getCreatedAt());
+        response.setRevokedAt(apiKey.getRevokedAt());
+
+        if (apiKey.getUser() != null) {
+            response.setUserId(apiKey.getUser().getId());
+            response.setUserEmail(apiKey.getUser().getEmail());
+        }
+
+        return response;
+    }
+}
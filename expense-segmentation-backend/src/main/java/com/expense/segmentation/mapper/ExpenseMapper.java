@@ -2,6 +2,7 @@ package com.expense.segmentation.mapper;
 
 import com.expense.segmentation.dto.ExpenseResponse;
 import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.repository.ExpenseListRow;
 import org.springframework.stereotype.Component;
 
 /**
@@ -39,4 +40,31 @@ public class ExpenseMapper {
                 .updatedAt(expense.getUpdatedAt())
                 .build();
     }
+
+    /**
+     * Converts an expense list row projection to an ExpenseResponse DTO.
+     *
+     * @param row the projected row to convert
+     * @return the converted ExpenseResponse DTO
+     */
+    public ExpenseResponse toResponse(ExpenseListRow row) {
+        if (row == null) {
+            return null;
+        }
+
+        return ExpenseResponse.builder()
+                .id(row.id())
+                .date(row.date())
+                .vendor(row.vendor())
+                .amount(row.amount())
+                .description(row.description())
+                .type(row.type())
+                .createdById(row.createdById())
+                .createdByName(row.createdByName())
+                .createdByEmail(row.createdByEmail())
+                .status(row.status())
+                .createdAt(row.createdAt())
+                .updatedAt(row.updatedAt())
+                .build();
+    }
 }
@@ -0,0 +1,36 @@
+package com.expense.segmentation.mapper;
+
+import com.expense.segmentation.dto.SegmentAllocationRequest;
+import com.expense.segmentation.dto.SegmentationRuleResponse;
+import com.expense.segmentation.model.SegmentationRule;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SegmentationRuleMapper {
+
+    public SegmentationRuleResponse toResponse(SegmentationRule rule) {
+        SegmentationRuleResponse response = new SegmentationRuleResponse();
+        response.setId(rule.getId());
+        response.setName(rule.getName());
+        response.setVendorPattern(rule.getVendorPattern());
+        response.setDescriptionPattern(rule.getDescriptionPattern());
+        response.setPriority(rule.getPriority());
+        response.setActive(rule.getActive());
+        response.setAllocations(
+                rule.getAllocations().stream()
+                        .map(
+                                allocation ->
+                                        new SegmentAllocationRequest(
+                                                allocation.getCategory(),
+                                                allocation.getPercentage()))
+                        .toList());
+        response.setCreatedAt(rule.getCreatedAt());
+        response.setUpdatedAt(rule.getUpdatedAt());
+        return response;
+    }
+
+    public List<SegmentationRuleResponse> toResponseList(List<SegmentationRule> rules) {
+        return rules.stream().map(this::toResponse).toList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.expense.segmentation.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * An API key for machine-to-machine access. The key acts on behalf of its owning user, limited to
+ * the key's role. It is presented as {@code esk_<prefix><secret>}: the prefix identifies the key
+ * and only the SHA-256 hash of the secret is stored.
+ */
+@Entity
+@Table(
+        name = "api_keys",
+        indexes = {@Index(name = "idx_api_keys_user_id", columnList = "user_id")})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApiKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(nullable = false, unique = true, length = 12)
+    private String prefix;
+
+    @Column(name = "secret_hash", nullable = false, length = 64)
+    private String secretHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private RoleType role;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+}
@@ -15,8 +15,17 @@ import org.hibernate.annotations.UpdateTimestamp;
 @Table(
         name = "expenses",
         indexes = {
-            @Index(name = "idx_expenses_created_by", columnList = "created_by"),
-            @Index(name = "idx_expenses_date", columnList = "date")
+            @Index(
+                    name = "idx_expenses_date_created_at_id",
+                    columnList = "date DESC, created_at DESC, id DESC"),
+            @Index(
+                    name = "idx_expenses_created_by_date",
+                    columnList = "created_by, date DESC, created_at DESC, id DESC"),
+            @Index(
+                    name = "idx_expenses_status_date",
+                    columnList = "status, date DESC, created_at DESC, id DESC"),
+            @Index(name = "idx_expenses_type", columnList = "type"),
+            @Index(name = "idx_expenses_vendor_id", columnList = "vendor_id")
         })
 @Data
 @NoArgsConstructor
@@ -33,6 +42,11 @@ public class Expense {
     @Column(nullable = false, length = 255)
     private String vendor;
 
+    /** Directory entry the free-text {@link #vendor} resolved to when the expense was created. */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vendor_id")
+    private Vendor canonicalVendor;
+
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal amount;
 
@@ -58,4 +72,8 @@ public class Expense {
     @UpdateTimestamp
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
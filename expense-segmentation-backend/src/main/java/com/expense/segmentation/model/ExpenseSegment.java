@@ -15,7 +15,7 @@ import org.hibernate.annotations.UpdateTimestamp;
         name = "expense_segments",
         indexes = {
             @Index(name = "idx_expense_segments_expense_id", columnList = "expense_id"),
-            @Index(name = "idx_expense_segments_category", columnList = "category")
+            @Index(name = "idx_expense_segments_category_id", columnList = "category_id")
         })
 @Data
 @NoArgsConstructor
@@ -30,9 +30,14 @@ public class ExpenseSegment {
     @JoinColumn(name = "expense_id", nullable = false)
     private Expense expense;
 
+    /** Display name of the category, as spelled in the categories table when written. */
     @Column(nullable = false, length = 100)
     private String category;
 
+    /** The category; always set by segment writes, which resolve it by name. */
+    @Column(name = "category_id")
+    private UUID categoryId;
+
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal amount;
 
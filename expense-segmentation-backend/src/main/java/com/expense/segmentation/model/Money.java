@@ -0,0 +1,135 @@
+package com.expense.segmentation.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of cents, the precision of the DECIMAL(19,2) amount
+ * columns. Arithmetic is exact long arithmetic and fails with {@link ArithmeticException} rather
+ * than overflow. Entities and DTOs keep {@link BigDecimal}; convert with {@link #of} and {@link
+ * #toBigDecimal} at the edges.
+ *
+ * @param cents the amount in cents
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+
+    // A percentage with two decimals is a whole number of basis points out of this
+    private static final long BASIS_POINTS = 10_000;
+
+    /**
+     * Converts an amount, rounding half up to cents as a DECIMAL(19,2) column stores it.
+     *
+     * @param amount the amount
+     * @return the amount in cents
+     * @throws ArithmeticException if the amount does not fit in a long number of cents
+     */
+    public static Money of(BigDecimal amount) {
+        BigDecimal rounded = amount.setScale(SCALE, RoundingMode.HALF_UP);
+        return new Money(rounded.unscaledValue().longValueExact());
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(cents, other.cents));
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return cents > other.cents;
+    }
+
+    /**
+     * The share this amount is of a total, as a percentage with two decimals rounded half up.
+     *
+     * @param total the total
+     * @return the percentage, zero if the total is zero
+     */
+    public BigDecimal percentOf(Money total) {
+        if (total.cents == 0) {
+            return BigDecimal.ZERO;
+        }
+        long numerator = Math.multiplyExact(cents, BASIS_POINTS);
+        long quotient = numerator / total.cents;
+        long remainder = numerator % total.cents;
+        // Half up: away from zero when the remainder is at least half the divisor
+        if (Math.abs(remainder) >= Math.abs(total.cents) - Math.abs(remainder)) {
+            quotient += Long.signum(numerator) * Long.signum(total.cents);
+        }
+        return BigDecimal.valueOf(quotient, SCALE);
+    }
+
+    /**
+     * Splits this amount into shares proportional to the given weights. Each share is rounded down
+     * to whole cents and the cents left over go one each to the shares with the largest remainders,
+     * earlier shares first on ties, so the shares always add up to this amount exactly.
+     *
+     * @param weights non-negative weights, at least one of them positive; for percentages with two
+     *     decimals, pass basis points
+     * @return the shares, in the order of the weights
+     * @throws IllegalArgumentException if this amount is negative or the weights are invalid
+     */
+    public Money[] allocate(long... weights) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Cannot allocate a negative amount: " + this);
+        }
+        long totalWeight = 0;
+        for (long weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Allocation weights must not be negative");
+            }
+            totalWeight = Math.addExact(totalWeight, weight);
+        }
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("At least one allocation weight must be positive");
+        }
+
+        long[] shares = new long[weights.length];
+        long[] remainders = new long[weights.length];
+        long allocated = 0;
+        for (int i = 0; i < weights.length; i++) {
+            long exact = Math.multiplyExact(cents, weights[i]);
+            shares[i] = exact / totalWeight;
+            remainders[i] = exact % totalWeight;
+            allocated += shares[i];
+        }
+
+        // Fewer cents are left over than there are shares, so each share gets at most one
+        for (long left = cents - allocated; left > 0; left--) {
+            int largest = 0;
+            for (int i = 1; i < weights.length; i++) {
+                if (remainders[i] > remainders[largest]) {
+                    largest = i;
+                }
+            }
+            shares[largest]++;
+            remainders[largest] = -1;
+        }
+
+        Money[] money = new Money[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            money[i] = new Money(shares[i]);
+        }
+        return money;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    /** The amount with two decimals, e.g. {@code 12.50}. */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
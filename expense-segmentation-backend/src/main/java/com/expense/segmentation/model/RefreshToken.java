@@ -0,0 +1,55 @@
+package com.expense.segmentation.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * A single-use refresh token. Every login starts a new session; each refresh revokes the presented
+ * token and issues a successor in the same session. Only the SHA-256 hash of the token is stored.
+ */
+@Entity
+@Table(
+        name = "refresh_tokens",
+        indexes = {
+            @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id"),
+            @Index(name = "idx_refresh_tokens_session_id", columnList = "session_id"),
+            @Index(name = "idx_refresh_tokens_revoked_at", columnList = "revoked_at")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "session_id", nullable = false)
+    private UUID sessionId;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    public boolean isActive(LocalDateTime now) {
+        return revokedAt == null && expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,31 @@
+package com.expense.segmentation.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.math.BigDecimal;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One share of a {@link SegmentationRule}'s split: a category and its percentage. The category is
+ * referenced by ID, so a rule keeps applying when the category is renamed.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SegmentAllocation {
+
+    /** The category the share goes to. */
+    @Column(name = "category_id", nullable = false)
+    private UUID categoryId;
+
+    /** Display name of the category, as spelled in the categories table when written. */
+    @Column(nullable = false, length = 100)
+    private String category;
+
+    @Column(nullable = false, precision = 5, scale = 2)
+    private BigDecimal percentage;
+}
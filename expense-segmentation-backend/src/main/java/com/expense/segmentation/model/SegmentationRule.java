@@ -0,0 +1,59 @@
+package com.expense.segmentation.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+@Entity
+@Table(
+        name = "segmentation_rules",
+        indexes = {@Index(name = "idx_segmentation_rules_active", columnList = "active")})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SegmentationRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    /** Words that must occur in the expense vendor; null matches any vendor. */
+    @Column(length = 255)
+    private String vendorPattern;
+
+    /** Words that must occur in the expense description; null matches any description. */
+    @Column(length = 255)
+    private String descriptionPattern;
+
+    /** Lower values win when several rules match the same expense. */
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    @ElementCollection
+    @CollectionTable(
+            name = "segmentation_rule_allocations",
+            joinColumns = @JoinColumn(name = "rule_id"))
+    @OrderColumn(name = "sort_order")
+    private List<SegmentAllocation> allocations = new ArrayList<>();
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -41,6 +41,13 @@ public class User {
     @Column(nullable = false)
     private UserStatus status = UserStatus.ACTIVE;
 
+    /** Raised whenever the user's issued tokens must stop working; see TokenEpochRegistry. */
+    @Column(nullable = false)
+    private Long tokenEpoch = 0L;
+
+    /** When the token epoch was last raised; null if it never was. */
+    private LocalDateTime tokenEpochRaisedAt;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
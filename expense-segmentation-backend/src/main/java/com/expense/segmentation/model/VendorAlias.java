@@ -0,0 +1,30 @@
+package com.expense.segmentation.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+@Entity
+@Table(
+        name = "vendor_aliases",
+        indexes = {@Index(name = "idx_vendor_aliases_vendor_id", columnList = "vendor_id")})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorAlias {
+
+    @Id
+    @Column(name = "alias_key")
+    private String aliasKey;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vendor_id", nullable = false)
+    private Vendor vendor;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
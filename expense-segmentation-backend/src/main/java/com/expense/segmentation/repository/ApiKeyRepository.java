@@ -0,0 +1,46 @@
+package com.expense.segmentation.repository;
+
+import com.expense.segmentation.model.ApiKey;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ApiKeyRepository extends JpaRepository<ApiKey, UUID> {
+
+    boolean existsByPrefix(String prefix);
+
+    /**
+     * Fetches all keys that can currently authenticate: not revoked, not expired and owned by an
+     * active user. The owner and its role are eagerly loaded.
+     *
+     * @param now the current time
+     * @return the usable keys
+     */
+    @Query(
+            "SELECT k FROM ApiKey k JOIN FETCH k.user u JOIN FETCH u.role "
+                    + "WHERE k.revokedAt IS NULL AND (k.expiresAt IS NULL OR k.expiresAt > :now) "
+                    + "AND u.status = com.expense.segmentation.model.UserStatus.ACTIVE")
+    List<ApiKey> findUsable(@Param("now") LocalDateTime now);
+
+    /**
+     * Same as {@link #findUsable(LocalDateTime)}, restricted to the keys of one user.
+     *
+     * @param userId the owner's ID
+     * @param now the current time
+     * @return the usable keys of the user
+     */
+    @Query(
+            "SELECT k FROM ApiKey k JOIN FETCH k.user u JOIN FETCH u.role "
+                    + "WHERE u.id = :userId AND k.revokedAt IS NULL "
+                    + "AND (k.expiresAt IS NULL OR k.expiresAt > :now) "
+                    + "AND u.status = com.expense.segmentation.model.UserStatus.ACTIVE")
+    List<ApiKey> findUsableByUserId(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT k FROM ApiKey k JOIN FETCH k.user ORDER BY k.createdAt DESC")
+    List<ApiKey> findAllWithUser();
+}
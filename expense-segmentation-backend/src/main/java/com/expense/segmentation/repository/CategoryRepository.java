@@ -16,6 +16,8 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     @Query("SELECT c FROM Category c WHERE c.active = true ORDER BY c.name")
     List<Category> findByActiveTrueOrderByName();
 
+    Optional<Category> findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc(String name);
+
     boolean existsByNameAndActive(String name, Boolean active);
 
     @Query("SELECT COUNT(c) FROM Category c WHERE c.active = true")
@@ -0,0 +1,9 @@
+package com.expense.segmentation.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Size and latest change of an expense's child collection. Together they change whenever a child
+ * is added, updated or removed; {@code lastModified} is null for an empty collection.
+ */
+public record ChildVersionRow(Long count, LocalDateTime lastModified) {}
@@ -0,0 +1,7 @@
+package com.expense.segmentation.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/** An expense's ID, creator and amount: what a segment write is authorized and validated by. */
+public record ExpenseAmountRow(UUID id, UUID ownerId, BigDecimal amount) {}
@@ -1,6 +1,7 @@
 package com.expense.segmentation.repository;
 
 import com.expense.segmentation.model.ExpenseAttachment;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -18,6 +19,34 @@ public interface ExpenseAttachmentRepository extends JpaRepository<ExpenseAttach
                     + "ORDER BY ea.uploadedAt DESC")
     List<ExpenseAttachment> findByExpenseIdWithUploadedBy(@Param("expenseId") UUID expenseId);
 
+    /**
+     * Fetches the attachments of several expenses with their uploader in a single query, for
+     * embedding them in a page of expense responses.
+     *
+     * @param expenseIds the expense IDs
+     * @return the attachments of all given expenses, newest first
+     */
+    @Query(
+            "SELECT ea FROM ExpenseAttachment ea "
+                    + "LEFT JOIN FETCH ea.uploadedBy "
+                    + "WHERE ea.expense.id IN :expenseIds "
+                    + "ORDER BY ea.uploadedAt DESC")
+    List<ExpenseAttachment> findByExpenseIdInWithUploadedBy(
+            @Param("expenseIds") Collection<UUID> expenseIds);
+
+    /**
+     * Aggregates the attachment count and latest upload of an expense, for its attachment list
+     * ETag. Attachments are never updated in place, so uploads and deletions are all that change.
+     *
+     * @param expenseId the expense ID
+     * @return the count and latest upload time of the expense's attachments
+     */
+    @Query(
+            "SELECT new com.expense.segmentation.repository.ChildVersionRow(COUNT(ea),"
+                    + " MAX(ea.uploadedAt)) FROM ExpenseAttachment ea WHERE ea.expense.id ="
+                    + " :expenseId")
+    ChildVersionRow findVersionByExpenseId(@Param("expenseId") UUID expenseId);
+
     @Query(
             "SELECT ea FROM ExpenseAttachment ea "
                     + "LEFT JOIN FETCH ea.expense "
@@ -0,0 +1,27 @@
+package com.expense.segmentation.repository;
+
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only projection of one row of an expense list: exactly the columns of an expense response,
+ * with the creator's name and email taken from the joined user. Rows are built straight from the
+ * result set, so listing expenses neither hydrates entities nor fills the persistence context.
+ */
+public record ExpenseListRow(
+        UUID id,
+        LocalDate date,
+        String vendor,
+        BigDecimal amount,
+        String description,
+        ExpenseType type,
+        UUID createdById,
+        String createdByName,
+        String createdByEmail,
+        ExpenseStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {}
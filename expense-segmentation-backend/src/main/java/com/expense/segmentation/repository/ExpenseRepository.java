@@ -1,21 +1,17 @@
 package com.expense.segmentation.repository;
 
 import com.expense.segmentation.model.Expense;
-import com.expense.segmentation.model.ExpenseStatus;
-import com.expense.segmentation.model.ExpenseType;
-import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, UUID> {
+public interface ExpenseRepository extends JpaRepository<Expense, UUID>, ExpenseRepositoryCustom {
 
     /**
      * Fetches an expense by ID with its creator (user) eagerly loaded using JOIN FETCH. This
@@ -28,47 +24,50 @@ public interface ExpenseRepository extends JpaRepository<Expense, UUID> {
     Optional<Expense> findByIdWithCreatedBy(@Param("id") UUID id);
 
     /**
-     * Fetches all expenses created by a specific user.
+     * Fetches only the creator ID of an expense. Resolved from the foreign key column through the
+     * primary key index, without loading the expense or the user.
      *
-     * @param userId the user ID
-     * @return list of expenses created by the user
+     * @param id the expense ID
+     * @return optional containing the creator's user ID, empty if the expense does not exist
+     */
+    @Query("SELECT e.createdBy.id FROM Expense e WHERE e.id = :id")
+    Optional<UUID> findOwnerIdById(@Param("id") UUID id);
+
+    /**
+     * Fetches the fields an expense ETag is derived from, without loading the expense. The creator
+     * is read through its primary key, so this costs two index lookups.
+     *
+     * @param id the expense ID
+     * @return optional containing the version metadata, empty if the expense does not exist
      */
-    @Query("SELECT e FROM Expense e LEFT JOIN FETCH e.createdBy WHERE e.createdBy.id = :userId")
-    List<Expense> findByCreatedById(@Param("userId") UUID userId);
+    @Query(
+            "SELECT new com.expense.segmentation.repository.ExpenseVersionRow(u.id, e.version,"
+                    + " e.updatedAt, u.updatedAt) FROM Expense e JOIN e.createdBy u WHERE e.id ="
+                    + " :id")
+    Optional<ExpenseVersionRow> findVersionById(@Param("id") UUID id);
+
+    /**
+     * Fetches the creator ID and amount of several expenses in a single query, enough to authorize
+     * and validate segment writes without loading the expenses. Expenses that do not exist are
+     * absent from the result.
+     *
+     * @param ids the expense IDs
+     * @return the ID, creator ID and amount of each existing expense
+     */
+    @Query(
+            "SELECT new com.expense.segmentation.repository.ExpenseAmountRow(e.id, e.createdBy.id,"
+                    + " e.amount) FROM Expense e WHERE e.id IN :ids")
+    List<ExpenseAmountRow> findAmountsByIdIn(@Param("ids") Collection<UUID> ids);
 
     /**
-     * Fetches expenses with pagination and filtering support. Count query is separate to avoid JOIN
-     * FETCH in count queries.
+     * Counts expenses per canonical vendor and creator, for ranking vendor suggestions. Expenses
+     * without a linked vendor are skipped.
      *
-     * @param userId optional user ID filter (null to get all)
-     * @param dateFrom optional start date filter
-     * @param dateTo optional end date filter
-     * @param type optional expense type filter
-     * @param status optional expense status filter
-     * @param pageable pagination parameters
-     * @return page of expenses with eagerly loaded creator
+     * @return one row per vendor and user pair
      */
     @Query(
-            value =
-                    "SELECT e FROM Expense e LEFT JOIN FETCH e.createdBy "
-                            + "WHERE (CAST(:userId AS string) IS NULL OR e.createdBy.id = :userId) "
-                            + "AND (CAST(:dateFrom AS date) IS NULL OR e.date >= :dateFrom) "
-                            + "AND (CAST(:dateTo AS date) IS NULL OR e.date <= :dateTo) "
-                            + "AND (CAST(:type AS string) IS NULL OR e.type = :type) "
-                            + "AND (CAST(:status AS string) IS NULL OR e.status = :status) "
-                            + "ORDER BY e.date DESC, e.createdAt DESC",
-            countQuery =
-                    "SELECT COUNT(e) FROM Expense e "
-                            + "WHERE (CAST(:userId AS string) IS NULL OR e.createdBy.id = :userId) "
-                            + "AND (CAST(:dateFrom AS date) IS NULL OR e.date >= :dateFrom) "
-                            + "AND (CAST(:dateTo AS date) IS NULL OR e.date <= :dateTo) "
-                            + "AND (CAST(:type AS string) IS NULL OR e.type = :type) "
-                            + "AND (CAST(:status AS string) IS NULL OR e.status = :status)")
-    Page<Expense> findExpensesWithFilters(
-            @Param("userId") UUID userId,
-            @Param("dateFrom") LocalDate dateFrom,
-            @Param("dateTo") LocalDate dateTo,
-            @Param("type") ExpenseType type,
-            @Param("status") ExpenseStatus status,
-            Pageable pageable);
+            "SELECT new com.expense.segmentation.repository.VendorUsageRow(e.canonicalVendor.id,"
+                    + " e.createdBy.id, COUNT(e)) FROM Expense e WHERE e.canonicalVendor IS NOT"
+                    + " NULL GROUP BY e.canonicalVendor.id, e.createdBy.id")
+    List<VendorUsageRow> findVendorUsage();
 }
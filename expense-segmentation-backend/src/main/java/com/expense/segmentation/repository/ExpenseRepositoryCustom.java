@@ -0,0 +1,134 @@
+package com.expense.segmentation.repository;
+
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Expense list queries with optional filters. Every filter argument may be null, in which case no
+ * predicate is emitted for it at all, so the database plans each filter combination against the
+ * matching index instead of a generic plan full of "IS NULL OR" branches.
+ *
+ * <p>All queries share the list order date DESC, createdAt DESC, id DESC. List queries return
+ * {@link ExpenseListRow} projections rather than entities; pass a {@code descriptionLength} to have
+ * the database cut long descriptions down before they are sent over the wire.
+ */
+public interface ExpenseRepositoryCustom {
+
+    /**
+     * Fetches a window of expense rows. No count query is run; callers request one row more than
+     * the page size to detect the last page.
+     *
+     * @param userId optional user ID filter (null to get all)
+     * @param dateFrom optional start date filter
+     * @param dateTo optional end date filter
+     * @param type optional expense type filter
+     * @param status optional expense status filter
+     * @param offset number of rows to skip
+     * @param limit maximum number of rows to return
+     * @param descriptionLength maximum description length, or null for full descriptions
+     * @return expense rows
+     */
+    List<ExpenseListRow> findExpensesWithFilters(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status,
+            long offset,
+            int limit,
+            Integer descriptionLength);
+
+    /**
+     * Fetches the expenses that come after a cursor position in the list order. The cursor bound
+     * is a range on the index columns, so the cost does not grow with the page depth. No count
+     * query is run; callers request one row more than the page size to detect the last page.
+     *
+     * @param userId optional user ID filter (null to get all)
+     * @param dateFrom optional start date filter
+     * @param dateTo optional end date filter
+     * @param type optional expense type filter
+     * @param status optional expense status filter
+     * @param cursorDate date of the last expense already returned
+     * @param cursorCreatedAt creation time of the last expense already returned
+     * @param cursorId ID of the last expense already returned
+     * @param limit maximum number of rows to return
+     * @param descriptionLength maximum description length, or null for full descriptions
+     * @return expense rows after the cursor
+     */
+    List<ExpenseListRow> findExpensesAfterCursor(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status,
+            LocalDate cursorDate,
+            LocalDateTime cursorCreatedAt,
+            UUID cursorId,
+            int limit,
+            Integer descriptionLength);
+
+    /**
+     * Full-text searches expense vendors and descriptions, best match first (rank DESC, id DESC).
+     * The query is parsed with PostgreSQL's web search syntax, so quoted phrases, "or" and
+     * "-term" work. Matches are found through the GIN index on the generated search vector. No
+     * count query is run; callers request one row more than the page size to detect the last page.
+     *
+     * @param userId optional user ID filter (null to search all)
+     * @param query the search text
+     * @param cursorRank rank of the last hit already returned, or null for the first page
+     * @param cursorId ID of the last hit already returned, or null for the first page
+     * @param limit maximum number of rows to return
+     * @param descriptionLength maximum description length, or null for full descriptions
+     * @return ranked search hits after the cursor
+     */
+    List<ExpenseSearchRow> searchExpenses(
+            UUID userId,
+            String query,
+            Float cursorRank,
+            UUID cursorId,
+            int limit,
+            Integer descriptionLength);
+
+    /**
+     * Streams every expense row matching the filters in list order. Rows are read from a database
+     * cursor {@code fetchSize} at a time and are not retained, so memory use does not depend on
+     * the number of rows. Must be called inside a transaction, and the stream must be closed.
+     *
+     * @param userId optional user ID filter (null to get all)
+     * @param dateFrom optional start date filter
+     * @param dateTo optional end date filter
+     * @param type optional expense type filter
+     * @param status optional expense status filter
+     * @param fetchSize number of rows fetched per round trip
+     * @return a lazily populated stream of expense rows
+     */
+    Stream<ExpenseListRow> streamExpensesWithFilters(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status,
+            int fetchSize);
+
+    /**
+     * Counts the expenses matching the filters of {@link #findExpensesWithFilters}.
+     *
+     * @param userId optional user ID filter (null to count all)
+     * @param dateFrom optional start date filter
+     * @param dateTo optional end date filter
+     * @param type optional expense type filter
+     * @param status optional expense status filter
+     * @return number of matching expenses
+     */
+    long countExpensesWithFilters(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status);
+}
@@ -0,0 +1,293 @@
+package com.expense.segmentation.repository;
+
+import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Criteria implementation of {@link ExpenseRepositoryCustom}. Only the predicates for supplied
+ * filters are added, so e.g. an employee's list becomes "created_by = ? ORDER BY date DESC ..."
+ * and is answered from idx_expenses_created_by_date. Rows are selected as {@link ExpenseListRow}
+ * constructor expressions over an inner join to the creator, so no entity is instantiated, tracked
+ * or dirty-checked.
+ *
+ * <p>Full-text search is PostgreSQL-only and runs as native SQL against the generated
+ * {@code search_vector} column, which the entity does not map.
+ */
+class ExpenseRepositoryCustomImpl implements ExpenseRepositoryCustom {
+
+    // Selects the remaining list columns and the rank; the search text is the first parameter
+    private static final String SEARCH_FROM =
+            ", e.type, u.id, u.name, u.email, e.status, e.created_at, e.updated_at,"
+                    + " ts_rank(e.search_vector, q.query) AS rank FROM expenses e"
+                    + " JOIN users u ON u.id = e.created_by"
+                    + " CROSS JOIN websearch_to_tsquery('english', ?) AS q(query)"
+                    + " WHERE e.search_vector @@ q.query";
+
+    @PersistenceContext private EntityManager entityManager;
+
+    @Override
+    public List<ExpenseListRow> findExpensesWithFilters(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status,
+            long offset,
+            int limit,
+            Integer descriptionLength) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ExpenseListRow> query = cb.createQuery(ExpenseListRow.class);
+        Root<Expense> expense = query.from(Expense.class);
+
+        List<Predicate> predicates =
+                filterPredicates(cb, expense, userId, dateFrom, dateTo, type, status);
+        query.select(listRow(cb, expense, descriptionLength))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(listOrder(cb, expense));
+
+        return entityManager
+                .createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<ExpenseListRow> findExpensesAfterCursor(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status,
+            LocalDate cursorDate,
+            LocalDateTime cursorCreatedAt,
+            UUID cursorId,
+            int limit,
+            Integer descriptionLength) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ExpenseListRow> query = cb.createQuery(ExpenseListRow.class);
+        Root<Expense> expense = query.from(Expense.class);
+
+        Path<LocalDate> date = expense.get("date");
+        Path<LocalDateTime> createdAt = expense.get("createdAt");
+        Path<UUID> id = expense.get("id");
+
+        List<Predicate> predicates =
+                filterPredicates(cb, expense, userId, dateFrom, dateTo, type, status);
+        // (date, createdAt, id) < cursor, spelled out for the Criteria API. The leading
+        // "date <= cursorDate" is redundant but gives the planner a plain index range to seek to.
+        predicates.add(cb.lessThanOrEqualTo(date, cursorDate));
+        predicates.add(
+                cb.or(
+                        cb.lessThan(date, cursorDate),
+                        cb.and(
+                                cb.equal(date, cursorDate),
+                                cb.or(
+                                        cb.lessThan(createdAt, cursorCreatedAt),
+                                        cb.and(
+                                                cb.equal(createdAt, cursorCreatedAt),
+                                                cb.lessThan(id, cursorId))))));
+        query.select(listRow(cb, expense, descriptionLength))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(listOrder(cb, expense));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<ExpenseSearchRow> searchExpenses(
+            UUID userId,
+            String query,
+            Float cursorRank,
+            UUID cursorId,
+            int limit,
+            Integer descriptionLength) {
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT e.id, e.date, e.vendor, e.amount, ");
+        if (descriptionLength != null) {
+            sql.append("LEFT(e.description, ?)");
+            parameters.add(descriptionLength);
+        } else {
+            sql.append("e.description");
+        }
+        sql.append(SEARCH_FROM);
+        parameters.add(query);
+        if (userId != null) {
+            sql.append(" AND e.created_by = ?");
+            parameters.add(userId);
+        }
+        if (cursorRank != null && cursorId != null) {
+            sql.append(" AND (ts_rank(e.search_vector, q.query), e.id) < (?, ?)");
+            parameters.add(cursorRank);
+            parameters.add(cursorId);
+        }
+        sql.append(" ORDER BY rank DESC, e.id DESC LIMIT ?");
+        parameters.add(limit);
+
+        // Full-text operators have no JPQL equivalent, so the query runs as plain JDBC on the
+        // connection of the current transaction
+        return entityManager
+                .unwrap(Session.class)
+                .doReturningWork(
+                        connection -> {
+                            try (PreparedStatement statement =
+                                    connection.prepareStatement(sql.toString())) {
+                                for (int i = 0; i < parameters.size(); i++) {
+                                    statement.setObject(i + 1, parameters.get(i));
+                                }
+                                try (ResultSet resultSet = statement.executeQuery()) {
+                                    List<ExpenseSearchRow> rows = new ArrayList<>();
+                                    while (resultSet.next()) {
+                                        rows.add(searchRow(resultSet));
+                                    }
+                                    return rows;
+                                }
+                            }
+                        });
+    }
+
+    @Override
+    public Stream<ExpenseListRow> streamExpensesWithFilters(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status,
+            int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ExpenseListRow> query = cb.createQuery(ExpenseListRow.class);
+        Root<Expense> expense = query.from(Expense.class);
+
+        List<Predicate> predicates =
+                filterPredicates(cb, expense, userId, dateFrom, dateTo, type, status);
+        query.select(listRow(cb, expense, null))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(listOrder(cb, expense));
+
+        // With a fetch size and autocommit off, the PostgreSQL driver reads through a cursor
+        // instead of buffering the whole result set
+        return entityManager
+                .createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    @Override
+    public long countExpensesWithFilters(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Expense> expense = query.from(Expense.class);
+
+        query.select(cb.count(expense))
+                .where(
+                        filterPredicates(cb, expense, userId, dateFrom, dateTo, type, status)
+                                .toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static CompoundSelection<ExpenseListRow> listRow(
+            CriteriaBuilder cb, Root<Expense> expense, Integer descriptionLength) {
+        Join<Expense, User> createdBy = expense.join("createdBy");
+        Expression<String> description = expense.get("description");
+        if (descriptionLength != null) {
+            description = cb.substring(description, 1, descriptionLength);
+        }
+        return cb.construct(
+                ExpenseListRow.class,
+                expense.get("id"),
+                expense.get("date"),
+                expense.get("vendor"),
+                expense.get("amount"),
+                description,
+                expense.get("type"),
+                createdBy.get("id"),
+                createdBy.get("name"),
+                createdBy.get("email"),
+                expense.get("status"),
+                expense.get("createdAt"),
+                expense.get("updatedAt"));
+    }
+
+    private static ExpenseSearchRow searchRow(ResultSet resultSet) throws SQLException {
+        ExpenseListRow row =
+                new ExpenseListRow(
+                        resultSet.getObject(1, UUID.class),
+                        resultSet.getObject(2, LocalDate.class),
+                        resultSet.getString(3),
+                        resultSet.getBigDecimal(4),
+                        resultSet.getString(5),
+                        ExpenseType.valueOf(resultSet.getString(6)),
+                        resultSet.getObject(7, UUID.class),
+                        resultSet.getString(8),
+                        resultSet.getString(9),
+                        ExpenseStatus.valueOf(resultSet.getString(10)),
+                        resultSet.getObject(11, LocalDateTime.class),
+                        resultSet.getObject(12, LocalDateTime.class));
+        return new ExpenseSearchRow(row, resultSet.getFloat(13));
+    }
+
+    private static List<Predicate> filterPredicates(
+            CriteriaBuilder cb,
+            Root<Expense> expense,
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (userId != null) {
+            // Compares the created_by column directly; no join to users is needed
+            predicates.add(cb.equal(expense.get("createdBy").get("id"), userId));
+        }
+        if (dateFrom != null) {
+            predicates.add(cb.greaterThanOrEqualTo(expense.<LocalDate>get("date"), dateFrom));
+        }
+        if (dateTo != null) {
+            predicates.add(cb.lessThanOrEqualTo(expense.<LocalDate>get("date"), dateTo));
+        }
+        if (type != null) {
+            predicates.add(cb.equal(expense.get("type"), type));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(expense.get("status"), status));
+        }
+        return predicates;
+    }
+
+    private static List<Order> listOrder(CriteriaBuilder cb, Root<Expense> expense) {
+        return List.of(
+                cb.desc(expense.get("date")),
+                cb.desc(expense.get("createdAt")),
+                cb.desc(expense.get("id")));
+    }
+}
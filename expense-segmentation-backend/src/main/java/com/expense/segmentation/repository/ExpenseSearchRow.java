@@ -0,0 +1,7 @@
+package com.expense.segmentation.repository;
+
+/**
+ * One full-text search hit: the expense row and its relevance rank. The rank is the value the
+ * database sorted by, so it can be handed back as part of a keyset cursor.
+ */
+public record ExpenseSearchRow(ExpenseListRow expense, float rank) {}
@@ -1,10 +1,12 @@
 package com.expense.segmentation.repository;
 
 import com.expense.segmentation.model.ExpenseSegment;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,13 +19,59 @@ public interface ExpenseSegmentRepository extends JpaRepository<ExpenseSegment,
     @Query("SELECT es FROM ExpenseSegment es WHERE es.expense.id = :expenseId ORDER BY es.category")
     List<ExpenseSegment> findByExpenseIdOrderByCategory(@Param("expenseId") UUID expenseId);
 
+    /**
+     * Fetches the segments of several expenses in a single query, for embedding them in a page of
+     * expense responses.
+     *
+     * @param expenseIds the expense IDs
+     * @return the segments of all given expenses, ordered by category
+     */
+    @Query(
+            "SELECT es FROM ExpenseSegment es WHERE es.expense.id IN :expenseIds ORDER BY"
+                    + " es.category")
+    List<ExpenseSegment> findByExpenseIdInOrderByCategory(
+            @Param("expenseIds") Collection<UUID> expenseIds);
+
+    /**
+     * Projects the segments of several expenses without loading entities, so callers working
+     * through large exports do not grow the persistence context.
+     *
+     * @param expenseIds the expense IDs
+     * @return the segment rows of all given expenses, ordered by category
+     */
+    @Query(
+            "SELECT new com.expense.segmentation.repository.ExpenseSegmentRow(es.expense.id, es.id,"
+                    + " es.category, es.amount, es.percentage) FROM ExpenseSegment es WHERE"
+                    + " es.expense.id IN :expenseIds ORDER BY es.category")
+    List<ExpenseSegmentRow> findRowsByExpenseIdIn(
+            @Param("expenseIds") Collection<UUID> expenseIds);
+
+    /**
+     * Aggregates the segment count and latest change of an expense, for its segment list ETag.
+     *
+     * @param expenseId the expense ID
+     * @return the count and latest update time of the expense's segments
+     */
+    @Query(
+            "SELECT new com.expense.segmentation.repository.ChildVersionRow(COUNT(es),"
+                    + " MAX(es.updatedAt)) FROM ExpenseSegment es WHERE es.expense.id = :expenseId")
+    ChildVersionRow findVersionByExpenseId(@Param("expenseId") UUID expenseId);
+
     @Query(
             "SELECT es FROM ExpenseSegment es WHERE es.expense.id = :expenseId AND es.id ="
                     + " :segmentId")
     Optional<ExpenseSegment> findByExpenseIdAndId(
             @Param("expenseId") UUID expenseId, @Param("segmentId") UUID segmentId);
 
-    void deleteByExpenseId(UUID expenseId);
+    /**
+     * Deletes all segments of an expense in one statement, without loading them first.
+     *
+     * @param expenseId the expense ID
+     * @return the number of segments deleted
+     */
+    @Modifying
+    @Query("DELETE FROM ExpenseSegment es WHERE es.expense.id = :expenseId")
+    int deleteByExpenseId(@Param("expenseId") UUID expenseId);
 
     void deleteByExpenseIdAndId(UUID expenseId, UUID segmentId);
 }
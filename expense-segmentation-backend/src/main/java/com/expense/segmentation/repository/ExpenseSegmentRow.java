@@ -0,0 +1,8 @@
+package com.expense.segmentation.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/** Read-only projection of a segment together with the ID of its expense. */
+public record ExpenseSegmentRow(
+        UUID expenseId, UUID id, String category, BigDecimal amount, BigDecimal percentage) {}
@@ -0,0 +1,11 @@
+package com.expense.segmentation.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The fields an expense representation changes with: its version and modification time, and the
+ * modification time of the creator whose name and email are embedded in it.
+ */
+public record ExpenseVersionRow(
+        UUID ownerId, Long version, LocalDateTime updatedAt, LocalDateTime ownerUpdatedAt) {}
@@ -0,0 +1,73 @@
+package com.expense.segmentation.repository;
+
+import com.expense.segmentation.model.RefreshToken;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    /**
+     * Fetches a refresh token by hash with its user, locking the row so that concurrent refreshes
+     * of the same token cannot both succeed.
+     *
+     * @param tokenHash the SHA-256 hash of the token
+     * @return optional containing the token with eagerly loaded user
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashForUpdate(@Param("tokenHash") String tokenHash);
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query(
+            "UPDATE RefreshToken rt SET rt.revokedAt = :now "
+                    + "WHERE rt.sessionId = :sessionId AND rt.revokedAt IS NULL")
+    int revokeSession(@Param("sessionId") UUID sessionId, @Param("now") LocalDateTime now);
+
+    /**
+     * Revokes all active tokens of a user.
+     *
+     * @param userId the user ID
+     * @param now the revocation time
+     * @return the number of tokens revoked
+     */
+    @Modifying
+    @Query(
+            "UPDATE RefreshToken rt SET rt.revokedAt = :now "
+                    + "WHERE rt.user.id = :userId AND rt.revokedAt IS NULL")
+    int revokeAllByUserId(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    @Query(
+            "SELECT DISTINCT rt.sessionId FROM RefreshToken rt "
+                    + "WHERE rt.user.id = :userId AND rt.revokedAt IS NULL")
+    List<UUID> findActiveSessionIdsByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Finds sessions that were ended (logout, deactivation or token reuse) after the given time.
+     * Rotation also sets revokedAt, so a session only counts as ended when none of its tokens is
+     * still active.
+     *
+     * @param since the earliest revocation time of interest
+     * @return the IDs of the ended sessions
+     */
+    @Query(
+            "SELECT DISTINCT rt.sessionId FROM RefreshToken rt WHERE rt.revokedAt > :since "
+                    + "AND NOT EXISTS (SELECT 1 FROM RefreshToken active "
+                    + "WHERE active.sessionId = rt.sessionId AND active.revokedAt IS NULL)")
+    List<UUID> findEndedSessionIdsSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
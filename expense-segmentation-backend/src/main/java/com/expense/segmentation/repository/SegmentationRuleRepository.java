@@ -0,0 +1,22 @@
+package com.expense.segmentation.repository;
+
+import com.expense.segmentation.model.SegmentationRule;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SegmentationRuleRepository extends JpaRepository<SegmentationRule, UUID> {
+
+    @EntityGraph(attributePaths = "allocations")
+    List<SegmentationRule> findAllByOrderByPriorityAscNameAsc();
+
+    /** Active rules with their allocations, loaded in one query so they outlive the session. */
+    @Query(
+            "SELECT DISTINCT r FROM SegmentationRule r LEFT JOIN FETCH r.allocations"
+                    + " WHERE r.active = true")
+    List<SegmentationRule> findActiveWithAllocations();
+}
@@ -0,0 +1,6 @@
+package com.expense.segmentation.repository;
+
+import java.util.UUID;
+
+/** The token epoch of a user whose tokens have been revoked at least once. */
+public record TokenEpochRow(UUID userId, Long epoch) {}
@@ -2,6 +2,7 @@ package com.expense.segmentation.repository;
 
 import com.expense.segmentation.model.User;
 import com.expense.segmentation.model.UserStatus;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -67,4 +68,16 @@ public interface UserRepository extends JpaRepository<User, UUID> {
             "SELECT u FROM User u LEFT JOIN FETCH u.department LEFT JOIN FETCH u.role WHERE"
                     + " u.email = :email")
     Optional<User> findByEmailWithDepartmentAndRole(@Param("email") String email);
+
+    /**
+     * Lists the users whose token epoch was raised at or after the given time, with their current
+     * epoch.
+     *
+     * @param since the earliest raise to include
+     * @return one row per such user
+     */
+    @Query(
+            "SELECT new com.expense.segmentation.repository.TokenEpochRow(u.id, u.tokenEpoch)"
+                    + " FROM User u WHERE u.tokenEpochRaisedAt >= :since")
+    List<TokenEpochRow> findTokenEpochsRaisedSince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,33 @@
+package com.expense.segmentation.repository;
+
+import com.expense.segmentation.model.VendorAlias;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VendorAliasRepository extends JpaRepository<VendorAlias, String> {
+
+    /**
+     * Resolves a normalized alias to its vendor's ID without loading the vendor.
+     *
+     * @param aliasKey the normalized alias
+     * @return optional containing the vendor ID, empty if the alias is unknown
+     */
+    @Query("SELECT a.vendor.id FROM VendorAlias a WHERE a.aliasKey = :aliasKey")
+    Optional<UUID> findVendorIdByAliasKey(@Param("aliasKey") String aliasKey);
+
+    /**
+     * Fetches every alias with its vendor ID, for building the in-memory vendor directory.
+     *
+     * @return all aliases
+     */
+    @Query(
+            "SELECT new com.expense.segmentation.repository.VendorAliasRow(a.aliasKey,"
+                    + " a.vendor.id) FROM VendorAlias a")
+    List<VendorAliasRow> findAllRows();
+}
@@ -0,0 +1,6 @@
+package com.expense.segmentation.repository;
+
+import java.util.UUID;
+
+/** A normalized alias and the vendor it maps to. */
+public record VendorAliasRow(String aliasKey, UUID vendorId) {}
@@ -0,0 +1,13 @@
+package com.expense.segmentation.repository;
+
+import com.expense.segmentation.model.Vendor;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VendorRepository extends JpaRepository<Vendor, UUID> {
+
+    Optional<Vendor> findByNormalizedName(String normalizedName);
+}
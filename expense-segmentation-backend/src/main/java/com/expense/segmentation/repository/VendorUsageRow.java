@@ -0,0 +1,6 @@
+package com.expense.segmentation.repository;
+
+import java.util.UUID;
+
+/** Number of expenses one user has filed against one canonical vendor. */
+public record VendorUsageRow(UUID vendorId, UUID userId, Long count) {}
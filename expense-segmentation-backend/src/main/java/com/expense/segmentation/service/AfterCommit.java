@@ -0,0 +1,33 @@
+package com.expense.segmentation.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers updates of in-memory state until the surrounding transaction commits, so a rollback
+ * leaves that state untouched and concurrent readers never see a change the database does not
+ * hold yet.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {}
+
+    /**
+     * Runs the action once the current transaction commits, or immediately outside a transaction.
+     *
+     * @param action the action to run
+     */
+    static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                });
+    }
+}
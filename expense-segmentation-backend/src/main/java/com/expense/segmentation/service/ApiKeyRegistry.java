@@ -0,0 +1,156 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.model.ApiKey;
+import com.expense.segmentation.model.Department;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.repository.ApiKeyRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of usable API keys by prefix. Authenticating a key is one map lookup plus one
+ * SHA-256 of the presented secret, so integrations never pay for BCrypt or a database round trip.
+ *
+ * <p>The index is rebuilt from the database every {@code api-keys.refresh-interval-ms}, which picks
+ * up keys created, revoked or expired on other instances. Changes made on this instance are applied
+ * as soon as they commit. Readers never lock: every change publishes a new immutable map.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApiKeyRegistry {
+
+    /** Leading marker of every API key, so keys are recognisable in configs and secret scanners. */
+    public static final String KEY_MARKER = "esk_";
+
+    /** Length of the public key identifier that follows the marker. */
+    public static final int PREFIX_LENGTH = 12;
+
+    private final ApiKeyRepository apiKeyRepository;
+
+    private volatile Map<String, Entry> entriesByPrefix = Map.of();
+
+    /**
+     * Resolves the identity an API key acts as.
+     *
+     * @param rawKey the key presented by the caller
+     * @return the identity, or empty if the key is malformed, unknown, revoked or expired
+     */
+    public Optional<AuthenticatedUser> authenticate(String rawKey) {
+        int secretStart = KEY_MARKER.length() + PREFIX_LENGTH;
+        if (rawKey == null || !rawKey.startsWith(KEY_MARKER) || rawKey.length() <= secretStart) {
+            return Optional.empty();
+        }
+
+        Entry entry = entriesByPrefix.get(rawKey.substring(KEY_MARKER.length(), secretStart));
+        if (entry == null || entry.isExpired(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+
+        byte[] presentedHash = sha256(rawKey.substring(secretStart));
+        if (!MessageDigest.isEqual(entry.secretHash(), presentedHash)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.principal());
+    }
+
+    /** Rebuilds the index from the database. */
+    @Scheduled(fixedDelayString = "${api-keys.refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        try {
+            Map<String, Entry> entries = new HashMap<>();
+            apiKeyRepository
+                    .findUsable(LocalDateTime.now())
+                    .forEach(key -> entries.put(key.getPrefix(), Entry.of(key)));
+            entriesByPrefix = Map.copyOf(entries);
+            log.debug("Loaded {} API keys", entries.size());
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh API keys, keeping previous index", e);
+        }
+    }
+
+    /**
+     * Re-reads the keys of one user, e.g. after the user's role, department or status changed.
+     *
+     * @param userId the user ID
+     */
+    public synchronized void reloadUser(UUID userId) {
+        Map<String, Entry> entries = new HashMap<>(entriesByPrefix);
+        entries.values().removeIf(entry -> entry.principal().id().equals(userId));
+        apiKeyRepository
+                .findUsableByUserId(userId, LocalDateTime.now())
+                .forEach(key -> entries.put(key.getPrefix(), Entry.of(key)));
+        entriesByPrefix = Map.copyOf(entries);
+    }
+
+    /**
+     * Adds a newly created key to the index.
+     *
+     * @param key the key, with its owner and the owner's role loaded
+     */
+    public synchronized void register(ApiKey key) {
+        Map<String, Entry> entries = new HashMap<>(entriesByPrefix);
+        entries.put(key.getPrefix(), Entry.of(key));
+        entriesByPrefix = Map.copyOf(entries);
+    }
+
+    /**
+     * Removes a revoked key from the index.
+     *
+     * @param prefix the key prefix
+     */
+    public synchronized void remove(String prefix) {
+        Map<String, Entry> entries = new HashMap<>(entriesByPrefix);
+        entries.remove(prefix);
+        entriesByPrefix = Map.copyOf(entries);
+    }
+
+    static byte[] sha256(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(byte[] secretHash, AuthenticatedUser principal, LocalDateTime expiresAt) {
+
+        static Entry of(ApiKey key) {
+            User owner = key.getUser();
+            Department department = owner.getDepartment();
+            AuthenticatedUser principal =
+                    new AuthenticatedUser(
+                            owner.getId(),
+                            owner.getEmail(),
+                            effectiveRole(key, owner),
+                            department != null ? department.getId() : null);
+            return new Entry(
+                    HexFormat.of().parseHex(key.getSecretHash()), principal, key.getExpiresAt());
+        }
+
+        // A key never grants more than its owner; if the owner's role changed, use EMPLOYEE
+        private static RoleType effectiveRole(ApiKey key, User owner) {
+            RoleType ownerRole = owner.getRole() != null ? owner.getRole().getName() : null;
+            return key.getRole() == ownerRole ? key.getRole() : RoleType.EMPLOYEE;
+        }
+
+        boolean isExpired(LocalDateTime now) {
+            return expiresAt != null && !expiresAt.isAfter(now);
+        }
+    }
+}
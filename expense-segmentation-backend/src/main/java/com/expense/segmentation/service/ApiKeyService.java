@@ -0,0 +1,142 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.dto.ApiKeyResponse;
+import com.expense.segmentation.dto.CreateApiKeyRequest;
+import com.expense.segmentation.exception.InvalidOperationException;
+import com.expense.segmentation.exception.ResourceNotFoundException;
+import com.expense.segmentation.mapper.ApiKeyMapper;
+import com.expense.segmentation.model.ApiKey;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.ApiKeyRepository;
+import com.expense.segmentation.repository.UserRepository;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates, lists and revokes API keys. Keys are validated through the {@link ApiKeyRegistry}; this
+ * service keeps the registry in step with the database after each change commits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ApiKeyService {
+
+    private static final int SECRET_BYTES = 32;
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final UserRepository userRepository;
+    private final ApiKeyRegistry apiKeyRegistry;
+    private final ApiKeyMapper apiKeyMapper;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Creates an API key acting on behalf of the given user.
+     *
+     * @param request the key details
+     * @return the key details including the full key, which is shown only once
+     * @throws ResourceNotFoundException if the user does not exist
+     * @throws InvalidOperationException if the user is inactive or the role exceeds the user's
+     */
+    @Transactional
+    public ApiKeyResponse createApiKey(CreateApiKeyRequest request) {
+        log.info("Creating API key '{}' for user: {}", request.getName(), request.getUserId());
+
+        User owner =
+                userRepository
+                        .findById(request.getUserId())
+                        .orElseThrow(
+                                () ->
+                                        new ResourceNotFoundException(
+                                                "User", "id", request.getUserId().toString()));
+        if (owner.getStatus() != UserStatus.ACTIVE) {
+            throw new InvalidOperationException("Cannot create an API key for an inactive user");
+        }
+
+        ApiKey apiKey = new ApiKey();
+        apiKey.setName(request.getName());
+        apiKey.setPrefix(generatePrefix());
+        apiKey.setUser(owner);
+        apiKey.setRole(resolveRole(request.getRole(), owner));
+        apiKey.setExpiresAt(request.getExpiresAt());
+
+        String secret = generateSecret();
+        apiKey.setSecretHash(HexFormat.of().formatHex(ApiKeyRegistry.sha256(secret)));
+
+        ApiKey saved = apiKeyRepository.save(apiKey);
+        AfterCommit.run(() -> apiKeyRegistry.register(saved));
+        log.info("API key {} created for user: {}", saved.getPrefix(), owner.getEmail());
+
+        ApiKeyResponse response = apiKeyMapper.toResponse(saved);
+        response.setKey(ApiKeyRegistry.KEY_MARKER + saved.getPrefix() + secret);
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ApiKeyResponse> getAllApiKeys() {
+        log.debug("Fetching all API keys");
+        return apiKeyRepository.findAllWithUser().stream().map(apiKeyMapper::toResponse).toList();
+    }
+
+    /**
+     * Revokes an API key. The key stops working on this instance as soon as the revocation commits
+     * and on other instances after their next registry refresh.
+     *
+     * @param id the key ID
+     * @throws ResourceNotFoundException if the key does not exist
+     */
+    @Transactional
+    public void revokeApiKey(UUID id) {
+        log.info("Revoking API key: {}", id);
+        ApiKey apiKey =
+                apiKeyRepository
+                        .findById(id)
+                        .orElseThrow(
+                                () -> new ResourceNotFoundException("ApiKey", "id", id.toString()));
+
+        if (apiKey.getRevokedAt() == null) {
+            apiKey.setRevokedAt(LocalDateTime.now());
+            apiKeyRepository.save(apiKey);
+        }
+        String prefix = apiKey.getPrefix();
+        AfterCommit.run(() -> apiKeyRegistry.remove(prefix));
+    }
+
+    // A key may act with its owner's role or be narrowed to EMPLOYEE, never anything else
+    private static RoleType resolveRole(RoleType requested, User owner) {
+        RoleType ownerRole = owner.getRole().getName();
+        if (requested == null || requested == ownerRole) {
+            return ownerRole;
+        }
+        if (requested == RoleType.EMPLOYEE) {
+            return requested;
+        }
+        throw new InvalidOperationException(
+                "API key role must be the owner's role (" + ownerRole + ") or EMPLOYEE");
+    }
+
+    private String generatePrefix() {
+        String prefix;
+        do {
+            byte[] bytes = new byte[ApiKeyRegistry.PREFIX_LENGTH / 2];
+            secureRandom.nextBytes(bytes);
+            prefix = HexFormat.of().formatHex(bytes);
+        } while (apiKeyRepository.existsByPrefix(prefix));
+        return prefix;
+    }
+
+    private String generateSecret() {
+        byte[] bytes = new byte[SECRET_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
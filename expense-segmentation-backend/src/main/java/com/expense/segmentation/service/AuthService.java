@@ -1,11 +1,15 @@
 package com.expense.segmentation.service;
 
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.config.JwtTokenUtil;
+import com.expense.segmentation.config.TokenEpochRegistry;
 import com.expense.segmentation.dto.AuthResponse;
 import com.expense.segmentation.dto.LoginRequest;
+import com.expense.segmentation.dto.RefreshTokenRequest;
 import com.expense.segmentation.dto.RegisterRequest;
 import com.expense.segmentation.dto.UserResponse;
 import com.expense.segmentation.exception.DuplicateResourceException;
+import com.expense.segmentation.exception.InvalidTokenException;
 import com.expense.segmentation.exception.ResourceNotFoundException;
 import com.expense.segmentation.mapper.UserMapper;
 import com.expense.segmentation.model.Role;
@@ -14,13 +18,14 @@ import com.expense.segmentation.model.User;
 import com.expense.segmentation.model.UserStatus;
 import com.expense.segmentation.repository.RoleRepository;
 import com.expense.segmentation.repository.UserRepository;
+import com.expense.segmentation.service.RefreshTokenService.IssuedRefreshToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -35,8 +40,10 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenUtil jwtTokenUtil;
     private final AuthenticationManager authenticationManager;
-    private final CustomUserDetailsService userDetailsService;
+    private final TokenEpochRegistry tokenEpochRegistry;
     private final UserMapper userMapper;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginAttemptLimiter loginAttemptLimiter;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -70,30 +77,30 @@ public class AuthService {
         user = userRepository.save(user);
         log.info("Successfully registered new user: {} with id: {}", user.getEmail(), user.getId());
 
-        // Generate JWT token
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
-        String token = jwtTokenUtil.generateToken(userDetails);
-
-        // Create response
-        UserResponse userResponse = userMapper.toResponse(user);
-        return new AuthResponse(token, userResponse);
+        // Start a session and issue its tokens
+        return createAuthResponse(refreshTokenService.startSession(user));
     }
 
-    public AuthResponse login(LoginRequest request) {
+    public AuthResponse login(LoginRequest request, String clientIp) {
         log.info("Login attempt for user: {}", request.getEmail());
 
+        // Reject throttled callers before any hashing or database work
+        loginAttemptLimiter.checkAllowed(request.getEmail(), clientIp);
+
         // Authenticate user
-        Authentication authentication =
-                authenticationManager.authenticate(
-                        new UsernamePasswordAuthenticationToken(
-                                request.getEmail(), request.getPassword()));
+        Authentication authentication;
+        try {
+            authentication =
+                    authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(
+                                    request.getEmail(), request.getPassword()));
+        } catch (AuthenticationException e) {
+            loginAttemptLimiter.recordFailure(request.getEmail(), clientIp);
+            throw e;
+        }
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        // Generate JWT token
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String token = jwtTokenUtil.generateToken(userDetails);
-
         // Get user details
         User user =
                 userRepository
@@ -107,26 +114,67 @@ public class AuthService {
                                             "User", "email", request.getEmail());
                                 });
 
+        // Start a session and issue its tokens
+        AuthResponse response = createAuthResponse(refreshTokenService.startSession(user));
+
         log.info("User {} logged in successfully", request.getEmail());
-        UserResponse userResponse = userMapper.toResponse(user);
-        return new AuthResponse(token, userResponse);
+        return response;
     }
 
-    public UserResponse getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        log.debug("Fetching current user details for: {}", email);
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token. The presented
+     * refresh token is consumed.
+     *
+     * @param request the refresh request
+     * @return the new tokens with the user's current details
+     * @throws InvalidTokenException if the refresh token cannot be used
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        IssuedRefreshToken issued = refreshTokenService.rotate(request.getRefreshToken());
+        log.debug("Refreshed tokens for user: {}", issued.user().getEmail());
+        return createAuthResponse(issued);
+    }
+
+    /**
+     * Ends the session of the given refresh token. Access tokens of the session stop working
+     * within seconds on every instance.
+     *
+     * @param request the logout request
+     */
+    @Transactional
+    public void logout(RefreshTokenRequest request) {
+        refreshTokenService.endSession(request.getRefreshToken());
+    }
+
+    public UserResponse getCurrentUser(AuthenticatedUser currentUser) {
+        log.debug("Fetching current user details for: {}", currentUser.email());
 
         User user =
                 userRepository
-                        .findByEmail(email)
+                        .findByIdWithDepartmentAndRole(currentUser.id())
                         .orElseThrow(
                                 () -> {
                                     log.error(
-                                            "Authenticated user not found in database: {}", email);
-                                    return new ResourceNotFoundException("User", "email", email);
+                                            "Authenticated user not found in database: {}",
+                                            currentUser.email());
+                                    return new ResourceNotFoundException(
+                                            "User", "email", currentUser.email());
                                 });
 
         return userMapper.toResponse(user);
     }
+
+    private AuthResponse createAuthResponse(IssuedRefreshToken refreshToken) {
+        User user = refreshToken.user();
+        String accessToken =
+                jwtTokenUtil.generateToken(
+                        user,
+                        // Never older than a revocation this instance already knows about
+                        Math.max(
+                                user.getTokenEpoch(),
+                                tokenEpochRegistry.currentEpoch(user.getId())),
+                        refreshToken.sessionId());
+        return new AuthResponse(accessToken, refreshToken.token(), userMapper.toResponse(user));
+    }
 }
@@ -0,0 +1,194 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.model.Category;
+import com.expense.segmentation.repository.CategoryRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory dictionary of categories: resolves the category names of segment writes to the
+ * category they reference without touching the database.
+ *
+ * <p>Names are matched trimmed and case-insensitively; where two categories differ only in case, an
+ * active one wins over an inactive one and otherwise the older one wins, as in the migrations that
+ * backfilled segment and rule category IDs. Inactive categories are resolved too, flagged as such:
+ * segments may keep referencing them, but writes refuse them. Each category is interned under a
+ * small integer code, stable for the lifetime of this instance and never reused, so validation and
+ * grouping within a request work on ints rather than strings.
+ *
+ * <p>Categories created or deactivated on this instance are updated as they commit, and the
+ * dictionary is reloaded every {@code category-dictionary.refresh-interval-ms} to pick up changes
+ * from other instances. A name that is not in the dictionary is looked up in the database before it
+ * is rejected, so a category created elsewhere can be used before the next refresh. Writers
+ * serialize on a lock and publish through a volatile field; readers never lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryDictionary {
+
+    private static final Sort OLDEST_FIRST = Sort.by("createdAt", "name");
+
+    private final CategoryRepository categoryRepository;
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * A category as held by the dictionary.
+     *
+     * @param code the interned code, unique among the categories of this instance
+     * @param id the category ID
+     * @param name the category name as stored
+     * @param active whether new segments and rule allocations may use the category
+     */
+    public record Entry(int code, UUID id, String name, boolean active) {
+
+        static Entry of(int code, Category category) {
+            return new Entry(
+                    code,
+                    category.getId(),
+                    category.getName(),
+                    Boolean.TRUE.equals(category.getActive()));
+        }
+    }
+
+    /**
+     * Resolves a category name.
+     *
+     * @param name the name as entered, matched trimmed and ignoring case
+     * @return the category, empty if no category has that name
+     */
+    public Optional<Entry> resolve(String name) {
+        Entry entry = snapshot.byKey.get(ExpenseSegmentPlanner.categoryKey(name));
+        if (entry != null) {
+            return Optional.of(entry);
+        }
+        // Created on another instance since the last refresh, or not a category at all
+        return categoryRepository
+                .findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc(name.trim())
+                .map(this::register);
+    }
+
+    /**
+     * Looks up a category by ID.
+     *
+     * @param id the category ID
+     * @return the category, empty if there is no category with that ID
+     */
+    public Optional<Entry> get(UUID id) {
+        Entry entry = snapshot.byId.get(id);
+        if (entry != null) {
+            return Optional.of(entry);
+        }
+        return categoryRepository.findById(id).map(this::register);
+    }
+
+    /**
+     * Adds a category, or updates its entry if it is already in the dictionary. An updated
+     * category keeps its code.
+     *
+     * @param category the committed category
+     * @return the category's entry
+     */
+    public Entry register(Category category) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Entry existing = current.byId.get(category.getId());
+            if (existing != null && existing.equals(Entry.of(existing.code(), category))) {
+                return existing;
+            }
+            Snapshot updated = current.copy();
+            Entry entry =
+                    existing != null ? updated.replace(existing, category) : updated.add(category);
+            snapshot = updated;
+            return entry;
+        }
+    }
+
+    /**
+     * Reloads every category from the database. Categories already in the dictionary keep their
+     * codes.
+     */
+    @Scheduled(fixedDelayString = "${category-dictionary.refresh-interval-ms:600000}")
+    public void refresh() {
+        try {
+            List<Category> categories = categoryRepository.findAll(OLDEST_FIRST);
+            synchronized (writeLock) {
+                Snapshot rebuilt = snapshot.rebuild(categories);
+                snapshot = rebuilt;
+                log.debug("Loaded {} categories", rebuilt.byId.size());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh category dictionary, keeping previous entries", e);
+        }
+    }
+
+    /** One dictionary generation. Never mutated once published. */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new HashMap<>(), new HashMap<>(), 0);
+
+        final Map<String, Entry> byKey;
+        final Map<UUID, Entry> byId;
+        int nextCode;
+
+        private Snapshot(Map<String, Entry> byKey, Map<UUID, Entry> byId, int nextCode) {
+            this.byKey = byKey;
+            this.byId = byId;
+            this.nextCode = nextCode;
+        }
+
+        Snapshot copy() {
+            return new Snapshot(new HashMap<>(byKey), new HashMap<>(byId), nextCode);
+        }
+
+        /** A snapshot of the given categories, oldest first, reusing the codes of this one. */
+        Snapshot rebuild(List<Category> categories) {
+            Snapshot rebuilt = new Snapshot(new HashMap<>(), new HashMap<>(), nextCode);
+            for (Category category : categories) {
+                Entry known = byId.get(category.getId());
+                int code = known != null ? known.code() : rebuilt.nextCode++;
+                Entry entry = Entry.of(code, category);
+                rebuilt.put(entry.equals(known) ? known : entry);
+            }
+            return rebuilt;
+        }
+
+        Entry add(Category category) {
+            Entry entry = Entry.of(nextCode++, category);
+            put(entry);
+            return entry;
+        }
+
+        /**
+         * Replaces a known category's entry. A category it shadowed by name is not restored until
+         * the next refresh.
+         */
+        Entry replace(Entry existing, Category category) {
+            byKey.remove(ExpenseSegmentPlanner.categoryKey(existing.name()), existing);
+            Entry entry = Entry.of(existing.code(), category);
+            put(entry);
+            return entry;
+        }
+
+        private void put(Entry entry) {
+            byId.put(entry.id(), entry);
+            // Oldest first, so an older category keeps a name that differs only in case unless
+            // only the newer one is active
+            byKey.merge(
+                    ExpenseSegmentPlanner.categoryKey(entry.name()),
+                    entry,
+                    (kept, added) -> !kept.active() && added.active() ? added : kept);
+        }
+    }
+}
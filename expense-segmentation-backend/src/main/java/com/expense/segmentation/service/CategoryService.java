@@ -22,6 +22,7 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final CategoryDictionary categoryDictionary;
 
     public List<CategoryResponse> getAllActiveCategories() {
         log.debug("Fetching all active categories");
@@ -44,10 +45,12 @@ public class CategoryService {
         category.setDescription(request.getDescription());
         category.setActive(true);
 
-        category = categoryRepository.save(category);
-        log.info("Created category: {} with ID: {}", category.getName(), category.getId());
+        Category saved = categoryRepository.save(category);
+        // Segments can use the category as soon as it is committed
+        AfterCommit.run(() -> categoryDictionary.register(saved));
+        log.info("Created category: {} with ID: {}", saved.getName(), saved.getId());
 
-        return categoryMapper.toResponse(category);
+        return categoryMapper.toResponse(saved);
     }
 
     @Transactional
@@ -63,7 +66,9 @@ public class CategoryService {
                                                 "Category not found with ID: " + categoryId));
 
         category.setActive(false);
-        categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        // New segments and rules stop accepting the category once this commits
+        AfterCommit.run(() -> categoryDictionary.register(saved));
         log.info("Deactivated category: {}", categoryId);
     }
 }
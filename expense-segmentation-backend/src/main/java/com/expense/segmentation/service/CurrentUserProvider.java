@@ -0,0 +1,70 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.config.JwtPrincipal;
+import com.expense.segmentation.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Resolves the {@link AuthenticatedUser} for the current request and keeps it for the rest of the
+ * request, so controllers, services and authorization checks share a single lookup.
+ *
+ * <p>Self-contained JWT principals are converted without touching the database. Any other
+ * authentication (e.g. form login or test users) falls back to one lookup by email through the
+ * {@link UserIdentityCache}.
+ */
+@Slf4j
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class CurrentUserProvider {
+
+    private final UserIdentityCache userIdentityCache;
+
+    private AuthenticatedUser currentUser;
+
+    /**
+     * Returns the authenticated user for the current request.
+     *
+     * @return the authenticated user
+     * @throws AuthenticationCredentialsNotFoundException if the request is not authenticated
+     * @throws ResourceNotFoundException if the authenticated user no longer exists
+     */
+    public AuthenticatedUser get() {
+        if (currentUser == null) {
+            currentUser = resolve();
+        }
+        return currentUser;
+    }
+
+    private AuthenticatedUser resolve() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new AuthenticationCredentialsNotFoundException("No authenticated user");
+        }
+
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser;
+        }
+        if (principal instanceof JwtPrincipal jwtPrincipal) {
+            return AuthenticatedUser.from(jwtPrincipal);
+        }
+
+        String userEmail = authentication.getName();
+        return userIdentityCache
+                .findByEmail(userEmail)
+                .map(UserIdentity::toAuthenticatedUser)
+                .orElseThrow(
+                        () -> {
+                            log.error("Authenticated user not found: {}", userEmail);
+                            return new ResourceNotFoundException("User", "email", userEmail);
+                        });
+    }
+}
@@ -4,15 +4,19 @@ import com.expense.segmentation.model.User;
 import com.expense.segmentation.repository.UserRepository;
 import java.util.Collections;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -26,6 +30,33 @@ public class CustomUserDetailsService implements UserDetailsService {
                                         new UsernameNotFoundException(
                                                 "User not found with email: " + email));
 
+        return toUserDetails(user);
+    }
+
+    /**
+     * Stores a password hash produced with the current BCrypt strength. Called by the
+     * authentication provider after a successful login with a hash of a different cost.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user =
+                userRepository
+                        .findByEmail(userDetails.getUsername())
+                        .orElseThrow(
+                                () ->
+                                        new UsernameNotFoundException(
+                                                "User not found with email: "
+                                                        + userDetails.getUsername()));
+
+        user.setPasswordHash(newPassword);
+        userRepository.save(user);
+        log.info("Rehashed password for user: {}", user.getEmail());
+
+        return toUserDetails(user);
+    }
+
+    private UserDetails toUserDetails(User user) {
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getEmail())
                 .password(user.getPasswordHash())
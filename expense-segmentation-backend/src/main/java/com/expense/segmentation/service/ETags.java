@@ -0,0 +1,22 @@
+package com.expense.segmentation.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.springframework.util.DigestUtils;
+
+/** Builds strong entity tags from the metadata a representation is derived from. */
+final class ETags {
+
+    private ETags() {}
+
+    /**
+     * Hashes the parts into an opaque tag. Callers pass every value the representation depends
+     * on, so any change to one of them yields a different tag.
+     */
+    static String of(Object... parts) {
+        String joined =
+                Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        return DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8));
+    }
+}
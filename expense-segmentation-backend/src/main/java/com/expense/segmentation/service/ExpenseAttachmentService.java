@@ -1,13 +1,13 @@
 package com.expense.segmentation.service;
 
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.dto.AttachmentResponse;
 import com.expense.segmentation.exception.InvalidOperationException;
 import com.expense.segmentation.exception.ResourceNotFoundException;
 import com.expense.segmentation.mapper.AttachmentMapper;
 import com.expense.segmentation.model.Expense;
 import com.expense.segmentation.model.ExpenseAttachment;
-import com.expense.segmentation.model.RoleType;
-import com.expense.segmentation.model.User;
+import com.expense.segmentation.repository.ChildVersionRow;
 import com.expense.segmentation.repository.ExpenseAttachmentRepository;
 import com.expense.segmentation.repository.ExpenseRepository;
 import com.expense.segmentation.repository.UserRepository;
@@ -19,8 +19,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -35,6 +33,7 @@ public class ExpenseAttachmentService {
     private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
     private final AttachmentMapper attachmentMapper;
+    private final CurrentUserProvider currentUserProvider;
 
     @Value("${file.max-size:10485760}") // 10MB default
     private long maxFileSize;
@@ -50,7 +49,7 @@ public class ExpenseAttachmentService {
         validateFile(file);
 
         // Get current user
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = currentUserProvider.get();
 
         // Get expense
         Expense expense =
@@ -77,7 +76,7 @@ public class ExpenseAttachmentService {
         attachment.setStoredPath(storedPath);
         attachment.setMimeType(file.getContentType());
         attachment.setFileSize(file.getSize());
-        attachment.setUploadedBy(currentUser);
+        attachment.setUploadedBy(userRepository.getReferenceById(currentUser.id()));
 
         // Save to database
         ExpenseAttachment saved = attachmentRepository.save(attachment);
@@ -91,7 +90,7 @@ public class ExpenseAttachmentService {
         log.debug("Fetching attachments for expense: {}", expenseId);
 
         // Get current user
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = currentUserProvider.get();
 
         // Verify expense exists and check authorization
         getExpenseWithAuthorization(expenseId, currentUser);
@@ -104,12 +103,36 @@ public class ExpenseAttachmentService {
         return attachments.stream().map(attachmentMapper::toResponse).toList();
     }
 
+    /**
+     * Computes the ETag of {@link #getAttachmentsByExpense} from the attachment count and latest
+     * upload, without loading the attachments. Authorization is checked as for the full list.
+     *
+     * @param expenseId the expense ID
+     * @return the ETag value, unquoted
+     */
+    @Transactional(readOnly = true)
+    public String getAttachmentsETag(UUID expenseId) {
+        UUID ownerId =
+                expenseRepository
+                        .findOwnerIdById(expenseId)
+                        .orElseThrow(
+                                () -> {
+                                    log.error("Expense not found: {}", expenseId);
+                                    return new ResourceNotFoundException(
+                                            "Expense", expenseId.toString());
+                                });
+        checkAccessAuthorization(expenseId, ownerId, currentUserProvider.get());
+
+        ChildVersionRow version = attachmentRepository.findVersionByExpenseId(expenseId);
+        return ETags.of("attachments", expenseId, version.count(), version.lastModified());
+    }
+
     @Transactional(readOnly = true)
     public Resource downloadAttachment(UUID attachmentId) {
         log.debug("Downloading attachment: {}", attachmentId);
 
         // Get current user
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = currentUserProvider.get();
 
         // Fetch attachment with details
         ExpenseAttachment attachment =
@@ -123,7 +146,8 @@ public class ExpenseAttachmentService {
                                 });
 
         // Check authorization
-        checkAccessAuthorization(attachment.getExpense(), currentUser);
+        Expense expense = attachment.getExpense();
+        checkAccessAuthorization(expense.getId(), expense.getCreatedBy().getId(), currentUser);
 
         // Load file
         Resource resource = fileStorageService.loadFileAsResource(attachment.getStoredPath());
@@ -136,7 +160,7 @@ public class ExpenseAttachmentService {
         log.info("Deleting attachment: {}", attachmentId);
 
         // Get current user
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = currentUserProvider.get();
 
         // Fetch attachment with details
         ExpenseAttachment attachment =
@@ -150,14 +174,12 @@ public class ExpenseAttachmentService {
                                 });
 
         // Check authorization - only the uploader or finance/admin can delete
-        RoleType currentUserRole = currentUser.getRole().getName();
-        boolean isFinanceOrAdmin =
-                RoleType.FINANCE.equals(currentUserRole) || RoleType.ADMIN.equals(currentUserRole);
+        boolean isFinanceOrAdmin = currentUser.isFinanceOrAdmin();
 
-        if (!isFinanceOrAdmin && !currentUser.getId().equals(attachment.getUploadedBy().getId())) {
+        if (!isFinanceOrAdmin && !currentUser.id().equals(attachment.getUploadedBy().getId())) {
             log.warn(
                     "User {} attempted to delete attachment {} without permission",
-                    currentUser.getId(),
+                    currentUser.id(),
                     attachmentId);
             throw new SecurityException("You are not authorized to delete this attachment");
         }
@@ -210,20 +232,7 @@ public class ExpenseAttachmentService {
         }
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-
-        return userRepository
-                .findByEmail(userEmail)
-                .orElseThrow(
-                        () -> {
-                            log.error("Authenticated user not found: {}", userEmail);
-                            return new ResourceNotFoundException("User", "email", userEmail);
-                        });
-    }
-
-    private Expense getExpenseWithAuthorization(UUID expenseId, User currentUser) {
+    private Expense getExpenseWithAuthorization(UUID expenseId, AuthenticatedUser currentUser) {
         Expense expense =
                 expenseRepository
                         .findByIdWithCreatedBy(expenseId)
@@ -234,34 +243,31 @@ public class ExpenseAttachmentService {
                                             "Expense", expenseId.toString());
                                 });
 
-        checkAccessAuthorization(expense, currentUser);
+        checkAccessAuthorization(expenseId, expense.getCreatedBy().getId(), currentUser);
         return expense;
     }
 
-    private void checkAccessAuthorization(Expense expense, User currentUser) {
-        RoleType currentUserRole = currentUser.getRole().getName();
-        boolean isFinanceOrAdmin =
-                RoleType.FINANCE.equals(currentUserRole) || RoleType.ADMIN.equals(currentUserRole);
+    private void checkAccessAuthorization(
+            UUID expenseId, UUID ownerId, AuthenticatedUser currentUser) {
+        boolean isFinanceOrAdmin = currentUser.isFinanceOrAdmin();
 
-        if (!isFinanceOrAdmin && !currentUser.getId().equals(expense.getCreatedBy().getId())) {
+        if (!isFinanceOrAdmin && !currentUser.id().equals(ownerId)) {
             log.warn(
                     "User {} attempted to access expense {} attachments without permission",
-                    currentUser.getId(),
-                    expense.getId());
+                    currentUser.id(),
+                    expenseId);
             throw new SecurityException(
                     "You are not authorized to access attachments for this expense");
         }
     }
 
-    private void checkUploadAuthorization(Expense expense, User currentUser) {
-        RoleType currentUserRole = currentUser.getRole().getName();
-        boolean isFinanceOrAdmin =
-                RoleType.FINANCE.equals(currentUserRole) || RoleType.ADMIN.equals(currentUserRole);
+    private void checkUploadAuthorization(Expense expense, AuthenticatedUser currentUser) {
+        boolean isFinanceOrAdmin = currentUser.isFinanceOrAdmin();
 
-        if (!isFinanceOrAdmin && !currentUser.getId().equals(expense.getCreatedBy().getId())) {
+        if (!isFinanceOrAdmin && !currentUser.id().equals(expense.getCreatedBy().getId())) {
             log.warn(
                     "User {} attempted to upload attachment to expense {} without permission",
-                    currentUser.getId(),
+                    currentUser.id(),
                     expense.getId());
             throw new SecurityException(
                     "You are not authorized to upload attachments for this expense. Only the"
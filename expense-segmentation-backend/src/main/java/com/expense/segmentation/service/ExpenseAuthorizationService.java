@@ -1,53 +1,46 @@
 package com.expense.segmentation.service;
 
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.exception.ResourceNotFoundException;
-import com.expense.segmentation.model.Expense;
 import com.expense.segmentation.model.RoleType;
-import com.expense.segmentation.model.User;
 import com.expense.segmentation.repository.ExpenseRepository;
-import com.expense.segmentation.repository.UserRepository;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+/**
+ * Expense-level authorization checks used from {@code @PreAuthorize} expressions. The caller's
+ * role comes from the request's {@link AuthenticatedUser}; each check only reads the expense's
+ * creator ID through a projection, so no entity is loaded.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ExpenseAuthorizationService {
 
     private final ExpenseRepository expenseRepository;
-    private final UserRepository userRepository;
-
-    public boolean canModifyExpense(UUID expenseId, String username) {
-        log.debug(
-                "Checking modification permission for expense {} by user {}", expenseId, username);
+    private final CurrentUserProvider currentUserProvider;
 
+    public boolean canModifyExpense(UUID expenseId) {
         try {
-            Expense expense =
-                    expenseRepository
-                            .findById(expenseId)
-                            .orElseThrow(
-                                    () ->
-                                            new ResourceNotFoundException(
-                                                    "Expense not found with ID: " + expenseId));
-
-            User user =
-                    userRepository
-                            .findByEmail(username)
-                            .orElseThrow(
-                                    () ->
-                                            new ResourceNotFoundException(
-                                                    "User not found with email: " + username));
+            UUID ownerId = findOwnerId(expenseId);
+
+            AuthenticatedUser user = currentUserProvider.get();
+            String username = user.email();
+            log.debug(
+                    "Checking modification permission for expense {} by user {}",
+                    expenseId,
+                    username);
 
             // Users can modify their own expenses
-            if (expense.getCreatedBy().getId().equals(user.getId())) {
+            if (ownerId.equals(user.id())) {
                 log.debug("User {} can modify expense {} (owner)", username, expenseId);
                 return true;
             }
 
             // Admin and Finance can modify any expense
-            if (hasRole(user, RoleType.ADMIN) || hasRole(user, RoleType.FINANCE)) {
+            if (user.isFinanceOrAdmin()) {
                 log.debug("User {} can modify expense {} (admin/finance)", username, expenseId);
                 return true;
             }
@@ -61,36 +54,34 @@ public class ExpenseAuthorizationService {
         }
     }
 
-    public boolean canViewExpense(UUID expenseId, String username) {
-        log.debug("Checking view permission for expense {} by user {}", expenseId, username);
+    /**
+     * Applies the modification rule to an expense whose creator is already known, for callers
+     * that fetched the creators of many expenses in one query.
+     *
+     * @param ownerId the ID of the user who created the expense
+     * @return true if the current user may modify the expense
+     */
+    public boolean canModifyExpenseOwnedBy(UUID ownerId) {
+        AuthenticatedUser user = currentUserProvider.get();
+        return ownerId.equals(user.id()) || user.isFinanceOrAdmin();
+    }
 
+    public boolean canViewExpense(UUID expenseId) {
         try {
-            Expense expense =
-                    expenseRepository
-                            .findById(expenseId)
-                            .orElseThrow(
-                                    () ->
-                                            new ResourceNotFoundException(
-                                                    "Expense not found with ID: " + expenseId));
-
-            User user =
-                    userRepository
-                            .findByEmail(username)
-                            .orElseThrow(
-                                    () ->
-                                            new ResourceNotFoundException(
-                                                    "User not found with email: " + username));
+            UUID ownerId = findOwnerId(expenseId);
+
+            AuthenticatedUser user = currentUserProvider.get();
+            String username = user.email();
+            log.debug("Checking view permission for expense {} by user {}", expenseId, username);
 
             // Users can view their own expenses
-            if (expense.getCreatedBy().getId().equals(user.getId())) {
+            if (ownerId.equals(user.id())) {
                 log.debug("User {} can view expense {} (owner)", username, expenseId);
                 return true;
             }
 
             // Manager, Finance, and Admin can view any expense
-            if (hasRole(user, RoleType.MANAGER)
-                    || hasRole(user, RoleType.FINANCE)
-                    || hasRole(user, RoleType.ADMIN)) {
+            if (user.hasAnyRole(RoleType.MANAGER, RoleType.FINANCE, RoleType.ADMIN)) {
                 log.debug(
                         "User {} can view expense {} (manager/finance/admin)", username, expenseId);
                 return true;
@@ -105,28 +96,19 @@ public class ExpenseAuthorizationService {
         }
     }
 
-    public boolean canModifySegments(UUID expenseId, String username) {
+    public boolean canModifySegments(UUID expenseId) {
         // Segment modification follows the same rules as expense modification
-        return canModifyExpense(expenseId, username);
+        return canModifyExpense(expenseId);
     }
 
-    public boolean canManageCategories(String username) {
-        log.debug("Checking category management permission for user {}", username);
-
+    public boolean canManageCategories() {
         try {
-            User user =
-                    userRepository
-                            .findByEmail(username)
-                            .orElseThrow(
-                                    () ->
-                                            new ResourceNotFoundException(
-                                                    "User not found with email: " + username));
+            AuthenticatedUser user = currentUserProvider.get();
+            String username = user.email();
+            log.debug("Checking category management permission for user {}", username);
 
             // Only Manager, Finance, and Admin can manage categories
-            boolean canManage =
-                    hasRole(user, RoleType.MANAGER)
-                            || hasRole(user, RoleType.FINANCE)
-                            || hasRole(user, RoleType.ADMIN);
+            boolean canManage = user.hasAnyRole(RoleType.MANAGER, RoleType.FINANCE, RoleType.ADMIN);
 
             log.debug("User {} {} manage categories", username, canManage ? "can" : "cannot");
             return canManage;
@@ -137,7 +119,12 @@ public class ExpenseAuthorizationService {
         }
     }
 
-    private boolean hasRole(User user, RoleType roleType) {
-        return user.getRole() != null && user.getRole().getName() == roleType;
+    private UUID findOwnerId(UUID expenseId) {
+        return expenseRepository
+                .findOwnerIdById(expenseId)
+                .orElseThrow(
+                        () ->
+                                new ResourceNotFoundException(
+                                        "Expense not found with ID: " + expenseId));
     }
 }
@@ -0,0 +1,96 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived cache of expense list totals keyed by the caller's scope and filters. Paging through
+ * a list repeats the same count on every click; with this cache only the first click pays for it.
+ *
+ * <p>Entries of a scope are dropped when an expense is created in it (see {@link
+ * #invalidateForCreator(UUID)}). Changes made by other instances only show up after {@code
+ * expense-count-cache.expire-after-write}, which is why totals served from here are reported as
+ * cached rather than exact. Hit, miss and eviction counts are published as {@code cache.*} meters
+ * tagged {@code cache=expenses.count}.
+ */
+@Slf4j
+@Component
+public class ExpenseCountCache {
+
+    private final boolean enabled;
+    private final Cache<Key, Long> counts;
+
+    public ExpenseCountCache(
+            MeterRegistry meterRegistry,
+            @Value("${expense-count-cache.enabled:true}") boolean enabled,
+            @Value("${expense-count-cache.max-size:10000}") long maxSize,
+            @Value("${expense-count-cache.expire-after-write:30s}") Duration expireAfterWrite) {
+        this.enabled = enabled;
+        this.counts =
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(expireAfterWrite)
+                        .recordStats()
+                        .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "expenses.count");
+    }
+
+    /**
+     * Returns the cached total for a scope and filter combination, counting on a miss.
+     *
+     * @param key the scope and filters
+     * @param counter runs the count query
+     * @return the total and whether it was served from the cache
+     */
+    public Total get(Key key, LongSupplier counter) {
+        if (enabled) {
+            Long cached = counts.getIfPresent(key);
+            if (cached != null) {
+                return new Total(cached, true);
+            }
+        }
+        long count = counter.getAsLong();
+        if (enabled) {
+            counts.put(key, count);
+        }
+        return new Total(count, false);
+    }
+
+    /**
+     * Drops every cached total that a new expense by this user can change: the user's own scope
+     * and the unscoped (all expenses) one.
+     *
+     * @param creatorId the ID of the user who created an expense
+     */
+    public void invalidateForCreator(UUID creatorId) {
+        counts.asMap()
+                .keySet()
+                .removeIf(key -> key.userId() == null || key.userId().equals(creatorId));
+        log.debug("Invalidated cached expense totals for creator {}", creatorId);
+    }
+
+    /**
+     * Scope and filters of an expense list count. {@code userId} is null for callers who see all
+     * expenses.
+     */
+    public record Key(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status) {}
+
+    /** A total and whether it came from the cache. */
+    public record Total(long count, boolean cached) {}
+}
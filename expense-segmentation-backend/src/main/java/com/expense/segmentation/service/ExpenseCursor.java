@@ -0,0 +1,56 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.exception.InvalidOperationException;
+import com.expense.segmentation.repository.ExpenseListRow;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last expense of a page in the expense list sort order (date DESC, createdAt DESC,
+ * id DESC). The next page is fetched by seeking past this position instead of skipping an OFFSET,
+ * so deep pages cost the same as the first one.
+ *
+ * <p>Clients only ever see the opaque Base64url form produced by {@link #encode()}.
+ */
+public record ExpenseCursor(LocalDate date, LocalDateTime createdAt, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static ExpenseCursor of(ExpenseListRow row) {
+        return new ExpenseCursor(row.date(), row.createdAt(), row.id());
+    }
+
+    public String encode() {
+        String raw = date + SEPARATOR + createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor string
+     * @return the decoded position
+     * @throws InvalidOperationException if the cursor is malformed
+     */
+    public static ExpenseCursor decode(String cursor) {
+        try {
+            String raw =
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected 3 cursor parts");
+            }
+            return new ExpenseCursor(
+                    LocalDate.parse(parts[0]),
+                    LocalDateTime.parse(parts[1]),
+                    UUID.fromString(parts[2]));
+        } catch (RuntimeException e) {
+            throw new InvalidOperationException("Invalid pagination cursor", e);
+        }
+    }
+}
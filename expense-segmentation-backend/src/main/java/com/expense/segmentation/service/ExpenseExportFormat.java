@@ -0,0 +1,42 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.exception.InvalidOperationException;
+import java.util.Locale;
+
+/** Output formats of the expense export. */
+public enum ExpenseExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExpenseExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Parses a {@code format} request parameter, ignoring case.
+     *
+     * @param value the raw value
+     * @return the format
+     * @throws InvalidOperationException if the value is not a supported format
+     */
+    public static ExpenseExportFormat parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOperationException(
+                    "Unsupported export format: " + value + ". Supported: csv, ndjson");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.dto.ExpenseResponse;
+import com.expense.segmentation.mapper.ExpenseMapper;
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.repository.ExpenseListRow;
+import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.ExpenseSegmentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Streams expense exports straight from a database cursor to the response. Rows are written as
+ * they are read and segments, when requested, are loaded for one chunk of rows at a time, so heap
+ * use stays flat however many expenses match.
+ *
+ * <p>Filters and role scoping are the same as for the paged expense list. Parallel exports are
+ * delegated to {@link ParallelExpenseExporter}.
+ */
+@Slf4j
+@Service
+public class ExpenseExportService {
+
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseSegmentRepository expenseSegmentRepository;
+    private final ExpenseMapper expenseMapper;
+    private final CurrentUserProvider currentUserProvider;
+    private final ObjectMapper objectMapper;
+    private final ParallelExpenseExporter parallelExpenseExporter;
+    private final ExpenseService expenseService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+
+    public ExpenseExportService(
+            ExpenseRepository expenseRepository,
+            ExpenseSegmentRepository expenseSegmentRepository,
+            ExpenseMapper expenseMapper,
+            CurrentUserProvider currentUserProvider,
+            ObjectMapper objectMapper,
+            ParallelExpenseExporter parallelExpenseExporter,
+            ExpenseService expenseService,
+            PlatformTransactionManager transactionManager,
+            @Value("${expense-export.fetch-size:1000}") int fetchSize) {
+        this.expenseRepository = expenseRepository;
+        this.expenseSegmentRepository = expenseSegmentRepository;
+        this.expenseMapper = expenseMapper;
+        this.currentUserProvider = currentUserProvider;
+        this.objectMapper = objectMapper;
+        this.parallelExpenseExporter = parallelExpenseExporter;
+        this.expenseService = expenseService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Prepares an export of the expenses visible to the current user. The caller's scope is
+     * resolved here, on the request thread; the returned body runs the query when the response is
+     * written.
+     *
+     * @param format the output format
+     * @param dateFrom optional start date filter
+     * @param dateTo optional end date filter
+     * @param type optional expense type filter
+     * @param status optional expense status filter
+     * @param withSegments whether to include segments: one CSV line per segment, or an embedded
+     *     segment list per NDJSON line
+     * @param parallel whether to read with several workers from one snapshot; rows are then
+     *     ordered by ID instead of list order. Ignored on databases other than PostgreSQL.
+     * @return the response body that writes the export
+     * @throws com.expense.segmentation.exception.TooManyRequestsException if a parallel export is
+     *     requested while the maximum number of them is running
+     */
+    public StreamingResponseBody export(
+            ExpenseExportFormat format,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status,
+            boolean withSegments,
+            boolean parallel) {
+        AuthenticatedUser currentUser = currentUserProvider.get();
+        UUID userIdFilter = currentUser.isFinanceOrAdmin() ? null : currentUser.id();
+        log.info(
+                "Exporting expenses as {} for user {} - dateFrom: {}, dateTo: {}, type: {},"
+                        + " status: {}, segments: {}, parallel: {}",
+                format,
+                currentUser.id(),
+                dateFrom,
+                dateTo,
+                type,
+                status,
+                withSegments,
+                parallel);
+
+        if (parallel) {
+            if (parallelExpenseExporter.isSupported()) {
+                parallelExpenseExporter.reserve();
+                return out ->
+                        parallelExpenseExporter.export(
+                                format,
+                                userIdFilter,
+                                dateFrom,
+                                dateTo,
+                                type,
+                                status,
+                                withSegments,
+                                out);
+            }
+            log.info("Parallel export is not supported by this database, using a single cursor");
+        }
+
+        return out ->
+                readOnlyTransaction.executeWithoutResult(
+                        transactionStatus -> {
+                            try (Stream<ExpenseListRow> rows =
+                                    expenseRepository.streamExpensesWithFilters(
+                                            userIdFilter,
+                                            dateFrom,
+                                            dateTo,
+                                            type,
+                                            status,
+                                            fetchSize)) {
+                                ExpenseExportWriter writer =
+                                        new ExpenseExportWriter(
+                                                format,
+                                                withSegments,
+                                                expenseMapper,
+                                                objectMapper,
+                                                out);
+                                writer.writeHeader();
+                                long written =
+                                        writer.writeRows(
+                                                rows.iterator(),
+                                                fetchSize,
+                                                expenseSegmentRepository::findRowsByExpenseIdIn);
+                                log.info("Exported {} expenses as {}", written, format);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+    }
+
+    /**
+     * Prepares a JSON array of every expense of one user, in list order. Access and the user's
+     * existence are checked here, before the response is committed; the returned body then
+     * serializes rows one at a time as they come off the database cursor.
+     *
+     * @param userId the user whose expenses to write
+     * @param dateFrom optional start date filter
+     * @param dateTo optional end date filter
+     * @return the response body that writes the array
+     */
+    public StreamingResponseBody streamExpensesByUser(
+            UUID userId, LocalDate dateFrom, LocalDate dateTo) {
+        expenseService.checkCanListExpensesOf(userId);
+        log.info(
+                "Streaming expenses of user {} - dateFrom: {}, dateTo: {}",
+                userId,
+                dateFrom,
+                dateTo);
+
+        // The response stream is closed by the container, and flushing after every element
+        // would turn each expense into its own network write
+        ObjectWriter elementWriter =
+                objectMapper
+                        .writerFor(ExpenseResponse.class)
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out ->
+                readOnlyTransaction.executeWithoutResult(
+                        transactionStatus -> {
+                            try (Stream<ExpenseListRow> rows =
+                                            expenseRepository.streamExpensesWithFilters(
+                                                    userId,
+                                                    dateFrom,
+                                                    dateTo,
+                                                    null,
+                                                    null,
+                                                    fetchSize);
+                                    SequenceWriter array = elementWriter.writeValuesAsArray(out)) {
+                                Iterator<ExpenseListRow> iterator = rows.iterator();
+                                long written = 0;
+                                while (iterator.hasNext()) {
+                                    array.write(expenseMapper.toResponse(iterator.next()));
+                                    written++;
+                                }
+                                log.info("Streamed {} expenses of user {}", written, userId);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+    }
+}
@@ -0,0 +1,218 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.dto.ExpenseResponse;
+import com.expense.segmentation.dto.ExpenseSegmentResponse;
+import com.expense.segmentation.mapper.ExpenseMapper;
+import com.expense.segmentation.repository.ExpenseListRow;
+import com.expense.segmentation.repository.ExpenseSegmentRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serializes expense rows to CSV or NDJSON. Rows are consumed in chunks: the segments of a chunk,
+ * when requested, are looked up with one call, and the chunk is discarded once written.
+ */
+class ExpenseExportWriter {
+
+    private static final String[] CSV_HEADER = {
+        "id",
+        "date",
+        "vendor",
+        "amount",
+        "description",
+        "type",
+        "status",
+        "createdById",
+        "createdByName",
+        "createdByEmail",
+        "createdAt",
+        "updatedAt"
+    };
+
+    private static final String[] CSV_SEGMENT_HEADER = {
+        "segmentCategory", "segmentAmount", "segmentPercentage"
+    };
+
+    private final ExpenseExportFormat format;
+    private final boolean withSegments;
+    private final ExpenseMapper expenseMapper;
+    private final ObjectMapper objectMapper;
+    private final Writer writer;
+
+    ExpenseExportWriter(
+            ExpenseExportFormat format,
+            boolean withSegments,
+            ExpenseMapper expenseMapper,
+            ObjectMapper objectMapper,
+            OutputStream out) {
+        this.format = format;
+        this.withSegments = withSegments;
+        this.expenseMapper = expenseMapper;
+        this.objectMapper = objectMapper;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /** Writes the CSV header line; NDJSON has none. */
+    void writeHeader() throws IOException {
+        if (format != ExpenseExportFormat.CSV) {
+            return;
+        }
+        writer.write(String.join(",", CSV_HEADER));
+        if (withSegments) {
+            writer.write(",");
+            writer.write(String.join(",", CSV_SEGMENT_HEADER));
+        }
+        writer.write("\r\n");
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Writes every row, {@code chunkSize} rows at a time, and flushes.
+     *
+     * @param rows the rows to write
+     * @param chunkSize how many rows to hold at once
+     * @param segmentLoader looks up the segments of a chunk's expenses; not called without
+     *     segments
+     * @return the number of expenses written
+     */
+    long writeRows(
+            Iterator<ExpenseListRow> rows,
+            int chunkSize,
+            Function<List<UUID>, List<ExpenseSegmentRow>> segmentLoader)
+            throws IOException {
+        long written = 0;
+        List<ExpenseListRow> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize) {
+                written += writeChunk(chunk, segmentLoader);
+            }
+        }
+        written += writeChunk(chunk, segmentLoader);
+        writer.flush();
+        return written;
+    }
+
+    private int writeChunk(
+            List<ExpenseListRow> chunk,
+            Function<List<UUID>, List<ExpenseSegmentRow>> segmentLoader)
+            throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, List<ExpenseSegmentRow>> segments = Map.of();
+        if (withSegments) {
+            List<UUID> expenseIds = chunk.stream().map(ExpenseListRow::id).toList();
+            segments =
+                    segmentLoader.apply(expenseIds).stream()
+                            .collect(Collectors.groupingBy(ExpenseSegmentRow::expenseId));
+        }
+        for (ExpenseListRow row : chunk) {
+            List<ExpenseSegmentRow> rowSegments = segments.getOrDefault(row.id(), List.of());
+            if (format == ExpenseExportFormat.CSV) {
+                writeCsvRow(row, rowSegments);
+            } else {
+                writeJsonLine(row, rowSegments);
+            }
+        }
+        int size = chunk.size();
+        chunk.clear();
+        return size;
+    }
+
+    private void writeCsvRow(ExpenseListRow row, List<ExpenseSegmentRow> segments)
+            throws IOException {
+        String expense =
+                String.join(
+                        ",",
+                        csv(row.id()),
+                        csv(row.date()),
+                        csvText(row.vendor()),
+                        csv(row.amount()),
+                        csvText(row.description()),
+                        csv(row.type()),
+                        csv(row.status()),
+                        csv(row.createdById()),
+                        csvText(row.createdByName()),
+                        csvText(row.createdByEmail()),
+                        csv(row.createdAt()),
+                        csv(row.updatedAt()));
+        if (!withSegments) {
+            writer.write(expense);
+            writer.write("\r\n");
+            return;
+        }
+        if (segments.isEmpty()) {
+            writer.write(expense);
+            writer.write(",,,\r\n");
+            return;
+        }
+        for (ExpenseSegmentRow segment : segments) {
+            writer.write(expense);
+            writer.write(",");
+            writer.write(
+                    String.join(
+                            ",",
+                            csvText(segment.category()),
+                            csv(segment.amount()),
+                            csv(segment.percentage())));
+            writer.write("\r\n");
+        }
+    }
+
+    private void writeJsonLine(ExpenseListRow row, List<ExpenseSegmentRow> segments)
+            throws IOException {
+        ExpenseResponse response = expenseMapper.toResponse(row);
+        if (withSegments) {
+            response.setSegments(
+                    segments.stream()
+                            .map(
+                                    segment ->
+                                            new ExpenseSegmentResponse(
+                                                    segment.id(),
+                                                    segment.category(),
+                                                    segment.amount(),
+                                                    segment.percentage()))
+                            .toList());
+        }
+        writer.write(objectMapper.writeValueAsString(response));
+        writer.write("\n");
+    }
+
+    private static String csv(Object value) {
+        return Objects.toString(value, "");
+    }
+
+    /**
+     * Quotes free text per RFC 4180 and defuses values a spreadsheet would evaluate as a formula.
+     */
+    static String csvText(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String text = "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (text.indexOf(',') >= 0
+                || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0
+                || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
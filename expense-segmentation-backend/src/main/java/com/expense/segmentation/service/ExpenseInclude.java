@@ -0,0 +1,39 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.exception.InvalidOperationException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/** Child collections that can be embedded in expense responses via {@code include=...}. */
+public enum ExpenseInclude {
+    SEGMENTS,
+    ATTACHMENTS;
+
+    /**
+     * Parses the values of an {@code include} request parameter, ignoring case and blanks.
+     *
+     * @param values the raw values, may be null
+     * @return the requested includes, empty if none
+     * @throws InvalidOperationException if a value is not a known include
+     */
+    public static Set<ExpenseInclude> parse(Collection<String> values) {
+        Set<ExpenseInclude> includes = EnumSet.noneOf(ExpenseInclude.class);
+        if (values == null) {
+            return includes;
+        }
+        for (String value : values) {
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            try {
+                includes.add(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidOperationException(
+                        "Unknown include: " + value.trim() + ". Supported: segments, attachments");
+            }
+        }
+        return includes;
+    }
+}
@@ -0,0 +1,103 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.dto.AttachmentResponse;
+import com.expense.segmentation.dto.ExpenseResponse;
+import com.expense.segmentation.dto.ExpenseSegmentResponse;
+import com.expense.segmentation.mapper.AttachmentMapper;
+import com.expense.segmentation.mapper.ExpenseSegmentMapper;
+import com.expense.segmentation.repository.ChildVersionRow;
+import com.expense.segmentation.repository.ExpenseAttachmentRepository;
+import com.expense.segmentation.repository.ExpenseSegmentRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embeds segments and attachment metadata into already authorized expense responses. Children of
+ * a whole page are loaded with one {@code IN (:ids)} query per include, so a page costs the same
+ * number of queries whatever its size, and no per-expense authorization is repeated.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpenseIncludeLoader {
+
+    private final ExpenseSegmentRepository expenseSegmentRepository;
+    private final ExpenseAttachmentRepository attachmentRepository;
+    private final ExpenseSegmentMapper expenseSegmentMapper;
+    private final AttachmentMapper attachmentMapper;
+
+    /**
+     * Sets the requested child collections on each response. Expenses without children get an
+     * empty list; collections that were not requested stay null and are left out of the JSON.
+     *
+     * @param expenses the responses to fill in
+     * @param include the child collections to load
+     */
+    public void load(List<ExpenseResponse> expenses, Set<ExpenseInclude> include) {
+        if (expenses.isEmpty() || include.isEmpty()) {
+            return;
+        }
+        List<UUID> expenseIds = expenses.stream().map(ExpenseResponse::getId).toList();
+
+        if (include.contains(ExpenseInclude.SEGMENTS)) {
+            Map<UUID, List<ExpenseSegmentResponse>> segments =
+                    expenseSegmentRepository.findByExpenseIdInOrderByCategory(expenseIds).stream()
+                            .collect(
+                                    Collectors.groupingBy(
+                                            segment -> segment.getExpense().getId(),
+                                            Collectors.mapping(
+                                                    expenseSegmentMapper::toResponse,
+                                                    Collectors.toList())));
+            expenses.forEach(
+                    expense ->
+                            expense.setSegments(
+                                    segments.getOrDefault(expense.getId(), List.of())));
+        }
+
+        if (include.contains(ExpenseInclude.ATTACHMENTS)) {
+            Map<UUID, List<AttachmentResponse>> attachments =
+                    attachmentRepository.findByExpenseIdInWithUploadedBy(expenseIds).stream()
+                            .map(attachmentMapper::toResponse)
+                            .collect(Collectors.groupingBy(AttachmentResponse::getExpenseId));
+            expenses.forEach(
+                    expense ->
+                            expense.setAttachments(
+                                    attachments.getOrDefault(expense.getId(), List.of())));
+        }
+
+        log.debug("Loaded {} for {} expenses", include, expenses.size());
+    }
+
+    /**
+     * Returns the version metadata of the requested child collections of one expense, in a fixed
+     * order, for inclusion in the expense's ETag. Runs one aggregate query per include instead of
+     * loading the children.
+     *
+     * @param expenseId the expense ID
+     * @param include the child collections that are embedded
+     * @return the name, count and latest change of each included collection
+     */
+    public List<Object> versions(UUID expenseId, Set<ExpenseInclude> include) {
+        List<Object> versions = new ArrayList<>();
+        for (ExpenseInclude collection : ExpenseInclude.values()) {
+            if (!include.contains(collection)) {
+                continue;
+            }
+            ChildVersionRow version =
+                    collection == ExpenseInclude.SEGMENTS
+                            ? expenseSegmentRepository.findVersionByExpenseId(expenseId)
+                            : attachmentRepository.findVersionByExpenseId(expenseId);
+            versions.add(collection);
+            versions.add(version.count());
+            versions.add(version.lastModified());
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,54 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.exception.InvalidOperationException;
+import com.expense.segmentation.repository.ExpenseSearchRow;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last hit of a search page in the search sort order (rank DESC, id DESC). The
+ * rank is carried exactly as the database returned it, so the next page resumes right after it.
+ *
+ * <p>Clients only ever see the opaque Base64url form produced by {@link #encode()}.
+ */
+public record ExpenseSearchCursor(float rank, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static ExpenseSearchCursor of(ExpenseSearchRow row) {
+        return new ExpenseSearchCursor(row.rank(), row.expense().id());
+    }
+
+    public String encode() {
+        String raw = Float.toString(rank) + SEPARATOR + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor string
+     * @return the decoded position
+     * @throws InvalidOperationException if the cursor is malformed
+     */
+    public static ExpenseSearchCursor decode(String cursor) {
+        try {
+            String raw =
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected 2 cursor parts");
+            }
+            float rank = Float.parseFloat(parts[0]);
+            if (!Float.isFinite(rank)) {
+                throw new IllegalArgumentException("Rank must be finite");
+            }
+            return new ExpenseSearchCursor(rank, UUID.fromString(parts[1]));
+        } catch (RuntimeException e) {
+            throw new InvalidOperationException("Invalid search cursor", e);
+        }
+    }
+}
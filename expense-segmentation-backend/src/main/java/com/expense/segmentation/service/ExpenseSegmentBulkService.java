@@ -0,0 +1,220 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.dto.BulkExpenseSegmentsRequest;
+import com.expense.segmentation.dto.BulkExpenseSegmentsResponse;
+import com.expense.segmentation.dto.ExpenseSegmentsItem;
+import com.expense.segmentation.dto.ExpenseSegmentsResult;
+import com.expense.segmentation.dto.ExpenseSegmentsResult.Status;
+import com.expense.segmentation.exception.SegmentValidationException;
+import com.expense.segmentation.model.ExpenseSegment;
+import com.expense.segmentation.repository.ExpenseAmountRow;
+import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.ExpenseSegmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Replaces the segments of many expenses in one request. Every expense is authorized and
+ * validated up front from a single query, then the valid ones are written in chunks, one
+ * transaction per chunk with batched statements. A failing chunk leaves the other chunks
+ * committed and only marks its own expenses as failed.
+ */
+@Slf4j
+@Service
+public class ExpenseSegmentBulkService {
+
+    private final ExpenseSegmentRepository expenseSegmentRepository;
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseAuthorizationService expenseAuthorizationService;
+    private final CategoryDictionary categoryDictionary;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transaction;
+    private final Timer timer;
+    private final int chunkSize;
+
+    public ExpenseSegmentBulkService(
+            ExpenseSegmentRepository expenseSegmentRepository,
+            ExpenseRepository expenseRepository,
+            ExpenseAuthorizationService expenseAuthorizationService,
+            CategoryDictionary categoryDictionary,
+            MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager,
+            @Value("${segment-bulk.chunk-size:500}") int chunkSize) {
+        this.expenseSegmentRepository = expenseSegmentRepository;
+        this.expenseRepository = expenseRepository;
+        this.expenseAuthorizationService = expenseAuthorizationService;
+        this.categoryDictionary = categoryDictionary;
+        this.meterRegistry = meterRegistry;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.timer = meterRegistry.timer("expense.segments.bulk");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Replaces the segments of each listed expense, following the same rules as replacing them
+     * one expense at a time.
+     *
+     * @param request the expenses and their new segments
+     * @return one result per requested expense, in request order
+     */
+    public BulkExpenseSegmentsResponse replaceSegments(BulkExpenseSegmentsRequest request) {
+        long start = System.nanoTime();
+        List<ExpenseSegmentsItem> items = request.getExpenses();
+        log.debug("Bulk replacing segments of {} expenses", items.size());
+
+        Map<UUID, ExpenseAmountRow> expenses =
+                expenseRepository
+                        .findAmountsByIdIn(
+                                items.stream()
+                                        .map(ExpenseSegmentsItem::getExpenseId)
+                                        .collect(Collectors.toSet()))
+                        .stream()
+                        .collect(Collectors.toMap(ExpenseAmountRow::id, Function.identity()));
+
+        ExpenseSegmentsResult[] results = new ExpenseSegmentsResult[items.size()];
+        // The resolved categories of each accepted expense, by index in the request
+        List<List<CategoryDictionary.Entry>> categories = new ArrayList<>(items.size());
+        List<Integer> accepted = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            UUID expenseId = items.get(i).getExpenseId();
+            ExpenseAmountRow expense = expenses.get(expenseId);
+            categories.add(null);
+            if (!seen.add(expenseId)) {
+                results[i] =
+                        rejected(expenseId, Status.INVALID, "Expense is listed more than once");
+            } else if (expense == null) {
+                results[i] = rejected(expenseId, Status.NOT_FOUND, "Expense not found");
+            } else if (!expenseAuthorizationService.canModifyExpenseOwnedBy(expense.ownerId())) {
+                results[i] =
+                        rejected(
+                                expenseId,
+                                Status.FORBIDDEN,
+                                "Not allowed to modify the segments of this expense");
+            } else {
+                try {
+                    categories.set(
+                            i,
+                            ExpenseSegmentPlanner.validate(
+                                    categoryDictionary,
+                                    expense.amount(),
+                                    items.get(i).getSegments()));
+                    accepted.add(i);
+                } catch (SegmentValidationException e) {
+                    results[i] = rejected(expenseId, Status.INVALID, e.getMessage());
+                }
+            }
+        }
+
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            List<Integer> chunk =
+                    accepted.subList(from, Math.min(from + chunkSize, accepted.size()));
+            try {
+                transaction.executeWithoutResult(
+                        status -> writeChunk(chunk, items, categories, expenses));
+                for (int i : chunk) {
+                    ExpenseSegmentsItem item = items.get(i);
+                    results[i] =
+                            new ExpenseSegmentsResult(
+                                    item.getExpenseId(),
+                                    Status.UPDATED,
+                                    item.getSegments().size(),
+                                    null);
+                }
+            } catch (DataAccessException | TransactionException e) {
+                log.warn(
+                        "Failed to write segments of {} expenses, chunk rolled back",
+                        chunk.size(),
+                        e);
+                for (int i : chunk) {
+                    results[i] =
+                            rejected(
+                                    items.get(i).getExpenseId(),
+                                    Status.FAILED,
+                                    "Segments could not be saved; retry this expense");
+                }
+            }
+        }
+
+        Map<Status, Long> counts =
+                Arrays.stream(results)
+                        .collect(
+                                Collectors.groupingBy(
+                                        ExpenseSegmentsResult::getStatus, Collectors.counting()));
+        counts.forEach(
+                (status, count) ->
+                        meterRegistry
+                                .counter("expense.segments.bulk.expenses", "status", status.name())
+                                .increment(count));
+        long elapsedNanos = System.nanoTime() - start;
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        int updated = counts.getOrDefault(Status.UPDATED, 0L).intValue();
+        log.info(
+                "Bulk replaced segments of {} of {} expenses in {} ms ({} expenses/s)",
+                updated,
+                items.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                items.size() * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1));
+        return BulkExpenseSegmentsResponse.builder()
+                .updated(updated)
+                .failed(items.size() - updated)
+                .results(List.of(results))
+                .build();
+    }
+
+    private void writeChunk(
+            List<Integer> chunk,
+            List<ExpenseSegmentsItem> items,
+            List<List<CategoryDictionary.Entry>> categories,
+            Map<UUID, ExpenseAmountRow> expenses) {
+        List<UUID> expenseIds = chunk.stream().map(i -> items.get(i).getExpenseId()).toList();
+        // The expense proxy answers getId() without being initialized
+        Map<UUID, List<ExpenseSegment>> existing =
+                expenseSegmentRepository.findByExpenseIdInOrderByCategory(expenseIds).stream()
+                        .collect(Collectors.groupingBy(segment -> segment.getExpense().getId()));
+
+        List<UUID> removedIds = new ArrayList<>();
+        List<ExpenseSegment> inserts = new ArrayList<>();
+        for (int i : chunk) {
+            ExpenseSegmentsItem item = items.get(i);
+            ExpenseSegmentPlanner.Plan plan =
+                    ExpenseSegmentPlanner.plan(
+                            expenseRepository.getReferenceById(item.getExpenseId()),
+                            expenses.get(item.getExpenseId()).amount(),
+                            existing.getOrDefault(item.getExpenseId(), List.of()),
+                            item.getSegments(),
+                            categories.get(i));
+            removedIds.addAll(plan.removedIds());
+            inserts.addAll(plan.inserts());
+        }
+
+        if (!removedIds.isEmpty()) {
+            expenseSegmentRepository.deleteAllByIdInBatch(removedIds);
+        }
+        expenseSegmentRepository.saveAll(inserts);
+        // Sends the chunk's batches now, so a failure is attributed to this chunk
+        expenseSegmentRepository.flush();
+    }
+
+    private static ExpenseSegmentsResult rejected(UUID expenseId, Status status, String message) {
+        return new ExpenseSegmentsResult(expenseId, status, null, message);
+    }
+}
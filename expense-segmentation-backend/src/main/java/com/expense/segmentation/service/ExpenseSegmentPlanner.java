@@ -0,0 +1,190 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.dto.CreateExpenseSegmentRequest;
+import com.expense.segmentation.exception.SegmentValidationException;
+import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.model.ExpenseSegment;
+import com.expense.segmentation.model.Money;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Validation and diffing shared by the single-expense and bulk segment writes. Works on values
+ * already in memory and only touches the database when the {@link CategoryDictionary} looks up a
+ * category it does not know yet.
+ */
+final class ExpenseSegmentPlanner {
+
+    private ExpenseSegmentPlanner() {}
+
+    /**
+     * The writes that turn an expense's current segments into the requested ones.
+     *
+     * @param segments the resulting segments in request order; existing ones are updated in place
+     * @param inserts the new segments among them, not yet persisted
+     * @param removedIds IDs of current segments whose category is no longer requested
+     */
+    record Plan(
+            List<ExpenseSegment> segments, List<ExpenseSegment> inserts, List<UUID> removedIds) {}
+
+    /**
+     * Checks that the segments add up to the expense amount, that every category exists and is
+     * active, and that no category repeats.
+     *
+     * @param categoryDictionary the dictionary to resolve the categories with
+     * @param expenseAmount the expense amount
+     * @param segments the requested segments
+     * @return the category of each segment, in request order
+     * @throws SegmentValidationException if any rule is broken
+     */
+    static List<CategoryDictionary.Entry> validate(
+            CategoryDictionary categoryDictionary,
+            BigDecimal expenseAmount,
+            List<CreateExpenseSegmentRequest> segments) {
+        validateTotalSegmentsAmount(expenseAmount, segments);
+        List<CategoryDictionary.Entry> categories = resolveCategories(categoryDictionary, segments);
+        validateUniqueCategories(categories);
+        return categories;
+    }
+
+    /**
+     * Resolves the category of each segment.
+     *
+     * @param categoryDictionary the dictionary to resolve the categories with
+     * @param segments the segments
+     * @return the category of each segment, in order
+     * @throws SegmentValidationException if a category does not exist or is inactive
+     */
+    static List<CategoryDictionary.Entry> resolveCategories(
+            CategoryDictionary categoryDictionary, List<CreateExpenseSegmentRequest> segments) {
+        List<CategoryDictionary.Entry> categories = new ArrayList<>(segments.size());
+        for (CreateExpenseSegmentRequest segment : segments) {
+            categories.add(resolveCategory(categoryDictionary, segment.getCategory()));
+        }
+        return categories;
+    }
+
+    /**
+     * Resolves a segment category for a write.
+     *
+     * @param categoryDictionary the dictionary to resolve the category with
+     * @param category the category name as entered
+     * @return the category
+     * @throws SegmentValidationException if the category does not exist or is inactive
+     */
+    static CategoryDictionary.Entry resolveCategory(
+            CategoryDictionary categoryDictionary, String category) {
+        CategoryDictionary.Entry entry =
+                categoryDictionary
+                        .resolve(category)
+                        .orElseThrow(
+                                () ->
+                                        new SegmentValidationException(
+                                                "Unknown segment category '"
+                                                        + category.trim()
+                                                        + "'"));
+        if (!entry.active()) {
+            throw new SegmentValidationException(
+                    "Segment category '" + entry.name() + "' is inactive");
+        }
+        return entry;
+    }
+
+    /**
+     * Diffs the requested segments against the current ones by category. Matching segments get
+     * the requested values, so dirty checking only writes the ones that changed.
+     *
+     * @param expense the expense, may be an uninitialized reference
+     * @param expenseAmount the expense amount, for percentages the request leaves out
+     * @param existing the expense's current segments
+     * @param requests the requested segments, already validated
+     * @param categories the category of each requested segment, in request order
+     * @return the plan to apply
+     */
+    static Plan plan(
+            Expense expense,
+            BigDecimal expenseAmount,
+            List<ExpenseSegment> existing,
+            List<CreateExpenseSegmentRequest> requests,
+            List<CategoryDictionary.Entry> categories) {
+        Map<UUID, ExpenseSegment> existingByCategory = new HashMap<>();
+        for (ExpenseSegment segment : existing) {
+            existingByCategory.put(segment.getCategoryId(), segment);
+        }
+
+        List<ExpenseSegment> segments = new ArrayList<>(requests.size());
+        List<ExpenseSegment> inserts = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateExpenseSegmentRequest request = requests.get(i);
+            CategoryDictionary.Entry category = categories.get(i);
+            // Calculate percentage if not provided
+            BigDecimal percentage = request.getPercentage();
+            if (percentage == null) {
+                percentage = calculatePercentage(request.getAmount(), expenseAmount);
+            }
+
+            ExpenseSegment segment = existingByCategory.remove(category.id());
+            if (segment == null) {
+                segment = new ExpenseSegment();
+                segment.setExpense(expense);
+                inserts.add(segment);
+            }
+            setCategory(segment, category);
+            segment.setAmount(request.getAmount());
+            segment.setPercentage(percentage);
+
+            segments.add(segment);
+        }
+
+        List<UUID> removedIds =
+                existingByCategory.values().stream().map(ExpenseSegment::getId).toList();
+        return new Plan(segments, inserts, removedIds);
+    }
+
+    static void setCategory(ExpenseSegment segment, CategoryDictionary.Entry category) {
+        segment.setCategoryId(category.id());
+        // Stored as the category spells it, whatever the case of the request
+        segment.setCategory(category.name());
+    }
+
+    static String categoryKey(String category) {
+        return category.trim().toLowerCase();
+    }
+
+    static BigDecimal calculatePercentage(BigDecimal segmentAmount, BigDecimal totalAmount) {
+        return Money.of(segmentAmount).percentOf(Money.of(totalAmount));
+    }
+
+    private static void validateTotalSegmentsAmount(
+            BigDecimal expenseAmount, List<CreateExpenseSegmentRequest> segments) {
+        Money expenseTotal = Money.of(expenseAmount);
+        Money totalSegmentsAmount = Money.ZERO;
+        for (CreateExpenseSegmentRequest segment : segments) {
+            totalSegmentsAmount = totalSegmentsAmount.plus(Money.of(segment.getAmount()));
+        }
+
+        // Allow small difference for rounding (one cent)
+        if (Math.abs(totalSegmentsAmount.minus(expenseTotal).cents()) > 1) {
+            throw new SegmentValidationException(
+                    String.format(
+                            "Total segments amount (%s) must equal expense amount (%s)",
+                            totalSegmentsAmount, expenseTotal));
+        }
+    }
+
+    private static void validateUniqueCategories(List<CategoryDictionary.Entry> categories) {
+        BitSet seen = new BitSet();
+        for (CategoryDictionary.Entry category : categories) {
+            if (seen.get(category.code())) {
+                throw new SegmentValidationException(
+                        "Segment categories must be unique within an expense");
+            }
+            seen.set(category.code());
+        }
+    }
+}
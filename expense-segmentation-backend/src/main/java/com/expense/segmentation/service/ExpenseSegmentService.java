@@ -9,11 +9,11 @@ import com.expense.segmentation.exception.SegmentValidationException;
 import com.expense.segmentation.mapper.ExpenseSegmentMapper;
 import com.expense.segmentation.model.Expense;
 import com.expense.segmentation.model.ExpenseSegment;
+import com.expense.segmentation.model.Money;
+import com.expense.segmentation.repository.ChildVersionRow;
 import com.expense.segmentation.repository.ExpenseRepository;
 import com.expense.segmentation.repository.ExpenseSegmentRepository;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
@@ -30,6 +30,7 @@ public class ExpenseSegmentService {
     private final ExpenseSegmentRepository expenseSegmentRepository;
     private final ExpenseRepository expenseRepository;
     private final ExpenseSegmentMapper expenseSegmentMapper;
+    private final CategoryDictionary categoryDictionary;
 
     public List<ExpenseSegmentResponse> getSegmentsByExpenseId(UUID expenseId) {
         log.debug("Fetching segments for expense ID: {}", expenseId);
@@ -49,6 +50,21 @@ public class ExpenseSegmentService {
         return expenseSegmentMapper.toResponseList(segments);
     }
 
+    /**
+     * Computes the ETag of {@link #getSegmentsByExpenseId} from the segment count and latest
+     * change, without loading the segments.
+     *
+     * @param expenseId the expense ID
+     * @return the ETag value, unquoted
+     */
+    public String getSegmentsETag(UUID expenseId) {
+        if (!expenseRepository.existsById(expenseId)) {
+            throw new ResourceNotFoundException("Expense not found with ID: " + expenseId);
+        }
+        ChildVersionRow version = expenseSegmentRepository.findVersionByExpenseId(expenseId);
+        return ETags.of("segments", expenseId, version.count(), version.lastModified());
+    }
+
     @Transactional
     public List<ExpenseSegmentResponse> addExpenseSegment(
             UUID expenseId, CreateExpenseSegmentRequest request) {
@@ -63,8 +79,10 @@ public class ExpenseSegmentService {
                                         new ResourceNotFoundException(
                                                 "Expense not found with ID: " + expenseId));
 
-        // Validate segment amount doesn't exceed expense amount
+        // Validate segment amount doesn't exceed expense amount and the category exists
         validateSegmentAmount(expense.getAmount(), request.getAmount());
+        CategoryDictionary.Entry category =
+                ExpenseSegmentPlanner.resolveCategory(categoryDictionary, request.getCategory());
 
         // Check if segments already exist for this expense
         List<ExpenseSegment> existingSegments =
@@ -78,13 +96,15 @@ public class ExpenseSegmentService {
         // Calculate percentage if not provided
         BigDecimal percentage = request.getPercentage();
         if (percentage == null) {
-            percentage = calculatePercentage(request.getAmount(), expense.getAmount());
+            percentage =
+                    ExpenseSegmentPlanner.calculatePercentage(
+                            request.getAmount(), expense.getAmount());
         }
 
         // Create and save the segment
         ExpenseSegment segment = new ExpenseSegment();
         segment.setExpense(expense);
-        segment.setCategory(request.getCategory().trim());
+        ExpenseSegmentPlanner.setCategory(segment, category);
         segment.setAmount(request.getAmount());
         segment.setPercentage(percentage);
 
@@ -108,37 +128,37 @@ public class ExpenseSegmentService {
                                         new ResourceNotFoundException(
                                                 "Expense not found with ID: " + expenseId));
 
-        // Validate total segments amount equals expense amount
-        validateTotalSegmentsAmount(expense.getAmount(), request.getSegments());
-
-        // Check for duplicate categories
-        validateUniqueCategories(request.getSegments());
-
-        // Delete existing segments if any
-        expenseSegmentRepository.deleteByExpenseId(expenseId);
-
-        List<ExpenseSegment> segments = new ArrayList<>();
-        for (CreateExpenseSegmentRequest segmentRequest : request.getSegments()) {
-            // Calculate percentage if not provided
-            BigDecimal percentage = segmentRequest.getPercentage();
-            if (percentage == null) {
-                percentage = calculatePercentage(segmentRequest.getAmount(), expense.getAmount());
-            }
-
-            ExpenseSegment segment = new ExpenseSegment();
-            segment.setExpense(expense);
-            segment.setCategory(segmentRequest.getCategory().trim());
-            segment.setAmount(segmentRequest.getAmount());
-            segment.setPercentage(percentage);
-
-            segments.add(segment);
+        // Validate total segments amount equals expense amount and categories exist and are unique
+        List<CategoryDictionary.Entry> categories =
+                ExpenseSegmentPlanner.validate(
+                        categoryDictionary, expense.getAmount(), request.getSegments());
+
+        // Diff against the current segments by category: matching rows are updated in place,
+        // so a replace that keeps most categories rewrites only what changed
+        ExpenseSegmentPlanner.Plan plan =
+                ExpenseSegmentPlanner.plan(
+                        expense,
+                        expense.getAmount(),
+                        expenseSegmentRepository.findByExpenseIdOrderByCategory(expenseId),
+                        request.getSegments(),
+                        categories);
+
+        // Segments whose category is gone go in one statement; updates and inserts are
+        // batched when the transaction flushes
+        if (!plan.removedIds().isEmpty()) {
+            expenseSegmentRepository.deleteAllByIdInBatch(plan.removedIds());
         }
+        // New segments get their generated IDs on persist; the instances stay the ones returned
+        expenseSegmentRepository.saveAll(plan.inserts());
 
-        // Save all segments
-        List<ExpenseSegment> savedSegments = expenseSegmentRepository.saveAll(segments);
-        log.info("Created {} segments for expense: {}", savedSegments.size(), expenseId);
+        log.info(
+                "Replaced segments for expense: {} - {} updated or kept, {} created, {} removed",
+                expenseId,
+                plan.segments().size() - plan.inserts().size(),
+                plan.inserts().size(),
+                plan.removedIds().size());
 
-        return expenseSegmentMapper.toResponseList(savedSegments);
+        return expenseSegmentMapper.toResponseList(plan.segments());
     }
 
     @Transactional
@@ -178,41 +198,44 @@ public class ExpenseSegmentService {
                         .toList();
 
         // Calculate total amount of other segments
-        BigDecimal otherSegmentsTotal =
-                otherSegments.stream()
-                        .map(ExpenseSegment::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Money otherSegmentsTotal = Money.ZERO;
+        for (ExpenseSegment other : otherSegments) {
+            otherSegmentsTotal = otherSegmentsTotal.plus(Money.of(other.getAmount()));
+        }
 
         // Validate updated segment amount doesn't exceed expense amount
-        BigDecimal newTotal = otherSegmentsTotal.add(request.getAmount());
-        if (newTotal.compareTo(expense.getAmount()) > 0) {
+        Money expenseAmount = Money.of(expense.getAmount());
+        Money newTotal = otherSegmentsTotal.plus(Money.of(request.getAmount()));
+        if (newTotal.isGreaterThan(expenseAmount)) {
             throw new SegmentValidationException(
                     String.format(
                             "Updated segment amount (%s) plus other segments (%s) exceeds expense"
                                     + " amount (%s)",
                             request.getAmount().toPlainString(),
-                            otherSegmentsTotal.toPlainString(),
-                            expense.getAmount().toPlainString()));
+                            otherSegmentsTotal,
+                            expenseAmount));
         }
 
         // Check for duplicate categories (excluding current segment)
-        String newCategory = request.getCategory().trim().toLowerCase();
+        CategoryDictionary.Entry category =
+                ExpenseSegmentPlanner.resolveCategory(categoryDictionary, request.getCategory());
         boolean categoryExists =
-                otherSegments.stream()
-                        .anyMatch(s -> s.getCategory().trim().toLowerCase().equals(newCategory));
+                otherSegments.stream().anyMatch(s -> category.id().equals(s.getCategoryId()));
         if (categoryExists) {
             throw new SegmentValidationException(
-                    "Segment category '" + request.getCategory().trim() + "' already exists");
+                    "Segment category '" + category.name() + "' already exists");
         }
 
         // Calculate percentage if not provided
         BigDecimal percentage = request.getPercentage();
         if (percentage == null) {
-            percentage = calculatePercentage(request.getAmount(), expense.getAmount());
+            percentage =
+                    ExpenseSegmentPlanner.calculatePercentage(
+                            request.getAmount(), expense.getAmount());
         }
 
         // Update the segment
-        segment.setCategory(request.getCategory().trim());
+        ExpenseSegmentPlanner.setCategory(segment, category);
         segment.setAmount(request.getAmount());
         segment.setPercentage(percentage);
 
@@ -258,47 +281,8 @@ public class ExpenseSegmentService {
     }
 
     private void validateSegmentAmount(BigDecimal expenseAmount, BigDecimal segmentAmount) {
-        if (segmentAmount.compareTo(expenseAmount) > 0) {
+        if (Money.of(segmentAmount).isGreaterThan(Money.of(expenseAmount))) {
             throw new SegmentAmountExceedsExpenseException(segmentAmount, expenseAmount);
         }
     }
-
-    private void validateTotalSegmentsAmount(
-            BigDecimal expenseAmount, List<CreateExpenseSegmentRequest> segments) {
-        BigDecimal totalSegmentsAmount =
-                segments.stream()
-                        .map(CreateExpenseSegmentRequest::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Allow small difference for rounding (0.01)
-        BigDecimal difference = totalSegmentsAmount.subtract(expenseAmount).abs();
-        if (difference.compareTo(new BigDecimal("0.01")) > 0) {
-            throw new SegmentValidationException(
-                    String.format(
-                            "Total segments amount (%s) must equal expense amount (%s)",
-                            totalSegmentsAmount.toPlainString(), expenseAmount.toPlainString()));
-        }
-    }
-
-    private void validateUniqueCategories(List<CreateExpenseSegmentRequest> segments) {
-        long uniqueCategories =
-                segments.stream()
-                        .map(segment -> segment.getCategory().trim().toLowerCase())
-                        .distinct()
-                        .count();
-
-        if (uniqueCategories != segments.size()) {
-            throw new SegmentValidationException(
-                    "Segment categories must be unique within an expense");
-        }
-    }
-
-    private BigDecimal calculatePercentage(BigDecimal segmentAmount, BigDecimal totalAmount) {
-        if (totalAmount.compareTo(BigDecimal.ZERO) == 0) {
-            return BigDecimal.ZERO;
-        }
-        return segmentAmount
-                .multiply(new BigDecimal("100"))
-                .divide(totalAmount, 2, RoundingMode.HALF_UP);
-    }
 }
@@ -1,27 +1,33 @@
 package com.expense.segmentation.service;
 
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.dto.CreateExpenseRequest;
 import com.expense.segmentation.dto.ExpenseResponse;
 import com.expense.segmentation.dto.PagedExpenseResponse;
+import com.expense.segmentation.dto.PagedExpenseResponse.TotalSource;
+import com.expense.segmentation.exception.InvalidOperationException;
 import com.expense.segmentation.exception.ResourceNotFoundException;
 import com.expense.segmentation.mapper.ExpenseMapper;
 import com.expense.segmentation.model.Expense;
 import com.expense.segmentation.model.ExpenseStatus;
 import com.expense.segmentation.model.ExpenseType;
 import com.expense.segmentation.model.RoleType;
-import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.Vendor;
+import com.expense.segmentation.repository.ExpenseListRow;
 import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.ExpenseSearchRow;
+import com.expense.segmentation.repository.ExpenseSegmentRepository;
+import com.expense.segmentation.repository.ExpenseVersionRow;
 import com.expense.segmentation.repository.UserRepository;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,16 +36,26 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class ExpenseService {
 
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+
     private final ExpenseRepository expenseRepository;
     private final UserRepository userRepository;
     private final ExpenseMapper expenseMapper;
+    private final CurrentUserProvider currentUserProvider;
+    private final UserIdentityCache userIdentityCache;
+    private final ExpenseCountCache expenseCountCache;
+    private final ExpenseIncludeLoader expenseIncludeLoader;
+    private final VendorService vendorService;
+    private final VendorDirectory vendorDirectory;
+    private final ExpenseSegmentRepository expenseSegmentRepository;
+    private final SegmentationRuleEngine segmentationRuleEngine;
 
     @Transactional
     public ExpenseResponse createExpense(CreateExpenseRequest request) {
         log.info("Creating new expense/invoice of type: {}", request.getType());
 
         // Get authenticated user
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = currentUserProvider.get();
 
         // Build expense entity
         Expense expense = buildExpense(request, currentUser);
@@ -47,71 +63,160 @@ public class ExpenseService {
         // Save to database
         Expense saved = expenseRepository.save(expense);
 
+        // An admin-defined rule may split the expense into segments up front
+        segmentationRuleEngine
+                .match(request.getVendor(), request.getDescription(), request.getAmount())
+                .ifPresent(match -> applySegmentationRule(saved, request.getAmount(), match));
+
+        // Cached list totals that include this expense are stale once it is committed, and the
+        // vendor moves up the creator's and everyone's suggestions
+        UUID creatorId = currentUser.id();
+        Vendor vendor = saved.getCanonicalVendor();
+        AfterCommit.run(
+                () -> {
+                    expenseCountCache.invalidateForCreator(creatorId);
+                    if (vendor != null) {
+                        vendorDirectory.recordUsage(vendor.getId(), creatorId);
+                    }
+                });
+
         log.info(
                 "Successfully created expense: {} by user: {}",
                 saved.getId(),
-                currentUser.getEmail());
+                currentUser.email());
         return expenseMapper.toResponse(saved);
     }
 
     @Transactional(readOnly = true)
-    public ExpenseResponse getExpenseById(UUID id) {
+    public ExpenseResponse getExpenseById(UUID id, Set<ExpenseInclude> include) {
         log.debug("Fetching expense with id: {}", id);
         Expense expense = findExpenseByIdWithCreatedBy(id);
+        checkViewAuthorization(id, expense.getCreatedBy().getId());
 
-        // Get current authenticated user
-        User currentUser = getCurrentUser();
-
-        // Authorization check: Users can only view their own expenses
-        // unless they have FINANCE or ADMIN roles
-        RoleType currentUserRole = currentUser.getRole().getName();
-        boolean isFinanceOrAdmin =
-                RoleType.FINANCE.equals(currentUserRole) || RoleType.ADMIN.equals(currentUserRole);
-
-        if (!isFinanceOrAdmin && !currentUser.getId().equals(expense.getCreatedBy().getId())) {
-            log.warn(
-                    "User {} attempted to access expense {} without permission",
-                    currentUser.getId(),
-                    id);
-            throw new SecurityException("You are not authorized to view this expense");
-        }
-
-        return expenseMapper.toResponse(expense);
+        ExpenseResponse response = expenseMapper.toResponse(expense);
+        expenseIncludeLoader.load(List.of(response), include);
+        return response;
     }
 
+    /**
+     * Computes the ETag of {@link #getExpenseById} from version metadata alone, so a matching
+     * {@code If-None-Match} is answered without loading or mapping the expense. Existence and
+     * authorization are checked exactly as for the full read.
+     *
+     * @param id the expense ID
+     * @param include the child collections embedded in the representation
+     * @return the ETag value, unquoted
+     */
     @Transactional(readOnly = true)
-    public List<ExpenseResponse> getExpensesByUser(UUID userId) {
-        log.debug("Fetching expenses for user: {}", userId);
+    public String getExpenseETag(UUID id, Set<ExpenseInclude> include) {
+        ExpenseVersionRow version =
+                expenseRepository
+                        .findVersionById(id)
+                        .orElseThrow(
+                                () -> {
+                                    log.error("Expense not found with id: {}", id);
+                                    return new ResourceNotFoundException("Expense", id.toString());
+                                });
+        checkViewAuthorization(id, version.ownerId());
+
+        List<Object> parts =
+                new ArrayList<>(
+                        Arrays.asList(
+                                "expense",
+                                id,
+                                version.version(),
+                                version.updatedAt(),
+                                version.ownerUpdatedAt()));
+        parts.addAll(expenseIncludeLoader.versions(id, include));
+        return ETags.of(parts.toArray());
+    }
 
-        // Verify user exists
-        if (!userRepository.existsById(userId)) {
-            log.error("User not found with id: {}", userId);
-            throw new ResourceNotFoundException("User", userId.toString());
+    /**
+     * Lists one user's expenses in list order, one keyset page at a time. No total is computed.
+     * The user is only looked up when the first page comes back empty, to tell an unknown user
+     * apart from one without expenses.
+     *
+     * @param userId the user whose expenses to list
+     * @param size page size
+     * @param cursor cursor from a previous page, or null for the first page
+     * @param dateFrom optional start date filter
+     * @param dateTo optional end date filter
+     * @param descriptionLength maximum description length, or null for full descriptions
+     * @return one page of the user's expenses
+     */
+    @Transactional(readOnly = true)
+    public PagedExpenseResponse getExpensesByUser(
+            UUID userId,
+            int size,
+            String cursor,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            Integer descriptionLength) {
+        log.debug(
+                "Fetching expenses for user: {} - size: {}, cursor: {}, dateFrom: {}, dateTo: {},"
+                        + " descriptionLength: {}",
+                userId,
+                size,
+                cursor,
+                dateFrom,
+                dateTo,
+                descriptionLength);
+        if (size < 1) {
+            throw new InvalidOperationException("Size must be at least 1");
         }
-
-        // Get current authenticated user
-        User currentUser = getCurrentUser();
-
-        // Authorization check: Users can only view their own expenses
-        // unless they have FINANCE or ADMIN roles
-        RoleType currentUserRole = currentUser.getRole().getName();
-        boolean isFinanceOrAdmin =
-                RoleType.FINANCE.equals(currentUserRole) || RoleType.ADMIN.equals(currentUserRole);
-
-        if (!isFinanceOrAdmin && !currentUser.getId().equals(userId)) {
-            log.warn(
-                    "User {} attempted to access expenses of user {} without permission",
-                    currentUser.getId(),
-                    userId);
-            throw new SecurityException("You are not authorized to view expenses for this user");
+        validateDescriptionLength(descriptionLength);
+        checkUserExpensesAuthorization(userId);
+
+        boolean cursorMode = cursor != null && !cursor.isBlank();
+        List<ExpenseListRow> rows;
+        if (cursorMode) {
+            ExpenseCursor position = ExpenseCursor.decode(cursor);
+            rows =
+                    expenseRepository.findExpensesAfterCursor(
+                            userId,
+                            dateFrom,
+                            dateTo,
+                            null,
+                            null,
+                            position.date(),
+                            position.createdAt(),
+                            position.id(),
+                            size + 1,
+                            descriptionLength);
+        } else {
+            rows =
+                    expenseRepository.findExpensesWithFilters(
+                            userId, dateFrom, dateTo, null, null, 0, size + 1, descriptionLength);
+            if (rows.isEmpty()) {
+                requireUser(userId);
+            }
         }
+        boolean hasNext = rows.size() > size;
+        List<ExpenseListRow> content = hasNext ? rows.subList(0, size) : rows;
 
-        List<ExpenseResponse> expenses =
-                expenseRepository.findByCreatedById(userId).stream()
-                        .map(expenseMapper::toResponse)
-                        .toList();
-        log.info("Retrieved {} expenses for user: {}", expenses.size(), userId);
-        return expenses;
+        log.info("Retrieved {} expenses for user: {}", content.size(), userId);
+        return PagedExpenseResponse.builder()
+                .expenses(content.stream().map(expenseMapper::toResponse).toList())
+                .page(0)
+                .size(size)
+                .first(!cursorMode)
+                .last(!hasNext)
+                .nextCursor(nextCursor(content, hasNext))
+                .totalSource(TotalSource.NONE)
+                .build();
+    }
+
+    /**
+     * Checks that the current user may list another user's expenses and that the user exists.
+     * Used before streaming, when a 404 can no longer be sent once rows are written.
+     *
+     * @param userId the user whose expenses are listed
+     * @throws SecurityException if the current user may not view the user's expenses
+     * @throws ResourceNotFoundException if the user does not exist
+     */
+    public void checkCanListExpensesOf(UUID userId) {
+        checkUserExpensesAuthorization(userId);
+        requireUser(userId);
     }
 
     @Transactional(readOnly = true)
@@ -121,85 +226,270 @@ public class ExpenseService {
             LocalDate dateFrom,
             LocalDate dateTo,
             ExpenseType type,
-            ExpenseStatus status) {
+            ExpenseStatus status,
+            String cursor,
+            boolean slice,
+            Integer descriptionLength,
+            Set<ExpenseInclude> include) {
         log.debug(
                 "Fetching expenses with filters - page: {}, size: {}, dateFrom: {}, dateTo: {},"
-                        + " type: {}, status: {}",
+                        + " type: {}, status: {}, cursor: {}, slice: {}, descriptionLength: {},"
+                        + " include: {}",
                 page,
                 size,
                 dateFrom,
                 dateTo,
                 type,
-                status);
+                status,
+                cursor,
+                slice,
+                descriptionLength,
+                include);
+
+        if (page < 0 || size < 1) {
+            throw new InvalidOperationException(
+                    "Page must not be negative and size must be at least 1");
+        }
+        validateDescriptionLength(descriptionLength);
 
         // Get current authenticated user
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = currentUserProvider.get();
 
         // Determine if user can see all expenses or only their own
-        RoleType currentUserRole = currentUser.getRole().getName();
-        boolean isFinanceOrAdmin =
-                RoleType.FINANCE.equals(currentUserRole) || RoleType.ADMIN.equals(currentUserRole);
+        RoleType currentUserRole = currentUser.role();
+        boolean isFinanceOrAdmin = currentUser.isFinanceOrAdmin();
 
         // For employees, filter by their user ID
-        UUID userIdFilter = isFinanceOrAdmin ? null : currentUser.getId();
-
-        // Create pageable with page number and size
-        Pageable pageable = PageRequest.of(page, size);
-
-        // Fetch expenses with filters
-        Page<Expense> expensePage =
-                expenseRepository.findExpensesWithFilters(
-                        userIdFilter, dateFrom, dateTo, type, status, pageable);
-
-        // Map to response DTOs
-        List<ExpenseResponse> expenseResponses =
-                expensePage.getContent().stream().map(expenseMapper::toResponse).toList();
+        UUID userIdFilter = isFinanceOrAdmin ? null : currentUser.id();
+
+        // Fetch one row more than the page size to learn whether another page follows. A cursor
+        // seeks past the previous page; otherwise rows are skipped by offset.
+        boolean cursorMode = cursor != null && !cursor.isBlank();
+        List<ExpenseListRow> rows;
+        if (cursorMode) {
+            ExpenseCursor position = ExpenseCursor.decode(cursor);
+            rows =
+                    expenseRepository.findExpensesAfterCursor(
+                            userIdFilter,
+                            dateFrom,
+                            dateTo,
+                            type,
+                            status,
+                            position.date(),
+                            position.createdAt(),
+                            position.id(),
+                            size + 1,
+                            descriptionLength);
+        } else {
+            rows =
+                    expenseRepository.findExpensesWithFilters(
+                            userIdFilter,
+                            dateFrom,
+                            dateTo,
+                            type,
+                            status,
+                            (long) page * size,
+                            size + 1,
+                            descriptionLength);
+        }
+        boolean hasNext = rows.size() > size;
+        List<ExpenseListRow> content = hasNext ? rows.subList(0, size) : rows;
+
+        // Children of the whole page are batch-loaded; the page itself is already authorized
+        List<ExpenseResponse> expenses = content.stream().map(expenseMapper::toResponse).toList();
+        expenseIncludeLoader.load(expenses, include);
+
+        PagedExpenseResponse response =
+                PagedExpenseResponse.builder()
+                        .expenses(expenses)
+                        .page(page)
+                        .size(size)
+                        .first(!cursorMode && page == 0)
+                        .last(!hasNext)
+                        .nextCursor(nextCursor(content, hasNext))
+                        .totalSource(TotalSource.NONE)
+                        .build();
+
+        if (!slice) {
+            ExpenseCountCache.Total total;
+            if (!cursorMode && !hasNext && (page == 0 || !content.isEmpty())) {
+                // Without a next page an offset page reveals the exact total by itself
+                total = new ExpenseCountCache.Total((long) page * size + content.size(), false);
+            } else {
+                ExpenseCountCache.Key key =
+                        new ExpenseCountCache.Key(userIdFilter, dateFrom, dateTo, type, status);
+                total =
+                        expenseCountCache.get(
+                                key,
+                                () ->
+                                        expenseRepository.countExpensesWithFilters(
+                                                userIdFilter, dateFrom, dateTo, type, status));
+            }
+            response.setTotalElements(total.count());
+            response.setTotalPages((int) ((total.count() + size - 1) / size));
+            response.setTotalSource(total.cached() ? TotalSource.CACHED : TotalSource.EXACT);
+        }
 
         log.info(
-                "Retrieved {} expenses (page {} of {}) for user role: {}",
-                expenseResponses.size(),
+                "Retrieved {} expenses (page {}, {} total) for user role: {}",
+                content.size(),
                 page,
-                expensePage.getTotalPages(),
+                response.getTotalSource(),
                 currentUserRole);
+        return response;
+    }
+
+    /**
+     * Full-text searches expense vendors and descriptions. Hits are ranked by relevance and paged
+     * with a keyset cursor; like the list, employees only find their own expenses. No total is
+     * computed.
+     *
+     * @param query the search text
+     * @param size page size
+     * @param cursor cursor from a previous search page, or null for the first page
+     * @param descriptionLength maximum description length, or null for full descriptions
+     * @return one page of hits, best match first
+     */
+    @Transactional(readOnly = true)
+    public PagedExpenseResponse searchExpenses(
+            String query, int size, String cursor, Integer descriptionLength) {
+        log.debug(
+                "Searching expenses - query: {}, size: {}, cursor: {}, descriptionLength: {}",
+                query,
+                size,
+                cursor,
+                descriptionLength);
+
+        if (query == null || query.isBlank()) {
+            throw new InvalidOperationException("Search query must not be blank");
+        }
+        if (query.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new InvalidOperationException(
+                    "Search query must be at most " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        if (size < 1) {
+            throw new InvalidOperationException("Size must be at least 1");
+        }
+        validateDescriptionLength(descriptionLength);
+
+        AuthenticatedUser currentUser = currentUserProvider.get();
+        UUID userIdFilter = currentUser.isFinanceOrAdmin() ? null : currentUser.id();
+
+        boolean cursorMode = cursor != null && !cursor.isBlank();
+        ExpenseSearchCursor position = cursorMode ? ExpenseSearchCursor.decode(cursor) : null;
+        List<ExpenseSearchRow> rows =
+                expenseRepository.searchExpenses(
+                        userIdFilter,
+                        query.strip(),
+                        position != null ? position.rank() : null,
+                        position != null ? position.id() : null,
+                        size + 1,
+                        descriptionLength);
+        boolean hasNext = rows.size() > size;
+        List<ExpenseSearchRow> content = hasNext ? rows.subList(0, size) : rows;
+
+        List<ExpenseResponse> expenses =
+                content.stream().map(row -> expenseMapper.toResponse(row.expense())).toList();
+        String nextCursor =
+                hasNext && !content.isEmpty()
+                        ? ExpenseSearchCursor.of(content.get(content.size() - 1)).encode()
+                        : null;
 
+        log.info(
+                "Search returned {} expenses for user role: {}",
+                expenses.size(),
+                currentUser.role());
         return PagedExpenseResponse.builder()
-                .expenses(expenseResponses)
-                .page(expensePage.getNumber())
-                .size(expensePage.getSize())
-                .totalElements(expensePage.getTotalElements())
-                .totalPages(expensePage.getTotalPages())
-                .first(expensePage.isFirst())
-                .last(expensePage.isLast())
+                .expenses(expenses)
+                .page(0)
+                .size(size)
+                .first(!cursorMode)
+                .last(!hasNext)
+                .nextCursor(nextCursor)
+                .totalSource(TotalSource.NONE)
                 .build();
     }
 
-    private Expense buildExpense(CreateExpenseRequest request, User currentUser) {
+    private static void validateDescriptionLength(Integer descriptionLength) {
+        if (descriptionLength != null && descriptionLength < 1) {
+            throw new InvalidOperationException("Description length must be at least 1");
+        }
+    }
+
+    private static String nextCursor(List<ExpenseListRow> content, boolean hasNext) {
+        if (!hasNext || content.isEmpty()) {
+            return null;
+        }
+        return ExpenseCursor.of(content.get(content.size() - 1)).encode();
+    }
+
+    private void applySegmentationRule(
+            Expense expense, BigDecimal amount, SegmentationRuleEngine.Match match) {
+        ExpenseSegmentPlanner.Plan plan =
+                ExpenseSegmentPlanner.plan(
+                        expense, amount, List.of(), match.segments(), match.categories());
+        expenseSegmentRepository.saveAll(plan.inserts());
+        log.info(
+                "Segmented expense {} into {} segments by rule: {}",
+                expense.getId(),
+                plan.inserts().size(),
+                match.ruleName());
+    }
+
+    private Expense buildExpense(CreateExpenseRequest request, AuthenticatedUser currentUser) {
         Expense expense = new Expense();
 
         // Set date - default to current date if not provided
         expense.setDate(request.getDate() != null ? request.getDate() : LocalDate.now());
 
         expense.setVendor(request.getVendor());
+        expense.setCanonicalVendor(vendorService.resolve(request.getVendor()));
         expense.setAmount(request.getAmount());
         expense.setDescription(request.getDescription());
         expense.setType(request.getType());
-        expense.setCreatedBy(currentUser);
+        expense.setCreatedBy(userRepository.getReferenceById(currentUser.id()));
         expense.setStatus(ExpenseStatus.SUBMITTED);
 
         return expense;
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
+    /**
+     * Users can only view their own expenses unless they have FINANCE or ADMIN roles.
+     *
+     * @throws SecurityException if the current user may not view the expense
+     */
+    private void checkViewAuthorization(UUID expenseId, UUID ownerId) {
+        AuthenticatedUser currentUser = currentUserProvider.get();
+        if (!currentUser.isFinanceOrAdmin() && !currentUser.id().equals(ownerId)) {
+            log.warn(
+                    "User {} attempted to access expense {} without permission",
+                    currentUser.id(),
+                    expenseId);
+            throw new SecurityException("You are not authorized to view this expense");
+        }
+    }
 
-        return userRepository
-                .findByEmail(userEmail)
-                .orElseThrow(
-                        () -> {
-                            log.error("Authenticated user not found: {}", userEmail);
-                            return new ResourceNotFoundException("User", "email", userEmail);
-                        });
+    /**
+     * Users can only view their own expenses unless they have FINANCE or ADMIN roles.
+     *
+     * @throws SecurityException if the current user may not view the user's expenses
+     */
+    private void checkUserExpensesAuthorization(UUID userId) {
+        AuthenticatedUser currentUser = currentUserProvider.get();
+        if (!currentUser.isFinanceOrAdmin() && !currentUser.id().equals(userId)) {
+            log.warn(
+                    "User {} attempted to access expenses of user {} without permission",
+                    currentUser.id(),
+                    userId);
+            throw new SecurityException("You are not authorized to view expenses for this user");
+        }
+    }
+
+    private void requireUser(UUID userId) {
+        if (userIdentityCache.findById(userId).isEmpty()) {
+            log.error("User not found with id: {}", userId);
+            throw new ResourceNotFoundException("User", userId.toString());
+        }
     }
 
     private Expense findExpenseByIdWithCreatedBy(UUID id) {
@@ -0,0 +1,108 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throttles password guessing on {@code /auth/login}. Failed logins are counted per email and per
+ * client IP over a sliding window; once either count reaches its limit further attempts are
+ * rejected before any password hashing or database work.
+ *
+ * <p>Counts are kept in fixed-size {@link SlidingWindowCountMinSketch sketches}, so memory stays
+ * bounded however many distinct emails or addresses an attacker cycles through. The sketches are
+ * sized from {@code login-throttle.expected-failures-per-window}; well beyond that, unrelated
+ * emails or addresses start to share counts and may be throttled early. Rejections are
+ * published as the {@code auth.login.throttled} counter tagged {@code key=email} or {@code key=ip},
+ * and failed attempts as {@code auth.login.failures}.
+ */
+@Slf4j
+@Component
+public class LoginAttemptLimiter {
+
+    private static final int SKETCH_DEPTH = 4;
+
+    private final boolean enabled;
+    private final int maxFailuresPerEmail;
+    private final int maxFailuresPerIp;
+    private final SlidingWindowCountMinSketch failuresByEmail;
+    private final SlidingWindowCountMinSketch failuresByIp;
+    private final Counter failures;
+    private final Counter throttledByEmail;
+    private final Counter throttledByIp;
+
+    public LoginAttemptLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${login-throttle.enabled:true}") boolean enabled,
+            @Value("${login-throttle.max-failures-per-email:10}") int maxFailuresPerEmail,
+            @Value("${login-throttle.max-failures-per-ip:100}") int maxFailuresPerIp,
+            @Value("${login-throttle.window:15m}") Duration window,
+            @Value("${login-throttle.window-buckets:6}") int windowBuckets,
+            @Value("${login-throttle.expected-failures-per-window:5000}")
+                    long expectedFailuresPerWindow) {
+        this.enabled = enabled;
+        this.maxFailuresPerEmail = maxFailuresPerEmail;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        // Each failure adds at most one new email and one new address
+        int sketchWidth = SlidingWindowCountMinSketch.widthFor(expectedFailuresPerWindow);
+        this.failuresByEmail =
+                new SlidingWindowCountMinSketch(sketchWidth, SKETCH_DEPTH, window, windowBuckets);
+        this.failuresByIp =
+                new SlidingWindowCountMinSketch(sketchWidth, SKETCH_DEPTH, window, windowBuckets);
+        this.failures = meterRegistry.counter("auth.login.failures");
+        this.throttledByEmail = meterRegistry.counter("auth.login.throttled", "key", "email");
+        this.throttledByIp = meterRegistry.counter("auth.login.throttled", "key", "ip");
+    }
+
+    /**
+     * Rejects the login attempt if the email or the client IP has failed too often recently.
+     *
+     * @param email the email being logged in to
+     * @param clientIp the caller's address
+     * @throws TooManyRequestsException if either limit has been reached
+     */
+    public void checkAllowed(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        if (failuresByIp.estimate(clientIp) >= maxFailuresPerIp) {
+            throttledByIp.increment();
+            log.warn("Login throttled for IP {}", clientIp);
+            throw tooManyAttempts(failuresByIp.bucketLength());
+        }
+        if (failuresByEmail.estimate(normalize(email)) >= maxFailuresPerEmail) {
+            throttledByEmail.increment();
+            log.warn("Login throttled for email {}", email);
+            throw tooManyAttempts(failuresByEmail.bucketLength());
+        }
+    }
+
+    /**
+     * Counts a failed login attempt against both the email and the client IP.
+     *
+     * @param email the email being logged in to
+     * @param clientIp the caller's address
+     */
+    public void recordFailure(String email, String clientIp) {
+        failures.increment();
+        if (!enabled) {
+            return;
+        }
+        failuresByEmail.increment(normalize(email));
+        failuresByIp.increment(clientIp);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static TooManyRequestsException tooManyAttempts(Duration retryAfter) {
+        return new TooManyRequestsException(
+                "Too many failed login attempts. Please try again later.", retryAfter);
+    }
+}
@@ -0,0 +1,528 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.exception.TooManyRequestsException;
+import com.expense.segmentation.mapper.ExpenseMapper;
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.repository.ExpenseListRow;
+import com.expense.segmentation.repository.ExpenseSegmentRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exports expenses with several workers that all read one consistent PostgreSQL snapshot.
+ *
+ * <p>A coordinator transaction exports its snapshot with {@code pg_export_snapshot()} and keeps it
+ * open until every worker has imported the snapshot with {@code SET TRANSACTION SNAPSHOT}, so every
+ * worker sees exactly the rows committed before the export started, however many expenses are
+ * created meanwhile. The UUID key space of {@code expenses.id} is split into
+ * equal ranges, one per worker; random UUIDs spread rows evenly across them. Workers serialize
+ * their range to a part file in {@code expense-export.parts-dir}, which only the application's
+ * user can read, and the parts are then copied to the response in key order, so the merged output
+ * is ordered by expense ID. Parts are deleted as soon as the export ends.
+ *
+ * <p>Each running export holds one connection per busy worker, plus one for the coordinator until
+ * the workers have started; {@code expense-export.parallel-workers} times {@code
+ * expense-export.max-parallel-exports} must stay well below the connection pool size. At most that
+ * many exports run at once, each with its full set of worker threads, so a new export never waits
+ * for the workers of another; further requests are rejected with {@link TooManyRequestsException}
+ * before their response starts.
+ */
+@Slf4j
+@Component
+public class ParallelExpenseExporter {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9A-Fa-f]+(-[0-9A-Fa-f]+)+");
+
+    private static final String SELECT_ROWS =
+            "SELECT e.id, e.date, e.vendor, e.amount, e.description, e.type, u.id, u.name,"
+                    + " u.email, e.status, e.created_at, e.updated_at FROM expenses e"
+                    + " JOIN users u ON u.id = e.created_by WHERE TRUE";
+
+    private static final String SELECT_SEGMENTS =
+            "SELECT expense_id, id, category, amount, percentage FROM expense_segments"
+                    + " WHERE expense_id = ANY (?) ORDER BY category";
+
+    private final DataSource dataSource;
+    private final ExpenseMapper expenseMapper;
+    private final ObjectMapper objectMapper;
+    private final int workers;
+    private final int fetchSize;
+    private final Path partsDirectory;
+    private final ExecutorService executor;
+    private final Semaphore slots;
+    private volatile Boolean supported;
+
+    public ParallelExpenseExporter(
+            DataSource dataSource,
+            ExpenseMapper expenseMapper,
+            ObjectMapper objectMapper,
+            @Value("${expense-export.parallel-workers:4}") int workers,
+            @Value("${expense-export.fetch-size:1000}") int fetchSize,
+            @Value("${expense-export.max-parallel-exports:2}") int maxParallelExports,
+            @Value("${expense-export.parts-dir:${java.io.tmpdir}/expense-export}")
+                    String partsDirectory) {
+        this.dataSource = dataSource;
+        this.expenseMapper = expenseMapper;
+        this.objectMapper = objectMapper;
+        this.workers = workers;
+        this.fetchSize = fetchSize;
+        this.partsDirectory = createPartsDirectory(Path.of(partsDirectory));
+        this.slots = new Semaphore(maxParallelExports);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // One full set of workers per export slot, so exports never queue behind each other
+        this.executor =
+                Executors.newFixedThreadPool(
+                        workers * maxParallelExports,
+                        task -> {
+                            Thread thread =
+                                    new Thread(
+                                            task,
+                                            "expense-export-" + threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    /** Whether the database can share snapshots between connections (PostgreSQL only). */
+    public boolean isSupported() {
+        if (supported == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                supported = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                log.warn("Could not determine database product for parallel export", e);
+                return false;
+            }
+        }
+        return supported;
+    }
+
+    /**
+     * Reserves a slot for one export. Call on the request thread, so that a busy server answers
+     * 429 before the response starts; {@link #export} releases the slot when it finishes.
+     *
+     * @throws TooManyRequestsException if the maximum number of parallel exports is running
+     */
+    public void reserve() {
+        if (!slots.tryAcquire()) {
+            log.warn("Too many parallel exports running, rejecting request");
+            throw new TooManyRequestsException(
+                    "Too many parallel exports are running. Please retry later or export without"
+                            + " parallel=true.",
+                    RETRY_AFTER);
+        }
+    }
+
+    /**
+     * Writes all matching expenses to {@code out}, reading them in parallel from one snapshot.
+     * Must follow a successful {@link #reserve()}, whose slot it releases.
+     *
+     * @param format the output format
+     * @param userId optional creator filter (null for all expenses)
+     * @param dateFrom optional start date filter
+     * @param dateTo optional end date filter
+     * @param type optional expense type filter
+     * @param status optional expense status filter
+     * @param withSegments whether to include segments
+     * @param out where to write the merged export
+     * @return the number of expenses written
+     */
+    public long export(
+            ExpenseExportFormat format,
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status,
+            boolean withSegments,
+            OutputStream out)
+            throws IOException {
+        Filters filters = new Filters(userId, dateFrom, dateTo, type, status);
+        List<Path> parts = new ArrayList<>();
+        List<Future<Long>> futures = new ArrayList<>();
+        try {
+            String snapshot = startWorkers(filters, format, withSegments, parts, futures);
+
+            long written = 0;
+            for (Future<Long> future : futures) {
+                written += await(future);
+            }
+
+            ExpenseExportWriter header =
+                    new ExpenseExportWriter(format, withSegments, expenseMapper, objectMapper, out);
+            header.writeHeader();
+            header.flush();
+            for (Path part : parts) {
+                Files.copy(part, out);
+            }
+            out.flush();
+            log.info(
+                    "Exported {} expenses from snapshot {} with {} workers",
+                    written,
+                    snapshot,
+                    parts.size());
+            return written;
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+            slots.release();
+        }
+    }
+
+    /**
+     * Exports a snapshot and starts one worker per key range on it. Returns once every worker has
+     * imported the snapshot: an exported snapshot can only be imported while the transaction that
+     * exported it is open, but after that the coordinator's connection is no longer needed.
+     *
+     * @return the snapshot ID
+     */
+    private String startWorkers(
+            Filters filters,
+            ExpenseExportFormat format,
+            boolean withSegments,
+            List<Path> parts,
+            List<Future<Long>> futures)
+            throws IOException {
+        try (Connection coordinator = dataSource.getConnection()) {
+            beginSnapshotTransaction(coordinator);
+            try {
+                String snapshot = exportSnapshot(coordinator);
+                List<KeyRange> ranges = keyRanges(workers);
+                CountDownLatch imported = new CountDownLatch(ranges.size());
+                for (KeyRange range : ranges) {
+                    Path part = createPart();
+                    parts.add(part);
+                    futures.add(
+                            executor.submit(
+                                    () ->
+                                            exportPart(
+                                                    snapshot,
+                                                    range,
+                                                    filters,
+                                                    format,
+                                                    withSegments,
+                                                    part,
+                                                    imported)));
+                }
+                awaitImported(imported);
+                return snapshot;
+            } finally {
+                coordinator.rollback();
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Parallel expense export", null, e);
+        }
+    }
+
+    private long exportPart(
+            String snapshot,
+            KeyRange range,
+            Filters filters,
+            ExpenseExportFormat format,
+            boolean withSegments,
+            Path part,
+            CountDownLatch imported)
+            throws IOException, SQLException {
+        // Counted down exactly once, also when the worker fails before importing the snapshot
+        boolean importPending = true;
+        try (Connection connection = dataSource.getConnection();
+                OutputStream out = Files.newOutputStream(part)) {
+            beginSnapshotTransaction(connection);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+                }
+                importPending = false;
+                imported.countDown();
+
+                List<Object> parameters = new ArrayList<>();
+                String sql = rowQuery(range, filters, parameters);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setFetchSize(fetchSize);
+                    for (int i = 0; i < parameters.size(); i++) {
+                        statement.setObject(i + 1, parameters.get(i));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        ExpenseExportWriter writer =
+                                new ExpenseExportWriter(
+                                        format, withSegments, expenseMapper, objectMapper, out);
+                        return writer.writeRows(
+                                new RowIterator(resultSet, sql),
+                                fetchSize,
+                                expenseIds -> segmentsOf(connection, expenseIds));
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        } finally {
+            if (importPending) {
+                imported.countDown();
+            }
+        }
+    }
+
+    /** Builds the row query for one key range, adding a predicate only for supplied filters. */
+    static String rowQuery(KeyRange range, Filters filters, List<Object> parameters) {
+        StringBuilder sql = new StringBuilder(SELECT_ROWS);
+        if (range.from() != null) {
+            sql.append(" AND e.id >= ?");
+            parameters.add(range.from());
+        }
+        if (range.to() != null) {
+            sql.append(" AND e.id < ?");
+            parameters.add(range.to());
+        }
+        if (filters.userId() != null) {
+            sql.append(" AND e.created_by = ?");
+            parameters.add(filters.userId());
+        }
+        if (filters.dateFrom() != null) {
+            sql.append(" AND e.date >= ?");
+            parameters.add(filters.dateFrom());
+        }
+        if (filters.dateTo() != null) {
+            sql.append(" AND e.date <= ?");
+            parameters.add(filters.dateTo());
+        }
+        if (filters.type() != null) {
+            sql.append(" AND e.type = ?");
+            parameters.add(filters.type().name());
+        }
+        if (filters.status() != null) {
+            sql.append(" AND e.status = ?");
+            parameters.add(filters.status().name());
+        }
+        return sql.append(" ORDER BY e.id").toString();
+    }
+
+    /**
+     * Splits the UUID key space into {@code count} contiguous ranges of equal width. PostgreSQL
+     * orders UUIDs by their bytes, i.e. as unsigned 128-bit numbers, so the boundaries only need
+     * the most significant 64 bits.
+     */
+    static List<KeyRange> keyRanges(int count) {
+        List<KeyRange> ranges = new ArrayList<>(count);
+        BigInteger space = BigInteger.ONE.shiftLeft(64);
+        UUID from = null;
+        for (int i = 1; i <= count; i++) {
+            UUID to =
+                    i == count
+                            ? null
+                            : new UUID(
+                                    space.multiply(BigInteger.valueOf(i))
+                                            .divide(BigInteger.valueOf(count))
+                                            .longValue(),
+                                    0L);
+            ranges.add(new KeyRange(from, to));
+            from = to;
+        }
+        return ranges;
+    }
+
+    /** Creates the parts directory, readable only by the application's user. */
+    private static Path createPartsDirectory(Path directory) {
+        try {
+            if (!isPosix(directory)) {
+                return Files.createDirectories(directory);
+            }
+            Files.createDirectories(
+                    directory,
+                    PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rwx------")));
+            // Also tightens a directory that existed before
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create export parts directory " + directory, e);
+        }
+    }
+
+    private Path createPart() throws IOException {
+        if (!isPosix(partsDirectory)) {
+            return Files.createTempFile(partsDirectory, "expense-export-", ".part");
+        }
+        FileAttribute<Set<PosixFilePermission>> ownerOnly =
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+        return Files.createTempFile(partsDirectory, "expense-export-", ".part", ownerOnly);
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static void beginSnapshotTransaction(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        connection.setReadOnly(true);
+    }
+
+    private static String exportSnapshot(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT pg_export_snapshot()")) {
+            resultSet.next();
+            String snapshot = resultSet.getString(1);
+            // The ID is inlined into SET TRANSACTION SNAPSHOT, which takes no bind parameters
+            if (!SNAPSHOT_ID.matcher(snapshot).matches()) {
+                throw new IllegalStateException("Unexpected snapshot ID: " + snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    private static List<ExpenseSegmentRow> segmentsOf(Connection connection, List<UUID> ids) {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_SEGMENTS)) {
+            statement.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            List<ExpenseSegmentRow> segments = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    segments.add(
+                            new ExpenseSegmentRow(
+                                    resultSet.getObject(1, UUID.class),
+                                    resultSet.getObject(2, UUID.class),
+                                    resultSet.getString(3),
+                                    resultSet.getBigDecimal(4),
+                                    resultSet.getBigDecimal(5)));
+                }
+            }
+            return segments;
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Parallel expense export", SELECT_SEGMENTS, e);
+        }
+    }
+
+    private static void awaitImported(CountDownLatch imported) throws IOException {
+        try {
+            imported.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for export workers", e);
+        }
+    }
+
+    private static long await(Future<Long> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for export workers", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw new UncategorizedSQLException("Parallel expense export", null, sqlException);
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Export worker failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Half-open range [from, to) of expense IDs; a null bound is open. */
+    record KeyRange(UUID from, UUID to) {}
+
+    /** Filters of an export, as for the paged expense list. */
+    record Filters(
+            UUID userId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            ExpenseType type,
+            ExpenseStatus status) {}
+
+    /** Maps a forward-only result set to rows one at a time. */
+    private static class RowIterator implements Iterator<ExpenseListRow> {
+
+        private final ResultSet resultSet;
+        private final String sql;
+        private Boolean hasNext;
+
+        RowIterator(ResultSet resultSet, String sql) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext == null) {
+                try {
+                    hasNext = resultSet.next();
+                } catch (SQLException e) {
+                    throw new UncategorizedSQLException("Parallel expense export", sql, e);
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public ExpenseListRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            hasNext = null;
+            try {
+                return new ExpenseListRow(
+                        resultSet.getObject(1, UUID.class),
+                        resultSet.getObject(2, LocalDate.class),
+                        resultSet.getString(3),
+                        resultSet.getBigDecimal(4),
+                        resultSet.getString(5),
+                        ExpenseType.valueOf(resultSet.getString(6)),
+                        resultSet.getObject(7, UUID.class),
+                        resultSet.getString(8),
+                        resultSet.getString(9),
+                        ExpenseStatus.valueOf(resultSet.getString(10)),
+                        resultSet.getObject(11, LocalDateTime.class),
+                        resultSet.getObject(12, LocalDateTime.class));
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("Parallel expense export", sql, e);
+            }
+        }
+    }
+}
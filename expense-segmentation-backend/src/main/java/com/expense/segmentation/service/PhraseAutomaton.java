@@ -0,0 +1,117 @@
+package com.expense.segmentation.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over a fixed set of phrases. One scan of a text reports every occurrence
+ * of every phrase, however many phrases there are, in time linear in the text plus the number of
+ * matches. Immutable once built, so it can be shared by any number of readers.
+ */
+final class PhraseAutomaton {
+
+    private static final int[] NO_PHRASES = new int[0];
+
+    /** Receives the matches of a scan. */
+    @FunctionalInterface
+    interface MatchListener {
+
+        /**
+         * @param phrase index of the matched phrase in the list the automaton was built from
+         * @param end index of the last character of the occurrence in the text
+         */
+        void onMatch(int phrase, int end);
+    }
+
+    private final Node root;
+
+    private PhraseAutomaton(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds the automaton.
+     *
+     * @param phrases the phrases to find, none empty; a phrase is identified by its index
+     * @return the automaton
+     */
+    static PhraseAutomaton build(List<String> phrases) {
+        Node root = new Node();
+        for (int phrase = 0; phrase < phrases.size(); phrase++) {
+            String text = phrases.get(phrase);
+            Node node = root;
+            for (int i = 0; i < text.length(); i++) {
+                node = node.next.computeIfAbsent(text.charAt(i), c -> new Node());
+            }
+            node.phrases = append(node.phrases, phrase);
+        }
+
+        // Breadth-first, so every failure target is complete before the nodes that point at it
+        Queue<Node> queue = new ArrayDeque<>();
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            for (Map.Entry<Character, Node> edge : node.next.entrySet()) {
+                char c = edge.getKey();
+                Node child = edge.getValue();
+                Node fail = node.fail;
+                while (fail != root && !fail.next.containsKey(c)) {
+                    fail = fail.fail;
+                }
+                child.fail = fail.next.getOrDefault(c, root);
+                // A phrase that ends here also ends every shorter suffix phrase
+                child.phrases = concat(child.phrases, child.fail.phrases);
+                queue.add(child);
+            }
+        }
+        return new PhraseAutomaton(root);
+    }
+
+    /**
+     * Reports every occurrence of every phrase in the text, in order of their end position.
+     *
+     * @param text the text to scan
+     * @param listener receives the matches
+     */
+    void scan(CharSequence text, MatchListener listener) {
+        Node node = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            while (node != root && !node.next.containsKey(c)) {
+                node = node.fail;
+            }
+            node = node.next.getOrDefault(c, root);
+            for (int phrase : node.phrases) {
+                listener.onMatch(phrase, i);
+            }
+        }
+    }
+
+    private static int[] append(int[] phrases, int phrase) {
+        int[] appended = Arrays.copyOf(phrases, phrases.length + 1);
+        appended[phrases.length] = phrase;
+        return appended;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        int[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> next = new HashMap<>();
+        private Node fail;
+        private int[] phrases = NO_PHRASES;
+    }
+}
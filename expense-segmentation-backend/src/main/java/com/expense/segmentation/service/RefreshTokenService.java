@@ -0,0 +1,186 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.config.RevokedSessionRegistry;
+import com.expense.segmentation.exception.InvalidTokenException;
+import com.expense.segmentation.model.RefreshToken;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.RefreshTokenRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Issues and rotates refresh tokens. Each login starts a session; every refresh consumes the
+ * presented token and issues its successor in the same session. Presenting a token that was
+ * already consumed ends the whole session, since it means the token was copied, unless it was
+ * consumed moments ago: then another tab of the same browser most likely refreshed with it first.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedSessionRegistry revokedSessionRegistry;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private long refreshExpirationMillis = 1_209_600_000L;
+
+    @Value("${jwt.refresh-reuse-grace-ms:10000}")
+    private long reuseGraceMillis = 10_000L;
+
+    /**
+     * A newly issued refresh token.
+     *
+     * @param token the raw token to hand to the client; it is not stored
+     * @param sessionId the session the token belongs to
+     * @param user the token owner
+     */
+    public record IssuedRefreshToken(String token, UUID sessionId, User user) {}
+
+    /**
+     * Starts a new session for the user.
+     *
+     * @param user the user who logged in
+     * @return the first refresh token of the session
+     */
+    @Transactional
+    public IssuedRefreshToken startSession(User user) {
+        IssuedRefreshToken issued = issue(user, UUID.randomUUID());
+        log.debug("Started session {} for user {}", issued.sessionId(), user.getId());
+        return issued;
+    }
+
+    /**
+     * Consumes a refresh token and issues its successor.
+     *
+     * @param rawToken the refresh token presented by the client
+     * @return the new refresh token, in the same session
+     * @throws InvalidTokenException if the token is unknown, expired, already used, or its owner is
+     *     no longer active
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public IssuedRefreshToken rotate(String rawToken) {
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken current =
+                refreshTokenRepository
+                        .findByTokenHashForUpdate(hash(rawToken))
+                        .orElseThrow(() -> new InvalidTokenException("Invalid refresh token"));
+
+        if (current.getRevokedAt() != null) {
+            if (current.getRevokedAt().plusNanos(reuseGraceMillis * 1_000_000L).isAfter(now)) {
+                // Concurrent refresh; the client picks up the successor the other tab stored
+                throw new InvalidTokenException("Refresh token has just been rotated");
+            }
+            log.warn(
+                    "Refresh token reuse detected for session {}, ending session",
+                    current.getSessionId());
+            endSession(current.getSessionId(), now);
+            throw new InvalidTokenException("Refresh token has already been used");
+        }
+        if (!current.isActive(now)) {
+            throw new InvalidTokenException("Refresh token has expired");
+        }
+
+        User user = current.getUser();
+        if (user.getStatus() != UserStatus.ACTIVE) {
+            endSession(current.getSessionId(), now);
+            throw new InvalidTokenException("User account is not active");
+        }
+
+        current.setRevokedAt(now);
+        return issue(user, current.getSessionId());
+    }
+
+    /**
+     * Ends the session the refresh token belongs to. Unknown tokens are ignored so logout is
+     * idempotent.
+     *
+     * @param rawToken the refresh token presented by the client
+     */
+    @Transactional
+    public void endSession(String rawToken) {
+        refreshTokenRepository
+                .findByTokenHash(hash(rawToken))
+                .ifPresent(token -> endSession(token.getSessionId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Ends every session of the user, e.g. when the account is deactivated.
+     *
+     * @param userId the user ID
+     */
+    @Transactional
+    public void endAllSessions(UUID userId) {
+        List<UUID> sessionIds = refreshTokenRepository.findActiveSessionIdsByUserId(userId);
+        int revoked = refreshTokenRepository.revokeAllByUserId(userId, LocalDateTime.now());
+        revokeLocallyAfterCommit(sessionIds);
+        log.info("Ended {} sessions ({} tokens) for user {}", sessionIds.size(), revoked, userId);
+    }
+
+    /** Deletes refresh tokens that expired more than a day ago. */
+    @Scheduled(cron = "${jwt.refresh-cleanup-cron:0 0 3 * * *}")
+    @Transactional
+    public void deleteExpiredTokens() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now().minusDays(1));
+        log.info("Deleted {} expired refresh tokens", deleted);
+    }
+
+    private void endSession(UUID sessionId, LocalDateTime now) {
+        refreshTokenRepository.revokeSession(sessionId, now);
+        revokeLocallyAfterCommit(List.of(sessionId));
+    }
+
+    private IssuedRefreshToken issue(User user, UUID sessionId) {
+        String rawToken = generateRawToken();
+
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setSessionId(sessionId);
+        token.setTokenHash(hash(rawToken));
+        token.setExpiresAt(LocalDateTime.now().plusNanos(refreshExpirationMillis * 1_000_000L));
+        refreshTokenRepository.save(token);
+
+        return new IssuedRefreshToken(rawToken, sessionId, user);
+    }
+
+    private void revokeLocallyAfterCommit(List<UUID> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> revokedSessionRegistry.revoke(sessionIds));
+    }
+
+    private String generateRawToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Tokens carry 256 bits of randomness, so an unsalted fast hash is sufficient
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of()
+                    .formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.dto.CreateExpenseSegmentRequest;
+import com.expense.segmentation.model.Money;
+import com.expense.segmentation.model.SegmentAllocation;
+import com.expense.segmentation.model.SegmentationRule;
+import com.expense.segmentation.repository.SegmentationRuleRepository;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the admin-defined segmentation rules to new expenses.
+ *
+ * <p>All active rules are compiled into one {@link PhraseAutomaton} over the folded patterns, so
+ * finding the rules an expense satisfies is a single scan of its vendor and description, however
+ * many rules exist. Patterns match whole words: "uber" matches "UBER *TRIP" but not "Uberti". When
+ * several rules match, the one with the lowest priority wins. Rules reference their categories by
+ * ID and take their current names from the {@link CategoryDictionary} when they apply; a rule with
+ * a category that has been deactivated since is passed over in favour of the next matching rule.
+ *
+ * <p>Rule changes on this instance trigger a rebuild as soon as they commit, and the rules are
+ * reloaded every {@code segmentation-rules.refresh-interval-ms} to pick up changes from other
+ * instances. Rebuilds run off the request thread and publish the compiled rules through a volatile
+ * field; readers never lock.
+ */
+@Slf4j
+@Component
+public class SegmentationRuleEngine {
+
+    // Folding leaves only letters, digits and single spaces, so this never occurs in a field
+    private static final char FIELD_SEPARATOR = '|';
+
+    private static final Comparator<SegmentationRule> BY_PRIORITY =
+            Comparator.comparing(SegmentationRule::getPriority)
+                    .thenComparing(SegmentationRule::getName)
+                    .thenComparing(SegmentationRule::getId);
+
+    private final SegmentationRuleRepository segmentationRuleRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final ExecutorService rebuilder;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile CompiledRules compiled = CompiledRules.compile(List.of());
+
+    public SegmentationRuleEngine(
+            SegmentationRuleRepository segmentationRuleRepository,
+            CategoryDictionary categoryDictionary) {
+        this.segmentationRuleRepository = segmentationRuleRepository;
+        this.categoryDictionary = categoryDictionary;
+        this.rebuilder =
+                Executors.newSingleThreadExecutor(
+                        task -> {
+                            Thread thread = new Thread(task, "segmentation-rules-rebuild");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    /**
+     * The segments a rule splits an expense into.
+     *
+     * @param ruleId the winning rule
+     * @param ruleName the name of the winning rule
+     * @param segments the segments, named as the categories are spelled now
+     * @param categories the active category of each segment, in order
+     */
+    public record Match(
+            UUID ruleId,
+            String ruleName,
+            List<CreateExpenseSegmentRequest> segments,
+            List<CategoryDictionary.Entry> categories) {}
+
+    /**
+     * Finds the rule for a new expense and splits its amount accordingly. Shares are whole cents
+     * that add up to the amount exactly; cents left over by rounding down go to the shares with
+     * the largest remainders.
+     *
+     * @param vendor the expense vendor, may be null
+     * @param description the expense description, may be null
+     * @param amount the expense amount
+     * @return the winning rule's segments, empty if no rule with active categories matches
+     */
+    public Optional<Match> match(String vendor, String description, BigDecimal amount) {
+        return compiled.match(vendor, description, amount, categoryDictionary);
+    }
+
+    /**
+     * Schedules a rebuild from the database. Requests made while one is already queued are folded
+     * into it.
+     */
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(
+                    () -> {
+                        // Cleared first, so a change committed during this rebuild queues another
+                        rebuildPending.set(false);
+                        refresh();
+                    });
+        }
+    }
+
+    /** Recompiles the active rules from the database and swaps them in at once. */
+    @Scheduled(fixedDelayString = "${segmentation-rules.refresh-interval-ms:600000}")
+    public synchronized void refresh() {
+        try {
+            CompiledRules rebuilt =
+                    CompiledRules.compile(segmentationRuleRepository.findActiveWithAllocations());
+            compiled = rebuilt;
+            log.debug("Compiled {} segmentation rules", rebuilt.rules.size());
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh segmentation rules, keeping previous rules", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private record Rule(
+            UUID id,
+            String name,
+            boolean needsVendor,
+            boolean needsDescription,
+            List<UUID> categoryIds,
+            long[] basisPoints) {
+
+        /** Splits the amount, or returns empty if a category is unknown or inactive. */
+        Optional<Match> split(BigDecimal amount, CategoryDictionary categoryDictionary) {
+            Money[] shares = Money.of(amount).allocate(basisPoints);
+            List<CreateExpenseSegmentRequest> segments = new ArrayList<>(shares.length);
+            List<CategoryDictionary.Entry> categories = new ArrayList<>(shares.length);
+            for (int i = 0; i < shares.length; i++) {
+                UUID categoryId = categoryIds.get(i);
+                Optional<CategoryDictionary.Entry> category = categoryDictionary.get(categoryId);
+                if (category.isEmpty() || !category.get().active()) {
+                    log.warn(
+                            "Passing over segmentation rule {}: category {} is not active",
+                            name,
+                            categoryId);
+                    return Optional.empty();
+                }
+                // A share too small to get a cent is left out rather than stored as zero
+                if (shares[i].cents() > 0) {
+                    segments.add(
+                            new CreateExpenseSegmentRequest(
+                                    category.get().name(), shares[i].toBigDecimal(), null));
+                    categories.add(category.get());
+                }
+            }
+            return Optional.of(new Match(id, name, segments, categories));
+        }
+    }
+
+    /** The active rules in priority order and the automaton over their patterns. */
+    private static final class CompiledRules {
+
+        private final List<Rule> rules;
+        private final PhraseAutomaton automaton;
+        // Indexed by phrase: the rules whose vendor or description pattern it is
+        private final int[][] vendorRules;
+        private final int[][] descriptionRules;
+
+        private CompiledRules(
+                List<Rule> rules,
+                PhraseAutomaton automaton,
+                int[][] vendorRules,
+                int[][] descriptionRules) {
+            this.rules = rules;
+            this.automaton = automaton;
+            this.vendorRules = vendorRules;
+            this.descriptionRules = descriptionRules;
+        }
+
+        static CompiledRules compile(List<SegmentationRule> sources) {
+            List<Rule> rules = new ArrayList<>();
+            PhraseTable phrases = new PhraseTable();
+
+            for (SegmentationRule source : sources.stream().sorted(BY_PRIORITY).toList()) {
+                String vendor = VendorNames.fold(source.getVendorPattern());
+                String description = VendorNames.fold(source.getDescriptionPattern());
+                if (vendor.isEmpty() && description.isEmpty()) {
+                    log.warn("Skipping segmentation rule {} without patterns", source.getId());
+                    continue;
+                }
+
+                int ruleIndex = rules.size();
+                if (!vendor.isEmpty()) {
+                    phrases.vendorRules.get(phrases.idOf(vendor)).add(ruleIndex);
+                }
+                if (!description.isEmpty()) {
+                    phrases.descriptionRules.get(phrases.idOf(description)).add(ruleIndex);
+                }
+
+                List<SegmentAllocation> allocations = source.getAllocations();
+                rules.add(
+                        new Rule(
+                                source.getId(),
+                                source.getName(),
+                                !vendor.isEmpty(),
+                                !description.isEmpty(),
+                                allocations.stream().map(SegmentAllocation::getCategoryId).toList(),
+                                allocations.stream()
+                                        .mapToLong(
+                                                allocation ->
+                                                        allocation
+                                                                .getPercentage()
+                                                                .movePointRight(2)
+                                                                .longValueExact())
+                                        .toArray()));
+            }
+
+            return new CompiledRules(
+                    List.copyOf(rules),
+                    PhraseAutomaton.build(phrases.phrases),
+                    toArrays(phrases.vendorRules),
+                    toArrays(phrases.descriptionRules));
+        }
+
+        Optional<Match> match(
+                String vendor,
+                String description,
+                BigDecimal amount,
+                CategoryDictionary categoryDictionary) {
+            if (rules.isEmpty() || amount == null || amount.signum() <= 0) {
+                return Optional.empty();
+            }
+
+            String foldedVendor = VendorNames.fold(vendor);
+            String text =
+                    " "
+                            + foldedVendor
+                            + " "
+                            + FIELD_SEPARATOR
+                            + " "
+                            + VendorNames.fold(description)
+                            + " ";
+            int separator = foldedVendor.length() + 2;
+
+            BitSet vendorHits = new BitSet(rules.size());
+            BitSet descriptionHits = new BitSet(rules.size());
+            automaton.scan(
+                    text,
+                    (phrase, end) -> {
+                        boolean inVendor = end < separator;
+                        for (int rule : (inVendor ? vendorRules : descriptionRules)[phrase]) {
+                            (inVendor ? vendorHits : descriptionHits).set(rule);
+                        }
+                    });
+
+            // Rules are in priority order, so the first satisfied candidate that can apply wins
+            BitSet candidates = (BitSet) vendorHits.clone();
+            candidates.or(descriptionHits);
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                Rule rule = rules.get(i);
+                if ((!rule.needsVendor() || vendorHits.get(i))
+                        && (!rule.needsDescription() || descriptionHits.get(i))) {
+                    Optional<Match> match = rule.split(amount, categoryDictionary);
+                    if (match.isPresent()) {
+                        return match;
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+
+        private static int[][] toArrays(List<List<Integer>> lists) {
+            return lists.stream()
+                    .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                    .toArray(int[][]::new);
+        }
+
+        /** Distinct patterns of all rules, each with the rules that use it per field. */
+        private static final class PhraseTable {
+            private final Map<String, Integer> ids = new HashMap<>();
+            private final List<String> phrases = new ArrayList<>();
+            private final List<List<Integer>> vendorRules = new ArrayList<>();
+            private final List<List<Integer>> descriptionRules = new ArrayList<>();
+
+            int idOf(String pattern) {
+                // Padded with spaces so a pattern only matches whole words
+                return ids.computeIfAbsent(
+                        " " + pattern + " ",
+                        padded -> {
+                            phrases.add(padded);
+                            vendorRules.add(new ArrayList<>());
+                            descriptionRules.add(new ArrayList<>());
+                            return phrases.size() - 1;
+                        });
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.dto.CreateSegmentationRuleRequest;
+import com.expense.segmentation.dto.SegmentAllocationRequest;
+import com.expense.segmentation.dto.SegmentationRuleResponse;
+import com.expense.segmentation.exception.InvalidOperationException;
+import com.expense.segmentation.exception.ResourceNotFoundException;
+import com.expense.segmentation.mapper.SegmentationRuleMapper;
+import com.expense.segmentation.model.SegmentAllocation;
+import com.expense.segmentation.model.SegmentationRule;
+import com.expense.segmentation.repository.SegmentationRuleRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates, lists, updates and deletes segmentation rules. Rules are applied through the {@link
+ * SegmentationRuleEngine}; this service asks it to recompile after each change commits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SegmentationRuleService {
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final SegmentationRuleRepository segmentationRuleRepository;
+    private final SegmentationRuleMapper segmentationRuleMapper;
+    private final SegmentationRuleEngine segmentationRuleEngine;
+    private final CategoryDictionary categoryDictionary;
+
+    @Transactional(readOnly = true)
+    public List<SegmentationRuleResponse> getAllRules() {
+        log.debug("Fetching all segmentation rules");
+        return segmentationRuleMapper.toResponseList(
+                segmentationRuleRepository.findAllByOrderByPriorityAscNameAsc());
+    }
+
+    /**
+     * Creates a segmentation rule.
+     *
+     * @param request the rule
+     * @return the created rule
+     * @throws InvalidOperationException if the rule has no pattern, names an unknown category,
+     *     repeats a category or its percentages do not add up to 100
+     */
+    @Transactional
+    public SegmentationRuleResponse createRule(CreateSegmentationRuleRequest request) {
+        log.info("Creating segmentation rule: {}", request.getName());
+        SegmentationRule rule = new SegmentationRule();
+        apply(rule, request);
+
+        SegmentationRule saved = segmentationRuleRepository.save(rule);
+        AfterCommit.run(segmentationRuleEngine::requestRebuild);
+        log.info("Created segmentation rule: {} with ID: {}", saved.getName(), saved.getId());
+        return segmentationRuleMapper.toResponse(saved);
+    }
+
+    /**
+     * Replaces a segmentation rule.
+     *
+     * @param id the rule ID
+     * @param request the new rule
+     * @return the updated rule
+     * @throws ResourceNotFoundException if the rule does not exist
+     * @throws InvalidOperationException if the new rule is invalid, see {@link #createRule}
+     */
+    @Transactional
+    public SegmentationRuleResponse updateRule(UUID id, CreateSegmentationRuleRequest request) {
+        log.info("Updating segmentation rule: {}", id);
+        SegmentationRule rule = findRule(id);
+        apply(rule, request);
+
+        SegmentationRule saved = segmentationRuleRepository.save(rule);
+        AfterCommit.run(segmentationRuleEngine::requestRebuild);
+        return segmentationRuleMapper.toResponse(saved);
+    }
+
+    /**
+     * Deletes a segmentation rule. Segments it already created are kept.
+     *
+     * @param id the rule ID
+     * @throws ResourceNotFoundException if the rule does not exist
+     */
+    @Transactional
+    public void deleteRule(UUID id) {
+        log.info("Deleting segmentation rule: {}", id);
+        segmentationRuleRepository.delete(findRule(id));
+        AfterCommit.run(segmentationRuleEngine::requestRebuild);
+    }
+
+    private SegmentationRule findRule(UUID id) {
+        return segmentationRuleRepository
+                .findById(id)
+                .orElseThrow(
+                        () ->
+                                new ResourceNotFoundException(
+                                        "SegmentationRule", "id", id.toString()));
+    }
+
+    private void apply(SegmentationRule rule, CreateSegmentationRuleRequest request) {
+        String vendorPattern = trimToNull(request.getVendorPattern());
+        String descriptionPattern = trimToNull(request.getDescriptionPattern());
+        // Patterns are matched in folded form; one that folds to nothing would match everything
+        if (VendorNames.fold(vendorPattern).isEmpty()
+                && VendorNames.fold(descriptionPattern).isEmpty()) {
+            throw new InvalidOperationException(
+                    "A rule needs a vendor or description pattern containing letters or digits");
+        }
+
+        List<SegmentAllocationRequest> allocations = request.getAllocations();
+        List<CategoryDictionary.Entry> categories = new ArrayList<>(allocations.size());
+        BitSet seen = new BitSet();
+        for (SegmentAllocationRequest allocation : allocations) {
+            CategoryDictionary.Entry category =
+                    categoryDictionary
+                            .resolve(allocation.getCategory())
+                            .orElseThrow(
+                                    () ->
+                                            new InvalidOperationException(
+                                                    "Unknown allocation category '"
+                                                            + allocation.getCategory().trim()
+                                                            + "'"));
+            if (!category.active()) {
+                throw new InvalidOperationException(
+                        "Allocation category '" + category.name() + "' is inactive");
+            }
+            if (seen.get(category.code())) {
+                throw new InvalidOperationException(
+                        "Allocation categories must be unique within a rule");
+            }
+            seen.set(category.code());
+            categories.add(category);
+        }
+        BigDecimal total =
+                allocations.stream()
+                        .map(SegmentAllocationRequest::getPercentage)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.compareTo(HUNDRED) != 0) {
+            throw new InvalidOperationException(
+                    "Allocation percentages must add up to 100, got " + total.toPlainString());
+        }
+
+        rule.setName(request.getName().trim());
+        rule.setVendorPattern(vendorPattern);
+        rule.setDescriptionPattern(descriptionPattern);
+        rule.setPriority(request.getPriority() != null ? request.getPriority() : 0);
+        rule.setActive(request.getActive() != null ? request.getActive() : true);
+        rule.getAllocations().clear();
+        for (int i = 0; i < allocations.size(); i++) {
+            CategoryDictionary.Entry category = categories.get(i);
+            rule.getAllocations()
+                    .add(
+                            new SegmentAllocation(
+                                    category.id(),
+                                    category.name(),
+                                    allocations.get(i).getPercentage()));
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
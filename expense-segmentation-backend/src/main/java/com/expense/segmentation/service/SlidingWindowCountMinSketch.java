@@ -0,0 +1,174 @@
+package com.expense.segmentation.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate per-key event counts over a sliding time window in fixed memory.
+ *
+ * <p>The window is split into a ring of buckets, each holding a count-min sketch of {@code depth}
+ * rows by {@code width} counters. The estimate for a key is the minimum over rows of its counters
+ * summed across the buckets still inside the window. Estimates never undercount, and only overcount
+ * when unrelated keys collide in every row.
+ *
+ * <p>Events are recorded with conservative update: of the key's counters in the current bucket,
+ * only those at their minimum are raised. A counter shared with a busier key is then not raised
+ * again, which keeps overcounts far below those of incrementing every row once the sketch fills
+ * up. Counters are plain atomics: an update reads the key's minimum and raises the counters at it
+ * by compare-and-set, starting over if another update moved one of them first, so concurrent
+ * events for one key are never lost. Neither updates nor reads take locks, and expired buckets are
+ * replaced by compare-and-set.
+ *
+ * <p>Keys are hashed with a random per-instance seed so that callers cannot craft keys that
+ * collide with someone else's.
+ */
+final class SlidingWindowCountMinSketch {
+
+    private static final long MAX_WIDTH = 1 << 24;
+
+    private final int depth;
+    private final int width;
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final LongSupplier clock;
+    private final long seed = new SecureRandom().nextLong();
+
+    SlidingWindowCountMinSketch(int width, int depth, Duration window, int bucketCount) {
+        this(width, depth, window, bucketCount, System::currentTimeMillis);
+    }
+
+    SlidingWindowCountMinSketch(
+            int width, int depth, Duration window, int bucketCount, LongSupplier clock) {
+        if (Integer.bitCount(width) != 1 || depth < 1 || bucketCount < 1) {
+            throw new IllegalArgumentException(
+                    "width must be a power of two, depth and bucketCount must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        this.clock = clock;
+    }
+
+    /**
+     * Records one event for the key.
+     *
+     * @param key the key
+     */
+    void increment(String key) {
+        long slot = clock.getAsLong() / bucketMillis;
+        AtomicIntegerArray counters = currentBucket(slot).counters();
+        long hash = hash(key);
+        int[] offsets = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            offsets[row] = row * width + index(hash, row);
+        }
+        int[] values = new int[depth];
+        while (!raiseMinimum(counters, offsets, values)) {
+            // Another update raised one of the key's counters first; read them again
+        }
+    }
+
+    /**
+     * Raises the key's counters that are at its minimum by one. Fails if one of them changed since
+     * it was read; counters already raised stay raised, which can only overcount.
+     */
+    private static boolean raiseMinimum(
+            AtomicIntegerArray counters, int[] offsets, int[] values) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < offsets.length; row++) {
+            values[row] = counters.get(offsets[row]);
+            min = Math.min(min, values[row]);
+        }
+        for (int row = 0; row < offsets.length; row++) {
+            if (values[row] == min && !counters.compareAndSet(offsets[row], min, min + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates how many events were recorded for the key within the window.
+     *
+     * @param key the key
+     * @return an upper bound of the true count, exact unless the key collides in every row
+     */
+    long estimate(String key) {
+        long slot = clock.getAsLong() / bucketMillis;
+        long hash = hash(key);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int offset = row * width + index(hash, row);
+            long sum = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                Bucket bucket = buckets.get(i);
+                if (bucket != null && slot - bucket.slot() < buckets.length()) {
+                    sum += bucket.counters().get(offset);
+                }
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    /**
+     * Returns a width for which estimates are rarely inflated while the window holds up to the
+     * given number of distinct keys: the next power of two of four counters per key. At that load a
+     * key shares a counter with another key in every one of four rows with a probability of about
+     * one in 400, and conservative update keeps most of those collisions from inflating its
+     * estimate.
+     *
+     * @param expectedKeys the number of distinct keys expected within one window
+     * @return the width to pass to the constructor
+     */
+    static int widthFor(long expectedKeys) {
+        long target = Math.max(2, Math.min(MAX_WIDTH, 4 * Math.max(expectedKeys, 1)));
+        return (int) Long.highestOneBit(target - 1) << 1;
+    }
+
+    /**
+     * Returns the time after which the oldest bucket leaves the window.
+     *
+     * @return the bucket length
+     */
+    Duration bucketLength() {
+        return Duration.ofMillis(bucketMillis);
+    }
+
+    private Bucket currentBucket(long slot) {
+        int index = (int) Math.floorMod(slot, (long) buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.slot() >= slot) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(slot, new AtomicIntegerArray(depth * width));
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    // Double hashing: row i uses h1 + i * h2, which is as good as independent hashes for count-min
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return (h1 + row * h2) & (width - 1);
+    }
+
+    private long hash(String key) {
+        long h = seed ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    private record Bucket(long slot, AtomicIntegerArray counters) {}
+}
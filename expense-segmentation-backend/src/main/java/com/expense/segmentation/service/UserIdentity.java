@@ -0,0 +1,36 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.model.Department;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import java.util.UUID;
+
+/**
+ * The identity fields of a user that are read on nearly every request. Immutable so it can be
+ * shared from {@link UserIdentityCache} without copying.
+ *
+ * @param id the user ID
+ * @param email the user email
+ * @param role the user's role
+ * @param departmentId the user's department ID, or null if unassigned
+ * @param status the user's account status
+ */
+public record UserIdentity(
+        UUID id, String email, RoleType role, UUID departmentId, UserStatus status) {
+
+    public static UserIdentity from(User user) {
+        Department department = user.getDepartment();
+        return new UserIdentity(
+                user.getId(),
+                user.getEmail(),
+                user.getRole() != null ? user.getRole().getName() : null,
+                department != null ? department.getId() : null,
+                user.getStatus());
+    }
+
+    public AuthenticatedUser toAuthenticatedUser() {
+        return new AuthenticatedUser(id, email, role, departmentId);
+    }
+}
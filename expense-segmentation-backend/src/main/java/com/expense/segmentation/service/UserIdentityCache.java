@@ -0,0 +1,103 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-process cache of {@link UserIdentity} by email and by ID. Users change rarely but are
+ * looked up on almost every request, so entries are only dropped when {@link UserService} changes
+ * a user (see {@link #invalidate(UUID, String)}), when evicted for size, or after {@code
+ * user-cache.expire-after-write} as a safety net for changes made by other instances.
+ *
+ * <p>Missing users are not cached. Hit, miss and eviction counts are published as {@code
+ * cache.*} meters tagged {@code cache=users.byEmail} and {@code cache=users.byId}.
+ */
+@Slf4j
+@Component
+public class UserIdentityCache {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final Cache<String, UserIdentity> byEmail;
+    private final Cache<UUID, UserIdentity> byId;
+
+    public UserIdentityCache(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${user-cache.enabled:true}") boolean enabled,
+            @Value("${user-cache.max-size:10000}") long maxSize,
+            @Value("${user-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.byEmail = buildCache(maxSize, expireAfterWrite);
+        this.byId = buildCache(maxSize, expireAfterWrite);
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "users.byEmail");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.byId");
+    }
+
+    /**
+     * Looks up a user's identity by email, loading it on a cache miss.
+     *
+     * @param email the user email
+     * @return the identity, or empty if no such user exists
+     */
+    public Optional<UserIdentity> findByEmail(String email) {
+        if (!enabled) {
+            return loadByEmail(email);
+        }
+        return Optional.ofNullable(byEmail.get(email, key -> loadByEmail(key).orElse(null)));
+    }
+
+    /**
+     * Looks up a user's identity by ID, loading it on a cache miss.
+     *
+     * @param id the user ID
+     * @return the identity, or empty if no such user exists
+     */
+    public Optional<UserIdentity> findById(UUID id) {
+        if (!enabled) {
+            return loadById(id);
+        }
+        return Optional.ofNullable(byId.get(id, key -> loadById(key).orElse(null)));
+    }
+
+    /**
+     * Drops the cached identity of a user. Must be called whenever the user's role, department or
+     * status changes.
+     *
+     * @param id the user ID
+     * @param email the user email
+     */
+    public void invalidate(UUID id, String email) {
+        byId.invalidate(id);
+        if (email != null) {
+            byEmail.invalidate(email);
+        }
+        log.debug("Invalidated cached identity for user {}", id);
+    }
+
+    private Optional<UserIdentity> loadByEmail(String email) {
+        return userRepository.findByEmail(email).map(UserIdentity::from);
+    }
+
+    private Optional<UserIdentity> loadById(UUID id) {
+        return userRepository.findByIdWithDepartmentAndRole(id).map(UserIdentity::from);
+    }
+
+    private static <K> Cache<K, UserIdentity> buildCache(long maxSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+}
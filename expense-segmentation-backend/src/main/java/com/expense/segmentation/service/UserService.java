@@ -1,5 +1,6 @@
 package com.expense.segmentation.service;
 
+import com.expense.segmentation.config.TokenEpochRegistry;
 import com.expense.segmentation.dto.UpdateUserRequest;
 import com.expense.segmentation.dto.UserResponse;
 import com.expense.segmentation.exception.InvalidOperationException;
@@ -11,6 +12,7 @@ import com.expense.segmentation.model.RoleType;
 import com.expense.segmentation.model.User;
 import com.expense.segmentation.model.UserStatus;
 import com.expense.segmentation.repository.UserRepository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
@@ -26,16 +28,28 @@ public class UserService {
     private final RoleService roleService;
     private final DepartmentService departmentService;
     private final UserMapper userMapper;
+    private final TokenEpochRegistry tokenEpochRegistry;
+    private final UserIdentityCache userIdentityCache;
+    private final RefreshTokenService refreshTokenService;
+    private final ApiKeyRegistry apiKeyRegistry;
 
     public UserService(
             UserRepository userRepository,
             RoleService roleService,
             @Lazy DepartmentService departmentService,
-            UserMapper userMapper) {
+            UserMapper userMapper,
+            TokenEpochRegistry tokenEpochRegistry,
+            UserIdentityCache userIdentityCache,
+            RefreshTokenService refreshTokenService,
+            ApiKeyRegistry apiKeyRegistry) {
         this.userRepository = userRepository;
         this.roleService = roleService;
         this.departmentService = departmentService;
         this.userMapper = userMapper;
+        this.tokenEpochRegistry = tokenEpochRegistry;
+        this.userIdentityCache = userIdentityCache;
+        this.refreshTokenService = refreshTokenService;
+        this.apiKeyRegistry = apiKeyRegistry;
     }
 
     @Transactional(readOnly = true)
@@ -86,6 +100,7 @@ public class UserService {
         handleManagerPromotion(user, userId, isBecomingManager, targetDepartment);
 
         User updatedUser = userRepository.save(user);
+        invalidateUserAfterCommit(user);
         log.info("Successfully updated user: {}", userId);
         return userMapper.toResponse(updatedUser);
     }
@@ -101,6 +116,8 @@ public class UserService {
 
         user.setStatus(UserStatus.INACTIVE);
         userRepository.save(user);
+        refreshTokenService.endAllSessions(userId);
+        invalidateUserAfterCommit(user);
         log.info("Successfully deactivated user: {}", userId);
     }
 
@@ -139,6 +156,7 @@ public class UserService {
     public void updateUserEntity(User user) {
         log.debug("Updating user entity: {}", user.getId());
         userRepository.save(user);
+        invalidateUserAfterCommit(user);
     }
 
     private boolean updateUserRole(User user, UpdateUserRequest request) {
@@ -264,6 +282,27 @@ public class UserService {
         log.info("Removed user {} as manager of department {}", userId, department.getId());
     }
 
+    /**
+     * Tokens and the identity cache both hold the user's role, department and status, so any
+     * change to them must revoke the tokens already issued and drop the cached identity. The token
+     * epoch is raised on the managed user, so it is written with the change; the in-memory state
+     * waits for the commit so a concurrent login or lookup cannot repopulate it from the old state.
+     */
+    private void invalidateUserAfterCommit(User user) {
+        user.setTokenEpoch(user.getTokenEpoch() + 1);
+        user.setTokenEpochRaisedAt(LocalDateTime.now());
+        UUID userId = user.getId();
+        String email = user.getEmail();
+        long epoch = user.getTokenEpoch();
+        AfterCommit.run(() -> invalidateUser(userId, email, epoch));
+    }
+
+    private void invalidateUser(UUID userId, String email, long epoch) {
+        tokenEpochRegistry.revokeTokens(userId, epoch);
+        userIdentityCache.invalidate(userId, email);
+        apiKeyRegistry.reloadUser(userId);
+    }
+
     private boolean isManager(User user) {
         return user.getRole() != null && RoleType.MANAGER.equals(user.getRole().getName());
     }
@@ -0,0 +1,369 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.model.Vendor;
+import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.VendorAliasRepository;
+import com.expense.segmentation.repository.VendorAliasRow;
+import com.expense.segmentation.repository.VendorRepository;
+import com.expense.segmentation.repository.VendorUsageRow;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory vendor directory: resolves normalized names to canonical vendors and answers
+ * autocomplete lookups without touching the database.
+ *
+ * <p>Every vendor is indexed in a prefix trie under its folded name, its normalized name and its
+ * aliases. Each trie node keeps the {@link #TOP_K} most-used vendors below it, so a lookup walks
+ * one node per typed character and returns that node's list. Each user additionally has their own
+ * {@link #USER_TOP_K} most-used vendors, which are suggested first.
+ *
+ * <p>Usage is recorded incrementally as expenses are created on this instance, and the whole
+ * directory is rebuilt from the database every {@code vendor-directory.refresh-interval-ms} to pick
+ * up vendors and usage from other instances. Writers serialize on a lock and publish through
+ * volatile fields; readers never lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VendorDirectory {
+
+    /** Vendors kept per trie node, i.e. the most suggestions a lookup returns. */
+    public static final int TOP_K = 10;
+
+    /** Most-used vendors kept per user. */
+    static final int USER_TOP_K = 50;
+
+    // Most used first; ties broken by name so suggestion order is stable
+    private static final Comparator<Entry> BY_USAGE =
+            Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::name);
+
+    private final VendorRepository vendorRepository;
+    private final VendorAliasRepository vendorAliasRepository;
+    private final ExpenseRepository expenseRepository;
+
+    private final Object writeLock = new Object();
+    private volatile Index index = new Index();
+
+    /**
+     * Resolves a normalized vendor name or alias.
+     *
+     * @param key the key produced by {@link VendorNames#normalize}
+     * @return the vendor, empty if the key is not in the directory
+     */
+    public Optional<Entry> resolve(String key) {
+        return Optional.ofNullable(index.byKey.get(key));
+    }
+
+    /**
+     * Suggests vendors for a typed prefix: the user's own most-used matching vendors first, then
+     * the most-used matching vendors overall.
+     *
+     * @param prefix the text typed so far; an empty prefix matches every vendor
+     * @param userId the user to personalize for, or null
+     * @param limit maximum number of suggestions, at most {@link #TOP_K} come from the global list
+     * @return the suggestions, best first
+     */
+    public List<Entry> suggest(String prefix, UUID userId, int limit) {
+        Index current = index;
+        String key = VendorNames.fold(prefix);
+        Set<Entry> suggestions = new LinkedHashSet<>();
+
+        UserVendors user = userId != null ? current.byUser.get(userId) : null;
+        if (user != null) {
+            for (Entry entry : user.top) {
+                if (suggestions.size() >= limit) {
+                    break;
+                }
+                if (entry.matches(key)) {
+                    suggestions.add(entry);
+                }
+            }
+        }
+
+        Node node = current.find(key);
+        if (node != null) {
+            for (Entry entry : node.top) {
+                if (suggestions.size() >= limit) {
+                    break;
+                }
+                suggestions.add(entry);
+            }
+        }
+        return List.copyOf(suggestions);
+    }
+
+    /**
+     * Adds a newly created vendor.
+     *
+     * @param vendor the committed vendor
+     */
+    public void register(Vendor vendor) {
+        synchronized (writeLock) {
+            Index current = index;
+            Entry entry =
+                    current.byId.computeIfAbsent(
+                            vendor.getId(), id -> new Entry(id, vendor.getName()));
+            current.addVendorKeys(entry, vendor.getNormalizedName());
+        }
+    }
+
+    /**
+     * Maps an additional normalized name onto a vendor that is already in the directory.
+     *
+     * @param vendorId the vendor ID
+     * @param aliasKey the normalized alias
+     */
+    public void registerAlias(UUID vendorId, String aliasKey) {
+        synchronized (writeLock) {
+            Index current = index;
+            Entry entry = current.byId.get(vendorId);
+            if (entry != null) {
+                current.addAlias(entry, aliasKey);
+            }
+        }
+    }
+
+    /**
+     * Counts one more expense of a user against a vendor and moves the vendor up the suggestion
+     * lists it now ranks in.
+     *
+     * @param vendorId the vendor ID
+     * @param userId the user who created the expense
+     */
+    public void recordUsage(UUID vendorId, UUID userId) {
+        synchronized (writeLock) {
+            Index current = index;
+            Entry entry = current.byId.get(vendorId);
+            if (entry == null) {
+                // Created on another instance; the next refresh brings it in with its usage
+                return;
+            }
+            entry.count++;
+            current.reoffer(entry);
+            current.user(userId).add(entry, 1);
+        }
+    }
+
+    /**
+     * Rebuilds the directory from the database. The new directory is built off to the side and
+     * swapped in at once; usage recorded while it was being built may be missed until the next
+     * refresh.
+     */
+    @Scheduled(fixedDelayString = "${vendor-directory.refresh-interval-ms:600000}")
+    public void refresh() {
+        try {
+            Index rebuilt =
+                    Index.build(
+                            vendorRepository.findAll(),
+                            vendorAliasRepository.findAllRows(),
+                            expenseRepository.findVendorUsage());
+            synchronized (writeLock) {
+                index = rebuilt;
+            }
+            log.debug("Loaded {} vendors", rebuilt.byId.size());
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh vendor directory, keeping previous index", e);
+        }
+    }
+
+    /** A canonical vendor as held by the directory. */
+    public static final class Entry {
+
+        private final UUID id;
+        private final String name;
+
+        // Written under the directory's write lock only
+        private volatile long count;
+        private volatile List<String> prefixKeys = List.of();
+
+        Entry(UUID id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public UUID id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        long count() {
+            return count;
+        }
+
+        boolean matches(String prefix) {
+            for (String key : prefixKeys) {
+                if (key.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Adds a trie key; returns false if the vendor was already indexed under it. */
+        boolean addPrefixKey(String key) {
+            if (key.isEmpty() || prefixKeys.contains(key)) {
+                return false;
+            }
+            List<String> keys = new ArrayList<>(prefixKeys);
+            keys.add(key);
+            prefixKeys = List.copyOf(keys);
+            return true;
+        }
+    }
+
+    /** One directory generation. Mutated under the write lock, or before it is published. */
+    private static final class Index {
+
+        final Map<String, Entry> byKey = new ConcurrentHashMap<>();
+        final Map<UUID, Entry> byId = new ConcurrentHashMap<>();
+        final Map<UUID, UserVendors> byUser = new ConcurrentHashMap<>();
+        final Node root = new Node();
+
+        static Index build(
+                List<Vendor> vendors, List<VendorAliasRow> aliases, List<VendorUsageRow> usage) {
+            Index index = new Index();
+            for (Vendor vendor : vendors) {
+                index.byId.put(vendor.getId(), new Entry(vendor.getId(), vendor.getName()));
+            }
+
+            // Counts are complete before anything is indexed, so each node is ranked only once
+            for (VendorUsageRow row : usage) {
+                Entry entry = index.byId.get(row.vendorId());
+                if (entry != null) {
+                    entry.count += row.count();
+                    index.user(row.userId()).counts.merge(entry, row.count(), Long::sum);
+                }
+            }
+            for (Vendor vendor : vendors) {
+                index.addVendorKeys(index.byId.get(vendor.getId()), vendor.getNormalizedName());
+            }
+            for (VendorAliasRow alias : aliases) {
+                Entry entry = index.byId.get(alias.vendorId());
+                if (entry != null) {
+                    index.addAlias(entry, alias.aliasKey());
+                }
+            }
+            index.byUser.values().forEach(UserVendors::rank);
+            return index;
+        }
+
+        void addVendorKeys(Entry entry, String normalizedName) {
+            byKey.put(normalizedName, entry);
+            indexPrefixes(entry, normalizedName);
+            indexPrefixes(entry, VendorNames.fold(entry.name()));
+        }
+
+        void addAlias(Entry entry, String aliasKey) {
+            byKey.put(aliasKey, entry);
+            indexPrefixes(entry, aliasKey);
+        }
+
+        UserVendors user(UUID userId) {
+            return byUser.computeIfAbsent(userId, id -> new UserVendors());
+        }
+
+        Node find(String prefix) {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node;
+        }
+
+        /** Re-ranks a vendor whose count grew in every node on its key paths. */
+        void reoffer(Entry entry) {
+            root.offer(entry);
+            for (String key : entry.prefixKeys) {
+                Node node = root;
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.children.get(key.charAt(i));
+                    node.offer(entry);
+                }
+            }
+        }
+
+        private void indexPrefixes(Entry entry, String key) {
+            if (!entry.addPrefixKey(key)) {
+                return;
+            }
+            Node node = root;
+            node.offer(entry);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                node.offer(entry);
+            }
+        }
+    }
+
+    /** Trie node holding the most-used vendors of its subtree. */
+    private static final class Node {
+
+        final Map<Character, Node> children = new ConcurrentHashMap<>();
+        volatile Entry[] top = new Entry[0];
+
+        /**
+         * Inserts or re-ranks a vendor. Counts only grow between rebuilds, so a vendor that does
+         * not beat the current last place can be ignored.
+         */
+        void offer(Entry entry) {
+            Entry[] current = top;
+            boolean present = false;
+            for (Entry candidate : current) {
+                present |= candidate == entry;
+            }
+            if (!present
+                    && current.length == TOP_K
+                    && BY_USAGE.compare(entry, current[TOP_K - 1]) >= 0) {
+                return;
+            }
+            List<Entry> ranked = new ArrayList<>(List.of(current));
+            if (!present) {
+                ranked.add(entry);
+            }
+            ranked.sort(BY_USAGE);
+            top = ranked.subList(0, Math.min(ranked.size(), TOP_K)).toArray(Entry[]::new);
+        }
+    }
+
+    /** A user's vendor counts and their most-used vendors. */
+    private static final class UserVendors {
+
+        // Written under the directory's write lock only
+        final Map<Entry, Long> counts = new HashMap<>();
+        volatile List<Entry> top = List.of();
+
+        void add(Entry entry, long count) {
+            counts.merge(entry, count, Long::sum);
+            rank();
+        }
+
+        void rank() {
+            top =
+                    counts.entrySet().stream()
+                            .sorted(
+                                    Map.Entry.<Entry, Long>comparingByValue()
+                                            .reversed()
+                                            .thenComparing(e -> e.getKey().name()))
+                            .limit(USER_TOP_K)
+                            .map(Map.Entry::getKey)
+                            .toList();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.expense.segmentation.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Folds free-text vendor names into lookup keys. Card statement descriptors and legal suffixes are
+ * dropped, so "UBER *TRIP", "Uber" and "uber technologies" all normalize to "uber".
+ */
+final class VendorNames {
+
+    /** Trailing words that name a legal form rather than the vendor itself. */
+    private static final Set<String> SUFFIXES =
+            Set.of(
+                    "inc",
+                    "llc",
+                    "ltd",
+                    "limited",
+                    "co",
+                    "corp",
+                    "corporation",
+                    "company",
+                    "gmbh",
+                    "plc",
+                    "technologies");
+
+    private VendorNames() {}
+
+    /**
+     * Lower-cases a name, cuts it at the first {@code *} (card descriptors append a reference
+     * there) and reduces everything but letters and digits to single spaces. Used for matching
+     * typed prefixes, where dropping a half-typed word would be surprising.
+     *
+     * @param name the raw name or prefix, may be null
+     * @return the folded text, empty if nothing is left
+     */
+    static String fold(String name) {
+        if (name == null) {
+            return "";
+        }
+        int descriptor = name.indexOf('*');
+        String text = descriptor >= 0 ? name.substring(0, descriptor) : name;
+        StringBuilder folded = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !folded.isEmpty()) {
+                    folded.append(' ');
+                }
+                pendingSpace = false;
+                folded.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Folds a name and drops trailing legal suffixes, giving the key a vendor is resolved by. A
+     * name that consists only of suffix words keeps them.
+     *
+     * @param name the raw name, may be null
+     * @return the normalized key, empty if the name has no letters or digits
+     */
+    static String normalize(String name) {
+        String folded = fold(name);
+        if (folded.isEmpty()) {
+            return folded;
+        }
+        List<String> words = new ArrayList<>(Arrays.asList(folded.split(" ")));
+        while (words.size() > 1 && SUFFIXES.contains(words.get(words.size() - 1))) {
+            words.remove(words.size() - 1);
+        }
+        return String.join(" ", words);
+    }
+}
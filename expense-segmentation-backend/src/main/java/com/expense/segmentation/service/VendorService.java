@@ -0,0 +1,152 @@
+package com.expense.segmentation.service;
+
+import com.expense.segmentation.dto.CreateVendorAliasRequest;
+import com.expense.segmentation.dto.VendorResponse;
+import com.expense.segmentation.exception.DuplicateResourceException;
+import com.expense.segmentation.exception.InvalidOperationException;
+import com.expense.segmentation.exception.ResourceNotFoundException;
+import com.expense.segmentation.model.Vendor;
+import com.expense.segmentation.model.VendorAlias;
+import com.expense.segmentation.repository.VendorAliasRepository;
+import com.expense.segmentation.repository.VendorRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maps free-text vendor names onto canonical vendors. Lookups go to the in-memory {@link
+ * VendorDirectory}; the database is only read when a name is new to this instance.
+ */
+@Slf4j
+@Service
+public class VendorService {
+
+    private final VendorRepository vendorRepository;
+    private final VendorAliasRepository vendorAliasRepository;
+    private final VendorDirectory vendorDirectory;
+    private final CurrentUserProvider currentUserProvider;
+    private final TransactionTemplate newTransaction;
+
+    public VendorService(
+            VendorRepository vendorRepository,
+            VendorAliasRepository vendorAliasRepository,
+            VendorDirectory vendorDirectory,
+            CurrentUserProvider currentUserProvider,
+            PlatformTransactionManager transactionManager) {
+        this.vendorRepository = vendorRepository;
+        this.vendorAliasRepository = vendorAliasRepository;
+        this.vendorDirectory = vendorDirectory;
+        this.currentUserProvider = currentUserProvider;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Suggests vendors for a typed prefix, the current user's most-used vendors first. Served
+     * entirely from memory.
+     *
+     * @param prefix the text typed so far
+     * @param limit maximum number of suggestions
+     * @return the suggestions, best first
+     */
+    public List<VendorResponse> autocomplete(String prefix, int limit) {
+        if (limit < 1 || limit > VendorDirectory.TOP_K) {
+            throw new InvalidOperationException(
+                    "Limit must be between 1 and " + VendorDirectory.TOP_K);
+        }
+        UUID userId = currentUserProvider.get().id();
+        return vendorDirectory.suggest(prefix, userId, limit).stream()
+                .map(entry -> new VendorResponse(entry.id(), entry.name()))
+                .toList();
+    }
+
+    /**
+     * Resolves the canonical vendor of a raw name, creating a vendor named after it if the name is
+     * new. A new vendor is committed in its own transaction, so concurrent expenses with the same
+     * new name converge on one vendor and the caller's transaction is not affected by the race.
+     *
+     * @param rawName the vendor name as entered
+     * @return a reference to the canonical vendor, or null if the name has no letters or digits
+     */
+    public Vendor resolve(String rawName) {
+        String key = VendorNames.normalize(rawName);
+        if (key.isEmpty()) {
+            return null;
+        }
+        Optional<UUID> vendorId = vendorDirectory.resolve(key).map(VendorDirectory.Entry::id);
+        if (vendorId.isEmpty()) {
+            vendorId = Optional.of(findOrCreate(rawName.strip(), key));
+        }
+        return vendorRepository.getReferenceById(vendorId.get());
+    }
+
+    /**
+     * Maps another spelling onto a vendor, so expenses entered with it resolve to that vendor.
+     *
+     * @param vendorId the canonical vendor ID
+     * @param request the alias to add
+     * @return the vendor
+     * @throws DuplicateResourceException if the spelling already belongs to another vendor
+     */
+    @Transactional
+    public VendorResponse addAlias(UUID vendorId, CreateVendorAliasRequest request) {
+        log.debug("Adding alias '{}' to vendor: {}", request.getName(), vendorId);
+        String key = VendorNames.normalize(request.getName());
+        if (key.isEmpty()) {
+            throw new InvalidOperationException("Alias must contain letters or digits");
+        }
+        Vendor vendor =
+                vendorRepository
+                        .findById(vendorId)
+                        .orElseThrow(
+                                () -> new ResourceNotFoundException("Vendor", vendorId.toString()));
+
+        Optional<UUID> existing = findVendorId(key);
+        if (existing.isPresent()) {
+            if (!existing.get().equals(vendorId)) {
+                throw new DuplicateResourceException("Vendor alias", "name", key);
+            }
+            return new VendorResponse(vendor.getId(), vendor.getName());
+        }
+
+        vendorAliasRepository.save(new VendorAlias(key, vendor, null));
+        AfterCommit.run(() -> vendorDirectory.registerAlias(vendorId, key));
+        log.info("Added alias '{}' to vendor: {}", key, vendorId);
+        return new VendorResponse(vendor.getId(), vendor.getName());
+    }
+
+    private UUID findOrCreate(String name, String key) {
+        Optional<UUID> existing = findVendorId(key);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            Vendor vendor =
+                    newTransaction.execute(
+                            status ->
+                                    vendorRepository.saveAndFlush(
+                                            new Vendor(null, name, key, null)));
+            vendorDirectory.register(vendor);
+            log.info("Created vendor '{}' with ID: {}", name, vendor.getId());
+            return vendor.getId();
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another request
+            return findVendorId(key).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<UUID> findVendorId(String key) {
+        Optional<UUID> aliased = vendorAliasRepository.findVendorIdByAliasKey(key);
+        if (aliased.isPresent()) {
+            return aliased;
+        }
+        return vendorRepository.findByNormalizedName(key).map(Vendor::getId);
+    }
+}
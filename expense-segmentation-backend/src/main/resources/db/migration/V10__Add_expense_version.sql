@@ -0,0 +1,3 @@
+-- Optimistic-locking version counter. Together with updated_at it identifies a revision of an
+-- expense, which the API exposes as a strong ETag for conditional GETs.
+ALTER TABLE expenses ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
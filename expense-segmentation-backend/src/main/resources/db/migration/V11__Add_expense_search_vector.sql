@@ -0,0 +1,10 @@
+-- Full-text search over vendor and description. The vector is a stored generated column, so it is
+-- kept current by PostgreSQL on every insert and update and never computed at query time. Vendor
+-- matches are weighted above description matches when results are ranked.
+ALTER TABLE expenses ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(vendor, '')), 'A')
+            || setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX idx_expenses_search_vector ON expenses USING GIN (search_vector);
@@ -0,0 +1,25 @@
+-- Canonical vendors. normalized_name is the folded lookup key of the canonical name, so raw
+-- spellings such as "UBER *TRIP" and "Uber Technologies" resolve to the same row.
+CREATE TABLE vendors (
+    id UUID PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    normalized_name VARCHAR(255) NOT NULL UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Additional raw spellings mapped onto a canonical vendor, keyed by their normalized form
+CREATE TABLE vendor_aliases (
+    alias_key VARCHAR(255) PRIMARY KEY,
+    vendor_id UUID NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_vendor_aliases_vendor FOREIGN KEY (vendor_id) REFERENCES vendors(id)
+);
+
+CREATE INDEX idx_vendor_aliases_vendor_id ON vendor_aliases(vendor_id);
+
+-- The free-text vendor column is kept as entered; vendor_id links it to the directory. Expenses
+-- created before the directory existed stay unlinked.
+ALTER TABLE expenses ADD COLUMN vendor_id UUID;
+ALTER TABLE expenses
+    ADD CONSTRAINT fk_expenses_vendor FOREIGN KEY (vendor_id) REFERENCES vendors(id);
+CREATE INDEX idx_expenses_vendor_id ON expenses(vendor_id);
@@ -0,0 +1,30 @@
+-- Admin-defined rules that split new expenses into segments. A rule applies when its vendor
+-- pattern occurs in the expense vendor and its description pattern occurs in the description;
+-- a missing pattern matches anything, but every rule has at least one.
+CREATE TABLE segmentation_rules (
+    id UUID PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    vendor_pattern VARCHAR(255),
+    description_pattern VARCHAR(255),
+    priority INTEGER NOT NULL DEFAULT 0,
+    active BOOLEAN NOT NULL DEFAULT true,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_segmentation_rules_pattern
+        CHECK (vendor_pattern IS NOT NULL OR description_pattern IS NOT NULL)
+);
+
+CREATE INDEX idx_segmentation_rules_active ON segmentation_rules(active);
+
+-- The split a rule applies, in order; percentages of one rule add up to 100
+CREATE TABLE segmentation_rule_allocations (
+    rule_id UUID NOT NULL,
+    sort_order INTEGER NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    percentage DECIMAL(5,2) NOT NULL,
+    PRIMARY KEY (rule_id, sort_order),
+    CONSTRAINT fk_segmentation_rule_allocations_rule
+        FOREIGN KEY (rule_id) REFERENCES segmentation_rules(id) ON DELETE CASCADE,
+    CONSTRAINT chk_segmentation_rule_allocations_percentage
+        CHECK (percentage > 0 AND percentage <= 100)
+);
@@ -0,0 +1,34 @@
+-- Segment categories reference the categories table instead of being free text. Segment category
+-- names may be up to 100 characters, so category names are widened to match.
+ALTER TABLE categories ALTER COLUMN name TYPE VARCHAR(100);
+
+-- Every name already used by a segment becomes a category, matched case-insensitively. Names
+-- nobody created through the categories API are added inactive, so they stay valid references
+-- without appearing in the category picker.
+INSERT INTO categories (name, description, active)
+SELECT DISTINCT ON (lower(trim(es.category))) trim(es.category), NULL, false
+FROM expense_segments es
+WHERE NOT EXISTS (
+    SELECT 1 FROM categories c WHERE lower(c.name) = lower(trim(es.category))
+)
+ORDER BY lower(trim(es.category)), trim(es.category);
+
+ALTER TABLE expense_segments ADD COLUMN category_id UUID;
+
+-- Where two categories differ only in case, the older one wins
+UPDATE expense_segments es
+SET category_id = (
+    SELECT c.id FROM categories c
+    WHERE lower(c.name) = lower(trim(es.category))
+    ORDER BY c.created_at, c.name
+    LIMIT 1
+);
+
+ALTER TABLE expense_segments ALTER COLUMN category_id SET NOT NULL;
+ALTER TABLE expense_segments
+    ADD CONSTRAINT fk_expense_segments_category FOREIGN KEY (category_id) REFERENCES categories(id);
+
+-- Lookups and grouping by category use the key; the name stays as the display label of the
+-- category at the time the segment was written
+DROP INDEX idx_expense_segments_category;
+CREATE INDEX idx_expense_segments_category_id ON expense_segments(category_id);
@@ -0,0 +1,3 @@
+-- Token epochs survive restarts and are shared between instances. Access tokens carry the epoch
+-- current when they were issued; raising it revokes every token issued before.
+ALTER TABLE users ADD COLUMN token_epoch BIGINT NOT NULL DEFAULT 0;
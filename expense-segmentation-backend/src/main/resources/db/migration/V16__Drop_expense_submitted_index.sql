@@ -0,0 +1,7 @@
+-- The partial review-queue index duplicated idx_expenses_status_date: with status as its leading
+-- column, that index already serves status = 'SUBMITTED' in list order.
+DROP INDEX IF EXISTS idx_expenses_submitted_date;
+
+-- V8's comment says keyset pagination seeks into idx_expenses_date_created_at_id with a row-value
+-- comparison. The seek is now spelled out as "date <= ? AND (date < ? OR (date = ? AND ...))",
+-- which reads the same index range; V8 is left unchanged to keep its checksum.
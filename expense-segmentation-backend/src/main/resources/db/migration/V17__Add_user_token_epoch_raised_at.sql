@@ -0,0 +1,5 @@
+-- When each user's token epoch was last raised. Only raises within the access token lifetime can
+-- still reject a live token, so instances reload just those instead of every epoch ever raised.
+ALTER TABLE users ADD COLUMN token_epoch_raised_at TIMESTAMP;
+
+CREATE INDEX idx_users_token_epoch_raised_at ON users(token_epoch_raised_at);
@@ -0,0 +1,29 @@
+-- Rule allocations reference the categories table instead of naming a category, so renaming a
+-- category does not detach the rules that split expenses into it. The name stays as the display
+-- label of the category at the time the rule was written.
+
+-- Rules were validated against existing categories when written; a name that no longer resolves
+-- becomes an inactive category, so the reference stays valid but the rule no longer applies
+INSERT INTO categories (name, description, active)
+SELECT DISTINCT ON (lower(trim(a.category))) trim(a.category), NULL, false
+FROM segmentation_rule_allocations a
+WHERE NOT EXISTS (
+    SELECT 1 FROM categories c WHERE lower(c.name) = lower(trim(a.category))
+)
+ORDER BY lower(trim(a.category)), trim(a.category);
+
+ALTER TABLE segmentation_rule_allocations ADD COLUMN category_id UUID;
+
+-- Where two categories differ only in case, an active one wins, as when the rule was written
+UPDATE segmentation_rule_allocations a
+SET category_id = (
+    SELECT c.id FROM categories c
+    WHERE lower(c.name) = lower(trim(a.category))
+    ORDER BY c.active DESC, c.created_at, c.name
+    LIMIT 1
+);
+
+ALTER TABLE segmentation_rule_allocations ALTER COLUMN category_id SET NOT NULL;
+ALTER TABLE segmentation_rule_allocations
+    ADD CONSTRAINT fk_segmentation_rule_allocations_category
+        FOREIGN KEY (category_id) REFERENCES categories(id);
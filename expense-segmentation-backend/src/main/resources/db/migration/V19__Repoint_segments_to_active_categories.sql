@@ -0,0 +1,20 @@
+-- V14 resolved segment names that match several categories case-insensitively to the oldest one,
+-- while segment writes prefer an active category over an inactive one. Segments V14 pointed at an
+-- inactive category are re-pointed to an active category of the same name where there is one, so
+-- existing and new segments group under the same category. V14 is left unchanged to keep its
+-- checksum.
+UPDATE expense_segments es
+SET category_id = (
+    SELECT c.id FROM categories c
+    WHERE lower(c.name) = lower(trim(es.category)) AND c.active
+    ORDER BY c.created_at, c.name
+    LIMIT 1
+)
+WHERE EXISTS (
+    SELECT 1 FROM categories referenced
+    WHERE referenced.id = es.category_id AND NOT referenced.active
+)
+AND EXISTS (
+    SELECT 1 FROM categories c
+    WHERE lower(c.name) = lower(trim(es.category)) AND c.active
+);
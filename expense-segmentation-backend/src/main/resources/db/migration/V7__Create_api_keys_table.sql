@@ -0,0 +1,16 @@
+-- Create api_keys table for machine-to-machine access (only SHA-256 hashes of secrets are stored)
+CREATE TABLE api_keys (
+    id UUID PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    prefix VARCHAR(12) NOT NULL UNIQUE,
+    secret_hash VARCHAR(64) NOT NULL,
+    user_id UUID NOT NULL,
+    role VARCHAR(50) NOT NULL,
+    expires_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP,
+    CONSTRAINT fk_api_keys_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Create indexes for performance
+CREATE INDEX idx_api_keys_user_id ON api_keys(user_id);
@@ -0,0 +1,3 @@
+-- Composite index matching the expense list sort order (date DESC, created_at DESC, id DESC).
+-- Keyset pagination seeks into it with a row-value comparison instead of skipping an OFFSET.
+CREATE INDEX idx_expenses_date_created_at_id ON expenses(date DESC, created_at DESC, id DESC);
@@ -0,0 +1,17 @@
+-- Composite indexes for the common expense list filters. Each one ends in the list sort order
+-- (date DESC, created_at DESC, id DESC) so filtered pages are read in index order without a sort.
+
+-- Employees always filter by their own ID
+CREATE INDEX idx_expenses_created_by_date ON expenses(created_by, date DESC, created_at DESC, id DESC);
+
+-- Finance and admins filter by status
+CREATE INDEX idx_expenses_status_date ON expenses(status, date DESC, created_at DESC, id DESC);
+
+-- The review queue (status = SUBMITTED) is the hottest status filter and a small slice of the table
+CREATE INDEX idx_expenses_submitted_date ON expenses(date DESC, created_at DESC, id DESC)
+    WHERE status = 'SUBMITTED';
+
+-- Superseded by the composites above, which share their leading column
+DROP INDEX IF EXISTS idx_expenses_created_by;
+DROP INDEX IF EXISTS idx_expenses_status;
+DROP INDEX IF EXISTS idx_expenses_date;
@@ -0,0 +1,97 @@
+package com.expense.segmentation.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.service.ApiKeyRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+@ExtendWith(MockitoExtension.class)
+class ApiKeyAuthenticationFilterTest {
+
+    @Mock private ApiKeyRegistry apiKeyRegistry;
+
+    @Mock private HttpServletRequest request;
+
+    @Mock private HttpServletResponse response;
+
+    @Mock private FilterChain filterChain;
+
+    @InjectMocks private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
+    private AuthenticatedUser principal;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+        principal =
+                new AuthenticatedUser(UUID.randomUUID(), "erp@example.com", RoleType.FINANCE, null);
+    }
+
+    @Test
+    void doFilterInternal_WithValidApiKey_ShouldAuthenticateAsKeyOwner()
+            throws ServletException, IOException {
+        // Given
+        when(request.getHeader("X-API-Key")).thenReturn("esk_valid");
+        when(apiKeyRegistry.authenticate("esk_valid")).thenReturn(Optional.of(principal));
+
+        // When
+        apiKeyAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isInstanceOf(UsernamePasswordAuthenticationToken.class);
+        assertThat(authentication.getPrincipal()).isEqualTo(principal);
+        assertThat(authentication.getAuthorities())
+                .extracting("authority")
+                .containsExactly("ROLE_FINANCE");
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithUnknownApiKey_ShouldLeaveRequestUnauthenticated()
+            throws ServletException, IOException {
+        // Given
+        when(request.getHeader("X-API-Key")).thenReturn("esk_unknown");
+        when(apiKeyRegistry.authenticate("esk_unknown")).thenReturn(Optional.empty());
+
+        // When
+        apiKeyAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithoutApiKeyHeader_ShouldSkipLookup()
+            throws ServletException, IOException {
+        // Given
+        when(request.getHeader("X-API-Key")).thenReturn(null);
+
+        // When
+        apiKeyAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(apiKeyRegistry, never()).authenticate(anyString());
+        verify(filterChain).doFilter(request, response);
+    }
+}
@@ -5,10 +5,14 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.expense.segmentation.dto.ErrorResponse;
+import com.expense.segmentation.exception.InvalidTokenException;
+import com.expense.segmentation.exception.TooManyRequestsException;
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -64,6 +68,22 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getPath()).isEqualTo("/test/path");
     }
 
+    @Test
+    void handleInvalidTokenException_ShouldReturnUnauthorized() {
+        // Given
+        InvalidTokenException exception = new InvalidTokenException("Refresh token has expired");
+
+        // When
+        ResponseEntity<ErrorResponse> response =
+                exceptionHandler.handleInvalidTokenException(exception, request);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getError()).isEqualTo("Invalid Token");
+        assertThat(response.getBody().getMessage()).isEqualTo("Refresh token has expired");
+    }
+
     @Test
     void handleAccessDeniedException_ShouldReturnForbidden() {
         // Given
@@ -84,6 +104,38 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getTimestamp()).isNotNull();
     }
 
+    @Test
+    void handleTooManyRequestsException_ShouldReturnTooManyRequestsWithRetryAfter() {
+        // Given
+        TooManyRequestsException exception =
+                new TooManyRequestsException("Slow down", Duration.ofSeconds(3));
+
+        // When
+        ResponseEntity<ErrorResponse> response =
+                exceptionHandler.handleTooManyRequestsException(exception, request);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(429);
+        assertThat(response.getBody().getMessage()).isEqualTo("Slow down");
+    }
+
+    @Test
+    void handleTooManyRequestsException_WithSubSecondRetry_ShouldAdvertiseOneSecond() {
+        // Given
+        TooManyRequestsException exception =
+                new TooManyRequestsException("Slow down", Duration.ofMillis(200));
+
+        // When
+        ResponseEntity<ErrorResponse> response =
+                exceptionHandler.handleTooManyRequestsException(exception, request);
+
+        // Then
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
     @Test
     void handleRuntimeException_ShouldReturnBadRequest() {
         // Given
@@ -2,33 +2,41 @@ package com.expense.segmentation.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import com.expense.segmentation.model.RoleType;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 
 @ExtendWith(MockitoExtension.class)
 class JwtAuthenticationFilterTest {
 
     @Mock private JwtTokenUtil jwtTokenUtil;
 
-    @Mock private UserDetailsService userDetailsService;
+    @Mock private TokenEpochRegistry tokenEpochRegistry;
+
+    @Mock private RevokedSessionRegistry revokedSessionRegistry;
 
     @Mock private HttpServletRequest request;
 
@@ -39,6 +47,7 @@ class JwtAuthenticationFilterTest {
     @InjectMocks private JwtAuthenticationFilter jwtAuthenticationFilter;
 
     private UserDetails userDetails;
+    private JwtPrincipal principal;
 
     @BeforeEach
     void setUp() {
@@ -51,6 +60,17 @@ class JwtAuthenticationFilterTest {
                         .authorities(
                                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
                         .build();
+
+        principal =
+                new JwtPrincipal(
+                        "test@example.com",
+                        UUID.randomUUID(),
+                        RoleType.EMPLOYEE,
+                        null,
+                        0L,
+                        UUID.randomUUID(),
+                        Instant.now(),
+                        Instant.now().plusSeconds(3600));
     }
 
     @Test
@@ -77,6 +97,18 @@ class JwtAuthenticationFilterTest {
         assertThat(result).isTrue();
     }
 
+    @Test
+    void shouldNotFilter_WithRefreshPath_ShouldReturnTrue() throws ServletException {
+        // Given
+        when(request.getServletPath()).thenReturn("/auth/refresh");
+
+        // When
+        boolean result = jwtAuthenticationFilter.shouldNotFilter(request);
+
+        // Then
+        assertThat(result).isTrue();
+    }
+
     @Test
     void shouldNotFilter_WithHealthPath_ShouldReturnTrue() throws ServletException {
         // Given
@@ -107,29 +139,32 @@ class JwtAuthenticationFilterTest {
         // Given
         String token = "valid-jwt-token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtTokenUtil.extractUsername(token)).thenReturn("test@example.com");
-        when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(userDetails);
-        when(jwtTokenUtil.validateToken(token, userDetails)).thenReturn(true);
+        when(jwtTokenUtil.verify(token)).thenReturn(Optional.of(principal));
+        when(tokenEpochRegistry.isCurrent(principal.userId(), 0L)).thenReturn(true);
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
-        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
-        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
-                .isEqualTo(userDetails);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getPrincipal()).isEqualTo(principal);
+        assertThat(authentication.getName()).isEqualTo("test@example.com");
+        assertThat(authentication.getAuthorities())
+                .extracting("authority")
+                .containsExactly("ROLE_EMPLOYEE");
+        verify(jwtTokenUtil, times(1)).verify(token);
         verify(filterChain).doFilter(request, response);
     }
 
     @Test
-    void doFilterInternal_WithInvalidToken_ShouldNotSetAuthentication()
+    void doFilterInternal_WithRevokedTokenEpoch_ShouldNotSetAuthentication()
             throws ServletException, IOException {
         // Given
-        String token = "invalid-jwt-token";
+        String token = "revoked-jwt-token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtTokenUtil.extractUsername(token)).thenReturn("test@example.com");
-        when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(userDetails);
-        when(jwtTokenUtil.validateToken(token, userDetails)).thenReturn(false);
+        when(jwtTokenUtil.verify(token)).thenReturn(Optional.of(principal));
+        when(tokenEpochRegistry.isCurrent(principal.userId(), 0L)).thenReturn(false);
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -140,49 +175,69 @@ class JwtAuthenticationFilterTest {
     }
 
     @Test
-    void doFilterInternal_WithMissingAuthorizationHeader_ShouldNotSetAuthentication()
+    void doFilterInternal_WithEndedSession_ShouldNotSetAuthentication()
             throws ServletException, IOException {
         // Given
-        when(request.getHeader("Authorization")).thenReturn(null);
+        String token = "logged-out-jwt-token";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtTokenUtil.verify(token)).thenReturn(Optional.of(principal));
+        when(tokenEpochRegistry.isCurrent(principal.userId(), 0L)).thenReturn(true);
+        when(revokedSessionRegistry.isRevoked(principal.sessionId())).thenReturn(true);
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
-        verify(userDetailsService, never()).loadUserByUsername(anyString());
         verify(filterChain).doFilter(request, response);
     }
 
     @Test
-    void doFilterInternal_WithInvalidAuthorizationHeaderFormat_ShouldNotSetAuthentication()
+    void doFilterInternal_WithInvalidToken_ShouldNotSetAuthentication()
             throws ServletException, IOException {
         // Given
-        when(request.getHeader("Authorization")).thenReturn("InvalidFormat token");
+        String token = "invalid-jwt-token";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtTokenUtil.verify(token)).thenReturn(Optional.empty());
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
-        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(tokenEpochRegistry, never()).isCurrent(any(), anyLong());
         verify(filterChain).doFilter(request, response);
     }
 
     @Test
-    void doFilterInternal_WithTokenExtractionException_ShouldNotSetAuthentication()
+    void doFilterInternal_WithMissingAuthorizationHeader_ShouldNotSetAuthentication()
             throws ServletException, IOException {
         // Given
-        String token = "malformed-token";
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtTokenUtil.extractUsername(token)).thenThrow(new RuntimeException("Invalid token"));
+        when(request.getHeader("Authorization")).thenReturn(null);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(jwtTokenUtil, never()).verify(anyString());
+        verify(tokenEpochRegistry, never()).isCurrent(any(), anyLong());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithInvalidAuthorizationHeaderFormat_ShouldNotSetAuthentication()
+            throws ServletException, IOException {
+        // Given
+        when(request.getHeader("Authorization")).thenReturn("InvalidFormat token");
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
-        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(jwtTokenUtil, never()).verify(anyString());
+        verify(tokenEpochRegistry, never()).isCurrent(any(), anyLong());
         verify(filterChain).doFilter(request, response);
     }
 
@@ -192,22 +247,19 @@ class JwtAuthenticationFilterTest {
         // Given
         String token = "valid-jwt-token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtTokenUtil.extractUsername(token)).thenReturn("test@example.com");
 
         // Set existing authentication
-        org.springframework.security.authentication.UsernamePasswordAuthenticationToken
-                existingAuth =
-                        new org.springframework.security.authentication
-                                .UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
+        UsernamePasswordAuthenticationToken existingAuth =
+                new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(existingAuth);
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
-        verify(userDetailsService, never()).loadUserByUsername(anyString());
-        verify(jwtTokenUtil, never()).validateToken(anyString(), any());
+        verify(jwtTokenUtil, never()).verify(anyString());
+        verify(tokenEpochRegistry, never()).isCurrent(any(), anyLong());
         verify(filterChain).doFilter(request, response);
     }
 }
@@ -1,22 +1,28 @@
 package com.expense.segmentation.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-import io.jsonwebtoken.Claims;
-import java.util.Collections;
+import com.expense.segmentation.model.Department;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.time.Instant;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import javax.crypto.SecretKey;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
 
 class JwtTokenUtilTest {
 
+    private static final UUID SESSION_ID = UUID.randomUUID();
+
     private JwtTokenUtil jwtTokenUtil;
-    private UserDetails userDetails;
+    private User user;
     private String testSecret;
     private Long testExpiration;
 
@@ -28,20 +34,22 @@ class JwtTokenUtilTest {
 
         ReflectionTestUtils.setField(jwtTokenUtil, "secret", testSecret);
         ReflectionTestUtils.setField(jwtTokenUtil, "expiration", testExpiration);
+        jwtTokenUtil.init();
+
+        Role role = new Role();
+        role.setName(RoleType.EMPLOYEE);
 
-        userDetails =
-                User.builder()
-                        .username("test@example.com")
-                        .password("password")
-                        .authorities(
-                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
-                        .build();
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("test@example.com");
+        user.setName("Test User");
+        user.setRole(role);
     }
 
     @Test
     void generateToken_ShouldReturnValidToken() {
         // When
-        String token = jwtTokenUtil.generateToken(userDetails);
+        String token = jwtTokenUtil.generateToken(user, 0L, SESSION_ID);
 
         // Then
         assertThat(token).isNotNull();
@@ -50,160 +58,147 @@ class JwtTokenUtilTest {
     }
 
     @Test
-    void extractUsername_FromValidToken_ShouldReturnUsername() {
+    void generateToken_MultipleTokensForSameUser_ShouldHaveDifferentIssuedAt()
+            throws InterruptedException {
         // Given
-        String token = jwtTokenUtil.generateToken(userDetails);
+        String token1 = jwtTokenUtil.generateToken(user, 0L, SESSION_ID);
+        Thread.sleep(1100); // Ensure at least 1 second difference
+        String token2 = jwtTokenUtil.generateToken(user, 0L, SESSION_ID);
 
         // When
-        String username = jwtTokenUtil.extractUsername(token);
+        Instant issuedAt1 = jwtTokenUtil.verify(token1).orElseThrow().issuedAt();
+        Instant issuedAt2 = jwtTokenUtil.verify(token2).orElseThrow().issuedAt();
 
         // Then
-        assertThat(username).isEqualTo("test@example.com");
+        assertThat(token1).isNotEqualTo(token2);
+        assertThat(issuedAt2).isAfterOrEqualTo(issuedAt1);
     }
 
     @Test
-    void extractExpiration_FromValidToken_ShouldReturnFutureDate() {
+    void generateToken_ShouldExpireAfterConfiguredLifetime() {
         // Given
-        String token = jwtTokenUtil.generateToken(userDetails);
+        long beforeGeneration = System.currentTimeMillis();
+        String token = jwtTokenUtil.generateToken(user, 0L, SESSION_ID);
+        long afterGeneration = System.currentTimeMillis();
 
         // When
-        Date expiration = jwtTokenUtil.extractExpiration(token);
+        Instant expiration = jwtTokenUtil.verify(token).orElseThrow().expiresAt();
 
         // Then
-        assertThat(expiration).isNotNull();
-        assertThat(expiration).isAfter(new Date());
+        long expectedMinExpiration = beforeGeneration + testExpiration - 1000; // 1 second tolerance
+        long expectedMaxExpiration = afterGeneration + testExpiration + 1000; // 1 second tolerance
+        long actualExpiration = expiration.toEpochMilli();
+
+        assertThat(actualExpiration).isBetween(expectedMinExpiration, expectedMaxExpiration);
     }
 
     @Test
-    void validateToken_WithValidToken_ShouldReturnTrue() {
+    void verify_WithValidToken_ShouldReturnPrincipal() {
         // Given
-        String token = jwtTokenUtil.generateToken(userDetails);
+        String token = jwtTokenUtil.generateToken(user, 0L, SESSION_ID);
 
         // When
-        Boolean isValid = jwtTokenUtil.validateToken(token, userDetails);
+        Optional<JwtPrincipal> principal = jwtTokenUtil.verify(token);
 
         // Then
-        assertThat(isValid).isTrue();
+        assertThat(principal).isPresent();
+        assertThat(principal.get().username()).isEqualTo("test@example.com");
+        assertThat(principal.get().expiresAt()).isAfter(Instant.now());
+        assertThat(principal.get().issuedAt()).isBeforeOrEqualTo(Instant.now());
     }
 
     @Test
-    void validateToken_WithWrongUsername_ShouldReturnFalse() {
+    void verify_ShouldExposeIdentityClaims() {
         // Given
-        String token = jwtTokenUtil.generateToken(userDetails);
-
-        UserDetails differentUser =
-                User.builder()
-                        .username("different@example.com")
-                        .password("password")
-                        .authorities(
-                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
-                        .build();
+        Department department = new Department();
+        department.setId(UUID.randomUUID());
+        user.setDepartment(department);
+        String token = jwtTokenUtil.generateToken(user, 3L, SESSION_ID);
 
         // When
-        Boolean isValid = jwtTokenUtil.validateToken(token, differentUser);
+        JwtPrincipal principal = jwtTokenUtil.verify(token).orElseThrow();
 
         // Then
-        assertThat(isValid).isFalse();
+        assertThat(principal.userId()).isEqualTo(user.getId());
+        assertThat(principal.role()).isEqualTo(RoleType.EMPLOYEE);
+        assertThat(principal.departmentId()).isEqualTo(department.getId());
+        assertThat(principal.epoch()).isEqualTo(3L);
+        assertThat(principal.sessionId()).isEqualTo(SESSION_ID);
+        assertThat(principal.getName()).isEqualTo("test@example.com");
     }
 
     @Test
-    void validateToken_WithExpiredToken_ShouldReturnFalse() throws InterruptedException {
+    void verify_WithTokenMissingIdentityClaims_ShouldReturnEmpty() {
         // Given
-        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 100L); // Very short expiration
-        String expiredToken = jwtTokenUtil.generateToken(userDetails);
-
-        // Wait for token to expire
-        Thread.sleep(200);
-
-        // Reset expiration to normal
-        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", testExpiration);
+        SecretKey key =
+                Keys.hmacShaKeyFor(java.util.Base64.getDecoder().decode(testSecret));
+        String legacyToken =
+                Jwts.builder()
+                        .subject("test@example.com")
+                        .issuedAt(new Date())
+                        .expiration(new Date(System.currentTimeMillis() + testExpiration))
+                        .signWith(key)
+                        .compact();
 
         // When
-        Boolean isValid = jwtTokenUtil.validateToken(expiredToken, userDetails);
+        Optional<JwtPrincipal> principal = jwtTokenUtil.verify(legacyToken);
 
         // Then
-        assertThat(isValid).isFalse();
+        assertThat(principal).isEmpty();
     }
 
     @Test
-    void extractClaim_ShouldExtractSubject() {
+    void verify_CalledTwiceWithSameToken_ShouldReturnCachedPrincipal() {
         // Given
-        String token = jwtTokenUtil.generateToken(userDetails);
+        String token = jwtTokenUtil.generateToken(user, 0L, SESSION_ID);
 
         // When
-        String subject = jwtTokenUtil.extractClaim(token, Claims::getSubject);
+        JwtPrincipal first = jwtTokenUtil.verify(token).orElseThrow();
+        JwtPrincipal second = jwtTokenUtil.verify(token).orElseThrow();
 
         // Then
-        assertThat(subject).isEqualTo("test@example.com");
+        assertThat(second).isSameAs(first);
     }
 
     @Test
-    void extractClaim_ShouldExtractIssuedAt() {
-        // Given
-        Date beforeGeneration = new Date(System.currentTimeMillis() - 1000); // 1 second buffer
-        String token = jwtTokenUtil.generateToken(userDetails);
-        Date afterGeneration = new Date(System.currentTimeMillis() + 1000); // 1 second buffer
-
+    void verify_WithMalformedToken_ShouldReturnEmpty() {
         // When
-        Date issuedAt = jwtTokenUtil.extractClaim(token, Claims::getIssuedAt);
+        Optional<JwtPrincipal> principal = jwtTokenUtil.verify("malformed.token");
 
         // Then
-        assertThat(issuedAt).isNotNull();
-        assertThat(issuedAt).isBetween(beforeGeneration, afterGeneration);
+        assertThat(principal).isEmpty();
     }
 
     @Test
-    void generateToken_MultipleTokensForSameUser_ShouldHaveDifferentIssuedAt()
-            throws InterruptedException {
+    void verify_WithTamperedSignature_ShouldReturnEmpty() {
         // Given
-        String token1 = jwtTokenUtil.generateToken(userDetails);
-        Thread.sleep(1100); // Ensure at least 1 second difference
-        String token2 = jwtTokenUtil.generateToken(userDetails);
+        String token = jwtTokenUtil.generateToken(user, 0L, SESSION_ID);
+        String[] parts = token.split("\\.");
+        String signature = (parts[2].charAt(0) == 'A' ? "B" : "A") + parts[2].substring(1);
+        String tampered = parts[0] + "." + parts[1] + "." + signature;
 
         // When
-        Date issuedAt1 = jwtTokenUtil.extractClaim(token1, Claims::getIssuedAt);
-        Date issuedAt2 = jwtTokenUtil.extractClaim(token2, Claims::getIssuedAt);
+        Optional<JwtPrincipal> principal = jwtTokenUtil.verify(tampered);
 
         // Then
-        assertThat(token1).isNotEqualTo(token2);
-        assertThat(issuedAt2).isAfterOrEqualTo(issuedAt1);
+        assertThat(principal).isEmpty();
     }
 
     @Test
-    void extractUsername_FromInvalidToken_ShouldThrowException() {
+    void verify_WithExpiredToken_ShouldReturnEmpty() throws InterruptedException {
         // Given
-        String invalidToken = "invalid.token.string";
-
-        // When & Then
-        assertThatThrownBy(() -> jwtTokenUtil.extractUsername(invalidToken))
-                .isInstanceOf(Exception.class);
-    }
-
-    @Test
-    void validateToken_WithMalformedToken_ShouldThrowException() {
-        // Given
-        String malformedToken = "malformed.token";
-
-        // When & Then
-        assertThatThrownBy(() -> jwtTokenUtil.validateToken(malformedToken, userDetails))
-                .isInstanceOf(Exception.class);
-    }
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 100L);
+        String token = jwtTokenUtil.generateToken(user, 0L, SESSION_ID);
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", testExpiration);
 
-    @Test
-    void extractExpiration_ShouldReturnCorrectExpirationTime() {
-        // Given
-        long beforeGeneration = System.currentTimeMillis();
-        String token = jwtTokenUtil.generateToken(userDetails);
-        long afterGeneration = System.currentTimeMillis();
+        // Cache the principal while the token is still valid, then let it expire
+        jwtTokenUtil.verify(token);
+        Thread.sleep(200);
 
         // When
-        Date expiration = jwtTokenUtil.extractExpiration(token);
+        Optional<JwtPrincipal> principal = jwtTokenUtil.verify(token);
 
         // Then
-        long expectedMinExpiration = beforeGeneration + testExpiration - 1000; // 1 second tolerance
-        long expectedMaxExpiration = afterGeneration + testExpiration + 1000; // 1 second tolerance
-        long actualExpiration = expiration.getTime();
-
-        assertThat(actualExpiration).isBetween(expectedMinExpiration, expectedMaxExpiration);
+        assertThat(principal).isEmpty();
     }
 }
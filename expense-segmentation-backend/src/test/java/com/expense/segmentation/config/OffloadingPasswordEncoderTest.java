@@ -0,0 +1,65 @@
+package com.expense.segmentation.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class OffloadingPasswordEncoderTest {
+
+    private PasswordHashingExecutor executor;
+    private OffloadingPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor(2, 8, Duration.ofSeconds(1));
+        passwordEncoder = new OffloadingPasswordEncoder(5, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void encode_ShouldUseConfiguredStrength() {
+        // When
+        String encoded = passwordEncoder.encode("password123");
+
+        // Then
+        assertThat(encoded).startsWith("$2a$05$");
+        assertThat(passwordEncoder.matches("password123", encoded)).isTrue();
+        assertThat(passwordEncoder.matches("wrong", encoded)).isFalse();
+    }
+
+    @Test
+    void matches_ShouldAcceptHashesOfOtherStrengths() {
+        // Given
+        String encoded = new BCryptPasswordEncoder(4).encode("password123");
+
+        // When & Then
+        assertThat(passwordEncoder.matches("password123", encoded)).isTrue();
+    }
+
+    @Test
+    void upgradeEncoding_WhenCostDiffers_ShouldReturnTrue() {
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("pw")))
+                .isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("pw")))
+                .isTrue();
+    }
+
+    @Test
+    void upgradeEncoding_WhenCostMatches_ShouldReturnFalse() {
+        assertThat(passwordEncoder.upgradeEncoding(passwordEncoder.encode("pw"))).isFalse();
+    }
+
+    @Test
+    void upgradeEncoding_WithMissingOrForeignHash_ShouldReturnFalse() {
+        assertThat(passwordEncoder.upgradeEncoding(null)).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding("plain-text")).isFalse();
+    }
+}
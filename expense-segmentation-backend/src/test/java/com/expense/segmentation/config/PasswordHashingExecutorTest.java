@@ -0,0 +1,101 @@
+package com.expense.segmentation.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.expense.segmentation.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(2));
+        executor.bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_ShouldRunTaskOnHashingThread() {
+        // When
+        String threadName = executor.execute(() -> Thread.currentThread().getName());
+
+        // Then
+        assertThat(threadName).startsWith("password-hashing-");
+    }
+
+    @Test
+    void execute_ShouldPropagateRuntimeException() {
+        assertThatThrownBy(
+                        () ->
+                                executor.execute(
+                                        () -> {
+                                            throw new IllegalArgumentException("bad hash");
+                                        }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("bad hash");
+    }
+
+    @Test
+    void execute_WhenPoolAndQueueAreFull_ShouldRejectWithRetryAfter() throws Exception {
+        // Given - one task occupies the only thread and a second one fills the queue
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> first =
+                CompletableFuture.supplyAsync(
+                        () ->
+                                executor.execute(
+                                        () -> {
+                                            running.countDown();
+                                            return release.await(5, TimeUnit.SECONDS);
+                                        }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> second =
+                CompletableFuture.supplyAsync(() -> executor.execute(() -> true));
+        awaitQueuedTasks(1);
+
+        try {
+            // When & Then
+            assertThatThrownBy(() -> executor.execute(() -> true))
+                    .isInstanceOf(TooManyRequestsException.class)
+                    .satisfies(
+                            ex ->
+                                    assertThat(((TooManyRequestsException) ex).getRetryAfter())
+                                            .isEqualTo(Duration.ofSeconds(2)));
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void awaitQueuedTasks(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queuedTasks() < expected) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Task was not queued in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private double queuedTasks() {
+        return meterRegistry.get("executor.queued").tag("name", "password-hashing").gauge().value();
+    }
+}
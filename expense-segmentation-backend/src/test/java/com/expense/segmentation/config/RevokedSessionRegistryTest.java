@@ -0,0 +1,113 @@
+package com.expense.segmentation.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.repository.RefreshTokenRepository;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RevokedSessionRegistryTest {
+
+    @Mock private RefreshTokenRepository refreshTokenRepository;
+
+    private RevokedSessionRegistry revokedSessionRegistry;
+
+    @BeforeEach
+    void setUp() {
+        revokedSessionRegistry = new RevokedSessionRegistry(refreshTokenRepository);
+        ReflectionTestUtils.setField(revokedSessionRegistry, "accessTokenTtlMillis", 900_000L);
+    }
+
+    @Test
+    void isRevoked_WithNullSession_ShouldReturnFalse() {
+        assertThat(revokedSessionRegistry.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void isRevoked_BeforeAnyRevocation_ShouldReturnFalse() {
+        assertThat(revokedSessionRegistry.isRevoked(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void revoke_ShouldTakeEffectImmediately() {
+        // Given
+        UUID sessionId = UUID.randomUUID();
+
+        // When
+        revokedSessionRegistry.revoke(List.of(sessionId));
+
+        // Then
+        assertThat(revokedSessionRegistry.isRevoked(sessionId)).isTrue();
+        assertThat(revokedSessionRegistry.isRevoked(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void refresh_ShouldPickUpSessionsEndedElsewhere() {
+        // Given
+        List<UUID> ended = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        when(refreshTokenRepository.findEndedSessionIdsSince(any())).thenReturn(ended);
+
+        // When
+        revokedSessionRegistry.refresh();
+
+        // Then
+        ended.forEach(id -> assertThat(revokedSessionRegistry.isRevoked(id)).isTrue());
+        assertThat(revokedSessionRegistry.isRevoked(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void refresh_ShouldKeepLocalRevocationsNotYetVisibleInDatabase() {
+        // Given
+        UUID sessionId = UUID.randomUUID();
+        revokedSessionRegistry.revoke(List.of(sessionId));
+        when(refreshTokenRepository.findEndedSessionIdsSince(any())).thenReturn(List.of());
+
+        // When
+        revokedSessionRegistry.refresh();
+
+        // Then
+        assertThat(revokedSessionRegistry.isRevoked(sessionId)).isTrue();
+    }
+
+    @Test
+    void refresh_WhenDatabaseFails_ShouldKeepPreviousSnapshot() {
+        // Given
+        UUID sessionId = UUID.randomUUID();
+        when(refreshTokenRepository.findEndedSessionIdsSince(any()))
+                .thenReturn(List.of(sessionId))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        revokedSessionRegistry.refresh();
+
+        // When
+        revokedSessionRegistry.refresh();
+
+        // Then
+        assertThat(revokedSessionRegistry.isRevoked(sessionId)).isTrue();
+    }
+
+    @Test
+    void refresh_WithManySessions_ShouldNeverReportFalsePositives() {
+        // Given
+        List<UUID> ended = Stream.generate(UUID::randomUUID).limit(1000).toList();
+        when(refreshTokenRepository.findEndedSessionIdsSince(any())).thenReturn(ended);
+
+        // When
+        revokedSessionRegistry.refresh();
+
+        // Then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(revokedSessionRegistry.isRevoked(UUID.randomUUID())).isFalse();
+        }
+    }
+}
@@ -10,7 +10,6 @@ import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -20,22 +19,27 @@ class SecurityConfigTest {
     private SecurityConfig securityConfig;
     private UserDetailsService userDetailsService;
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
 
     @BeforeEach
     void setUp() {
         userDetailsService = mock(UserDetailsService.class);
         jwtAuthenticationFilter = mock(JwtAuthenticationFilter.class);
-        securityConfig = new SecurityConfig(jwtAuthenticationFilter, userDetailsService);
+        apiKeyAuthenticationFilter = mock(ApiKeyAuthenticationFilter.class);
+        securityConfig =
+                new SecurityConfig(
+                        jwtAuthenticationFilter, apiKeyAuthenticationFilter, userDetailsService);
     }
 
     @Test
-    void passwordEncoder_ShouldReturnBCryptPasswordEncoder() {
+    void passwordEncoder_ShouldReturnOffloadingBCryptEncoder() {
         // When
         PasswordEncoder passwordEncoder = securityConfig.passwordEncoder();
 
         // Then
         assertThat(passwordEncoder).isNotNull();
-        assertThat(passwordEncoder).isInstanceOf(BCryptPasswordEncoder.class);
+        assertThat(passwordEncoder).isInstanceOf(OffloadingPasswordEncoder.class);
+        assertThat(((OffloadingPasswordEncoder) passwordEncoder).getStrength()).isEqualTo(10);
     }
 
     @Test
@@ -53,6 +57,20 @@ class SecurityConfigTest {
         assertThat(passwordEncoder.matches(rawPassword, encodedPassword)).isTrue();
     }
 
+    @Test
+    void passwordHashingExecutor_ShouldRunTasksOffTheCallingThread() {
+        // When
+        PasswordHashingExecutor executor = securityConfig.passwordHashingExecutor();
+
+        // Then
+        try {
+            assertThat(executor.execute(() -> Thread.currentThread().getName()))
+                    .startsWith("password-hashing-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     void authenticationProvider_ShouldReturnDaoAuthenticationProvider() {
         // When
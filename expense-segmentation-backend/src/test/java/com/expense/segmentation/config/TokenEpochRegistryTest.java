@@ -0,0 +1,150 @@
+package com.expense.segmentation.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.repository.TokenEpochRow;
+import com.expense.segmentation.repository.UserRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class TokenEpochRegistryTest {
+
+    @Mock private UserRepository userRepository;
+
+    private static final long ACCESS_TOKEN_MILLIS = Duration.ofMinutes(15).toMillis();
+
+    private AtomicLong now;
+    private TokenEpochRegistry tokenEpochRegistry;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(System.currentTimeMillis());
+        tokenEpochRegistry =
+                new TokenEpochRegistry(userRepository, ACCESS_TOKEN_MILLIS, now::get);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void currentEpoch_ForUnknownUser_ShouldBeZero() {
+        assertThat(tokenEpochRegistry.currentEpoch(userId)).isZero();
+        assertThat(tokenEpochRegistry.isCurrent(userId, 0L)).isTrue();
+    }
+
+    @Test
+    void revokeTokens_ShouldInvalidatePreviousEpoch() {
+        // When
+        tokenEpochRegistry.revokeTokens(userId, 1L);
+
+        // Then
+        assertThat(tokenEpochRegistry.currentEpoch(userId)).isEqualTo(1L);
+        assertThat(tokenEpochRegistry.isCurrent(userId, 0L)).isFalse();
+        assertThat(tokenEpochRegistry.isCurrent(userId, 1L)).isTrue();
+    }
+
+    @Test
+    void revokeTokens_ShouldNotAffectOtherUsers() {
+        // Given
+        UUID otherUserId = UUID.randomUUID();
+
+        // When
+        tokenEpochRegistry.revokeTokens(userId, 1L);
+
+        // Then
+        assertThat(tokenEpochRegistry.isCurrent(otherUserId, 0L)).isTrue();
+    }
+
+    @Test
+    void refresh_ShouldLoadEpochsPersistedBeforeRestart() {
+        // Given
+        when(userRepository.findTokenEpochsRaisedSince(any()))
+                .thenReturn(List.of(new TokenEpochRow(userId, 3L)));
+
+        // When
+        tokenEpochRegistry.refresh();
+
+        // Then
+        assertThat(tokenEpochRegistry.isCurrent(userId, 2L)).isFalse();
+        assertThat(tokenEpochRegistry.isCurrent(userId, 3L)).isTrue();
+    }
+
+    @Test
+    void isCurrent_WithTokenNewerThanKnownEpoch_ShouldAcceptIt() {
+        // Given: another instance raised the epoch and issued a token before this one reloaded
+        tokenEpochRegistry.revokeTokens(userId, 1L);
+
+        // When / Then
+        assertThat(tokenEpochRegistry.isCurrent(userId, 2L)).isTrue();
+    }
+
+    @Test
+    void refresh_ShouldKeepLocalRaisesNotYetInDatabaseSnapshot() {
+        // Given
+        tokenEpochRegistry.revokeTokens(userId, 2L);
+        when(userRepository.findTokenEpochsRaisedSince(any()))
+                .thenReturn(List.of(new TokenEpochRow(userId, 1L)));
+
+        // When
+        tokenEpochRegistry.refresh();
+
+        // Then
+        assertThat(tokenEpochRegistry.currentEpoch(userId)).isEqualTo(2L);
+    }
+
+    @Test
+    void refresh_WhenDatabaseFails_ShouldKeepPreviousEpochs() {
+        // Given
+        when(userRepository.findTokenEpochsRaisedSince(any()))
+                .thenReturn(List.of(new TokenEpochRow(userId, 1L)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        tokenEpochRegistry.refresh();
+
+        // When
+        tokenEpochRegistry.refresh();
+
+        // Then
+        assertThat(tokenEpochRegistry.isCurrent(userId, 0L)).isFalse();
+    }
+
+    @Test
+    void refresh_ShouldOnlyQueryRaisesWithinAccessTokenLifetime() {
+        // Given
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(userRepository.findTokenEpochsRaisedSince(since.capture())).thenReturn(List.of());
+
+        // When
+        tokenEpochRegistry.refresh();
+
+        // Then
+        assertThat(since.getValue())
+                .isBefore(LocalDateTime.now().minusMinutes(15))
+                .isAfter(LocalDateTime.now().minusMinutes(20));
+    }
+
+    @Test
+    void refresh_ShouldForgetLocalRaisesOlderThanAccessTokens() {
+        // Given - the raise is not in the database snapshot and no token from before it is alive
+        tokenEpochRegistry.revokeTokens(userId, 2L);
+        when(userRepository.findTokenEpochsRaisedSince(any())).thenReturn(List.of());
+        now.addAndGet(ACCESS_TOKEN_MILLIS + Duration.ofMinutes(2).toMillis());
+
+        // When
+        tokenEpochRegistry.refresh();
+
+        // Then
+        assertThat(tokenEpochRegistry.currentEpoch(userId)).isZero();
+    }
+}
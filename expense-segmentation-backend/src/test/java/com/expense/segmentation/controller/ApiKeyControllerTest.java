@@ -0,0 +1,142 @@
+package com.expense.segmentation.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.expense.segmentation.config.ApiKeyAuthenticationFilter;
+import com.expense.segmentation.config.JwtAuthenticationFilter;
+import com.expense.segmentation.config.JwtTokenUtil;
+import com.expense.segmentation.dto.ApiKeyResponse;
+import com.expense.segmentation.dto.CreateApiKeyRequest;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.service.ApiKeyService;
+import com.expense.segmentation.service.CustomUserDetailsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(ApiKeyController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class ApiKeyControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Autowired private ObjectMapper objectMapper;
+
+    @MockBean private ApiKeyService apiKeyService;
+
+    @MockBean private JwtTokenUtil jwtTokenUtil;
+
+    @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @MockBean private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
+    @MockBean private CustomUserDetailsService customUserDetailsService;
+
+    private ApiKeyResponse apiKeyResponse;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        apiKeyResponse = new ApiKeyResponse();
+        apiKeyResponse.setId(UUID.randomUUID());
+        apiKeyResponse.setName("ERP");
+        apiKeyResponse.setPrefix("0123456789ab");
+        apiKeyResponse.setUserId(userId);
+        apiKeyResponse.setUserEmail("erp@example.com");
+        apiKeyResponse.setRole(RoleType.EMPLOYEE);
+        apiKeyResponse.setCreatedAt(LocalDateTime.now());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void createApiKey_WithAdminRole_ShouldReturnKeyOnce() throws Exception {
+        // Given
+        apiKeyResponse.setKey("esk_0123456789absecret");
+        CreateApiKeyRequest request = new CreateApiKeyRequest("ERP", userId, null, null);
+        when(apiKeyService.createApiKey(any(CreateApiKeyRequest.class))).thenReturn(apiKeyResponse);
+
+        // When & Then
+        mockMvc.perform(
+                        post("/api-keys")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.prefix").value("0123456789ab"))
+                .andExpect(jsonPath("$.key").value("esk_0123456789absecret"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void createApiKey_WithMissingFields_ShouldReturnBadRequest() throws Exception {
+        // Given
+        CreateApiKeyRequest request = new CreateApiKeyRequest("", null, null, null);
+
+        // When & Then
+        mockMvc.perform(
+                        post("/api-keys")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void createApiKey_WithEmployeeRole_ShouldReturnForbidden() throws Exception {
+        // Given
+        CreateApiKeyRequest request = new CreateApiKeyRequest("ERP", userId, null, null);
+
+        // When & Then
+        mockMvc.perform(
+                        post("/api-keys")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isForbidden());
+        verify(apiKeyService, never()).createApiKey(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllApiKeys_ShouldNotExposeKeys() throws Exception {
+        // Given
+        when(apiKeyService.getAllApiKeys()).thenReturn(List.of(apiKeyResponse));
+
+        // When & Then
+        mockMvc.perform(get("/api-keys"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("ERP"))
+                .andExpect(jsonPath("$[0].key").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void revokeApiKey_ShouldReturnNoContent() throws Exception {
+        // Given
+        UUID id = apiKeyResponse.getId();
+
+        // When & Then
+        mockMvc.perform(delete("/api-keys/{id}", id).with(csrf()))
+                .andExpect(status().isNoContent());
+        verify(apiKeyService).revokeApiKey(id);
+    }
+}
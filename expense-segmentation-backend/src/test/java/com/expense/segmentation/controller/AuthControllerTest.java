@@ -1,23 +1,31 @@
 package com.expense.segmentation.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.expense.segmentation.config.ApiKeyAuthenticationFilter;
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.config.JwtAuthenticationFilter;
 import com.expense.segmentation.config.JwtTokenUtil;
 import com.expense.segmentation.dto.AuthResponse;
 import com.expense.segmentation.dto.LoginRequest;
+import com.expense.segmentation.dto.RefreshTokenRequest;
 import com.expense.segmentation.dto.RegisterRequest;
 import com.expense.segmentation.dto.UserResponse;
+import com.expense.segmentation.exception.InvalidTokenException;
+import com.expense.segmentation.exception.TooManyRequestsException;
 import com.expense.segmentation.model.RoleType;
 import com.expense.segmentation.model.UserStatus;
 import com.expense.segmentation.service.AuthService;
+import com.expense.segmentation.service.CurrentUserProvider;
 import com.expense.segmentation.service.CustomUserDetailsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -44,8 +52,12 @@ class AuthControllerTest {
 
     @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @MockBean private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
     @MockBean private CustomUserDetailsService customUserDetailsService;
 
+    @MockBean private CurrentUserProvider currentUserProvider;
+
     private RegisterRequest registerRequest;
     private LoginRequest loginRequest;
     private UserResponse userResponse;
@@ -124,7 +136,7 @@ class AuthControllerTest {
 
     @Test
     void login_WithValidCredentials_ShouldReturnOk() throws Exception {
-        when(authService.login(any(LoginRequest.class))).thenReturn(authResponse);
+        when(authService.login(any(LoginRequest.class), any())).thenReturn(authResponse);
 
         mockMvc.perform(
                         post("/auth/login")
@@ -137,6 +149,24 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.user.email").value("john@example.com"));
     }
 
+    @Test
+    void login_WhenHashingQueueIsFull_ShouldReturnTooManyRequests() throws Exception {
+        when(authService.login(any(LoginRequest.class), any()))
+                .thenThrow(
+                        new TooManyRequestsException(
+                                "Too many authentication requests. Please retry shortly.",
+                                Duration.ofSeconds(1)));
+
+        mockMvc.perform(
+                        post("/auth/login")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
     @Test
     void login_WithInvalidEmail_ShouldReturnBadRequest() throws Exception {
         LoginRequest invalidRequest = new LoginRequest("invalid-email", "password123");
@@ -149,10 +179,71 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void refresh_WithValidToken_ShouldReturnOk() throws Exception {
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest("refresh-token");
+        AuthResponse refreshed =
+                new AuthResponse("new-jwt-token", "new-refresh-token", userResponse);
+        when(authService.refresh(any(RefreshTokenRequest.class))).thenReturn(refreshed);
+
+        mockMvc.perform(
+                        post("/auth/refresh")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("new-jwt-token"))
+                .andExpect(jsonPath("$.refreshToken").value("new-refresh-token"))
+                .andExpect(jsonPath("$.user.email").value("john@example.com"));
+    }
+
+    @Test
+    void refresh_WithInvalidToken_ShouldReturnUnauthorized() throws Exception {
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest("reused-token");
+        when(authService.refresh(any(RefreshTokenRequest.class)))
+                .thenThrow(new InvalidTokenException("Refresh token has already been used"));
+
+        mockMvc.perform(
+                        post("/auth/refresh")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Refresh token has already been used"));
+    }
+
+    @Test
+    void refresh_WithMissingToken_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(
+                        post("/auth/refresh")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void logout_ShouldReturnNoContent() throws Exception {
+        RefreshTokenRequest logoutRequest = new RefreshTokenRequest("refresh-token");
+
+        mockMvc.perform(
+                        post("/auth/logout")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(logoutRequest)))
+                .andExpect(status().isNoContent());
+
+        verify(authService).logout(any(RefreshTokenRequest.class));
+    }
+
     @Test
     @WithMockUser(username = "john@example.com")
     void getCurrentUser_WithAuthentication_ShouldReturnUser() throws Exception {
-        when(authService.getCurrentUser()).thenReturn(userResponse);
+        AuthenticatedUser currentUser =
+                new AuthenticatedUser(
+                        userResponse.getId(), "john@example.com", RoleType.EMPLOYEE, null);
+        when(currentUserProvider.get()).thenReturn(currentUser);
+        when(authService.getCurrentUser(currentUser)).thenReturn(userResponse);
 
         mockMvc.perform(get("/auth/me").with(csrf()))
                 .andExpect(status().isOk())
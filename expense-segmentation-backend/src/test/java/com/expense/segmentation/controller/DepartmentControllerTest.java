@@ -8,6 +8,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.expense.segmentation.config.ApiKeyAuthenticationFilter;
 import com.expense.segmentation.config.JwtAuthenticationFilter;
 import com.expense.segmentation.config.JwtTokenUtil;
 import com.expense.segmentation.dto.CreateDepartmentRequest;
@@ -43,6 +44,8 @@ class DepartmentControllerTest {
 
     @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @MockBean private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
     @MockBean private CustomUserDetailsService customUserDetailsService;
 
     private DepartmentResponse departmentResponse;
@@ -9,6 +9,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.expense.segmentation.config.ApiKeyAuthenticationFilter;
 import com.expense.segmentation.config.JwtAuthenticationFilter;
 import com.expense.segmentation.config.JwtTokenUtil;
 import com.expense.segmentation.dto.AttachmentResponse;
@@ -44,6 +45,8 @@ class ExpenseAttachmentControllerTest {
 
     @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @MockBean private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
     @MockBean private CustomUserDetailsService customUserDetailsService;
 
     private UUID expenseId;
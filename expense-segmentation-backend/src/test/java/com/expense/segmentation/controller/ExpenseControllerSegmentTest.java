@@ -10,6 +10,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.expense.segmentation.config.ApiKeyAuthenticationFilter;
 import com.expense.segmentation.config.JwtAuthenticationFilter;
 import com.expense.segmentation.config.JwtTokenUtil;
 import com.expense.segmentation.model.Expense;
@@ -59,6 +60,8 @@ class ExpenseControllerSegmentTest {
 
     @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @MockBean private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
     @MockBean private ExpenseAuthorizationService expenseAuthorizationService;
 
     private UUID testExpenseId;
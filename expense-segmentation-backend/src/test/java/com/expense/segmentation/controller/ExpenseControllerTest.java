@@ -3,27 +3,48 @@ package com.expense.segmentation.controller;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.expense.segmentation.config.ApiKeyAuthenticationFilter;
 import com.expense.segmentation.config.JwtAuthenticationFilter;
 import com.expense.segmentation.config.JwtTokenUtil;
+import com.expense.segmentation.dto.BulkExpenseSegmentsRequest;
+import com.expense.segmentation.dto.BulkExpenseSegmentsResponse;
 import com.expense.segmentation.dto.CreateExpenseRequest;
+import com.expense.segmentation.dto.CreateExpenseSegmentRequest;
 import com.expense.segmentation.dto.ExpenseResponse;
+import com.expense.segmentation.dto.ExpenseSegmentResponse;
+import com.expense.segmentation.dto.ExpenseSegmentsItem;
+import com.expense.segmentation.dto.ExpenseSegmentsResult;
 import com.expense.segmentation.dto.PagedExpenseResponse;
+import com.expense.segmentation.exception.InvalidOperationException;
 import com.expense.segmentation.model.ExpenseStatus;
 import com.expense.segmentation.model.ExpenseType;
 import com.expense.segmentation.service.CustomUserDetailsService;
+import com.expense.segmentation.service.ExpenseExportFormat;
+import com.expense.segmentation.service.ExpenseExportService;
+import com.expense.segmentation.service.ExpenseInclude;
+import com.expense.segmentation.service.ExpenseSegmentBulkService;
 import com.expense.segmentation.service.ExpenseSegmentService;
 import com.expense.segmentation.service.ExpenseService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +55,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @WebMvcTest(ExpenseController.class)
 @AutoConfigureMockMvc(addFilters = false)
@@ -47,10 +70,16 @@ class ExpenseControllerTest {
 
     @MockBean private ExpenseSegmentService expenseSegmentService;
 
+    @MockBean private ExpenseExportService expenseExportService;
+
+    @MockBean private ExpenseSegmentBulkService expenseSegmentBulkService;
+
     @MockBean private JwtTokenUtil jwtTokenUtil;
 
     @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @MockBean private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
     @MockBean private CustomUserDetailsService customUserDetailsService;
 
     private ExpenseResponse expenseResponse;
@@ -155,7 +184,8 @@ class ExpenseControllerTest {
         pagedResponse.setTotalElements(1L);
         pagedResponse.setTotalPages(1);
 
-        when(expenseService.getExpensesWithFilters(0, 10, null, null, null, null))
+        when(expenseService.getExpensesWithFilters(
+                        0, 10, null, null, null, null, null, false, null, Set.of()))
                 .thenReturn(pagedResponse);
 
         // When & Then
@@ -183,7 +213,16 @@ class ExpenseControllerTest {
         LocalDate dateTo = LocalDate.now();
 
         when(expenseService.getExpensesWithFilters(
-                        0, 20, dateFrom, dateTo, ExpenseType.EXPENSE, ExpenseStatus.SUBMITTED))
+                        0,
+                        20,
+                        dateFrom,
+                        dateTo,
+                        ExpenseType.EXPENSE,
+                        ExpenseStatus.SUBMITTED,
+                        null,
+                        false,
+                        null,
+                        Set.of()))
                 .thenReturn(pagedResponse);
 
         // When & Then
@@ -200,11 +239,177 @@ class ExpenseControllerTest {
                 .andExpect(jsonPath("$.totalElements").value(1));
     }
 
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void getExpensesWithFilters_WithCursor_ShouldPassCursorAndReturnNextCursor() throws Exception {
+        // Given
+        PagedExpenseResponse pagedResponse = new PagedExpenseResponse();
+        pagedResponse.setExpenses(Arrays.asList(expenseResponse));
+        pagedResponse.setSize(10);
+        pagedResponse.setNextCursor("next-cursor");
+
+        when(expenseService.getExpensesWithFilters(
+                        0,
+                        10,
+                        null,
+                        null,
+                        null,
+                        null,
+                        "current-cursor",
+                        false,
+                        null,
+                        Set.of()))
+                .thenReturn(pagedResponse);
+
+        // When & Then
+        mockMvc.perform(get("/expenses").param("cursor", "current-cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expenses[0].vendor").value("Test Vendor"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"));
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void getExpensesWithFilters_InSliceMode_ShouldOmitTotals() throws Exception {
+        // Given
+        PagedExpenseResponse pagedResponse = new PagedExpenseResponse();
+        pagedResponse.setExpenses(Arrays.asList(expenseResponse));
+        pagedResponse.setSize(10);
+        pagedResponse.setTotalSource(PagedExpenseResponse.TotalSource.NONE);
+
+        when(expenseService.getExpensesWithFilters(
+                        0, 10, null, null, null, null, null, true, null, Set.of()))
+                .thenReturn(pagedResponse);
+
+        // When & Then
+        mockMvc.perform(get("/expenses").param("slice", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").isEmpty())
+                .andExpect(jsonPath("$.totalSource").value("NONE"));
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void getExpensesWithFilters_WithDescriptionLength_ShouldPassItToService() throws Exception {
+        // Given
+        PagedExpenseResponse pagedResponse = new PagedExpenseResponse();
+        pagedResponse.setExpenses(Arrays.asList(expenseResponse));
+        pagedResponse.setSize(10);
+
+        when(expenseService.getExpensesWithFilters(
+                        0, 10, null, null, null, null, null, false, 50, Set.of()))
+                .thenReturn(pagedResponse);
+
+        // When & Then
+        mockMvc.perform(get("/expenses").param("descriptionLength", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expenses[0].vendor").value("Test Vendor"));
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void replaceSegmentsInBulk_ShouldReturnPerExpenseResults() throws Exception {
+        // Given
+        UUID expenseId = UUID.randomUUID();
+        BulkExpenseSegmentsRequest request =
+                new BulkExpenseSegmentsRequest(
+                        List.of(
+                                new ExpenseSegmentsItem(
+                                        expenseId,
+                                        List.of(
+                                                new CreateExpenseSegmentRequest(
+                                                        "Travel",
+                                                        new BigDecimal("100.00"),
+                                                        null)))));
+        when(expenseSegmentBulkService.replaceSegments(any(BulkExpenseSegmentsRequest.class)))
+                .thenReturn(
+                        BulkExpenseSegmentsResponse.builder()
+                                .updated(1)
+                                .failed(0)
+                                .results(
+                                        List.of(
+                                                new ExpenseSegmentsResult(
+                                                        expenseId,
+                                                        ExpenseSegmentsResult.Status.UPDATED,
+                                                        1,
+                                                        null)))
+                                .build());
+
+        // When & Then
+        mockMvc.perform(
+                        post("/expenses/segments/bulk")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.results[0].expenseId").value(expenseId.toString()))
+                .andExpect(jsonPath("$.results[0].status").value("UPDATED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void replaceSegmentsInBulk_WithoutExpenses_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(
+                        post("/expenses/segments/bulk")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"expenses\":[]}"))
+                .andExpect(status().isBadRequest());
+        verify(expenseSegmentBulkService, never()).replaceSegments(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void exportExpenses_AsCsv_ShouldStreamAttachment() throws Exception {
+        // Given
+        StreamingResponseBody body =
+                out -> out.write("id,date\r\n".getBytes(StandardCharsets.UTF_8));
+        when(expenseExportService.export(
+                        ExpenseExportFormat.CSV,
+                        null,
+                        null,
+                        null,
+                        ExpenseStatus.APPROVED,
+                        true,
+                        false))
+                .thenReturn(body);
+
+        // When
+        MvcResult result =
+                mockMvc.perform(
+                                get("/expenses/export")
+                                        .param("format", "csv")
+                                        .param("status", "APPROVED")
+                                        .param("segments", "true"))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(
+                        header().string(
+                                        "Content-Disposition",
+                                        "attachment; filename=\"expenses.csv\""))
+                .andExpect(content().string("id,date\r\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void exportExpenses_WithUnsupportedFormat_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/expenses/export").param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(roles = "EMPLOYEE")
     void getExpenseById_WithEmployeeRole_ShouldReturnExpense() throws Exception {
         // Given
-        when(expenseService.getExpenseById(expenseId)).thenReturn(expenseResponse);
+        when(expenseService.getExpenseById(expenseId, Set.of())).thenReturn(expenseResponse);
 
         // When & Then
         mockMvc.perform(get("/expenses/{id}", expenseId))
@@ -217,7 +422,7 @@ class ExpenseControllerTest {
     @WithMockUser(roles = "MANAGER")
     void getExpenseById_WithManagerRole_ShouldReturnExpense() throws Exception {
         // Given
-        when(expenseService.getExpenseById(expenseId)).thenReturn(expenseResponse);
+        when(expenseService.getExpenseById(expenseId, Set.of())).thenReturn(expenseResponse);
 
         // When & Then
         mockMvc.perform(get("/expenses/{id}", expenseId))
@@ -225,41 +430,215 @@ class ExpenseControllerTest {
                 .andExpect(jsonPath("$.id").value(expenseId.toString()));
     }
 
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void getExpenseById_WithInclude_ShouldReturnEmbeddedChildren() throws Exception {
+        // Given
+        expenseResponse.setSegments(
+                List.of(
+                        new ExpenseSegmentResponse(
+                                UUID.randomUUID(),
+                                "Travel",
+                                new BigDecimal("100.00"),
+                                new BigDecimal("100.00"))));
+        when(expenseService.getExpenseById(
+                        expenseId, EnumSet.of(ExpenseInclude.SEGMENTS, ExpenseInclude.ATTACHMENTS)))
+                .thenReturn(expenseResponse);
+
+        // When & Then
+        mockMvc.perform(get("/expenses/{id}", expenseId).param("include", "segments,attachments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.segments[0].category").value("Travel"));
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void getExpenseById_WithoutInclude_ShouldOmitChildren() throws Exception {
+        // Given
+        when(expenseService.getExpenseById(expenseId, Set.of())).thenReturn(expenseResponse);
+
+        // When & Then
+        mockMvc.perform(get("/expenses/{id}", expenseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.segments").doesNotExist())
+                .andExpect(jsonPath("$.attachments").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void getExpenseById_ShouldReturnETag() throws Exception {
+        // Given
+        when(expenseService.getExpenseETag(expenseId, Set.of())).thenReturn("abc123");
+        when(expenseService.getExpenseById(expenseId, Set.of())).thenReturn(expenseResponse);
+
+        // When & Then
+        mockMvc.perform(get("/expenses/{id}", expenseId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void getExpenseById_WithMatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        // Given
+        when(expenseService.getExpenseETag(expenseId, Set.of())).thenReturn("abc123");
+
+        // When & Then
+        mockMvc.perform(get("/expenses/{id}", expenseId).header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(content().string(""));
+        verify(expenseService, never()).getExpenseById(any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void getExpenseSegments_WithMatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        // Given
+        when(expenseSegmentService.getSegmentsETag(expenseId)).thenReturn("def456");
+
+        // When & Then
+        mockMvc.perform(
+                        get("/expenses/{id}/segments", expenseId)
+                                .header("If-None-Match", "\"def456\""))
+                .andExpect(status().isNotModified());
+        verify(expenseSegmentService, never()).getSegmentsByExpenseId(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void searchExpenses_ShouldReturnRankedPage() throws Exception {
+        // Given
+        PagedExpenseResponse pagedResponse = new PagedExpenseResponse();
+        pagedResponse.setExpenses(List.of(expenseResponse));
+        pagedResponse.setSize(10);
+        pagedResponse.setFirst(true);
+        pagedResponse.setNextCursor("next");
+        when(expenseService.searchExpenses("test vendor", 10, null, null))
+                .thenReturn(pagedResponse);
+
+        // When & Then
+        mockMvc.perform(get("/expenses/search").param("q", "test vendor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expenses[0].vendor").value("Test Vendor"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void searchExpenses_WithoutQuery_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(expenseService.searchExpenses(null, 10, null, null))
+                .thenThrow(new InvalidOperationException("Search query must not be blank"));
+
+        // When & Then
+        mockMvc.perform(get("/expenses/search")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void getExpensesWithFilters_WithUnknownInclude_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/expenses").param("include", "comments"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(roles = "FINANCE")
     void getExpensesByUser_WithFinanceRole_ShouldReturnUserExpenses() throws Exception {
         // Given
-        when(expenseService.getExpensesByUser(userId)).thenReturn(Arrays.asList(expenseResponse));
+        when(expenseService.getExpensesByUser(userId, 10, null, null, null, null))
+                .thenReturn(userPage("next-page"));
 
         // When & Then
         mockMvc.perform(get("/expenses/user/{userId}", userId))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].createdById").value(userId.toString()));
+                .andExpect(jsonPath("$.expenses").isArray())
+                .andExpect(jsonPath("$.expenses[0].createdById").value(userId.toString()))
+                .andExpect(jsonPath("$.nextCursor").value("next-page"));
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void getExpensesByUser_WithAdminRole_ShouldReturnUserExpenses() throws Exception {
         // Given
-        when(expenseService.getExpensesByUser(userId)).thenReturn(Arrays.asList(expenseResponse));
+        when(expenseService.getExpensesByUser(userId, 10, null, null, null, null))
+                .thenReturn(userPage(null));
 
         // When & Then
         mockMvc.perform(get("/expenses/user/{userId}", userId))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray());
+                .andExpect(jsonPath("$.expenses").isArray());
     }
 
     @Test
     @WithMockUser(roles = "MANAGER")
     void getExpensesByUser_WithManagerRole_ShouldReturnUserExpenses() throws Exception {
         // Given
-        when(expenseService.getExpensesByUser(userId)).thenReturn(Arrays.asList(expenseResponse));
+        when(expenseService.getExpensesByUser(userId, 10, null, null, null, null))
+                .thenReturn(userPage(null));
 
         // When & Then
         mockMvc.perform(get("/expenses/user/{userId}", userId))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray());
+                .andExpect(jsonPath("$.expenses").isArray());
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void getExpensesByUser_WithCursorAndDates_ShouldPassThemToService() throws Exception {
+        // Given
+        LocalDate dateFrom = LocalDate.of(2024, 1, 1);
+        LocalDate dateTo = LocalDate.of(2024, 12, 31);
+        when(expenseService.getExpensesByUser(userId, 5, "abc", dateFrom, dateTo, 50))
+                .thenReturn(userPage(null));
+
+        // When & Then
+        mockMvc.perform(
+                        get("/expenses/user/{userId}", userId)
+                                .param("size", "5")
+                                .param("cursor", "abc")
+                                .param("dateFrom", "2024-01-01")
+                                .param("dateTo", "2024-12-31")
+                                .param("descriptionLength", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.last").value(true));
+    }
+
+    @Test
+    @WithMockUser(roles = "FINANCE")
+    void streamExpensesByUser_ShouldStreamJsonArray() throws Exception {
+        // Given
+        StreamingResponseBody body = out -> out.write("[]".getBytes(StandardCharsets.UTF_8));
+        when(expenseExportService.streamExpensesByUser(userId, null, null)).thenReturn(body);
+
+        // When
+        MvcResult result =
+                mockMvc.perform(get("/expenses/user/{userId}/stream", userId))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/json"))
+                .andExpect(content().string("[]"));
+    }
+
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    void streamExpensesByUser_WhenServiceThrowsSecurityException_ShouldReturnForbidden()
+            throws Exception {
+        // Given
+        when(expenseExportService.streamExpensesByUser(userId, null, null))
+                .thenThrow(
+                        new SecurityException(
+                                "You are not authorized to view expenses for this user"));
+
+        // When & Then
+        mockMvc.perform(get("/expenses/user/{userId}/stream", userId))
+                .andExpect(status().isForbidden());
     }
 
     @Test
@@ -267,7 +646,7 @@ class ExpenseControllerTest {
     void getExpensesByUser_WhenServiceThrowsSecurityException_ShouldReturnForbidden()
             throws Exception {
         // Given
-        when(expenseService.getExpensesByUser(userId))
+        when(expenseService.getExpensesByUser(userId, 10, null, null, null, null))
                 .thenThrow(
                         new SecurityException(
                                 "You are not authorized to view expenses for this user"));
@@ -358,4 +737,16 @@ class ExpenseControllerTest {
                                 .with(csrf()))
                 .andExpect(status().isNotFound());
     }
+
+    private PagedExpenseResponse userPage(String nextCursor) {
+        return PagedExpenseResponse.builder()
+                .expenses(List.of(expenseResponse))
+                .page(0)
+                .size(10)
+                .first(true)
+                .last(nextCursor == null)
+                .nextCursor(nextCursor)
+                .totalSource(PagedExpenseResponse.TotalSource.NONE)
+                .build();
+    }
 }
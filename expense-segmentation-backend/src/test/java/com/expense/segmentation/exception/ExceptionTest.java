@@ -3,6 +3,7 @@ package com.expense.segmentation.exception;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
 
 class ExceptionTest {
@@ -33,6 +34,18 @@ class ExceptionTest {
         assertThat(exception.getCause()).isEqualTo(cause);
     }
 
+    @Test
+    void tooManyRequestsException_ShouldCarryRetryAfter() {
+        // When
+        TooManyRequestsException exception =
+                new TooManyRequestsException("Slow down", Duration.ofSeconds(5));
+
+        // Then
+        assertThat(exception.getMessage()).isEqualTo("Slow down");
+        assertThat(exception.getRetryAfter()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(exception).isInstanceOf(BusinessException.class);
+    }
+
     @Test
     void resourceNotFoundException_WithResourceTypeAndIdentifier_ShouldCreateException() {
         // Given
@@ -0,0 +1,139 @@
+package com.expense.segmentation.integration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.expense.segmentation.dto.ApiKeyResponse;
+import com.expense.segmentation.dto.CreateApiKeyRequest;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.RoleRepository;
+import com.expense.segmentation.repository.UserRepository;
+import com.expense.segmentation.service.ApiKeyRegistry;
+import com.expense.segmentation.service.ApiKeyService;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Exercises API key authentication through the full security chain. The test transaction never
+ * commits, so the registry is refreshed explicitly; the refresh joins the test transaction and sees
+ * its uncommitted keys.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+class ApiKeyIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Autowired private RoleRepository roleRepository;
+
+    @Autowired private UserRepository userRepository;
+
+    @Autowired private ApiKeyService apiKeyService;
+
+    @Autowired private ApiKeyRegistry apiKeyRegistry;
+
+    private User serviceAccount;
+
+    @BeforeEach
+    void setUp() {
+        Role employeeRole =
+                roleRepository
+                        .findByName(RoleType.EMPLOYEE)
+                        .orElseGet(
+                                () -> {
+                                    Role role = new Role();
+                                    role.setName(RoleType.EMPLOYEE);
+                                    role.setDescription("Employee role");
+                                    return roleRepository.save(role);
+                                });
+
+        serviceAccount = new User();
+        serviceAccount.setName("ERP Integration");
+        serviceAccount.setEmail("erp@example.com");
+        serviceAccount.setPasswordHash("unused");
+        serviceAccount.setStatus(UserStatus.ACTIVE);
+        serviceAccount.setRole(employeeRole);
+        serviceAccount = userRepository.save(serviceAccount);
+    }
+
+    @Test
+    void createExpense_WithApiKey_ShouldActAsServiceAccount() throws Exception {
+        // Given
+        String apiKey = issueKey();
+        String expenseRequest =
+                """
+                {
+                    "date": "%s",
+                    "vendor": "ERP Vendor",
+                    "amount": 125.00,
+                    "type": "EXPENSE"
+                }
+                """
+                        .formatted(LocalDate.now());
+
+        // When & Then
+        mockMvc.perform(
+                        post("/expenses")
+                                .header("X-API-Key", apiKey)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(expenseRequest))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.vendor").value("ERP Vendor"))
+                .andExpect(jsonPath("$.createdByEmail").value("erp@example.com"));
+    }
+
+    @Test
+    void accessProtectedEndpoint_WithWrongSecret_ShouldReturnUnauthorized() throws Exception {
+        // Given
+        String apiKey = issueKey();
+        char last = apiKey.charAt(apiKey.length() - 1);
+        String tampered = apiKey.substring(0, apiKey.length() - 1) + (last == 'x' ? 'y' : 'x');
+
+        // When & Then
+        mockMvc.perform(get("/auth/me").header("X-API-Key", tampered))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void accessProtectedEndpoint_WithRevokedKey_ShouldReturnUnauthorized() throws Exception {
+        // Given
+        CreateApiKeyRequest request =
+                new CreateApiKeyRequest("ERP", serviceAccount.getId(), null, null);
+        ApiKeyResponse created = apiKeyService.createApiKey(request);
+        apiKeyRegistry.refresh();
+
+        mockMvc.perform(get("/auth/me").header("X-API-Key", created.getKey()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("erp@example.com"));
+
+        // When
+        apiKeyService.revokeApiKey(created.getId());
+        apiKeyRegistry.refresh();
+
+        // Then
+        mockMvc.perform(get("/auth/me").header("X-API-Key", created.getKey()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String issueKey() {
+        CreateApiKeyRequest request =
+                new CreateApiKeyRequest("ERP", serviceAccount.getId(), null, null);
+        String key = apiKeyService.createApiKey(request).getKey();
+        apiKeyRegistry.refresh();
+        return key;
+    }
+}
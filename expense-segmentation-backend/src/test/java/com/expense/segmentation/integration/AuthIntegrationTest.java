@@ -6,6 +6,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.expense.segmentation.dto.LoginRequest;
+import com.expense.segmentation.dto.RefreshTokenRequest;
 import com.expense.segmentation.dto.RegisterRequest;
 import com.expense.segmentation.model.Role;
 import com.expense.segmentation.model.RoleType;
@@ -181,4 +182,123 @@ class AuthIntegrationTest {
                                 .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void refreshFlow_RotateTokensDetectReuseAndLogout() throws Exception {
+        // Step 1: Register and receive a refresh token
+        RegisterRequest registerRequest =
+                new RegisterRequest("Refresh User", "refresh@test.com", "password123");
+
+        MvcResult registerResult =
+                mockMvc.perform(
+                                post("/auth/register")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(objectMapper.writeValueAsString(registerRequest)))
+                        .andExpect(status().isCreated())
+                        .andExpect(jsonPath("$.refreshToken").value(notNullValue()))
+                        .andReturn();
+
+        String firstRefreshToken =
+                objectMapper
+                        .readTree(registerResult.getResponse().getContentAsString())
+                        .get("refreshToken")
+                        .asText();
+
+        // Step 2: Exchange it for a new token pair
+        MvcResult refreshResult =
+                mockMvc.perform(
+                                post("/auth/refresh")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(refreshBody(firstRefreshToken)))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.token").value(notNullValue()))
+                        .andExpect(jsonPath("$.refreshToken").value(notNullValue()))
+                        .andExpect(jsonPath("$.user.email").value("refresh@test.com"))
+                        .andReturn();
+
+        String secondRefreshToken =
+                objectMapper
+                        .readTree(refreshResult.getResponse().getContentAsString())
+                        .get("refreshToken")
+                        .asText();
+
+        // Step 3: Reusing the consumed token is rejected and ends the session
+        mockMvc.perform(
+                        post("/auth/refresh")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(refreshBody(firstRefreshToken)))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(
+                        post("/auth/refresh")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(refreshBody(secondRefreshToken)))
+                .andExpect(status().isUnauthorized());
+
+        // Step 4: A fresh login starts a new session that can be ended by logout
+        LoginRequest loginRequest = new LoginRequest("refresh@test.com", "password123");
+
+        MvcResult loginResult =
+                mockMvc.perform(
+                                post("/auth/login")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(objectMapper.writeValueAsString(loginRequest)))
+                        .andExpect(status().isOk())
+                        .andReturn();
+
+        String loginRefreshToken =
+                objectMapper
+                        .readTree(loginResult.getResponse().getContentAsString())
+                        .get("refreshToken")
+                        .asText();
+
+        mockMvc.perform(
+                        post("/auth/logout")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(refreshBody(loginRefreshToken)))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(
+                        post("/auth/refresh")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(refreshBody(loginRefreshToken)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void login_AfterRepeatedFailures_ShouldBeThrottled() throws Exception {
+        // Step 1: Register a user
+        RegisterRequest registerRequest =
+                new RegisterRequest("Throttled User", "throttled@test.com", "password123");
+
+        mockMvc.perform(
+                        post("/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isCreated());
+
+        // Step 2: Exhaust the failed attempt budget for the email
+        LoginRequest wrongPassword = new LoginRequest("throttled@test.com", "wrong-password");
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(
+                            post("/auth/login")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(wrongPassword)))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // Step 3: Even the correct password is rejected until the window passes
+        LoginRequest correctPassword = new LoginRequest("throttled@test.com", "password123");
+
+        mockMvc.perform(
+                        post("/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(correctPassword)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    private String refreshBody(String refreshToken) throws Exception {
+        return objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken));
+    }
 }
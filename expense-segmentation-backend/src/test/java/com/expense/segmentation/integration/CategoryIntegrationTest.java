@@ -1,6 +1,5 @@
 package com.expense.segmentation.integration;
 
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -73,7 +72,7 @@ class CategoryIntegrationTest {
         categoryId = testCategory.getId();
 
         // Mock authorization service to allow category management
-        when(expenseAuthorizationService.canManageCategories(any(String.class))).thenReturn(true);
+        when(expenseAuthorizationService.canManageCategories()).thenReturn(true);
     }
 
     @Test
@@ -237,8 +236,7 @@ class CategoryIntegrationTest {
             roles = {"EMPLOYEE"})
     void createCategory_WithEmployeeRole_ShouldReturnForbidden() throws Exception {
         // Given - mock authorization to return false for employee
-        when(expenseAuthorizationService.canManageCategories("employee@example.com"))
-                .thenReturn(false);
+        when(expenseAuthorizationService.canManageCategories()).thenReturn(false);
 
         String categoryRequest =
                 """
@@ -263,8 +261,7 @@ class CategoryIntegrationTest {
             roles = {"EMPLOYEE"})
     void deactivateCategory_WithEmployeeRole_ShouldReturnForbidden() throws Exception {
         // Given - mock authorization to return false for employee
-        when(expenseAuthorizationService.canManageCategories("employee@example.com"))
-                .thenReturn(false);
+        when(expenseAuthorizationService.canManageCategories()).thenReturn(false);
 
         // When & Then
         mockMvc.perform(
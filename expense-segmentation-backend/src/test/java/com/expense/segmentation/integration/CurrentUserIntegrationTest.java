@@ -0,0 +1,185 @@
+package com.expense.segmentation.integration;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.expense.segmentation.config.JwtAuthenticationFilter;
+import com.expense.segmentation.config.JwtPrincipal;
+import com.expense.segmentation.config.JwtTokenUtil;
+import com.expense.segmentation.model.Category;
+import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.CategoryRepository;
+import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.RoleRepository;
+import com.expense.segmentation.repository.UserRepository;
+import com.expense.segmentation.service.CategoryDictionary;
+import com.expense.segmentation.service.CustomUserDetailsService;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Verifies that the authenticated user is resolved at most once per request. */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+@Transactional
+class CurrentUserIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Autowired private ExpenseRepository expenseRepository;
+
+    @Autowired private RoleRepository roleRepository;
+
+    @Autowired private CategoryRepository categoryRepository;
+
+    @Autowired private CategoryDictionary categoryDictionary;
+
+    @SpyBean private UserRepository userRepository;
+
+    @MockBean private JwtTokenUtil jwtTokenUtil;
+
+    @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @MockBean private CustomUserDetailsService customUserDetailsService;
+
+    private User owner;
+    private Expense expense;
+
+    @BeforeEach
+    void setUp() {
+        expenseRepository.deleteAll();
+        userRepository.deleteAll();
+
+        // Flyway is off in tests, so the category the segment refers to is seeded here
+        if (categoryRepository
+                .findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc("Travel")
+                .isEmpty()) {
+            Category travel = new Category();
+            travel.setName("Travel");
+            categoryRepository.save(travel);
+        }
+        categoryDictionary.refresh();
+
+        Role employeeRole =
+                roleRepository
+                        .findByName(RoleType.EMPLOYEE)
+                        .orElseGet(
+                                () -> {
+                                    Role role = new Role();
+                                    role.setName(RoleType.EMPLOYEE);
+                                    role.setDescription("Employee role");
+                                    return roleRepository.save(role);
+                                });
+
+        owner = new User();
+        owner.setName("Owner");
+        owner.setEmail("owner@example.com");
+        owner.setPasswordHash("password");
+        owner.setStatus(UserStatus.ACTIVE);
+        owner.setRole(employeeRole);
+        owner = userRepository.save(owner);
+
+        expense = new Expense();
+        expense.setDate(LocalDate.now());
+        expense.setVendor("Vendor");
+        expense.setAmount(new BigDecimal("100.00"));
+        expense.setType(ExpenseType.EXPENSE);
+        expense.setStatus(ExpenseStatus.SUBMITTED);
+        expense.setCreatedBy(owner);
+        expense = expenseRepository.save(expense);
+
+        clearInvocations(userRepository);
+    }
+
+    @Test
+    @WithMockUser(
+            username = "owner@example.com",
+            roles = {"EMPLOYEE"})
+    void getExpense_ShouldLookUpUserOncePerRequest() throws Exception {
+        mockMvc.perform(get("/expenses/{id}", expense.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vendor").value("Vendor"));
+        verify(userRepository, times(1)).findByEmail("owner@example.com");
+
+        // A second request resolves the user again rather than reusing the first request's
+        mockMvc.perform(get("/expenses/{id}", expense.getId())).andExpect(status().isOk());
+        verify(userRepository, times(2)).findByEmail("owner@example.com");
+    }
+
+    @Test
+    @WithMockUser(
+            username = "owner@example.com",
+            roles = {"EMPLOYEE"})
+    void addSegment_ShouldShareUserBetweenAuthorizationAndService() throws Exception {
+        String segmentRequest =
+                """
+                {
+                  "category": "Travel",
+                  "amount": 100.00
+                }
+                """;
+
+        mockMvc.perform(
+                        post("/expenses/{id}/segments", expense.getId())
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(segmentRequest))
+                .andExpect(status().is2xxSuccessful());
+
+        verify(userRepository, times(1)).findByEmail("owner@example.com");
+    }
+
+    @Test
+    void getExpense_WithJwtPrincipal_ShouldNotLookUpUser() throws Exception {
+        JwtPrincipal principal =
+                new JwtPrincipal(
+                        owner.getEmail(),
+                        owner.getId(),
+                        RoleType.EMPLOYEE,
+                        null,
+                        0L,
+                        UUID.randomUUID(),
+                        Instant.now(),
+                        Instant.now().plusSeconds(3600));
+        UsernamePasswordAuthenticationToken token =
+                new UsernamePasswordAuthenticationToken(
+                        principal, null, List.of(new SimpleGrantedAuthority("ROLE_EMPLOYEE")));
+
+        mockMvc.perform(get("/expenses/{id}", expense.getId()).with(authentication(token)))
+                .andExpect(status().isOk());
+
+        verify(userRepository, never()).findByEmail(anyString());
+    }
+}
@@ -1,7 +1,6 @@
 package com.expense.segmentation.integration;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -13,6 +12,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.expense.segmentation.config.JwtAuthenticationFilter;
 import com.expense.segmentation.config.JwtTokenUtil;
+import com.expense.segmentation.model.Category;
 import com.expense.segmentation.model.Expense;
 import com.expense.segmentation.model.ExpenseStatus;
 import com.expense.segmentation.model.ExpenseType;
@@ -20,14 +20,17 @@ import com.expense.segmentation.model.Role;
 import com.expense.segmentation.model.RoleType;
 import com.expense.segmentation.model.User;
 import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.CategoryRepository;
 import com.expense.segmentation.repository.ExpenseRepository;
 import com.expense.segmentation.repository.RoleRepository;
 import com.expense.segmentation.repository.UserRepository;
+import com.expense.segmentation.service.CategoryDictionary;
 import com.expense.segmentation.service.CustomUserDetailsService;
 import com.expense.segmentation.service.ExpenseAuthorizationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -57,6 +60,10 @@ class ExpenseSegmentIntegrationTest {
 
     @Autowired private RoleRepository roleRepository;
 
+    @Autowired private CategoryRepository categoryRepository;
+
+    @Autowired private CategoryDictionary categoryDictionary;
+
     @MockBean private JwtTokenUtil jwtTokenUtil;
 
     @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
@@ -74,6 +81,18 @@ class ExpenseSegmentIntegrationTest {
         expenseRepository.deleteAll();
         userRepository.deleteAll();
 
+        // Flyway is off in tests, so the categories segments refer to are seeded here
+        for (String name : List.of("Travel", "Meals", "Supplies")) {
+            if (categoryRepository
+                    .findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc(name)
+                    .isEmpty()) {
+                Category category = new Category();
+                category.setName(name);
+                categoryRepository.save(category);
+            }
+        }
+        categoryDictionary.refresh();
+
         // Check if role already exists, if not create it
         Role employeeRole = roleRepository.findByName(RoleType.EMPLOYEE).orElse(null);
         if (employeeRole == null) {
@@ -107,8 +126,7 @@ class ExpenseSegmentIntegrationTest {
 
         // Mock authorization service to allow modification for any expense ID
         // This simplifies testing - authorization is tested separately in unit tests
-        when(expenseAuthorizationService.canModifySegments(any(UUID.class), anyString()))
-                .thenReturn(true);
+        when(expenseAuthorizationService.canModifySegments(any(UUID.class))).thenReturn(true);
     }
 
     @Test
@@ -3,6 +3,9 @@ package com.expense.segmentation.integration;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.expense.segmentation.dto.CreateExpenseSegmentRequest;
+import com.expense.segmentation.dto.CreateMultipleExpenseSegmentsRequest;
+import com.expense.segmentation.model.Category;
 import com.expense.segmentation.model.Expense;
 import com.expense.segmentation.model.ExpenseSegment;
 import com.expense.segmentation.model.ExpenseStatus;
@@ -11,15 +14,21 @@ import com.expense.segmentation.model.Role;
 import com.expense.segmentation.model.RoleType;
 import com.expense.segmentation.model.User;
 import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.CategoryRepository;
 import com.expense.segmentation.repository.ExpenseRepository;
 import com.expense.segmentation.repository.ExpenseSegmentRepository;
 import com.expense.segmentation.repository.RoleRepository;
 import com.expense.segmentation.repository.UserRepository;
+import com.expense.segmentation.service.CategoryDictionary;
 import com.expense.segmentation.service.ExpenseSegmentService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +51,14 @@ class ExpenseSegmentServiceIntegrationTest {
 
     @Autowired private RoleRepository roleRepository;
 
+    @Autowired private CategoryRepository categoryRepository;
+
+    @Autowired private CategoryDictionary categoryDictionary;
+
+    @Autowired private EntityManager entityManager;
+
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
     private User testUser;
     private Expense testExpense;
     private UUID expenseId;
@@ -53,6 +70,20 @@ class ExpenseSegmentServiceIntegrationTest {
         expenseRepository.deleteAll();
         userRepository.deleteAll();
 
+        // Flyway is off in tests, so the categories segments refer to are seeded here
+        List<String> categories =
+                List.of("Travel", "Meals", "Supplies", "Office", "Parking", "Accommodation");
+        for (String name : categories) {
+            if (categoryRepository
+                    .findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc(name)
+                    .isEmpty()) {
+                Category category = new Category();
+                category.setName(name);
+                categoryRepository.save(category);
+            }
+        }
+        categoryDictionary.refresh();
+
         // Check if role already exists, if not create it
         Role employeeRole = roleRepository.findByName(RoleType.EMPLOYEE).orElse(null);
         if (employeeRole == null) {
@@ -232,11 +263,71 @@ class ExpenseSegmentServiceIntegrationTest {
                         "Accommodation", "Meals", "Supplies", "Travel"); // Alphabetical order
     }
 
+    @Test
+    void replaceAllExpenseSegments_WithOverlappingCategories_ShouldBatchOnlyTheDifference() {
+        // Arrange
+        ExpenseSegment travel =
+                expenseSegmentRepository.save(
+                        createExpenseSegment(
+                                "Travel", new BigDecimal("50.00"), new BigDecimal("50.00")));
+        expenseSegmentRepository.save(
+                createExpenseSegment("Meals", new BigDecimal("25.00"), new BigDecimal("25.00")));
+        expenseSegmentRepository.save(
+                createExpenseSegment("Supplies", new BigDecimal("25.00"), new BigDecimal("25.00")));
+        entityManager.flush();
+        entityManager.clear();
+        // Loaded up front so the statements counted below are the replace's own
+        expenseRepository.findById(expenseId).orElseThrow();
+
+        CreateMultipleExpenseSegmentsRequest request = new CreateMultipleExpenseSegmentsRequest();
+        request.setSegments(
+                List.of(
+                        segmentRequest("Travel", "50.00"),
+                        segmentRequest("Meals", "20.00"),
+                        segmentRequest("Office", "15.00"),
+                        segmentRequest("Parking", "15.00")));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            // Act
+            expenseSegmentService.replaceAllExpenseSegments(expenseId, request);
+            entityManager.flush();
+
+            // Assert
+            assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+            assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+            assertThat(statistics.getEntityDeleteCount()).isZero();
+            // Segment lookup, one DELETE ... IN, one insert batch and one update batch
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        entityManager.clear();
+        List<ExpenseSegment> stored =
+                expenseSegmentRepository.findByExpenseIdOrderByCategory(expenseId);
+        assertThat(stored)
+                .extracting(ExpenseSegment::getCategory)
+                .containsExactly("Meals", "Office", "Parking", "Travel");
+        assertThat(stored.get(3).getId()).isEqualTo(travel.getId());
+        assertThat(stored.get(0).getAmount()).isEqualByComparingTo("20.00");
+    }
+
+    private CreateExpenseSegmentRequest segmentRequest(String category, String amount) {
+        CreateExpenseSegmentRequest request = new CreateExpenseSegmentRequest();
+        request.setCategory(category);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
     private ExpenseSegment createExpenseSegment(
             String category, BigDecimal amount, BigDecimal percentage) {
         ExpenseSegment segment = new ExpenseSegment();
         segment.setExpense(testExpense);
         segment.setCategory(category);
+        segment.setCategoryId(categoryDictionary.resolve(category).orElseThrow().id());
         segment.setAmount(amount);
         segment.setPercentage(percentage);
         return segment;
@@ -0,0 +1,77 @@
+package com.expense.segmentation.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    @Test
+    void of_ShouldRoundHalfUpToCents() {
+        assertThat(Money.of(new BigDecimal("12.5")).cents()).isEqualTo(1250);
+        assertThat(Money.of(new BigDecimal("0.005")).cents()).isEqualTo(1);
+        assertThat(Money.of(new BigDecimal("-0.005")).cents()).isEqualTo(-1);
+        assertThat(Money.of(new BigDecimal("100")).toString()).isEqualTo("100.00");
+    }
+
+    @Test
+    void arithmetic_ShouldBeExact() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < 10; i++) {
+            total = total.plus(Money.of(new BigDecimal("0.10")));
+        }
+
+        assertThat(total).isEqualTo(Money.of(BigDecimal.ONE));
+        assertThat(total.minus(Money.of(new BigDecimal("0.01"))).toBigDecimal())
+                .isEqualTo(new BigDecimal("0.99"));
+        assertThatThrownBy(() -> new Money(Long.MAX_VALUE).plus(new Money(1)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void percentOf_ShouldMatchDecimalHalfUpDivision() {
+        Money total = Money.of(new BigDecimal("300.00"));
+
+        assertThat(Money.of(new BigDecimal("100.00")).percentOf(total))
+                .isEqualTo(new BigDecimal("33.33"));
+        assertThat(Money.of(new BigDecimal("200.00")).percentOf(total))
+                .isEqualTo(new BigDecimal("66.67"));
+        assertThat(new Money(1).percentOf(new Money(8))).isEqualTo(new BigDecimal("12.50"));
+        assertThat(Money.of(BigDecimal.TEN).percentOf(Money.ZERO)).isEqualTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void allocate_ShouldGiveLeftoverCentsToLargestRemainders() {
+        Money[] thirds = Money.of(new BigDecimal("10.00")).allocate(3333, 3333, 3334);
+        Money[] tied = Money.of(new BigDecimal("0.05")).allocate(7000, 3000);
+        Money[] even = Money.of(new BigDecimal("100.00")).allocate(1, 1, 1);
+
+        assertThat(thirds).extracting(Money::cents).containsExactly(333L, 333L, 334L);
+        assertThat(tied).extracting(Money::cents).containsExactly(4L, 1L);
+        assertThat(even).extracting(Money::cents).containsExactly(3334L, 3333L, 3333L);
+    }
+
+    @Test
+    void allocate_ShouldAlwaysAddUpToTheAmount() {
+        long[] weights = {1234, 2345, 3456, 2965};
+        for (long cents = 0; cents < 5000; cents++) {
+            Money amount = new Money(cents);
+
+            long allocated =
+                    Arrays.stream(amount.allocate(weights)).mapToLong(Money::cents).sum();
+
+            assertThat(allocated).isEqualTo(cents);
+        }
+    }
+
+    @Test
+    void allocate_WithoutPositiveWeight_ShouldThrowException() {
+        assertThatThrownBy(() -> Money.of(BigDecimal.ONE).allocate(0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Money(-1).allocate(1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,110 @@
+package com.expense.segmentation.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.expense.segmentation.model.ApiKey;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ApiKeyRepositoryTest {
+
+    @Autowired private TestEntityManager entityManager;
+
+    @Autowired private ApiKeyRepository apiKeyRepository;
+
+    private User activeUser;
+    private User inactiveUser;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        Role employeeRole = new Role();
+        employeeRole.setName(RoleType.EMPLOYEE);
+        employeeRole.setDescription("Employee");
+        employeeRole = entityManager.persist(employeeRole);
+
+        activeUser = persistUser("erp@example.com", UserStatus.ACTIVE, employeeRole);
+        inactiveUser = persistUser("old@example.com", UserStatus.INACTIVE, employeeRole);
+
+        now = LocalDateTime.now();
+        entityManager.flush();
+    }
+
+    @Test
+    void findUsable_ShouldExcludeRevokedExpiredAndInactiveOwners() {
+        // Given
+        persistKey("aaaaaaaaaaaa", activeUser, null, null);
+        persistKey("bbbbbbbbbbbb", activeUser, now.plusDays(1), null);
+        persistKey("cccccccccccc", activeUser, now.minusDays(1), null);
+        persistKey("dddddddddddd", activeUser, null, now.minusHours(1));
+        persistKey("eeeeeeeeeeee", inactiveUser, null, null);
+        entityManager.clear();
+
+        // When
+        List<ApiKey> usable = apiKeyRepository.findUsable(now);
+
+        // Then
+        assertThat(usable)
+                .extracting(ApiKey::getPrefix)
+                .containsExactlyInAnyOrder("aaaaaaaaaaaa", "bbbbbbbbbbbb");
+        assertThat(usable.get(0).getUser().getRole().getName()).isEqualTo(RoleType.EMPLOYEE);
+    }
+
+    @Test
+    void findUsableByUserId_ShouldReturnOnlyThatUsersKeys() {
+        // Given
+        persistKey("aaaaaaaaaaaa", activeUser, null, null);
+        persistKey("eeeeeeeeeeee", inactiveUser, null, null);
+
+        // When & Then
+        assertThat(apiKeyRepository.findUsableByUserId(activeUser.getId(), now))
+                .extracting(ApiKey::getPrefix)
+                .containsExactly("aaaaaaaaaaaa");
+        assertThat(apiKeyRepository.findUsableByUserId(inactiveUser.getId(), now)).isEmpty();
+    }
+
+    @Test
+    void existsByPrefix_ShouldDetectTakenPrefixes() {
+        // Given
+        persistKey("aaaaaaaaaaaa", activeUser, null, null);
+
+        // When & Then
+        assertThat(apiKeyRepository.existsByPrefix("aaaaaaaaaaaa")).isTrue();
+        assertThat(apiKeyRepository.existsByPrefix("ffffffffffff")).isFalse();
+    }
+
+    private User persistUser(String email, UserStatus status, Role role) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setPasswordHash("password");
+        user.setRole(role);
+        user.setStatus(status);
+        return entityManager.persist(user);
+    }
+
+    private void persistKey(
+            String prefix, User owner, LocalDateTime expiresAt, LocalDateTime revokedAt) {
+        ApiKey apiKey = new ApiKey();
+        apiKey.setName("Key " + prefix);
+        apiKey.setPrefix(prefix);
+        apiKey.setSecretHash("0".repeat(64));
+        apiKey.setUser(owner);
+        apiKey.setRole(RoleType.EMPLOYEE);
+        apiKey.setExpiresAt(expiresAt);
+        apiKey.setRevokedAt(revokedAt);
+        entityManager.persistAndFlush(apiKey);
+    }
+}
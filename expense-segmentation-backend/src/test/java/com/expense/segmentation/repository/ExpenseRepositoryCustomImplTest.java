@@ -0,0 +1,316 @@
+package com.expense.segmentation.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Verifies that the dynamic expense filters emit only the supplied predicates and that the database
+ * answers every common filter combination from an index rather than a table scan. The plans come
+ * from H2's EXPLAIN on the exact SQL Hibernate generated.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class ExpenseRepositoryCustomImplTest {
+
+    @Autowired private TestEntityManager entityManager;
+
+    @Autowired private ExpenseRepository expenseRepository;
+
+    @Autowired private SqlCapture sqlCapture;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        Role employeeRole = new Role();
+        employeeRole.setName(RoleType.EMPLOYEE);
+        entityManager.persist(employeeRole);
+
+        owner = new User();
+        owner.setName("Owner");
+        owner.setEmail("owner@example.com");
+        owner.setPasswordHash("password");
+        owner.setStatus(UserStatus.ACTIVE);
+        owner.setRole(employeeRole);
+        entityManager.persist(owner);
+
+        for (int i = 0; i < 5; i++) {
+            Expense expense = new Expense();
+            expense.setDate(LocalDate.now().minusDays(i));
+            expense.setVendor("Vendor " + i);
+            expense.setDescription("Description of expense " + i);
+            expense.setAmount(new BigDecimal("10.00"));
+            expense.setType(i % 2 == 0 ? ExpenseType.EXPENSE : ExpenseType.INVOICE);
+            expense.setStatus(i % 2 == 0 ? ExpenseStatus.SUBMITTED : ExpenseStatus.APPROVED);
+            expense.setCreatedBy(owner);
+            entityManager.persist(expense);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        sqlCapture.clear();
+    }
+
+    @Test
+    void findExpensesWithFilters_WithoutFilters_ShouldEmitNoWhereClause() {
+        // When
+        expenseRepository.findExpensesWithFilters(null, null, null, null, null, 0, 10, null);
+
+        // Then
+        assertThat(sqlCapture.statements())
+                .singleElement()
+                .satisfies(sql -> assertThat(sql.toLowerCase()).doesNotContain(" where "));
+    }
+
+    @Test
+    void findExpensesWithFilters_WithSomeFilters_ShouldEmitOnlySuppliedPredicates() {
+        // When
+        List<ExpenseListRow> expenses =
+                expenseRepository.findExpensesWithFilters(
+                        owner.getId(), null, null, null, ExpenseStatus.SUBMITTED, 0, 10, null);
+
+        // Then
+        assertThat(expenses).hasSize(3);
+        assertThat(sqlCapture.statements())
+                .singleElement()
+                .satisfies(
+                        sql ->
+                                assertThat(sql.toLowerCase())
+                                        .contains("created_by=?", "status=?")
+                                        .doesNotContain("is null", "cast(", "type=?"));
+    }
+
+    @Test
+    void findExpensesWithFilters_ShouldProjectRowsWithoutManagingEntities() {
+        // When
+        List<ExpenseListRow> rows =
+                expenseRepository.findExpensesWithFilters(
+                        null, null, null, null, null, 0, 10, null);
+
+        // Then
+        assertThat(rows).hasSize(5);
+        assertThat(rows.get(0))
+                .satisfies(
+                        row -> {
+                            assertThat(row.vendor()).isEqualTo("Vendor 0");
+                            assertThat(row.description()).isEqualTo("Description of expense 0");
+                            assertThat(row.createdById()).isEqualTo(owner.getId());
+                            assertThat(row.createdByName()).isEqualTo("Owner");
+                            assertThat(row.createdByEmail()).isEqualTo("owner@example.com");
+                        });
+        assertThat(
+                        entityManager
+                                .getEntityManager()
+                                .unwrap(Session.class)
+                                .getStatistics()
+                                .getEntityCount())
+                .isZero();
+    }
+
+    @Test
+    void findExpensesWithFilters_WithDescriptionLength_ShouldTruncateInQuery() {
+        // When
+        List<ExpenseListRow> rows =
+                expenseRepository.findExpensesWithFilters(null, null, null, null, null, 0, 10, 11);
+
+        // Then
+        assertThat(rows).extracting(ExpenseListRow::description).containsOnly("Description");
+        assertThat(sqlCapture.statements())
+                .singleElement()
+                .satisfies(sql -> assertThat(sql.toLowerCase()).contains("substring("));
+    }
+
+    @Test
+    void streamExpensesWithFilters_ShouldStreamMatchingRowsInListOrder() {
+        // When
+        List<String> vendors;
+        try (Stream<ExpenseListRow> rows =
+                expenseRepository.streamExpensesWithFilters(
+                        owner.getId(), null, null, null, ExpenseStatus.SUBMITTED, 2)) {
+            vendors = rows.map(ExpenseListRow::vendor).toList();
+        }
+
+        // Then
+        assertThat(vendors).containsExactly("Vendor 0", "Vendor 2", "Vendor 4");
+    }
+
+    @Test
+    void countExpensesWithFilters_ByUser_ShouldUseCreatedByIndex() {
+        // When
+        String plan =
+                explain(
+                        () ->
+                                expenseRepository.countExpensesWithFilters(
+                                        owner.getId(), null, null, null, null));
+
+        // Then
+        assertThat(plan).containsIgnoringCase("idx_expenses_created_by_date");
+    }
+
+    @Test
+    void countExpensesWithFilters_ByUserAndDateRange_ShouldUseCreatedByIndex() {
+        // When
+        String plan =
+                explain(
+                        () ->
+                                expenseRepository.countExpensesWithFilters(
+                                        owner.getId(),
+                                        LocalDate.now().minusDays(3),
+                                        LocalDate.now(),
+                                        null,
+                                        null));
+
+        // Then
+        assertThat(plan).containsIgnoringCase("idx_expenses_created_by_date");
+    }
+
+    @Test
+    void countExpensesWithFilters_ByStatus_ShouldUseStatusIndex() {
+        // When
+        String plan =
+                explain(
+                        () ->
+                                expenseRepository.countExpensesWithFilters(
+                                        null, null, null, null, ExpenseStatus.SUBMITTED));
+
+        // Then
+        assertThat(plan).containsIgnoringCase("idx_expenses_status_date");
+    }
+
+    @Test
+    void countExpensesWithFilters_ByStatusAndDateRange_ShouldUseStatusIndex() {
+        // When
+        String plan =
+                explain(
+                        () ->
+                                expenseRepository.countExpensesWithFilters(
+                                        null,
+                                        LocalDate.now().minusDays(3),
+                                        LocalDate.now(),
+                                        null,
+                                        ExpenseStatus.SUBMITTED));
+
+        // Then
+        assertThat(plan).containsIgnoringCase("idx_expenses_status_date");
+    }
+
+    @Test
+    void countExpensesWithFilters_ByDateRange_ShouldUseDateIndex() {
+        // When
+        String plan =
+                explain(
+                        () ->
+                                expenseRepository.countExpensesWithFilters(
+                                        null,
+                                        LocalDate.now().minusDays(3),
+                                        LocalDate.now(),
+                                        null,
+                                        null));
+
+        // Then
+        assertThat(plan).containsIgnoringCase("idx_expenses_date_created_at_id");
+    }
+
+    @Test
+    void countExpensesWithFilters_ByType_ShouldUseTypeIndex() {
+        // When
+        String plan =
+                explain(
+                        () ->
+                                expenseRepository.countExpensesWithFilters(
+                                        null, null, null, ExpenseType.INVOICE, null));
+
+        // Then
+        assertThat(plan).containsIgnoringCase("idx_expenses_type");
+    }
+
+    /**
+     * Runs the query, then asks H2 for the plan of the SQL it issued. The plan is chosen when the
+     * statement is prepared, so the parameter values bound here do not affect it.
+     */
+    private String explain(Runnable query) {
+        query.run();
+        String sql = sqlCapture.statements().get(sqlCapture.statements().size() - 1);
+        String plan =
+                entityManager
+                        .getEntityManager()
+                        .unwrap(Session.class)
+                        .doReturningWork(connection -> explainPlan(connection, sql));
+        assertThat(plan).doesNotContainIgnoringCase("tableScan");
+        return plan;
+    }
+
+    private static String explainPlan(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    /** Records every SQL statement Hibernate prepares. */
+    static class SqlCapture implements StatementInspector {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        List<String> statements() {
+            return statements;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureCustomizer(SqlCapture sqlCapture) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCapture);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.expense.segmentation.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ExpenseRepositoryTest {
+
+    @Autowired private TestEntityManager entityManager;
+
+    @Autowired private ExpenseRepository expenseRepository;
+
+    private User owner;
+    private User otherUser;
+    private Expense ownExpense;
+    private Expense otherExpense;
+
+    @BeforeEach
+    void setUp() {
+        Role employeeRole = new Role();
+        employeeRole.setName(RoleType.EMPLOYEE);
+        entityManager.persist(employeeRole);
+
+        owner = createUser("owner@example.com", employeeRole);
+        otherUser = createUser("other@example.com", employeeRole);
+
+        ownExpense = createExpense(owner);
+        otherExpense = createExpense(otherUser);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findOwnerIdById_WithExistingExpense_ShouldReturnCreatorId() {
+        // Act
+        Optional<UUID> ownerId = expenseRepository.findOwnerIdById(ownExpense.getId());
+
+        // Assert
+        assertThat(ownerId).contains(owner.getId());
+    }
+
+    @Test
+    void findOwnerIdById_WithNonExistingExpense_ShouldReturnEmpty() {
+        // Act
+        Optional<UUID> ownerId = expenseRepository.findOwnerIdById(UUID.randomUUID());
+
+        // Assert
+        assertThat(ownerId).isEmpty();
+    }
+
+    @Test
+    void findExpensesAfterCursor_ShouldWalkAllPagesWithoutGapsOrDuplicates() {
+        // Arrange - same-day expenses force the createdAt/id tie-breakers to matter
+        for (int i = 0; i < 5; i++) {
+            createExpense(owner);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        List<UUID> expectedOrder =
+                expenseRepository
+                        .findExpensesWithFilters(null, null, null, null, null, 0, 100, null)
+                        .stream()
+                        .map(ExpenseListRow::id)
+                        .toList();
+
+        // Act
+        List<ExpenseListRow> page =
+                expenseRepository.findExpensesWithFilters(
+                        null, null, null, null, null, 0, 3, null);
+        List<UUID> walked = new ArrayList<>(page.stream().map(ExpenseListRow::id).toList());
+        while (!page.isEmpty()) {
+            ExpenseListRow last = page.get(page.size() - 1);
+            page =
+                    expenseRepository.findExpensesAfterCursor(
+                            null,
+                            null,
+                            null,
+                            null,
+                            null,
+                            last.date(),
+                            last.createdAt(),
+                            last.id(),
+                            3,
+                            null);
+            page.forEach(row -> walked.add(row.id()));
+        }
+
+        // Assert
+        assertThat(expectedOrder).hasSize(7);
+        assertThat(walked).containsExactlyElementsOf(expectedOrder);
+    }
+
+    @Test
+    void findExpensesAfterCursor_ShouldApplyFilters() {
+        // Arrange
+        ExpenseListRow newest =
+                expenseRepository
+                        .findExpensesWithFilters(owner.getId(), null, null, null, null, 0, 1, null)
+                        .get(0);
+
+        // Act
+        List<ExpenseListRow> afterNewest =
+                expenseRepository.findExpensesAfterCursor(
+                        owner.getId(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        newest.date(),
+                        newest.createdAt(),
+                        newest.id(),
+                        10,
+                        null);
+
+        // Assert
+        assertThat(afterNewest).isEmpty();
+        assertThat(
+                        expenseRepository.countExpensesWithFilters(
+                                owner.getId(), null, null, null, null))
+                .isEqualTo(1);
+    }
+
+    private User createUser(String email, Role role) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setPasswordHash("password");
+        user.setStatus(UserStatus.ACTIVE);
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+
+    private Expense createExpense(User createdBy) {
+        Expense expense = new Expense();
+        expense.setDate(LocalDate.now());
+        expense.setVendor("Test Vendor");
+        expense.setAmount(new BigDecimal("100.00"));
+        expense.setType(ExpenseType.EXPENSE);
+        expense.setStatus(ExpenseStatus.SUBMITTED);
+        expense.setCreatedBy(createdBy);
+        return entityManager.persist(expense);
+    }
+}
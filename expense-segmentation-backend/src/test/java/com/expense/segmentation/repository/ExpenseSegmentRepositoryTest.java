@@ -1,6 +1,7 @@
 package com.expense.segmentation.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import com.expense.segmentation.model.Expense;
 import com.expense.segmentation.model.ExpenseSegment;
@@ -145,6 +146,59 @@ class ExpenseSegmentRepositoryTest {
         assertThat(afterDelete).isEmpty();
     }
 
+    @Test
+    void findByExpenseIdInOrderByCategory_ShouldReturnSegmentsOfAllGivenExpenses() {
+        // Arrange
+        Expense otherExpense = new Expense();
+        otherExpense.setDate(LocalDate.now());
+        otherExpense.setVendor("Other Vendor");
+        otherExpense.setAmount(new BigDecimal("50.00"));
+        otherExpense.setType(ExpenseType.EXPENSE);
+        otherExpense.setStatus(ExpenseStatus.SUBMITTED);
+        otherExpense.setCreatedBy(testUser);
+        entityManager.persist(otherExpense);
+
+        entityManager.persist(
+                createExpenseSegment("Travel", new BigDecimal("40.00"), new BigDecimal("40.00")));
+        ExpenseSegment otherSegment =
+                createExpenseSegment("Meals", new BigDecimal("50.00"), new BigDecimal("100.00"));
+        otherSegment.setExpense(otherExpense);
+        entityManager.persist(otherSegment);
+        entityManager.flush();
+
+        // Act
+        List<ExpenseSegment> segments =
+                expenseSegmentRepository.findByExpenseIdInOrderByCategory(
+                        List.of(testExpense.getId(), otherExpense.getId(), UUID.randomUUID()));
+
+        // Assert
+        assertThat(segments)
+                .extracting(segment -> segment.getExpense().getId(), ExpenseSegment::getCategory)
+                .containsExactly(
+                        tuple(otherExpense.getId(), "Meals"), tuple(testExpense.getId(), "Travel"));
+    }
+
+    @Test
+    void findRowsByExpenseIdIn_ShouldProjectSegmentsWithExpenseId() {
+        // Arrange
+        entityManager.persist(
+                createExpenseSegment("Travel", new BigDecimal("40.00"), new BigDecimal("40.00")));
+        entityManager.persist(
+                createExpenseSegment("Meals", new BigDecimal("60.00"), new BigDecimal("60.00")));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<ExpenseSegmentRow> rows =
+                expenseSegmentRepository.findRowsByExpenseIdIn(List.of(testExpense.getId()));
+
+        // Assert
+        assertThat(rows)
+                .extracting(ExpenseSegmentRow::expenseId, ExpenseSegmentRow::category)
+                .containsExactly(
+                        tuple(testExpense.getId(), "Meals"), tuple(testExpense.getId(), "Travel"));
+    }
+
     @Test
     void save_ShouldPersistExpenseSegment() {
         // Arrange
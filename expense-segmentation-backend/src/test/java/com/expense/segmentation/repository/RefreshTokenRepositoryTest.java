@@ -0,0 +1,131 @@
+package com.expense.segmentation.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.expense.segmentation.model.RefreshToken;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RefreshTokenRepositoryTest {
+
+    @Autowired private TestEntityManager entityManager;
+
+    @Autowired private RefreshTokenRepository refreshTokenRepository;
+
+    private User user;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        Role employeeRole = new Role();
+        employeeRole.setName(RoleType.EMPLOYEE);
+        employeeRole.setDescription("Employee");
+        employeeRole = entityManager.persist(employeeRole);
+
+        user = new User();
+        user.setName("John Doe");
+        user.setEmail("john@example.com");
+        user.setPasswordHash("password123");
+        user.setRole(employeeRole);
+        user.setStatus(UserStatus.ACTIVE);
+        user = entityManager.persist(user);
+
+        now = LocalDateTime.now();
+        entityManager.flush();
+    }
+
+    @Test
+    void findByTokenHashForUpdate_ShouldReturnTokenWithUser() {
+        // Given
+        persistToken(UUID.randomUUID(), "hash-1", null);
+        entityManager.clear();
+
+        // When
+        RefreshToken found =
+                refreshTokenRepository.findByTokenHashForUpdate("hash-1").orElseThrow();
+
+        // Then
+        assertThat(found.getUser().getEmail()).isEqualTo("john@example.com");
+    }
+
+    @Test
+    void findEndedSessionIdsSince_ShouldIgnoreRotatedButActiveSessions() {
+        // Given
+        UUID rotatedSession = UUID.randomUUID();
+        persistToken(rotatedSession, "rotated-old", now.minusMinutes(1));
+        persistToken(rotatedSession, "rotated-new", null);
+
+        UUID endedSession = UUID.randomUUID();
+        persistToken(endedSession, "ended-old", now.minusMinutes(2));
+        persistToken(endedSession, "ended-new", now.minusMinutes(1));
+
+        UUID longEndedSession = UUID.randomUUID();
+        persistToken(longEndedSession, "long-ended", now.minusDays(1));
+
+        // When
+        List<UUID> ended = refreshTokenRepository.findEndedSessionIdsSince(now.minusHours(1));
+
+        // Then
+        assertThat(ended).containsExactly(endedSession);
+    }
+
+    @Test
+    void revokeAllByUserId_ShouldRevokeOnlyActiveTokens() {
+        // Given
+        UUID firstSession = UUID.randomUUID();
+        UUID secondSession = UUID.randomUUID();
+        persistToken(firstSession, "first-old", now.minusMinutes(1));
+        persistToken(firstSession, "first-new", null);
+        persistToken(secondSession, "second", null);
+
+        // When
+        List<UUID> active = refreshTokenRepository.findActiveSessionIdsByUserId(user.getId());
+        int revoked = refreshTokenRepository.revokeAllByUserId(user.getId(), now);
+        entityManager.clear();
+
+        // Then
+        assertThat(active).containsExactlyInAnyOrder(firstSession, secondSession);
+        assertThat(revoked).isEqualTo(2);
+        assertThat(refreshTokenRepository.findActiveSessionIdsByUserId(user.getId())).isEmpty();
+    }
+
+    @Test
+    void deleteExpiredBefore_ShouldDeleteOnlyExpiredTokens() {
+        // Given
+        RefreshToken expired = persistToken(UUID.randomUUID(), "expired", null);
+        expired.setExpiresAt(now.minusDays(2));
+        persistToken(UUID.randomUUID(), "valid", null);
+        entityManager.flush();
+
+        // When
+        int deleted = refreshTokenRepository.deleteExpiredBefore(now.minusDays(1));
+
+        // Then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(refreshTokenRepository.findByTokenHash("expired")).isEmpty();
+        assertThat(refreshTokenRepository.findByTokenHash("valid")).isPresent();
+    }
+
+    private RefreshToken persistToken(UUID sessionId, String tokenHash, LocalDateTime revokedAt) {
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setSessionId(sessionId);
+        token.setTokenHash(tokenHash);
+        token.setExpiresAt(now.plusDays(14));
+        token.setRevokedAt(revokedAt);
+        return entityManager.persistAndFlush(token);
+    }
+}
@@ -0,0 +1,62 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class AfterCommitTest {
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void run_OutsideTransaction_ShouldRunImmediately() {
+        // When
+        AfterCommit.run(runs::incrementAndGet);
+
+        // Then
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void run_InsideTransaction_ShouldWaitForCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        AfterCommit.run(runs::incrementAndGet);
+
+        // Then
+        assertThat(runs).hasValue(0);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void run_WhenTransactionRollsBack_ShouldNeverRun() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        AfterCommit.run(runs::incrementAndGet);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(
+                        synchronization ->
+                                synchronization.afterCompletion(
+                                        TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        assertThat(runs).hasValue(0);
+    }
+}
@@ -0,0 +1,199 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.model.ApiKey;
+import com.expense.segmentation.model.Department;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.ApiKeyRepository;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class ApiKeyRegistryTest {
+
+    private static final String PREFIX = "0123456789ab";
+    private static final String SECRET = "s3cr3t-s3cr3t-s3cr3t";
+    private static final String RAW_KEY = "esk_" + PREFIX + SECRET;
+
+    @Mock private ApiKeyRepository apiKeyRepository;
+
+    private ApiKeyRegistry apiKeyRegistry;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        apiKeyRegistry = new ApiKeyRegistry(apiKeyRepository);
+
+        Role financeRole = new Role();
+        financeRole.setName(RoleType.FINANCE);
+
+        Department department = new Department();
+        department.setId(UUID.randomUUID());
+
+        owner = new User();
+        owner.setId(UUID.randomUUID());
+        owner.setEmail("erp@example.com");
+        owner.setRole(financeRole);
+        owner.setDepartment(department);
+        owner.setStatus(UserStatus.ACTIVE);
+    }
+
+    @Test
+    void authenticate_WithRegisteredKey_ShouldReturnOwnerIdentity() {
+        // Given
+        apiKeyRegistry.register(apiKey(PREFIX, SECRET, RoleType.FINANCE, null));
+
+        // When
+        AuthenticatedUser principal = apiKeyRegistry.authenticate(RAW_KEY).orElseThrow();
+
+        // Then
+        assertThat(principal.id()).isEqualTo(owner.getId());
+        assertThat(principal.email()).isEqualTo("erp@example.com");
+        assertThat(principal.role()).isEqualTo(RoleType.FINANCE);
+        assertThat(principal.departmentId()).isEqualTo(owner.getDepartment().getId());
+    }
+
+    @Test
+    void authenticate_WithNarrowedKey_ShouldUseKeyRole() {
+        // Given
+        apiKeyRegistry.register(apiKey(PREFIX, SECRET, RoleType.EMPLOYEE, null));
+
+        // When & Then
+        assertThat(apiKeyRegistry.authenticate(RAW_KEY))
+                .hasValueSatisfying(p -> assertThat(p.role()).isEqualTo(RoleType.EMPLOYEE));
+    }
+
+    @Test
+    void authenticate_WhenOwnerRoleNoLongerMatches_ShouldFallBackToEmployee() {
+        // Given
+        apiKeyRegistry.register(apiKey(PREFIX, SECRET, RoleType.ADMIN, null));
+
+        // When & Then
+        assertThat(apiKeyRegistry.authenticate(RAW_KEY))
+                .hasValueSatisfying(p -> assertThat(p.role()).isEqualTo(RoleType.EMPLOYEE));
+    }
+
+    @Test
+    void authenticate_WithWrongSecret_ShouldReturnEmpty() {
+        // Given
+        apiKeyRegistry.register(apiKey(PREFIX, SECRET, RoleType.FINANCE, null));
+
+        // When & Then
+        assertThat(apiKeyRegistry.authenticate("esk_" + PREFIX + "wrong")).isEmpty();
+    }
+
+    @Test
+    void authenticate_WithMalformedOrUnknownKey_ShouldReturnEmpty() {
+        // Given
+        apiKeyRegistry.register(apiKey(PREFIX, SECRET, RoleType.FINANCE, null));
+
+        // When & Then
+        assertThat(apiKeyRegistry.authenticate(null)).isEmpty();
+        assertThat(apiKeyRegistry.authenticate("")).isEmpty();
+        assertThat(apiKeyRegistry.authenticate("esk_" + PREFIX)).isEmpty();
+        assertThat(apiKeyRegistry.authenticate("xyz_" + PREFIX + SECRET)).isEmpty();
+        assertThat(apiKeyRegistry.authenticate("esk_ba9876543210" + SECRET)).isEmpty();
+    }
+
+    @Test
+    void authenticate_WithExpiredKey_ShouldReturnEmpty() {
+        // Given
+        apiKeyRegistry.register(
+                apiKey(PREFIX, SECRET, RoleType.FINANCE, LocalDateTime.now().minusMinutes(1)));
+
+        // When & Then
+        assertThat(apiKeyRegistry.authenticate(RAW_KEY)).isEmpty();
+    }
+
+    @Test
+    void remove_ShouldStopKeyFromAuthenticating() {
+        // Given
+        apiKeyRegistry.register(apiKey(PREFIX, SECRET, RoleType.FINANCE, null));
+
+        // When
+        apiKeyRegistry.remove(PREFIX);
+
+        // Then
+        assertThat(apiKeyRegistry.authenticate(RAW_KEY)).isEmpty();
+    }
+
+    @Test
+    void refresh_ShouldReplaceIndexWithUsableKeys() {
+        // Given
+        apiKeyRegistry.register(apiKey("aaaaaaaaaaaa", SECRET, RoleType.FINANCE, null));
+        when(apiKeyRepository.findUsable(any()))
+                .thenReturn(List.of(apiKey(PREFIX, SECRET, RoleType.FINANCE, null)));
+
+        // When
+        apiKeyRegistry.refresh();
+
+        // Then
+        assertThat(apiKeyRegistry.authenticate(RAW_KEY)).isPresent();
+        assertThat(apiKeyRegistry.authenticate("esk_aaaaaaaaaaaa" + SECRET)).isEmpty();
+    }
+
+    @Test
+    void refresh_WhenDatabaseFails_ShouldKeepPreviousIndex() {
+        // Given
+        apiKeyRegistry.register(apiKey(PREFIX, SECRET, RoleType.FINANCE, null));
+        when(apiKeyRepository.findUsable(any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        // When
+        apiKeyRegistry.refresh();
+
+        // Then
+        assertThat(apiKeyRegistry.authenticate(RAW_KEY)).isPresent();
+    }
+
+    @Test
+    void reloadUser_ShouldReplaceOnlyThatUsersKeys() {
+        // Given
+        User other = new User();
+        other.setId(UUID.randomUUID());
+        other.setEmail("other@example.com");
+        other.setRole(owner.getRole());
+        ApiKey otherKey = apiKey("bbbbbbbbbbbb", SECRET, RoleType.FINANCE, null);
+        otherKey.setUser(other);
+
+        apiKeyRegistry.register(apiKey(PREFIX, SECRET, RoleType.FINANCE, null));
+        apiKeyRegistry.register(otherKey);
+        when(apiKeyRepository.findUsableByUserId(eq(owner.getId()), any())).thenReturn(List.of());
+
+        // When - e.g. the owner was deactivated
+        apiKeyRegistry.reloadUser(owner.getId());
+
+        // Then
+        assertThat(apiKeyRegistry.authenticate(RAW_KEY)).isEmpty();
+        assertThat(apiKeyRegistry.authenticate("esk_bbbbbbbbbbbb" + SECRET)).isPresent();
+    }
+
+    private ApiKey apiKey(String prefix, String secret, RoleType role, LocalDateTime expiresAt) {
+        ApiKey apiKey = new ApiKey();
+        apiKey.setId(UUID.randomUUID());
+        apiKey.setName("ERP");
+        apiKey.setPrefix(prefix);
+        apiKey.setSecretHash(HexFormat.of().formatHex(ApiKeyRegistry.sha256(secret)));
+        apiKey.setUser(owner);
+        apiKey.setRole(role);
+        apiKey.setExpiresAt(expiresAt);
+        return apiKey;
+    }
+}
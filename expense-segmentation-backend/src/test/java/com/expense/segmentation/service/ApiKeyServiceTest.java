@@ -0,0 +1,178 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.dto.ApiKeyResponse;
+import com.expense.segmentation.dto.CreateApiKeyRequest;
+import com.expense.segmentation.exception.InvalidOperationException;
+import com.expense.segmentation.exception.ResourceNotFoundException;
+import com.expense.segmentation.mapper.ApiKeyMapper;
+import com.expense.segmentation.model.ApiKey;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.ApiKeyRepository;
+import com.expense.segmentation.repository.UserRepository;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ApiKeyServiceTest {
+
+    @Mock private ApiKeyRepository apiKeyRepository;
+
+    @Mock private UserRepository userRepository;
+
+    @Mock private ApiKeyRegistry apiKeyRegistry;
+
+    private ApiKeyService apiKeyService;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        apiKeyService =
+                new ApiKeyService(
+                        apiKeyRepository, userRepository, apiKeyRegistry, new ApiKeyMapper());
+
+        Role financeRole = new Role();
+        financeRole.setName(RoleType.FINANCE);
+
+        owner = new User();
+        owner.setId(UUID.randomUUID());
+        owner.setEmail("erp@example.com");
+        owner.setRole(financeRole);
+        owner.setStatus(UserStatus.ACTIVE);
+    }
+
+    @Test
+    void createApiKey_ShouldStoreOnlyHashAndReturnFullKeyOnce() {
+        // Given
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(apiKeyRepository.existsByPrefix(anyString())).thenReturn(false);
+        when(apiKeyRepository.save(any(ApiKey.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        ApiKeyResponse response =
+                apiKeyService.createApiKey(
+                        new CreateApiKeyRequest("ERP", owner.getId(), null, null));
+
+        // Then
+        ArgumentCaptor<ApiKey> captor = ArgumentCaptor.forClass(ApiKey.class);
+        verify(apiKeyRepository).save(captor.capture());
+        ApiKey stored = captor.getValue();
+
+        assertThat(stored.getPrefix()).hasSize(ApiKeyRegistry.PREFIX_LENGTH);
+        assertThat(stored.getRole()).isEqualTo(RoleType.FINANCE);
+        assertThat(response.getKey()).startsWith("esk_" + stored.getPrefix());
+
+        String secret = response.getKey().substring(4 + ApiKeyRegistry.PREFIX_LENGTH);
+        assertThat(stored.getSecretHash())
+                .isEqualTo(HexFormat.of().formatHex(ApiKeyRegistry.sha256(secret)))
+                .doesNotContain(secret);
+        verify(apiKeyRegistry).register(stored);
+    }
+
+    @Test
+    void createApiKey_WithEmployeeRole_ShouldNarrowKey() {
+        // Given
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(apiKeyRepository.save(any(ApiKey.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        ApiKeyResponse response =
+                apiKeyService.createApiKey(
+                        new CreateApiKeyRequest("ERP", owner.getId(), RoleType.EMPLOYEE, null));
+
+        // Then
+        assertThat(response.getRole()).isEqualTo(RoleType.EMPLOYEE);
+    }
+
+    @Test
+    void createApiKey_WithRoleAboveOwner_ShouldThrowException() {
+        // Given
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+
+        // When & Then
+        assertThatThrownBy(
+                        () ->
+                                apiKeyService.createApiKey(
+                                        new CreateApiKeyRequest(
+                                                "ERP", owner.getId(), RoleType.ADMIN, null)))
+                .isInstanceOf(InvalidOperationException.class);
+        verify(apiKeyRepository, never()).save(any());
+    }
+
+    @Test
+    void createApiKey_ForInactiveUser_ShouldThrowException() {
+        // Given
+        owner.setStatus(UserStatus.INACTIVE);
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+
+        // When & Then
+        assertThatThrownBy(
+                        () ->
+                                apiKeyService.createApiKey(
+                                        new CreateApiKeyRequest("ERP", owner.getId(), null, null)))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessageContaining("inactive");
+        verify(apiKeyRepository, never()).save(any());
+    }
+
+    @Test
+    void createApiKey_ForUnknownUser_ShouldThrowException() {
+        // Given
+        UUID unknownId = UUID.randomUUID();
+        when(userRepository.findById(unknownId)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(
+                        () ->
+                                apiKeyService.createApiKey(
+                                        new CreateApiKeyRequest("ERP", unknownId, null, null)))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void revokeApiKey_ShouldMarkRevokedAndRemoveFromRegistry() {
+        // Given
+        ApiKey apiKey = new ApiKey();
+        apiKey.setId(UUID.randomUUID());
+        apiKey.setPrefix("0123456789ab");
+        when(apiKeyRepository.findById(apiKey.getId())).thenReturn(Optional.of(apiKey));
+
+        // When
+        apiKeyService.revokeApiKey(apiKey.getId());
+
+        // Then
+        assertThat(apiKey.getRevokedAt()).isNotNull();
+        verify(apiKeyRepository).save(apiKey);
+        verify(apiKeyRegistry).remove("0123456789ab");
+    }
+
+    @Test
+    void revokeApiKey_WithUnknownId_ShouldThrowException() {
+        // Given
+        UUID unknownId = UUID.randomUUID();
+        when(apiKeyRepository.findById(unknownId)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> apiKeyService.revokeApiKey(unknownId))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(apiKeyRegistry, never()).remove(anyString());
+    }
+}
@@ -3,16 +3,22 @@ package com.expense.segmentation.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.config.JwtTokenUtil;
+import com.expense.segmentation.config.TokenEpochRegistry;
 import com.expense.segmentation.dto.AuthResponse;
 import com.expense.segmentation.dto.LoginRequest;
+import com.expense.segmentation.dto.RefreshTokenRequest;
 import com.expense.segmentation.dto.RegisterRequest;
 import com.expense.segmentation.dto.UserResponse;
 import com.expense.segmentation.exception.DuplicateResourceException;
+import com.expense.segmentation.exception.InvalidTokenException;
 import com.expense.segmentation.exception.ResourceNotFoundException;
+import com.expense.segmentation.exception.TooManyRequestsException;
 import com.expense.segmentation.mapper.UserMapper;
 import com.expense.segmentation.model.Department;
 import com.expense.segmentation.model.Role;
@@ -21,6 +27,8 @@ import com.expense.segmentation.model.User;
 import com.expense.segmentation.model.UserStatus;
 import com.expense.segmentation.repository.RoleRepository;
 import com.expense.segmentation.repository.UserRepository;
+import com.expense.segmentation.service.RefreshTokenService.IssuedRefreshToken;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Optional;
@@ -36,14 +44,14 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @ExtendWith(MockitoExtension.class)
 class AuthServiceTest {
 
+    private static final String CLIENT_IP = "203.0.113.7";
+
     @Mock private UserRepository userRepository;
 
     @Mock private RoleRepository roleRepository;
@@ -54,7 +62,11 @@ class AuthServiceTest {
 
     @Mock private AuthenticationManager authenticationManager;
 
-    @Mock private CustomUserDetailsService userDetailsService;
+    @Mock private TokenEpochRegistry tokenEpochRegistry;
+
+    @Mock private RefreshTokenService refreshTokenService;
+
+    @Mock private LoginAttemptLimiter loginAttemptLimiter;
 
     @InjectMocks private AuthService authService;
 
@@ -65,6 +77,8 @@ class AuthServiceTest {
     private User user;
     private Role employeeRole;
     private UserDetails userDetails;
+    private UUID sessionId;
+    private IssuedRefreshToken issuedRefreshToken;
 
     @BeforeEach
     void setUp() {
@@ -77,8 +91,10 @@ class AuthServiceTest {
                         passwordEncoder,
                         jwtTokenUtil,
                         authenticationManager,
-                        userDetailsService,
-                        userMapper);
+                        tokenEpochRegistry,
+                        userMapper,
+                        refreshTokenService,
+                        loginAttemptLimiter);
 
         registerRequest = new RegisterRequest("John Doe", "john@example.com", "password123");
         loginRequest = new LoginRequest("john@example.com", "password123");
@@ -106,6 +122,9 @@ class AuthServiceTest {
                                 Collections.singletonList(
                                         new SimpleGrantedAuthority("ROLE_EMPLOYEE")))
                         .build();
+
+        sessionId = UUID.randomUUID();
+        issuedRefreshToken = new IssuedRefreshToken("test-refresh-token", sessionId, user);
     }
 
     @Test
@@ -116,8 +135,8 @@ class AuthServiceTest {
         when(passwordEncoder.encode(registerRequest.getPassword()))
                 .thenReturn("$2a$10$hashedPassword");
         when(userRepository.save(any(User.class))).thenReturn(user);
-        when(userDetailsService.loadUserByUsername(user.getEmail())).thenReturn(userDetails);
-        when(jwtTokenUtil.generateToken(userDetails)).thenReturn("test-jwt-token");
+        when(refreshTokenService.startSession(user)).thenReturn(issuedRefreshToken);
+        when(jwtTokenUtil.generateToken(user, 0L, sessionId)).thenReturn("test-jwt-token");
 
         // When
         AuthResponse response = authService.register(registerRequest);
@@ -126,6 +145,7 @@ class AuthServiceTest {
         assertThat(response).isNotNull();
         assertThat(response.getToken()).isEqualTo("test-jwt-token");
         assertThat(response.getType()).isEqualTo("Bearer");
+        assertThat(response.getRefreshToken()).isEqualTo("test-refresh-token");
         assertThat(response.getUser()).isNotNull();
         assertThat(response.getUser().getEmail()).isEqualTo("john@example.com");
         assertThat(response.getUser().getName()).isEqualTo("John Doe");
@@ -135,7 +155,7 @@ class AuthServiceTest {
         verify(roleRepository).findByName(RoleType.EMPLOYEE);
         verify(passwordEncoder).encode(registerRequest.getPassword());
         verify(userRepository).save(any(User.class));
-        verify(jwtTokenUtil).generateToken(userDetails);
+        verify(jwtTokenUtil).generateToken(user, 0L, sessionId);
     }
 
     @Test
@@ -179,19 +199,23 @@ class AuthServiceTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(user));
-        when(jwtTokenUtil.generateToken(userDetails)).thenReturn("test-jwt-token");
+        when(refreshTokenService.startSession(user)).thenReturn(issuedRefreshToken);
+        when(jwtTokenUtil.generateToken(user, 0L, sessionId)).thenReturn("test-jwt-token");
 
         // When
-        AuthResponse response = authService.login(loginRequest);
+        AuthResponse response = authService.login(loginRequest, CLIENT_IP);
 
         // Then
         assertThat(response).isNotNull();
         assertThat(response.getToken()).isEqualTo("test-jwt-token");
+        assertThat(response.getRefreshToken()).isEqualTo("test-refresh-token");
         assertThat(response.getUser().getEmail()).isEqualTo("john@example.com");
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(jwtTokenUtil).generateToken(userDetails);
+        verify(jwtTokenUtil).generateToken(user, 0L, sessionId);
+        verify(loginAttemptLimiter).checkAllowed(loginRequest.getEmail(), CLIENT_IP);
+        verify(loginAttemptLimiter, never()).recordFailure(anyString(), anyString());
     }
 
     @Test
@@ -201,13 +225,30 @@ class AuthServiceTest {
                 .thenThrow(new BadCredentialsException("Invalid credentials"));
 
         // When & Then
-        assertThatThrownBy(() -> authService.login(loginRequest))
+        assertThatThrownBy(() -> authService.login(loginRequest, CLIENT_IP))
                 .isInstanceOf(BadCredentialsException.class)
                 .hasMessage("Invalid credentials");
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(userRepository, never()).findByEmail(anyString());
-        verify(jwtTokenUtil, never()).generateToken(any());
+        verify(jwtTokenUtil, never()).generateToken(any(), anyLong(), any());
+        verify(refreshTokenService, never()).startSession(any());
+        verify(loginAttemptLimiter).recordFailure(loginRequest.getEmail(), CLIENT_IP);
+    }
+
+    @Test
+    void login_WhenThrottled_ShouldRejectBeforeAuthenticating() {
+        // Given
+        doThrow(new TooManyRequestsException("Too many attempts", Duration.ofMinutes(1)))
+                .when(loginAttemptLimiter)
+                .checkAllowed(loginRequest.getEmail(), CLIENT_IP);
+
+        // When & Then
+        assertThatThrownBy(() -> authService.login(loginRequest, CLIENT_IP))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        verify(authenticationManager, never()).authenticate(any());
+        verify(loginAttemptLimiter, never()).recordFailure(anyString(), anyString());
     }
 
     @Test
@@ -222,7 +263,7 @@ class AuthServiceTest {
         when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> authService.login(loginRequest))
+        assertThatThrownBy(() -> authService.login(loginRequest, CLIENT_IP))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("User not found");
 
@@ -231,19 +272,53 @@ class AuthServiceTest {
     }
 
     @Test
-    void getCurrentUser_WithAuthenticatedUser_ShouldReturnUserResponse() {
+    void refresh_WithValidToken_ShouldReturnNewTokens() {
         // Given
-        Authentication authentication = mock(Authentication.class);
-        SecurityContext securityContext = mock(SecurityContext.class);
+        IssuedRefreshToken rotated =
+                new IssuedRefreshToken("rotated-refresh-token", sessionId, user);
+        when(refreshTokenService.rotate("test-refresh-token")).thenReturn(rotated);
+        when(tokenEpochRegistry.currentEpoch(user.getId())).thenReturn(2L);
+        when(jwtTokenUtil.generateToken(user, 2L, sessionId)).thenReturn("new-jwt-token");
 
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("john@example.com");
-        SecurityContextHolder.setContext(securityContext);
+        // When
+        AuthResponse response =
+                authService.refresh(new RefreshTokenRequest("test-refresh-token"));
+
+        // Then
+        assertThat(response.getToken()).isEqualTo("new-jwt-token");
+        assertThat(response.getRefreshToken()).isEqualTo("rotated-refresh-token");
+        assertThat(response.getUser().getEmail()).isEqualTo("john@example.com");
+    }
 
-        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+    @Test
+    void refresh_WithInvalidToken_ShouldThrowException() {
+        // Given
+        when(refreshTokenService.rotate("bad-token"))
+                .thenThrow(new InvalidTokenException("Invalid refresh token"));
 
+        // When & Then
+        assertThatThrownBy(() -> authService.refresh(new RefreshTokenRequest("bad-token")))
+                .isInstanceOf(InvalidTokenException.class);
+        verify(jwtTokenUtil, never()).generateToken(any(), anyLong(), any());
+    }
+
+    @Test
+    void logout_ShouldEndSession() {
         // When
-        UserResponse response = authService.getCurrentUser();
+        authService.logout(new RefreshTokenRequest("test-refresh-token"));
+
+        // Then
+        verify(refreshTokenService).endSession("test-refresh-token");
+    }
+
+    @Test
+    void getCurrentUser_WithAuthenticatedUser_ShouldReturnUserResponse() {
+        // Given
+        when(userRepository.findByIdWithDepartmentAndRole(user.getId()))
+                .thenReturn(Optional.of(user));
+
+        // When
+        UserResponse response = authService.getCurrentUser(AuthenticatedUser.from(user));
 
         // Then
         assertThat(response).isNotNull();
@@ -252,33 +327,21 @@ class AuthServiceTest {
         assertThat(response.getRole()).isEqualTo(RoleType.EMPLOYEE);
         assertThat(response.getStatus()).isEqualTo(UserStatus.ACTIVE);
 
-        verify(userRepository).findByEmail("john@example.com");
-
-        // Clean up
-        SecurityContextHolder.clearContext();
+        verify(userRepository).findByIdWithDepartmentAndRole(user.getId());
     }
 
     @Test
     void getCurrentUser_WhenUserNotFound_ShouldThrowException() {
         // Given
-        Authentication authentication = mock(Authentication.class);
-        SecurityContext securityContext = mock(SecurityContext.class);
-
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("john@example.com");
-        SecurityContextHolder.setContext(securityContext);
-
-        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.empty());
+        when(userRepository.findByIdWithDepartmentAndRole(user.getId()))
+                .thenReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> authService.getCurrentUser())
+        assertThatThrownBy(() -> authService.getCurrentUser(AuthenticatedUser.from(user)))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("User not found");
 
-        verify(userRepository).findByEmail("john@example.com");
-
-        // Clean up
-        SecurityContextHolder.clearContext();
+        verify(userRepository).findByIdWithDepartmentAndRole(user.getId());
     }
 
     @Test
@@ -291,17 +354,11 @@ class AuthServiceTest {
 
         user.setDepartment(department);
 
-        Authentication authentication = mock(Authentication.class);
-        SecurityContext securityContext = mock(SecurityContext.class);
-
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("john@example.com");
-        SecurityContextHolder.setContext(securityContext);
-
-        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.findByIdWithDepartmentAndRole(user.getId()))
+                .thenReturn(Optional.of(user));
 
         // When
-        UserResponse response = authService.getCurrentUser();
+        UserResponse response = authService.getCurrentUser(AuthenticatedUser.from(user));
 
         // Then
         assertThat(response).isNotNull();
@@ -309,9 +366,6 @@ class AuthServiceTest {
         assertThat(response.getDepartmentName()).isEqualTo("Engineering");
         assertThat(response.getEmail()).isEqualTo("john@example.com");
 
-        verify(userRepository).findByEmail("john@example.com");
-
-        // Clean up
-        SecurityContextHolder.clearContext();
+        verify(userRepository).findByIdWithDepartmentAndRole(user.getId());
     }
 }
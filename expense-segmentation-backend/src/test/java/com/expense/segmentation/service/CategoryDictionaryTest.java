@@ -0,0 +1,180 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.model.Category;
+import com.expense.segmentation.repository.CategoryRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryDictionaryTest {
+
+    @Mock private CategoryRepository categoryRepository;
+
+    private CategoryDictionary categoryDictionary;
+
+    private Category travel;
+    private Category meals;
+
+    @BeforeEach
+    void setUp() {
+        categoryDictionary = new CategoryDictionary(categoryRepository);
+        travel = category("Travel");
+        meals = category("Meals");
+    }
+
+    @Test
+    void refresh_ShouldResolveNamesIgnoringCaseAndSpaces() {
+        // Given
+        when(categoryRepository.findAll(any(Sort.class))).thenReturn(List.of(travel, meals));
+
+        // When
+        categoryDictionary.refresh();
+
+        // Then
+        CategoryDictionary.Entry entry = categoryDictionary.resolve("  TRAVEL ").orElseThrow();
+        assertThat(entry.id()).isEqualTo(travel.getId());
+        assertThat(entry.name()).isEqualTo("Travel");
+        assertThat(categoryDictionary.resolve("meals").map(CategoryDictionary.Entry::id))
+                .contains(meals.getId());
+        assertThat(entry.code())
+                .isNotEqualTo(categoryDictionary.resolve("Meals").orElseThrow().code());
+    }
+
+    @Test
+    void refresh_WhenNamesDifferOnlyInCase_ShouldKeepTheOlderCategory() {
+        // Given
+        Category newer = category("TRAVEL");
+        when(categoryRepository.findAll(any(Sort.class))).thenReturn(List.of(travel, newer));
+
+        // When
+        categoryDictionary.refresh();
+
+        // Then
+        assertThat(categoryDictionary.resolve("travel").map(CategoryDictionary.Entry::id))
+                .contains(travel.getId());
+    }
+
+    @Test
+    void refresh_ShouldKeepCodesOfKnownCategories() {
+        // Given
+        when(categoryRepository.findAll(any(Sort.class)))
+                .thenReturn(List.of(travel))
+                .thenReturn(List.of(meals, travel));
+        categoryDictionary.refresh();
+        int travelCode = categoryDictionary.resolve("Travel").orElseThrow().code();
+
+        // When
+        categoryDictionary.refresh();
+
+        // Then
+        assertThat(categoryDictionary.resolve("Travel").orElseThrow().code()).isEqualTo(travelCode);
+        assertThat(categoryDictionary.resolve("Meals").orElseThrow().code())
+                .isNotEqualTo(travelCode);
+    }
+
+    @Test
+    void refresh_ShouldKeepInactiveCategoriesFlagged() {
+        // Given
+        meals.setActive(false);
+        when(categoryRepository.findAll(any(Sort.class))).thenReturn(List.of(travel, meals));
+
+        // When
+        categoryDictionary.refresh();
+
+        // Then
+        assertThat(categoryDictionary.resolve("Travel").orElseThrow().active()).isTrue();
+        assertThat(categoryDictionary.resolve("Meals").orElseThrow().active()).isFalse();
+    }
+
+    @Test
+    void refresh_WhenOnlyTheNewerOfTwoNamesIsActive_ShouldPreferIt() {
+        // Given
+        travel.setActive(false);
+        Category newer = category("TRAVEL");
+        when(categoryRepository.findAll(any(Sort.class))).thenReturn(List.of(travel, newer));
+
+        // When
+        categoryDictionary.refresh();
+
+        // Then
+        assertThat(categoryDictionary.resolve("travel").map(CategoryDictionary.Entry::id))
+                .contains(newer.getId());
+    }
+
+    @Test
+    void register_WhenCategoryWasDeactivated_ShouldUpdateItsEntry() {
+        // Given
+        int code = categoryDictionary.register(travel).code();
+        travel.setActive(false);
+
+        // When
+        CategoryDictionary.Entry entry = categoryDictionary.register(travel);
+
+        // Then
+        assertThat(entry.active()).isFalse();
+        assertThat(entry.code()).isEqualTo(code);
+        assertThat(categoryDictionary.resolve("Travel")).contains(entry);
+    }
+
+    @Test
+    void resolve_WhenNameIsUnknown_ShouldLookUpAndRegisterIt() {
+        // Given
+        when(categoryRepository.findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc("meals"))
+                .thenReturn(Optional.of(meals));
+
+        // When
+        Optional<CategoryDictionary.Entry> first = categoryDictionary.resolve(" meals ");
+        Optional<CategoryDictionary.Entry> second = categoryDictionary.resolve("MEALS");
+
+        // Then
+        assertThat(first.map(CategoryDictionary.Entry::id)).contains(meals.getId());
+        assertThat(second).isEqualTo(first);
+        // The second lookup is answered from memory
+        verify(categoryRepository).findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc("meals");
+    }
+
+    @Test
+    void resolve_WhenNoCategoryHasTheName_ShouldReturnEmpty() {
+        // Given
+        when(categoryRepository.findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc("Gadgets"))
+                .thenReturn(Optional.empty());
+
+        // When / Then
+        assertThat(categoryDictionary.resolve("Gadgets")).isEmpty();
+    }
+
+    @Test
+    void refresh_WhenDatabaseFails_ShouldKeepPreviousEntries() {
+        // Given
+        categoryDictionary.register(travel);
+        when(categoryRepository.findAll(any(Sort.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // When
+        categoryDictionary.refresh();
+
+        // Then
+        assertThat(categoryDictionary.resolve("Travel").map(CategoryDictionary.Entry::id))
+                .contains(travel.getId());
+    }
+
+    private static Category category(String name) {
+        Category category = new Category();
+        category.setId(UUID.randomUUID());
+        category.setName(name);
+        return category;
+    }
+}
@@ -29,6 +29,7 @@ class CategoryServiceTest {
 
     @Mock private CategoryRepository categoryRepository;
     @Mock private CategoryMapper categoryMapper;
+    @Mock private CategoryDictionary categoryDictionary;
 
     @InjectMocks private CategoryService categoryService;
 
@@ -124,6 +125,7 @@ class CategoryServiceTest {
         verify(categoryRepository).existsByNameAndActive("Travel", true);
         verify(categoryRepository).save(any(Category.class));
         verify(categoryMapper).toResponse(testCategory);
+        verify(categoryDictionary).register(testCategory);
     }
 
     @Test
@@ -190,6 +192,7 @@ class CategoryServiceTest {
         assertThat(activeCategory.getActive()).isFalse();
         verify(categoryRepository).findById(categoryId);
         verify(categoryRepository).save(activeCategory);
+        verify(categoryDictionary).register(deactivatedCategory);
     }
 
     @Test
@@ -0,0 +1,133 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.config.JwtPrincipal;
+import com.expense.segmentation.exception.ResourceNotFoundException;
+import com.expense.segmentation.model.Department;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserProviderTest {
+
+    @Mock private UserIdentityCache userIdentityCache;
+
+    private CurrentUserProvider currentUserProvider;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        currentUserProvider = new CurrentUserProvider(userIdentityCache);
+
+        Role role = new Role();
+        role.setName(RoleType.MANAGER);
+
+        Department department = new Department();
+        department.setId(UUID.randomUUID());
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("manager@example.com");
+        user.setRole(role);
+        user.setDepartment(department);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void get_WithJwtPrincipal_ShouldNotQueryDatabase() {
+        // Given
+        JwtPrincipal principal =
+                new JwtPrincipal(
+                        user.getEmail(),
+                        user.getId(),
+                        RoleType.MANAGER,
+                        user.getDepartment().getId(),
+                        0L,
+                        UUID.randomUUID(),
+                        Instant.now(),
+                        Instant.now().plusSeconds(3600));
+        authenticate(principal);
+
+        // When
+        AuthenticatedUser result = currentUserProvider.get();
+
+        // Then
+        assertThat(result.id()).isEqualTo(user.getId());
+        assertThat(result.email()).isEqualTo("manager@example.com");
+        assertThat(result.role()).isEqualTo(RoleType.MANAGER);
+        assertThat(result.departmentId()).isEqualTo(user.getDepartment().getId());
+        verify(userIdentityCache, never()).findByEmail(anyString());
+    }
+
+    @Test
+    void get_WithOtherPrincipal_ShouldLookUpUserOnce() {
+        // Given
+        authenticate("manager@example.com");
+        when(userIdentityCache.findByEmail("manager@example.com"))
+                .thenReturn(Optional.of(UserIdentity.from(user)));
+
+        // When
+        AuthenticatedUser first = currentUserProvider.get();
+        AuthenticatedUser second = currentUserProvider.get();
+
+        // Then
+        assertThat(first).isEqualTo(AuthenticatedUser.from(user));
+        assertThat(second).isSameAs(first);
+        verify(userIdentityCache, times(1)).findByEmail("manager@example.com");
+    }
+
+    @Test
+    void get_WhenUserNotFound_ShouldThrowException() {
+        // Given
+        authenticate("missing@example.com");
+        when(userIdentityCache.findByEmail("missing@example.com")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> currentUserProvider.get())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("missing@example.com");
+    }
+
+    @Test
+    void get_WithoutAuthentication_ShouldThrowException() {
+        assertThatThrownBy(() -> currentUserProvider.get())
+                .isInstanceOf(AuthenticationCredentialsNotFoundException.class);
+    }
+
+    private void authenticate(Object principal) {
+        SecurityContextHolder.getContext()
+                .setAuthentication(
+                        new UsernamePasswordAuthenticationToken(
+                                principal,
+                                null,
+                                List.of(new SimpleGrantedAuthority("ROLE_MANAGER"))));
+    }
+}
@@ -2,6 +2,8 @@ package com.expense.segmentation.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -135,4 +137,37 @@ class CustomUserDetailsServiceTest {
         assertThat(userDetails.isAccountNonLocked()).isTrue();
         assertThat(userDetails.isCredentialsNonExpired()).isTrue();
     }
+
+    @Test
+    void updatePassword_ShouldStoreNewHash() {
+        // Given
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+        UserDetails current = customUserDetailsService.loadUserByUsername("john@example.com");
+
+        // When
+        UserDetails updated = customUserDetailsService.updatePassword(current, "$2a$12$newHash");
+
+        // Then
+        assertThat(user.getPasswordHash()).isEqualTo("$2a$12$newHash");
+        assertThat(updated.getPassword()).isEqualTo("$2a$12$newHash");
+        assertThat(updated.getUsername()).isEqualTo("john@example.com");
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void updatePassword_WithNonExistingUser_ShouldThrowException() {
+        // Given
+        UserDetails missing =
+                org.springframework.security.core.userdetails.User.withUsername(
+                                "nonexistent@example.com")
+                        .password("$2a$10$old")
+                        .authorities("ROLE_EMPLOYEE")
+                        .build();
+        when(userRepository.findByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> customUserDetailsService.updatePassword(missing, "$2a$12$new"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        verify(userRepository, never()).save(any());
+    }
 }
@@ -4,11 +4,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.dto.AttachmentResponse;
 import com.expense.segmentation.exception.InvalidOperationException;
 import com.expense.segmentation.exception.ResourceNotFoundException;
@@ -34,9 +34,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.Resource;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,8 +43,7 @@ class ExpenseAttachmentServiceTest {
     @Mock private ExpenseRepository expenseRepository;
     @Mock private UserRepository userRepository;
     @Mock private FileStorageService fileStorageService;
-    @Mock private SecurityContext securityContext;
-    @Mock private Authentication authentication;
+    @Mock private CurrentUserProvider currentUserProvider;
     @Mock private Resource mockResource;
 
     private ExpenseAttachmentService attachmentService;
@@ -66,7 +62,8 @@ class ExpenseAttachmentServiceTest {
                         expenseRepository,
                         userRepository,
                         fileStorageService,
-                        attachmentMapper);
+                        attachmentMapper,
+                        currentUserProvider);
 
         // Set max file size to 10MB
         ReflectionTestUtils.setField(attachmentService, "maxFileSize", 10485760L);
@@ -97,11 +94,6 @@ class ExpenseAttachmentServiceTest {
         testExpense = new Expense();
         testExpense.setId(UUID.randomUUID());
         testExpense.setCreatedBy(testUser);
-
-        // Mock security context
-        SecurityContextHolder.setContext(securityContext);
-        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
-        lenient().when(authentication.getName()).thenReturn(testUser.getEmail());
     }
 
     @Test
@@ -112,7 +104,8 @@ class ExpenseAttachmentServiceTest {
                 new MockMultipartFile(
                         "file", "test.pdf", "application/pdf", "test content".getBytes());
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
         when(expenseRepository.findByIdWithCreatedBy(expenseId))
                 .thenReturn(Optional.of(testExpense));
         when(fileStorageService.storeFile(any(), anyString())).thenReturn("stored/path/test.pdf");
@@ -211,7 +204,7 @@ class ExpenseAttachmentServiceTest {
         MockMultipartFile file =
                 new MockMultipartFile("file", "test.pdf", "application/pdf", "content".getBytes());
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findByIdWithCreatedBy(nonExistentExpenseId))
                 .thenReturn(Optional.empty());
 
@@ -237,11 +230,9 @@ class ExpenseAttachmentServiceTest {
         MockMultipartFile file =
                 new MockMultipartFile("file", "test.pdf", "application/pdf", "content".getBytes());
 
-        when(userRepository.findByEmail(anotherUser.getEmail()))
-                .thenReturn(Optional.of(anotherUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(anotherUser));
         when(expenseRepository.findByIdWithCreatedBy(expenseId))
                 .thenReturn(Optional.of(testExpense));
-        when(authentication.getName()).thenReturn(anotherUser.getEmail());
 
         // Act & Assert
         assertThatThrownBy(() -> attachmentService.uploadAttachment(expenseId, file))
@@ -258,9 +249,8 @@ class ExpenseAttachmentServiceTest {
         MockMultipartFile file =
                 new MockMultipartFile("file", "test.pdf", "application/pdf", "content".getBytes());
 
-        when(authentication.getName()).thenReturn(financeUser.getEmail());
-        when(userRepository.findByEmail(financeUser.getEmail()))
-                .thenReturn(Optional.of(financeUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(financeUser));
+        when(userRepository.getReferenceById(financeUser.getId())).thenReturn(financeUser);
         when(expenseRepository.findByIdWithCreatedBy(expenseId))
                 .thenReturn(Optional.of(testExpense));
         when(fileStorageService.storeFile(any(), anyString())).thenReturn("stored/path/test.pdf");
@@ -290,7 +280,7 @@ class ExpenseAttachmentServiceTest {
         ExpenseAttachment attachment2 = createTestAttachment(testExpense, testUser, "file2.pdf");
         List<ExpenseAttachment> attachments = Arrays.asList(attachment1, attachment2);
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findByIdWithCreatedBy(expenseId))
                 .thenReturn(Optional.of(testExpense));
         when(attachmentRepository.findByExpenseIdWithUploadedBy(expenseId)).thenReturn(attachments);
@@ -309,7 +299,7 @@ class ExpenseAttachmentServiceTest {
         // Arrange
         UUID nonExistentExpenseId = UUID.randomUUID();
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findByIdWithCreatedBy(nonExistentExpenseId))
                 .thenReturn(Optional.empty());
 
@@ -326,7 +316,7 @@ class ExpenseAttachmentServiceTest {
         attachment.setId(attachmentId);
         attachment.setStoredPath("stored/path/test.pdf");
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(attachmentRepository.findByIdWithDetails(attachmentId))
                 .thenReturn(Optional.of(attachment));
         when(fileStorageService.loadFileAsResource("stored/path/test.pdf"))
@@ -345,7 +335,7 @@ class ExpenseAttachmentServiceTest {
         // Arrange
         UUID nonExistentId = UUID.randomUUID();
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(attachmentRepository.findByIdWithDetails(nonExistentId)).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -361,7 +351,7 @@ class ExpenseAttachmentServiceTest {
         attachment.setId(attachmentId);
         attachment.setStoredPath("stored/path/test.pdf");
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(attachmentRepository.findByIdWithDetails(attachmentId))
                 .thenReturn(Optional.of(attachment));
 
@@ -381,9 +371,7 @@ class ExpenseAttachmentServiceTest {
         attachment.setId(attachmentId);
         attachment.setStoredPath("stored/path/test.pdf");
 
-        when(authentication.getName()).thenReturn(financeUser.getEmail());
-        when(userRepository.findByEmail(financeUser.getEmail()))
-                .thenReturn(Optional.of(financeUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(financeUser));
         when(attachmentRepository.findByIdWithDetails(attachmentId))
                 .thenReturn(Optional.of(attachment));
 
@@ -409,9 +397,7 @@ class ExpenseAttachmentServiceTest {
         ExpenseAttachment attachment = createTestAttachment(testExpense, testUser, "test.pdf");
         attachment.setId(attachmentId);
 
-        when(authentication.getName()).thenReturn(anotherUser.getEmail());
-        when(userRepository.findByEmail(anotherUser.getEmail()))
-                .thenReturn(Optional.of(anotherUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(anotherUser));
         when(attachmentRepository.findByIdWithDetails(attachmentId))
                 .thenReturn(Optional.of(attachment));
 
@@ -432,7 +418,8 @@ class ExpenseAttachmentServiceTest {
                 new MockMultipartFile(
                         "file", "photo.jpg", "image/jpeg", "image content".getBytes());
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
         when(expenseRepository.findByIdWithCreatedBy(expenseId))
                 .thenReturn(Optional.of(testExpense));
         when(fileStorageService.storeFile(any(), anyString())).thenReturn("stored/path/photo.jpg");
@@ -461,7 +448,8 @@ class ExpenseAttachmentServiceTest {
                 new MockMultipartFile(
                         "file", "screenshot.png", "image/png", "image content".getBytes());
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
         when(expenseRepository.findByIdWithCreatedBy(expenseId))
                 .thenReturn(Optional.of(testExpense));
         when(fileStorageService.storeFile(any(), anyString()))
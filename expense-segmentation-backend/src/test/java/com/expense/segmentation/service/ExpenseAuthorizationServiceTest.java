@@ -3,17 +3,13 @@ package com.expense.segmentation.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
-import com.expense.segmentation.model.Expense;
-import com.expense.segmentation.model.ExpenseStatus;
-import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.exception.ResourceNotFoundException;
 import com.expense.segmentation.model.Role;
 import com.expense.segmentation.model.RoleType;
 import com.expense.segmentation.model.User;
 import com.expense.segmentation.model.UserStatus;
 import com.expense.segmentation.repository.ExpenseRepository;
-import com.expense.segmentation.repository.UserRepository;
-import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,7 +24,7 @@ class ExpenseAuthorizationServiceTest {
 
     @Mock private ExpenseRepository expenseRepository;
 
-    @Mock private UserRepository userRepository;
+    @Mock private CurrentUserProvider currentUserProvider;
 
     @InjectMocks private ExpenseAuthorizationService expenseAuthorizationService;
 
@@ -37,7 +33,6 @@ class ExpenseAuthorizationServiceTest {
     private User financeUser;
     private User managerUser;
     private User otherUser;
-    private Expense testExpense;
     private UUID expenseId;
     private UUID userId;
 
@@ -93,42 +88,54 @@ class ExpenseAuthorizationServiceTest {
         otherUser.setRole(userRole);
         otherUser.setStatus(UserStatus.ACTIVE);
 
-        // Create expense
+        // Expense owned by testUser
         expenseId = UUID.randomUUID();
-        testExpense = new Expense();
-        testExpense.setId(expenseId);
-        testExpense.setDate(LocalDate.now());
-        testExpense.setVendor("Test Vendor");
-        testExpense.setAmount(new BigDecimal("100.00"));
-        testExpense.setDescription("Test Description");
-        testExpense.setType(ExpenseType.EXPENSE);
-        testExpense.setStatus(ExpenseStatus.SUBMITTED);
-        testExpense.setCreatedBy(testUser);
     }
 
     @Test
     void canModifyExpense_WithOwner_ShouldReturnTrue() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canModifyExpense(expenseId, "test@example.com");
+        boolean result = expenseAuthorizationService.canModifyExpense(expenseId);
 
         // Then
         assertThat(result).isTrue();
     }
 
+    @Test
+    void canModifyExpenseOwnedBy_WithOwnerOrFinance_ShouldReturnTrue() {
+        // Given
+        when(currentUserProvider.get())
+                .thenReturn(AuthenticatedUser.from(testUser), AuthenticatedUser.from(financeUser));
+
+        // When & Then
+        assertThat(expenseAuthorizationService.canModifyExpenseOwnedBy(userId)).isTrue();
+        assertThat(expenseAuthorizationService.canModifyExpenseOwnedBy(userId)).isTrue();
+    }
+
+    @Test
+    void canModifyExpenseOwnedBy_WithOtherEmployee_ShouldReturnFalse() {
+        // Given
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(otherUser));
+
+        // When
+        boolean result = expenseAuthorizationService.canModifyExpenseOwnedBy(userId);
+
+        // Then
+        assertThat(result).isFalse();
+    }
+
     @Test
     void canModifyExpense_WithAdminRole_ShouldReturnTrue() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(adminUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(adminUser));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canModifyExpense(expenseId, "admin@example.com");
+        boolean result = expenseAuthorizationService.canModifyExpense(expenseId);
 
         // Then
         assertThat(result).isTrue();
@@ -137,13 +144,11 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canModifyExpense_WithFinanceRole_ShouldReturnTrue() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("finance@example.com"))
-                .thenReturn(Optional.of(financeUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(financeUser));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canModifyExpense(expenseId, "finance@example.com");
+        boolean result = expenseAuthorizationService.canModifyExpense(expenseId);
 
         // Then
         assertThat(result).isTrue();
@@ -152,12 +157,11 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canModifyExpense_WithNonOwnerAndNoSpecialRole_ShouldReturnFalse() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("other@example.com")).thenReturn(Optional.of(otherUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(otherUser));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canModifyExpense(expenseId, "other@example.com");
+        boolean result = expenseAuthorizationService.canModifyExpense(expenseId);
 
         // Then
         assertThat(result).isFalse();
@@ -166,11 +170,10 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canModifyExpense_WithNonExistentExpense_ShouldReturnFalse() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.empty());
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.empty());
 
         // When
-        boolean result =
-                expenseAuthorizationService.canModifyExpense(expenseId, "test@example.com");
+        boolean result = expenseAuthorizationService.canModifyExpense(expenseId);
 
         // Then
         assertThat(result).isFalse();
@@ -179,12 +182,13 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canModifyExpense_WithNonExistentUser_ShouldReturnFalse() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get())
+                .thenThrow(
+                        new ResourceNotFoundException("User", "email", "nonexistent@example.com"));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canModifyExpense(expenseId, "nonexistent@example.com");
+        boolean result = expenseAuthorizationService.canModifyExpense(expenseId);
 
         // Then
         assertThat(result).isFalse();
@@ -193,11 +197,11 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canViewExpense_WithOwner_ShouldReturnTrue() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
 
         // When
-        boolean result = expenseAuthorizationService.canViewExpense(expenseId, "test@example.com");
+        boolean result = expenseAuthorizationService.canViewExpense(expenseId);
 
         // Then
         assertThat(result).isTrue();
@@ -206,13 +210,11 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canViewExpense_WithManagerRole_ShouldReturnTrue() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("manager@example.com"))
-                .thenReturn(Optional.of(managerUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(managerUser));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canViewExpense(expenseId, "manager@example.com");
+        boolean result = expenseAuthorizationService.canViewExpense(expenseId);
 
         // Then
         assertThat(result).isTrue();
@@ -221,13 +223,11 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canViewExpense_WithFinanceRole_ShouldReturnTrue() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("finance@example.com"))
-                .thenReturn(Optional.of(financeUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(financeUser));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canViewExpense(expenseId, "finance@example.com");
+        boolean result = expenseAuthorizationService.canViewExpense(expenseId);
 
         // Then
         assertThat(result).isTrue();
@@ -236,11 +236,11 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canViewExpense_WithAdminRole_ShouldReturnTrue() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(adminUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(adminUser));
 
         // When
-        boolean result = expenseAuthorizationService.canViewExpense(expenseId, "admin@example.com");
+        boolean result = expenseAuthorizationService.canViewExpense(expenseId);
 
         // Then
         assertThat(result).isTrue();
@@ -249,11 +249,11 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canViewExpense_WithNonOwnerAndNoSpecialRole_ShouldReturnFalse() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("other@example.com")).thenReturn(Optional.of(otherUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(otherUser));
 
         // When
-        boolean result = expenseAuthorizationService.canViewExpense(expenseId, "other@example.com");
+        boolean result = expenseAuthorizationService.canViewExpense(expenseId);
 
         // Then
         assertThat(result).isFalse();
@@ -262,10 +262,10 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canViewExpense_WithNonExistentExpense_ShouldReturnFalse() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.empty());
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.empty());
 
         // When
-        boolean result = expenseAuthorizationService.canViewExpense(expenseId, "test@example.com");
+        boolean result = expenseAuthorizationService.canViewExpense(expenseId);
 
         // Then
         assertThat(result).isFalse();
@@ -274,12 +274,13 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canViewExpense_WithNonExistentUser_ShouldReturnFalse() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get())
+                .thenThrow(
+                        new ResourceNotFoundException("User", "email", "nonexistent@example.com"));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canViewExpense(expenseId, "nonexistent@example.com");
+        boolean result = expenseAuthorizationService.canViewExpense(expenseId);
 
         // Then
         assertThat(result).isFalse();
@@ -288,12 +289,11 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canModifySegments_ShouldDelegateToCanModifyExpense() {
         // Given
-        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(expenseRepository.findOwnerIdById(expenseId)).thenReturn(Optional.of(userId));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
 
         // When
-        boolean result =
-                expenseAuthorizationService.canModifySegments(expenseId, "test@example.com");
+        boolean result = expenseAuthorizationService.canModifySegments(expenseId);
 
         // Then
         assertThat(result).isTrue();
@@ -302,11 +302,10 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canManageCategories_WithManagerRole_ShouldReturnTrue() {
         // Given
-        when(userRepository.findByEmail("manager@example.com"))
-                .thenReturn(Optional.of(managerUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(managerUser));
 
         // When
-        boolean result = expenseAuthorizationService.canManageCategories("manager@example.com");
+        boolean result = expenseAuthorizationService.canManageCategories();
 
         // Then
         assertThat(result).isTrue();
@@ -315,11 +314,10 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canManageCategories_WithFinanceRole_ShouldReturnTrue() {
         // Given
-        when(userRepository.findByEmail("finance@example.com"))
-                .thenReturn(Optional.of(financeUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(financeUser));
 
         // When
-        boolean result = expenseAuthorizationService.canManageCategories("finance@example.com");
+        boolean result = expenseAuthorizationService.canManageCategories();
 
         // Then
         assertThat(result).isTrue();
@@ -328,10 +326,10 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canManageCategories_WithAdminRole_ShouldReturnTrue() {
         // Given
-        when(userRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(adminUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(adminUser));
 
         // When
-        boolean result = expenseAuthorizationService.canManageCategories("admin@example.com");
+        boolean result = expenseAuthorizationService.canManageCategories();
 
         // Then
         assertThat(result).isTrue();
@@ -340,10 +338,10 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canManageCategories_WithEmployeeRole_ShouldReturnFalse() {
         // Given
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
 
         // When
-        boolean result = expenseAuthorizationService.canManageCategories("test@example.com");
+        boolean result = expenseAuthorizationService.canManageCategories();
 
         // Then
         assertThat(result).isFalse();
@@ -352,10 +350,12 @@ class ExpenseAuthorizationServiceTest {
     @Test
     void canManageCategories_WithNonExistentUser_ShouldReturnFalse() {
         // Given
-        when(userRepository.findByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
+        when(currentUserProvider.get())
+                .thenThrow(
+                        new ResourceNotFoundException("User", "email", "nonexistent@example.com"));
 
         // When
-        boolean result = expenseAuthorizationService.canManageCategories("nonexistent@example.com");
+        boolean result = expenseAuthorizationService.canManageCategories();
 
         // Then
         assertThat(result).isFalse();
@@ -0,0 +1,93 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.expense.segmentation.model.ExpenseStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExpenseCountCacheTest {
+
+    private ExpenseCountCache expenseCountCache;
+    private AtomicInteger countQueries;
+
+    @BeforeEach
+    void setUp() {
+        expenseCountCache =
+                new ExpenseCountCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1));
+        countQueries = new AtomicInteger();
+    }
+
+    @Test
+    void get_OnRepeatedKey_ShouldCountOnceAndReportCached() {
+        // Given
+        ExpenseCountCache.Key key = key(null, ExpenseStatus.SUBMITTED);
+
+        // When
+        ExpenseCountCache.Total first = expenseCountCache.get(key, () -> count(42));
+        ExpenseCountCache.Total second = expenseCountCache.get(key, () -> count(43));
+
+        // Then
+        assertThat(first).isEqualTo(new ExpenseCountCache.Total(42, false));
+        assertThat(second).isEqualTo(new ExpenseCountCache.Total(42, true));
+        assertThat(countQueries).hasValue(1);
+    }
+
+    @Test
+    void get_WithDifferentFilters_ShouldCountSeparately() {
+        // When
+        expenseCountCache.get(key(null, ExpenseStatus.SUBMITTED), () -> count(1));
+        expenseCountCache.get(key(null, ExpenseStatus.APPROVED), () -> count(2));
+
+        // Then
+        assertThat(countQueries).hasValue(2);
+    }
+
+    @Test
+    void invalidateForCreator_ShouldDropCreatorAndUnscopedTotalsOnly() {
+        // Given
+        UUID creatorId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        expenseCountCache.get(key(creatorId, null), () -> count(1));
+        expenseCountCache.get(key(otherUserId, null), () -> count(1));
+        expenseCountCache.get(key(null, null), () -> count(1));
+
+        // When
+        expenseCountCache.invalidateForCreator(creatorId);
+
+        // Then
+        assertThat(expenseCountCache.get(key(creatorId, null), () -> count(2)).cached()).isFalse();
+        assertThat(expenseCountCache.get(key(null, null), () -> count(2)).cached()).isFalse();
+        assertThat(expenseCountCache.get(key(otherUserId, null), () -> count(2)).cached())
+                .isTrue();
+    }
+
+    @Test
+    void get_WhenDisabled_ShouldAlwaysCount() {
+        // Given
+        ExpenseCountCache disabled =
+                new ExpenseCountCache(new SimpleMeterRegistry(), false, 100, Duration.ofMinutes(1));
+        ExpenseCountCache.Key key = key(null, null);
+
+        // When
+        disabled.get(key, () -> count(5));
+        ExpenseCountCache.Total second = disabled.get(key, () -> count(6));
+
+        // Then
+        assertThat(second).isEqualTo(new ExpenseCountCache.Total(6, false));
+        assertThat(countQueries).hasValue(2);
+    }
+
+    private long count(long value) {
+        countQueries.incrementAndGet();
+        return value;
+    }
+
+    private static ExpenseCountCache.Key key(UUID userId, ExpenseStatus status) {
+        return new ExpenseCountCache.Key(userId, null, null, null, status);
+    }
+}
@@ -0,0 +1,54 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.expense.segmentation.exception.InvalidOperationException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ExpenseCursorTest {
+
+    @Test
+    void encode_ShouldRoundTripThroughDecode() {
+        // Given
+        ExpenseCursor cursor =
+                new ExpenseCursor(
+                        LocalDate.of(2024, 3, 1),
+                        LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_000),
+                        UUID.randomUUID());
+
+        // When
+        String encoded = cursor.encode();
+
+        // Then
+        assertThat(encoded).doesNotContain("=", "+", "/");
+        assertThat(ExpenseCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_WithMalformedCursor_ShouldThrowException() {
+        // Given
+        String notBase64 = "%%%";
+        String wrongParts =
+                Base64.getUrlEncoder()
+                        .encodeToString("2024-03-01|oops".getBytes(StandardCharsets.UTF_8));
+        String badDate =
+                Base64.getUrlEncoder()
+                        .encodeToString(
+                                ("2024-13-01|2024-03-01T10:15:30|" + UUID.randomUUID())
+                                        .getBytes(StandardCharsets.UTF_8));
+
+        // When & Then
+        assertThatThrownBy(() -> ExpenseCursor.decode(notBase64))
+                .isInstanceOf(InvalidOperationException.class);
+        assertThatThrownBy(() -> ExpenseCursor.decode(wrongParts))
+                .isInstanceOf(InvalidOperationException.class);
+        assertThatThrownBy(() -> ExpenseCursor.decode(badDate))
+                .isInstanceOf(InvalidOperationException.class);
+    }
+}
@@ -0,0 +1,371 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.exception.TooManyRequestsException;
+import com.expense.segmentation.mapper.ExpenseMapper;
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.repository.ExpenseListRow;
+import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.ExpenseSegmentRepository;
+import com.expense.segmentation.repository.ExpenseSegmentRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class ExpenseExportServiceTest {
+
+    private static final int FETCH_SIZE = 1000;
+
+    @Mock private ExpenseRepository expenseRepository;
+
+    @Mock private ExpenseSegmentRepository expenseSegmentRepository;
+
+    @Mock private CurrentUserProvider currentUserProvider;
+
+    @Mock private ParallelExpenseExporter parallelExpenseExporter;
+
+    @Mock private ExpenseService expenseService;
+
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper =
+            JsonMapper.builder()
+                    .findAndAddModules()
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+
+    private ExpenseExportService expenseExportService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        expenseExportService =
+                new ExpenseExportService(
+                        expenseRepository,
+                        expenseSegmentRepository,
+                        new ExpenseMapper(),
+                        currentUserProvider,
+                        objectMapper,
+                        parallelExpenseExporter,
+                        expenseService,
+                        transactionManager,
+                        FETCH_SIZE);
+    }
+
+    @Test
+    void export_AsEmployee_ShouldOnlyStreamOwnExpenses() throws Exception {
+        // Given
+        asUser(RoleType.EMPLOYEE);
+        when(expenseRepository.streamExpensesWithFilters(
+                        userId, null, null, null, ExpenseStatus.APPROVED, FETCH_SIZE))
+                .thenReturn(Stream.of(row("Acme", "Lunch")));
+
+        // When
+        String csv = export(ExpenseExportFormat.CSV, ExpenseStatus.APPROVED, false);
+
+        // Then
+        assertThat(csv.split("\r\n")).hasSize(2);
+        assertThat(csv).startsWith("id,date,vendor,amount,description,type,status,");
+        assertThat(csv).contains(",Acme,12.50,Lunch,EXPENSE,APPROVED,");
+        verify(expenseSegmentRepository, never()).findRowsByExpenseIdIn(any());
+    }
+
+    @Test
+    void export_AsCsvWithSegments_ShouldWriteOneLinePerSegment() throws Exception {
+        // Given
+        asUser(RoleType.FINANCE);
+        ExpenseListRow split = row("Acme", "Team dinner");
+        ExpenseListRow unsplit = row("Globex", null);
+        when(expenseRepository.streamExpensesWithFilters(
+                        null, null, null, null, null, FETCH_SIZE))
+                .thenReturn(Stream.of(split, unsplit));
+        when(expenseSegmentRepository.findRowsByExpenseIdIn(List.of(split.id(), unsplit.id())))
+                .thenReturn(
+                        List.of(
+                                segment(split, "Meals", "7.50", "60.00"),
+                                segment(split, "Travel", "5.00", "40.00")));
+
+        // When
+        String csv = export(ExpenseExportFormat.CSV, null, true);
+
+        // Then
+        String[] lines = csv.split("\r\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).endsWith(",segmentCategory,segmentAmount,segmentPercentage");
+        assertThat(lines[1]).startsWith(split.id().toString()).endsWith(",Meals,7.50,60.00");
+        assertThat(lines[2]).startsWith(split.id().toString()).endsWith(",Travel,5.00,40.00");
+        assertThat(lines[3]).startsWith(unsplit.id().toString()).endsWith(",,,");
+    }
+
+    @Test
+    void export_AsNdjsonWithSegments_ShouldEmbedSegmentsPerLine() throws Exception {
+        // Given
+        asUser(RoleType.ADMIN);
+        ExpenseListRow expense = row("Acme", "Lunch");
+        when(expenseRepository.streamExpensesWithFilters(
+                        null, null, null, null, null, FETCH_SIZE))
+                .thenReturn(Stream.of(expense));
+        when(expenseSegmentRepository.findRowsByExpenseIdIn(List.of(expense.id())))
+                .thenReturn(List.of(segment(expense, "Meals", "12.50", "100.00")));
+
+        // When
+        String ndjson = export(ExpenseExportFormat.NDJSON, null, true);
+
+        // Then
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(1);
+        JsonNode line = objectMapper.readTree(lines[0]);
+        assertThat(line.get("id").asText()).isEqualTo(expense.id().toString());
+        assertThat(line.get("vendor").asText()).isEqualTo("Acme");
+        assertThat(line.get("segments").get(0).get("category").asText()).isEqualTo("Meals");
+    }
+
+    @Test
+    void export_WithOneMillionRows_ShouldStreamWithoutCollecting() throws Exception {
+        // Given - rows are generated lazily, so nothing holds the full result at any time
+        int rowCount = 1_000_000;
+        asUser(RoleType.FINANCE);
+        when(expenseRepository.streamExpensesWithFilters(
+                        null, null, null, null, null, FETCH_SIZE))
+                .thenReturn(IntStream.range(0, rowCount).mapToObj(i -> row("Vendor", null)));
+        LineCountingOutputStream out = new LineCountingOutputStream();
+
+        // When
+        expenseExportService
+                .export(ExpenseExportFormat.CSV, null, null, null, null, false, false)
+                .writeTo(out);
+
+        // Then
+        assertThat(out.lines).isEqualTo(rowCount + 1L);
+    }
+
+    @Test
+    void export_WithSegments_ShouldLoadSegmentsOncePerChunk() throws Exception {
+        // Given
+        int rowCount = 2 * FETCH_SIZE + 500;
+        asUser(RoleType.FINANCE);
+        when(expenseRepository.streamExpensesWithFilters(
+                        null, null, null, null, null, FETCH_SIZE))
+                .thenReturn(IntStream.range(0, rowCount).mapToObj(i -> row("Vendor", null)));
+        when(expenseSegmentRepository.findRowsByExpenseIdIn(anyList())).thenReturn(List.of());
+        LineCountingOutputStream out = new LineCountingOutputStream();
+
+        // When
+        expenseExportService
+                .export(ExpenseExportFormat.CSV, null, null, null, null, true, false)
+                .writeTo(out);
+
+        // Then
+        assertThat(out.lines).isEqualTo(rowCount + 1L);
+        verify(expenseSegmentRepository, times(3)).findRowsByExpenseIdIn(anyList());
+    }
+
+    @Test
+    void export_Parallel_ShouldDelegateToParallelExporterWithCallerScope() throws Exception {
+        // Given
+        asUser(RoleType.EMPLOYEE);
+        when(parallelExpenseExporter.isSupported()).thenReturn(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        expenseExportService
+                .export(ExpenseExportFormat.NDJSON, null, null, null, null, true, true)
+                .writeTo(out);
+
+        // Then
+        verify(parallelExpenseExporter).reserve();
+        verify(parallelExpenseExporter)
+                .export(ExpenseExportFormat.NDJSON, userId, null, null, null, null, true, out);
+        verify(expenseRepository, never())
+                .streamExpensesWithFilters(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void export_ParallelWhenUnsupported_ShouldFallBackToSingleCursor() throws Exception {
+        // Given
+        asUser(RoleType.FINANCE);
+        when(parallelExpenseExporter.isSupported()).thenReturn(false);
+        when(expenseRepository.streamExpensesWithFilters(
+                        null, null, null, null, null, FETCH_SIZE))
+                .thenReturn(Stream.of(row("Acme", null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        expenseExportService
+                .export(ExpenseExportFormat.CSV, null, null, null, null, false, true)
+                .writeTo(out);
+
+        // Then
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\r\n")).hasSize(2);
+        verify(parallelExpenseExporter, never()).reserve();
+        verify(parallelExpenseExporter, never())
+                .export(any(), any(), any(), any(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void export_ParallelWhenAllSlotsAreBusy_ShouldRejectBeforeStreaming() {
+        // Given
+        asUser(RoleType.EMPLOYEE);
+        when(parallelExpenseExporter.isSupported()).thenReturn(true);
+        doThrow(new TooManyRequestsException("busy", Duration.ofSeconds(30)))
+                .when(parallelExpenseExporter)
+                .reserve();
+
+        // When & Then
+        assertThatThrownBy(
+                        () ->
+                                expenseExportService.export(
+                                        ExpenseExportFormat.CSV,
+                                        null,
+                                        null,
+                                        null,
+                                        null,
+                                        false,
+                                        true))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    private String export(ExpenseExportFormat format, ExpenseStatus status, boolean withSegments)
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expenseExportService
+                .export(format, null, null, null, status, withSegments, false)
+                .writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void streamExpensesByUser_ShouldWriteJsonArrayFromCursor() throws Exception {
+        // Given
+        LocalDate dateFrom = LocalDate.of(2024, 1, 1);
+        when(expenseRepository.streamExpensesWithFilters(
+                        userId, dateFrom, null, null, null, FETCH_SIZE))
+                .thenReturn(Stream.of(row("Acme", "Lunch"), row("Globex", "Taxi")));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expenseExportService.streamExpensesByUser(userId, dateFrom, null).writeTo(out);
+
+        // Then
+        verify(expenseService).checkCanListExpensesOf(userId);
+        JsonNode array = objectMapper.readTree(out.toString(StandardCharsets.UTF_8));
+        assertThat(array.isArray()).isTrue();
+        assertThat(array).hasSize(2);
+        assertThat(array.get(0).get("vendor").asText()).isEqualTo("Acme");
+        assertThat(array.get(1).get("vendor").asText()).isEqualTo("Globex");
+    }
+
+    @Test
+    void streamExpensesByUser_WithoutExpenses_ShouldWriteEmptyArray() throws Exception {
+        // Given
+        when(expenseRepository.streamExpensesWithFilters(
+                        userId, null, null, null, null, FETCH_SIZE))
+                .thenReturn(Stream.empty());
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expenseExportService.streamExpensesByUser(userId, null, null).writeTo(out);
+
+        // Then
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+
+    @Test
+    void streamExpensesByUser_WhenNotAllowed_ShouldFailBeforeStreaming() {
+        // Given
+        doThrow(new SecurityException("denied"))
+                .when(expenseService)
+                .checkCanListExpensesOf(userId);
+
+        // When & Then
+        assertThatThrownBy(() -> expenseExportService.streamExpensesByUser(userId, null, null))
+                .isInstanceOf(SecurityException.class);
+        verify(expenseRepository, never())
+                .streamExpensesWithFilters(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    private void asUser(RoleType role) {
+        when(currentUserProvider.get())
+                .thenReturn(new AuthenticatedUser(userId, "user@example.com", role, null));
+    }
+
+    private ExpenseListRow row(String vendor, String description) {
+        return new ExpenseListRow(
+                UUID.randomUUID(),
+                LocalDate.of(2024, 3, 1),
+                vendor,
+                new BigDecimal("12.50"),
+                description,
+                ExpenseType.EXPENSE,
+                userId,
+                "User",
+                "user@example.com",
+                ExpenseStatus.APPROVED,
+                LocalDateTime.of(2024, 3, 1, 9, 0),
+                LocalDateTime.of(2024, 3, 1, 9, 0));
+    }
+
+    private static ExpenseSegmentRow segment(
+            ExpenseListRow expense, String category, String amount, String percentage) {
+        return new ExpenseSegmentRow(
+                expense.id(),
+                UUID.randomUUID(),
+                category,
+                new BigDecimal(amount),
+                new BigDecimal(percentage));
+    }
+
+    /** Discards the export, counting its lines. */
+    private static class LineCountingOutputStream extends OutputStream {
+
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.expense.segmentation.mapper.ExpenseMapper;
+import com.expense.segmentation.model.ExpenseStatus;
+import com.expense.segmentation.model.ExpenseType;
+import com.expense.segmentation.repository.ExpenseListRow;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ExpenseExportWriterTest {
+
+    @Test
+    void writeRows_WithoutHeader_ShouldWriteRowsOnly() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExpenseExportWriter writer = writer(ExpenseExportFormat.CSV, out);
+
+        // When
+        long written = writer.writeRows(List.of(row("Acme"), row("Globex")).iterator(), 1, null);
+
+        // Then
+        assertThat(written).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\r\n"))
+                .hasSize(2)
+                .noneMatch(line -> line.startsWith("id,"));
+    }
+
+    @Test
+    void writeHeader_AsNdjson_ShouldWriteNothing() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExpenseExportWriter writer = writer(ExpenseExportFormat.NDJSON, out);
+
+        // When
+        writer.writeHeader();
+        writer.flush();
+
+        // Then
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void csvText_ShouldQuoteSeparatorsAndDefuseFormulas() {
+        // When & Then
+        assertThat(ExpenseExportWriter.csvText("plain")).isEqualTo("plain");
+        assertThat(ExpenseExportWriter.csvText("a,b")).isEqualTo("\"a,b\"");
+        assertThat(ExpenseExportWriter.csvText("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(ExpenseExportWriter.csvText("=SUM(A1:A2)")).isEqualTo("'=SUM(A1:A2)");
+        assertThat(ExpenseExportWriter.csvText(null)).isEmpty();
+    }
+
+    private static ExpenseExportWriter writer(
+            ExpenseExportFormat format, ByteArrayOutputStream out) {
+        return new ExpenseExportWriter(
+                format, false, new ExpenseMapper(), JsonMapper.builder().build(), out);
+    }
+
+    private static ExpenseListRow row(String vendor) {
+        return new ExpenseListRow(
+                UUID.randomUUID(),
+                LocalDate.of(2024, 3, 1),
+                vendor,
+                new BigDecimal("12.50"),
+                null,
+                ExpenseType.EXPENSE,
+                UUID.randomUUID(),
+                "User",
+                "user@example.com",
+                ExpenseStatus.APPROVED,
+                LocalDateTime.of(2024, 3, 1, 9, 0),
+                LocalDateTime.of(2024, 3, 1, 9, 0));
+    }
+}
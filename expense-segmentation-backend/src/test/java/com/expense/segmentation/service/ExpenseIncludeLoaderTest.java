@@ -0,0 +1,137 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.dto.AttachmentResponse;
+import com.expense.segmentation.dto.ExpenseResponse;
+import com.expense.segmentation.dto.ExpenseSegmentResponse;
+import com.expense.segmentation.mapper.AttachmentMapper;
+import com.expense.segmentation.mapper.ExpenseSegmentMapper;
+import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.model.ExpenseAttachment;
+import com.expense.segmentation.model.ExpenseSegment;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.repository.ExpenseAttachmentRepository;
+import com.expense.segmentation.repository.ExpenseSegmentRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ExpenseIncludeLoaderTest {
+
+    @Mock private ExpenseSegmentRepository expenseSegmentRepository;
+
+    @Mock private ExpenseAttachmentRepository attachmentRepository;
+
+    private ExpenseIncludeLoader expenseIncludeLoader;
+
+    private Expense firstExpense;
+    private Expense secondExpense;
+    private ExpenseResponse firstResponse;
+    private ExpenseResponse secondResponse;
+
+    @BeforeEach
+    void setUp() {
+        expenseIncludeLoader =
+                new ExpenseIncludeLoader(
+                        expenseSegmentRepository,
+                        attachmentRepository,
+                        new ExpenseSegmentMapper(),
+                        new AttachmentMapper());
+
+        firstExpense = new Expense();
+        firstExpense.setId(UUID.randomUUID());
+        secondExpense = new Expense();
+        secondExpense.setId(UUID.randomUUID());
+        firstResponse = ExpenseResponse.builder().id(firstExpense.getId()).build();
+        secondResponse = ExpenseResponse.builder().id(secondExpense.getId()).build();
+    }
+
+    @Test
+    void load_WithSegments_ShouldQueryOnceForThePageAndGroupByExpense() {
+        // Given
+        List<UUID> ids = List.of(firstExpense.getId(), secondExpense.getId());
+        when(expenseSegmentRepository.findByExpenseIdInOrderByCategory(ids))
+                .thenReturn(
+                        List.of(segment(firstExpense, "Meals"), segment(firstExpense, "Travel")));
+
+        // When
+        expenseIncludeLoader.load(
+                List.of(firstResponse, secondResponse), Set.of(ExpenseInclude.SEGMENTS));
+
+        // Then
+        assertThat(firstResponse.getSegments())
+                .extracting(ExpenseSegmentResponse::getCategory)
+                .containsExactly("Meals", "Travel");
+        assertThat(secondResponse.getSegments()).isEmpty();
+        assertThat(firstResponse.getAttachments()).isNull();
+        verify(attachmentRepository, never()).findByExpenseIdInWithUploadedBy(any());
+    }
+
+    @Test
+    void load_WithAttachments_ShouldQueryOnceForThePageAndGroupByExpense() {
+        // Given
+        List<UUID> ids = List.of(firstExpense.getId(), secondExpense.getId());
+        when(attachmentRepository.findByExpenseIdInWithUploadedBy(ids))
+                .thenReturn(List.of(attachment(secondExpense, "receipt.pdf")));
+
+        // When
+        expenseIncludeLoader.load(
+                List.of(firstResponse, secondResponse), Set.of(ExpenseInclude.ATTACHMENTS));
+
+        // Then
+        assertThat(firstResponse.getAttachments()).isEmpty();
+        assertThat(secondResponse.getAttachments())
+                .extracting(AttachmentResponse::getFilename)
+                .containsExactly("receipt.pdf");
+        assertThat(secondResponse.getSegments()).isNull();
+        verify(expenseSegmentRepository, never()).findByExpenseIdInOrderByCategory(any());
+    }
+
+    @Test
+    void load_WithoutIncludes_ShouldNotQuery() {
+        // When
+        expenseIncludeLoader.load(List.of(firstResponse), Set.of());
+
+        // Then
+        assertThat(firstResponse.getSegments()).isNull();
+        assertThat(firstResponse.getAttachments()).isNull();
+        verify(expenseSegmentRepository, never()).findByExpenseIdInOrderByCategory(any());
+        verify(attachmentRepository, never()).findByExpenseIdInWithUploadedBy(any());
+    }
+
+    private static ExpenseSegment segment(Expense expense, String category) {
+        ExpenseSegment segment = new ExpenseSegment();
+        segment.setId(UUID.randomUUID());
+        segment.setExpense(expense);
+        segment.setCategory(category);
+        segment.setAmount(new BigDecimal("10.00"));
+        segment.setPercentage(new BigDecimal("50.00"));
+        return segment;
+    }
+
+    private static ExpenseAttachment attachment(Expense expense, String filename) {
+        User uploader = new User();
+        uploader.setId(UUID.randomUUID());
+        uploader.setName("Uploader");
+        uploader.setEmail("uploader@example.com");
+
+        ExpenseAttachment attachment = new ExpenseAttachment();
+        attachment.setId(UUID.randomUUID());
+        attachment.setExpense(expense);
+        attachment.setFilename(filename);
+        attachment.setUploadedBy(uploader);
+        return attachment;
+    }
+}
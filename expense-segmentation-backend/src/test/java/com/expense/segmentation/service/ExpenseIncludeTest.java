@@ -0,0 +1,32 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.expense.segmentation.exception.InvalidOperationException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ExpenseIncludeTest {
+
+    @Test
+    void parse_ShouldIgnoreCaseAndBlanks() {
+        // When & Then
+        assertThat(ExpenseInclude.parse(List.of("segments", " Attachments ", "")))
+                .containsExactlyInAnyOrder(ExpenseInclude.SEGMENTS, ExpenseInclude.ATTACHMENTS);
+    }
+
+    @Test
+    void parse_WithNull_ShouldReturnEmptySet() {
+        // When & Then
+        assertThat(ExpenseInclude.parse(null)).isEmpty();
+    }
+
+    @Test
+    void parse_WithUnknownValue_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> ExpenseInclude.parse(List.of("comments")))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessageContaining("comments");
+    }
+}
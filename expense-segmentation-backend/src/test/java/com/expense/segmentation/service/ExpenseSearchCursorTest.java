@@ -0,0 +1,46 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.expense.segmentation.exception.InvalidOperationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ExpenseSearchCursorTest {
+
+    @Test
+    void encode_ShouldRoundTripRankExactly() {
+        // Given
+        ExpenseSearchCursor cursor = new ExpenseSearchCursor(0.0607927f, UUID.randomUUID());
+
+        // When
+        String encoded = cursor.encode();
+
+        // Then
+        assertThat(encoded).doesNotContain("=", "+", "/");
+        assertThat(ExpenseSearchCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_WithMalformedCursor_ShouldThrowException() {
+        // Given
+        String notBase64 = "%%%";
+        String wrongParts =
+                Base64.getUrlEncoder().encodeToString("0.5".getBytes(StandardCharsets.UTF_8));
+        String notFinite =
+                Base64.getUrlEncoder()
+                        .encodeToString(
+                                ("NaN|" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+
+        // When & Then
+        assertThatThrownBy(() -> ExpenseSearchCursor.decode(notBase64))
+                .isInstanceOf(InvalidOperationException.class);
+        assertThatThrownBy(() -> ExpenseSearchCursor.decode(wrongParts))
+                .isInstanceOf(InvalidOperationException.class);
+        assertThatThrownBy(() -> ExpenseSearchCursor.decode(notFinite))
+                .isInstanceOf(InvalidOperationException.class);
+    }
+}
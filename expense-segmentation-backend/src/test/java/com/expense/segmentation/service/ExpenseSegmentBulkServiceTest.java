@@ -0,0 +1,237 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.dto.BulkExpenseSegmentsRequest;
+import com.expense.segmentation.dto.BulkExpenseSegmentsResponse;
+import com.expense.segmentation.dto.CreateExpenseSegmentRequest;
+import com.expense.segmentation.dto.ExpenseSegmentsItem;
+import com.expense.segmentation.dto.ExpenseSegmentsResult;
+import com.expense.segmentation.dto.ExpenseSegmentsResult.Status;
+import com.expense.segmentation.model.Category;
+import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.model.ExpenseSegment;
+import com.expense.segmentation.repository.CategoryRepository;
+import com.expense.segmentation.repository.ExpenseAmountRow;
+import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.ExpenseSegmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class ExpenseSegmentBulkServiceTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Mock private ExpenseSegmentRepository expenseSegmentRepository;
+
+    @Mock private ExpenseRepository expenseRepository;
+
+    @Mock private ExpenseAuthorizationService expenseAuthorizationService;
+
+    @Mock private PlatformTransactionManager transactionManager;
+
+    @Mock private CategoryRepository categoryRepository;
+
+    private CategoryDictionary categoryDictionary;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ExpenseSegmentBulkService expenseSegmentBulkService;
+
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        categoryDictionary = new CategoryDictionary(categoryRepository);
+        for (String name : List.of("Category 0", "Category 1", "Meals")) {
+            Category category = new Category();
+            category.setId(UUID.randomUUID());
+            category.setName(name);
+            categoryDictionary.register(category);
+        }
+        expenseSegmentBulkService =
+                new ExpenseSegmentBulkService(
+                        expenseSegmentRepository,
+                        expenseRepository,
+                        expenseAuthorizationService,
+                        categoryDictionary,
+                        meterRegistry,
+                        transactionManager,
+                        CHUNK_SIZE);
+        ownerId = UUID.randomUUID();
+    }
+
+    @Test
+    void replaceSegments_ShouldReportEachExpenseInRequestOrder() {
+        // Arrange
+        UUID valid = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        UUID foreign = UUID.randomUUID();
+        UUID wrongTotal = UUID.randomUUID();
+        UUID otherOwnerId = UUID.randomUUID();
+
+        when(expenseRepository.findAmountsByIdIn(anyCollection()))
+                .thenReturn(
+                        List.of(
+                                new ExpenseAmountRow(valid, ownerId, new BigDecimal("100.00")),
+                                new ExpenseAmountRow(
+                                        foreign, otherOwnerId, new BigDecimal("100.00")),
+                                new ExpenseAmountRow(
+                                        wrongTotal, ownerId, new BigDecimal("100.00"))));
+        when(expenseAuthorizationService.canModifyExpenseOwnedBy(ownerId)).thenReturn(true);
+        when(expenseAuthorizationService.canModifyExpenseOwnedBy(otherOwnerId)).thenReturn(false);
+
+        BulkExpenseSegmentsRequest request =
+                new BulkExpenseSegmentsRequest(
+                        List.of(
+                                item(valid, "60.00", "40.00"),
+                                item(missing, "100.00"),
+                                item(foreign, "100.00"),
+                                item(wrongTotal, "60.00"),
+                                item(valid, "100.00")));
+
+        // Act
+        BulkExpenseSegmentsResponse response = expenseSegmentBulkService.replaceSegments(request);
+
+        // Assert
+        assertThat(response.getResults())
+                .extracting(ExpenseSegmentsResult::getExpenseId, ExpenseSegmentsResult::getStatus)
+                .containsExactly(
+                        tuple(valid, Status.UPDATED),
+                        tuple(missing, Status.NOT_FOUND),
+                        tuple(foreign, Status.FORBIDDEN),
+                        tuple(wrongTotal, Status.INVALID),
+                        tuple(valid, Status.INVALID));
+        assertThat(response.getResults().get(0).getSegmentCount()).isEqualTo(2);
+        assertThat(response.getResults().get(3).getMessage()).contains("must equal");
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(4);
+
+        // One authorization query for the whole request, one write transaction
+        verify(expenseRepository).findAmountsByIdIn(anyCollection());
+        verify(transactionManager).getTransaction(any());
+        verify(expenseSegmentRepository).findByExpenseIdInOrderByCategory(List.of(valid));
+        assertThat(
+                        meterRegistry
+                                .counter("expense.segments.bulk.expenses", "status", "UPDATED")
+                                .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void replaceSegments_ShouldDiffAgainstExistingSegmentsPerChunk() {
+        // Arrange
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(expenseRepository.findAmountsByIdIn(anyCollection()))
+                .thenReturn(
+                        List.of(
+                                new ExpenseAmountRow(first, ownerId, new BigDecimal("100.00")),
+                                new ExpenseAmountRow(second, ownerId, new BigDecimal("100.00")),
+                                new ExpenseAmountRow(third, ownerId, new BigDecimal("100.00"))));
+        when(expenseAuthorizationService.canModifyExpenseOwnedBy(ownerId)).thenReturn(true);
+
+        ExpenseSegment kept = segment(first, "category 0", "50.00");
+        ExpenseSegment dropped = segment(first, "Meals", "50.00");
+        when(expenseSegmentRepository.findByExpenseIdInOrderByCategory(List.of(first, second)))
+                .thenReturn(List.of(dropped, kept));
+        when(expenseSegmentRepository.findByExpenseIdInOrderByCategory(List.of(third)))
+                .thenReturn(List.of());
+
+        BulkExpenseSegmentsRequest request =
+                new BulkExpenseSegmentsRequest(
+                        List.of(
+                                item(first, "100.00"),
+                                item(second, "100.00"),
+                                item(third, "100.00")));
+
+        // Act
+        BulkExpenseSegmentsResponse response = expenseSegmentBulkService.replaceSegments(request);
+
+        // Assert
+        assertThat(response.getUpdated()).isEqualTo(3);
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(expenseSegmentRepository).deleteAllByIdInBatch(List.of(dropped.getId()));
+        verify(expenseSegmentRepository, times(2)).flush();
+        assertThat(kept.getCategory()).isEqualTo("Category 0");
+        assertThat(kept.getAmount()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void replaceSegments_WhenChunkFails_ShouldOnlyFailThatChunk() {
+        // Arrange
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(expenseRepository.findAmountsByIdIn(anyCollection()))
+                .thenReturn(
+                        List.of(
+                                new ExpenseAmountRow(first, ownerId, new BigDecimal("100.00")),
+                                new ExpenseAmountRow(second, ownerId, new BigDecimal("100.00")),
+                                new ExpenseAmountRow(third, ownerId, new BigDecimal("100.00"))));
+        when(expenseAuthorizationService.canModifyExpenseOwnedBy(ownerId)).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("expense deleted"))
+                .doNothing()
+                .when(expenseSegmentRepository)
+                .flush();
+
+        BulkExpenseSegmentsRequest request =
+                new BulkExpenseSegmentsRequest(
+                        List.of(
+                                item(first, "100.00"),
+                                item(second, "100.00"),
+                                item(third, "100.00")));
+
+        // Act
+        BulkExpenseSegmentsResponse response = expenseSegmentBulkService.replaceSegments(request);
+
+        // Assert
+        assertThat(response.getResults())
+                .extracting(ExpenseSegmentsResult::getStatus)
+                .containsExactly(Status.FAILED, Status.FAILED, Status.UPDATED);
+        verify(transactionManager).rollback(any());
+    }
+
+    private static ExpenseSegmentsItem item(UUID expenseId, String... amounts) {
+        List<CreateExpenseSegmentRequest> segments =
+                IntStream.range(0, amounts.length)
+                        .mapToObj(
+                                i ->
+                                        new CreateExpenseSegmentRequest(
+                                                "Category " + i, new BigDecimal(amounts[i]), null))
+                        .toList();
+        return new ExpenseSegmentsItem(expenseId, segments);
+    }
+
+    private ExpenseSegment segment(UUID expenseId, String category, String amount) {
+        Expense expense = new Expense();
+        expense.setId(expenseId);
+        ExpenseSegment segment = new ExpenseSegment();
+        segment.setId(UUID.randomUUID());
+        segment.setExpense(expense);
+        segment.setCategory(category);
+        segment.setCategoryId(categoryDictionary.resolve(category).orElseThrow().id());
+        segment.setAmount(new BigDecimal(amount));
+        segment.setPercentage(new BigDecimal(amount));
+        return segment;
+    }
+}
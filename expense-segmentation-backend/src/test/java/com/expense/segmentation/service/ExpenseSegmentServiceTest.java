@@ -3,6 +3,7 @@ package com.expense.segmentation.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -12,11 +13,13 @@ import com.expense.segmentation.dto.ExpenseSegmentResponse;
 import com.expense.segmentation.exception.ResourceNotFoundException;
 import com.expense.segmentation.exception.SegmentValidationException;
 import com.expense.segmentation.mapper.ExpenseSegmentMapper;
+import com.expense.segmentation.model.Category;
 import com.expense.segmentation.model.Expense;
 import com.expense.segmentation.model.ExpenseSegment;
 import com.expense.segmentation.model.ExpenseStatus;
 import com.expense.segmentation.model.ExpenseType;
 import com.expense.segmentation.model.User;
+import com.expense.segmentation.repository.CategoryRepository;
 import com.expense.segmentation.repository.ExpenseRepository;
 import com.expense.segmentation.repository.ExpenseSegmentRepository;
 import java.math.BigDecimal;
@@ -27,7 +30,7 @@ import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -40,7 +43,11 @@ class ExpenseSegmentServiceTest {
 
     @Mock private ExpenseSegmentMapper expenseSegmentMapper;
 
-    @InjectMocks private ExpenseSegmentService expenseSegmentService;
+    @Mock private CategoryRepository categoryRepository;
+
+    private CategoryDictionary categoryDictionary;
+
+    private ExpenseSegmentService expenseSegmentService;
 
     private User testUser;
     private Expense testExpense;
@@ -48,6 +55,22 @@ class ExpenseSegmentServiceTest {
 
     @BeforeEach
     void setUp() {
+        categoryDictionary = new CategoryDictionary(categoryRepository);
+        for (String name :
+                List.of("Travel", "Meals", "Supplies", "Office", "Updated Travel", "Retired")) {
+            Category category = new Category();
+            category.setId(UUID.randomUUID());
+            category.setName(name);
+            category.setActive(!"Retired".equals(name));
+            categoryDictionary.register(category);
+        }
+        expenseSegmentService =
+                new ExpenseSegmentService(
+                        expenseSegmentRepository,
+                        expenseRepository,
+                        expenseSegmentMapper,
+                        categoryDictionary);
+
         testUser = new User();
         testUser.setId(UUID.randomUUID());
         testUser.setName("Test User");
@@ -191,9 +214,7 @@ class ExpenseSegmentServiceTest {
                         new BigDecimal("60.00"));
 
         when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(expenseSegmentRepository.saveAll(any()))
-                .thenReturn(List.of(savedSegment1, savedSegment2));
-        when(expenseSegmentMapper.toResponseList(List.of(savedSegment1, savedSegment2)))
+        when(expenseSegmentMapper.toResponseList(any()))
                 .thenReturn(List.of(response1, response2));
 
         // Act
@@ -208,7 +229,7 @@ class ExpenseSegmentServiceTest {
                 .containsExactly(new BigDecimal("40.00"), new BigDecimal("60.00"));
 
         verify(expenseRepository).findById(expenseId);
-        verify(expenseSegmentRepository).deleteByExpenseId(expenseId);
+        verify(expenseSegmentRepository, never()).deleteAllByIdInBatch(any());
         verify(expenseSegmentRepository).saveAll(any());
     }
 
@@ -263,6 +284,58 @@ class ExpenseSegmentServiceTest {
         verify(expenseRepository).findById(expenseId);
     }
 
+    @Test
+    void addMultipleExpenseSegments_WithUnknownCategory_ShouldThrowException() {
+        // Arrange
+        CreateExpenseSegmentRequest segment1 = new CreateExpenseSegmentRequest();
+        segment1.setCategory("Travel");
+        segment1.setAmount(new BigDecimal("40.00"));
+
+        CreateExpenseSegmentRequest segment2 = new CreateExpenseSegmentRequest();
+        segment2.setCategory(" Gadgets ");
+        segment2.setAmount(new BigDecimal("60.00"));
+
+        CreateMultipleExpenseSegmentsRequest request = new CreateMultipleExpenseSegmentsRequest();
+        request.setSegments(List.of(segment1, segment2));
+
+        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
+
+        // Act & Assert
+        assertThatThrownBy(
+                        () -> expenseSegmentService.addMultipleExpenseSegments(expenseId, request))
+                .isInstanceOf(SegmentValidationException.class)
+                .hasMessage("Unknown segment category 'Gadgets'");
+
+        // Looked up in the database before being rejected
+        verify(categoryRepository)
+                .findFirstByNameIgnoreCaseOrderByActiveDescCreatedAtAsc("Gadgets");
+        verify(expenseSegmentRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void addMultipleExpenseSegments_WithInactiveCategory_ShouldThrowException() {
+        // Arrange
+        CreateExpenseSegmentRequest segment1 = new CreateExpenseSegmentRequest();
+        segment1.setCategory("Travel");
+        segment1.setAmount(new BigDecimal("40.00"));
+
+        CreateExpenseSegmentRequest segment2 = new CreateExpenseSegmentRequest();
+        segment2.setCategory("retired");
+        segment2.setAmount(new BigDecimal("60.00"));
+
+        CreateMultipleExpenseSegmentsRequest request = new CreateMultipleExpenseSegmentsRequest();
+        request.setSegments(List.of(segment1, segment2));
+
+        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
+
+        // Act & Assert
+        assertThatThrownBy(
+                        () -> expenseSegmentService.addMultipleExpenseSegments(expenseId, request))
+                .isInstanceOf(SegmentValidationException.class)
+                .hasMessage("Segment category 'Retired' is inactive");
+        verify(expenseSegmentRepository, never()).saveAll(any());
+    }
+
     @Test
     void addMultipleExpenseSegments_WithRoundingDifference_ShouldAllowSmallDifference() {
         // Arrange
@@ -284,7 +357,6 @@ class ExpenseSegmentServiceTest {
         request.setSegments(List.of(segment1, segment2, segment3));
 
         when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(expenseSegmentRepository.saveAll(any())).thenReturn(List.of());
         when(expenseSegmentMapper.toResponseList(any())).thenReturn(List.of());
 
         // Act & Should not throw exception
@@ -292,7 +364,7 @@ class ExpenseSegmentServiceTest {
                 expenseSegmentService.addMultipleExpenseSegments(expenseId, request);
 
         verify(expenseRepository).findById(expenseId);
-        verify(expenseSegmentRepository).deleteByExpenseId(expenseId);
+        verify(expenseSegmentRepository, never()).deleteAllByIdInBatch(any());
         verify(expenseSegmentRepository).saveAll(any());
     }
 
@@ -314,14 +386,6 @@ class ExpenseSegmentServiceTest {
         CreateMultipleExpenseSegmentsRequest request = new CreateMultipleExpenseSegmentsRequest();
         request.setSegments(List.of(segment1, segment2, segment3));
 
-        ExpenseSegment savedSegment1 =
-                createExpenseSegment("Travel", new BigDecimal("40.00"), new BigDecimal("40.00"));
-        ExpenseSegment savedSegment2 =
-                createExpenseSegment("Meals", new BigDecimal("30.00"), new BigDecimal("30.00"));
-        ExpenseSegment savedSegment3 =
-                createExpenseSegment("Supplies", new BigDecimal("30.00"), new BigDecimal("30.00"));
-        List<ExpenseSegment> savedSegments = List.of(savedSegment1, savedSegment2, savedSegment3);
-
         ExpenseSegmentResponse response1 =
                 new ExpenseSegmentResponse(
                         UUID.randomUUID(),
@@ -343,8 +407,7 @@ class ExpenseSegmentServiceTest {
         List<ExpenseSegmentResponse> expectedResponses = List.of(response1, response2, response3);
 
         when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(expenseSegmentRepository.saveAll(any())).thenReturn(savedSegments);
-        when(expenseSegmentMapper.toResponseList(savedSegments)).thenReturn(expectedResponses);
+        when(expenseSegmentMapper.toResponseList(any())).thenReturn(expectedResponses);
 
         // Act
         List<ExpenseSegmentResponse> actualResponses =
@@ -353,10 +416,54 @@ class ExpenseSegmentServiceTest {
         // Assert
         assertThat(actualResponses).isEqualTo(expectedResponses);
         verify(expenseRepository).findById(expenseId);
-        verify(expenseSegmentRepository).deleteByExpenseId(expenseId);
+        verify(expenseSegmentRepository, never()).deleteAllByIdInBatch(any());
         verify(expenseSegmentRepository).saveAll(any());
     }
 
+    @Test
+    void addMultipleExpenseSegments_WithExistingSegments_ShouldOnlyWriteTheDifference() {
+        // Arrange
+        ExpenseSegment travel =
+                createExpenseSegment("Travel", new BigDecimal("50.00"), new BigDecimal("50.00"));
+        ExpenseSegment meals =
+                createExpenseSegment("Meals", new BigDecimal("50.00"), new BigDecimal("50.00"));
+
+        CreateExpenseSegmentRequest updatedTravel = new CreateExpenseSegmentRequest();
+        updatedTravel.setCategory(" travel ");
+        updatedTravel.setAmount(new BigDecimal("70.00"));
+
+        CreateExpenseSegmentRequest office = new CreateExpenseSegmentRequest();
+        office.setCategory("Office");
+        office.setAmount(new BigDecimal("30.00"));
+
+        CreateMultipleExpenseSegmentsRequest request = new CreateMultipleExpenseSegmentsRequest();
+        request.setSegments(List.of(updatedTravel, office));
+
+        when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
+        when(expenseSegmentRepository.findByExpenseIdOrderByCategory(expenseId))
+                .thenReturn(List.of(meals, travel));
+        when(expenseSegmentMapper.toResponseList(any())).thenReturn(List.of());
+
+        // Act
+        expenseSegmentService.addMultipleExpenseSegments(expenseId, request);
+
+        // Assert
+        assertThat(travel.getCategory()).isEqualTo("Travel");
+        assertThat(travel.getAmount()).isEqualByComparingTo("70.00");
+        assertThat(travel.getPercentage()).isEqualByComparingTo("70.00");
+        verify(expenseSegmentRepository).deleteAllByIdInBatch(List.of(meals.getId()));
+
+        ArgumentCaptor<List<ExpenseSegment>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(expenseSegmentRepository).saveAll(inserted.capture());
+        assertThat(inserted.getValue())
+                .singleElement()
+                .satisfies(
+                        segment -> {
+                            assertThat(segment.getCategory()).isEqualTo("Office");
+                            assertThat(segment.getExpense()).isSameAs(testExpense);
+                        });
+    }
+
     @Test
     void addMultipleExpenseSegments_WithTotalAmountMismatch_ShouldThrowValidationException() {
         // Arrange
@@ -422,7 +529,6 @@ class ExpenseSegmentServiceTest {
         request.setSegments(List.of(segment1, segment2));
 
         when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(expenseSegmentRepository.saveAll(any())).thenReturn(List.of());
         when(expenseSegmentMapper.toResponseList(any())).thenReturn(List.of());
 
         // Act
@@ -431,7 +537,7 @@ class ExpenseSegmentServiceTest {
 
         // Assert
         verify(expenseRepository).findById(expenseId);
-        verify(expenseSegmentRepository).deleteByExpenseId(expenseId);
+        verify(expenseSegmentRepository, never()).deleteAllByIdInBatch(any());
         verify(expenseSegmentRepository).saveAll(any());
     }
 
@@ -452,7 +558,6 @@ class ExpenseSegmentServiceTest {
         request.setSegments(List.of(segment1, segment2));
 
         when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(expenseSegmentRepository.saveAll(any())).thenReturn(List.of());
         when(expenseSegmentMapper.toResponseList(any())).thenReturn(List.of());
 
         // Act
@@ -461,7 +566,7 @@ class ExpenseSegmentServiceTest {
 
         // Assert
         verify(expenseRepository).findById(expenseId);
-        verify(expenseSegmentRepository).deleteByExpenseId(expenseId);
+        verify(expenseSegmentRepository, never()).deleteAllByIdInBatch(any());
         verify(expenseSegmentRepository).saveAll(any());
     }
 
@@ -479,7 +584,6 @@ class ExpenseSegmentServiceTest {
         request.setSegments(List.of(segment1));
 
         when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(expenseSegmentRepository.saveAll(any())).thenReturn(List.of());
         when(expenseSegmentMapper.toResponseList(any())).thenReturn(List.of());
 
         // Act
@@ -488,7 +592,7 @@ class ExpenseSegmentServiceTest {
 
         // Assert
         verify(expenseRepository).findById(expenseId);
-        verify(expenseSegmentRepository).deleteByExpenseId(expenseId);
+        verify(expenseSegmentRepository, never()).deleteAllByIdInBatch(any());
         verify(expenseSegmentRepository).saveAll(any());
     }
 
@@ -505,7 +609,6 @@ class ExpenseSegmentServiceTest {
         request.setSegments(List.of(segment));
 
         when(expenseRepository.findById(expenseId)).thenReturn(Optional.of(testExpense));
-        when(expenseSegmentRepository.saveAll(any())).thenReturn(List.of());
         when(expenseSegmentMapper.toResponseList(any())).thenReturn(List.of());
 
         // Act
@@ -523,6 +626,7 @@ class ExpenseSegmentServiceTest {
         segment.setId(UUID.randomUUID());
         segment.setExpense(testExpense);
         segment.setCategory(category);
+        segment.setCategoryId(categoryDictionary.resolve(category).orElseThrow().id());
         segment.setAmount(amount);
         segment.setPercentage(percentage);
         return segment;
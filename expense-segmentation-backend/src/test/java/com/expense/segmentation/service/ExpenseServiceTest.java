@@ -2,29 +2,47 @@ package com.expense.segmentation.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.lenient;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.expense.segmentation.config.AuthenticatedUser;
 import com.expense.segmentation.dto.CreateExpenseRequest;
+import com.expense.segmentation.dto.CreateExpenseSegmentRequest;
 import com.expense.segmentation.dto.ExpenseResponse;
 import com.expense.segmentation.dto.PagedExpenseResponse;
+import com.expense.segmentation.dto.PagedExpenseResponse.TotalSource;
+import com.expense.segmentation.exception.InvalidOperationException;
 import com.expense.segmentation.exception.ResourceNotFoundException;
 import com.expense.segmentation.mapper.ExpenseMapper;
 import com.expense.segmentation.model.Expense;
+import com.expense.segmentation.model.ExpenseSegment;
 import com.expense.segmentation.model.ExpenseStatus;
 import com.expense.segmentation.model.ExpenseType;
 import com.expense.segmentation.model.Role;
 import com.expense.segmentation.model.RoleType;
 import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.Vendor;
+import com.expense.segmentation.repository.ExpenseListRow;
 import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.ExpenseSearchRow;
+import com.expense.segmentation.repository.ExpenseSegmentRepository;
+import com.expense.segmentation.repository.ExpenseVersionRow;
 import com.expense.segmentation.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,12 +50,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
 
 @ExtendWith(MockitoExtension.class)
 class ExpenseServiceTest {
@@ -46,9 +58,19 @@ class ExpenseServiceTest {
 
     @Mock private UserRepository userRepository;
 
-    @Mock private SecurityContext securityContext;
+    @Mock private CurrentUserProvider currentUserProvider;
 
-    @Mock private Authentication authentication;
+    @Mock private UserIdentityCache userIdentityCache;
+
+    @Mock private ExpenseIncludeLoader expenseIncludeLoader;
+
+    @Mock private VendorService vendorService;
+
+    @Mock private VendorDirectory vendorDirectory;
+
+    @Mock private ExpenseSegmentRepository expenseSegmentRepository;
+
+    @Mock private SegmentationRuleEngine segmentationRuleEngine;
 
     private ExpenseService expenseService;
 
@@ -60,7 +82,20 @@ class ExpenseServiceTest {
     @BeforeEach
     void setUp() {
         expenseMapper = new ExpenseMapper();
-        expenseService = new ExpenseService(expenseRepository, userRepository, expenseMapper);
+        expenseService =
+                new ExpenseService(
+                        expenseRepository,
+                        userRepository,
+                        expenseMapper,
+                        currentUserProvider,
+                        userIdentityCache,
+                        new ExpenseCountCache(
+                                new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1)),
+                        expenseIncludeLoader,
+                        vendorService,
+                        vendorDirectory,
+                        expenseSegmentRepository,
+                        segmentationRuleEngine);
 
         // Set up test role (FINANCE role has permission to view all expenses)
         Role financeRole = new Role();
@@ -85,11 +120,6 @@ class ExpenseServiceTest {
         testExpense.setType(ExpenseType.EXPENSE);
         testExpense.setCreatedBy(testUser);
         testExpense.setStatus(ExpenseStatus.SUBMITTED);
-
-        // Mock security context (lenient since not all tests use authentication)
-        SecurityContextHolder.setContext(securityContext);
-        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
-        lenient().when(authentication.getName()).thenReturn(testUser.getEmail());
     }
 
     @Test
@@ -102,7 +132,8 @@ class ExpenseServiceTest {
         request.setDescription("Test description");
         request.setType(ExpenseType.EXPENSE);
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
         when(expenseRepository.save(any(Expense.class))).thenReturn(testExpense);
 
         // Act
@@ -121,6 +152,82 @@ class ExpenseServiceTest {
         assertThat(savedExpense.getVendor()).isEqualTo("Test Vendor");
         assertThat(savedExpense.getCreatedBy()).isEqualTo(testUser);
         assertThat(savedExpense.getStatus()).isEqualTo(ExpenseStatus.SUBMITTED);
+        verify(expenseSegmentRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void createExpense_ShouldLinkCanonicalVendorAndRecordUsage() {
+        // Arrange
+        CreateExpenseRequest request = new CreateExpenseRequest();
+        request.setVendor("UBER *TRIP");
+        request.setAmount(new BigDecimal("25.00"));
+        request.setType(ExpenseType.EXPENSE);
+        Vendor uber = new Vendor(UUID.randomUUID(), "Uber", "uber", null);
+        testExpense.setCanonicalVendor(uber);
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(vendorService.resolve("UBER *TRIP")).thenReturn(uber);
+        when(expenseRepository.save(any(Expense.class))).thenReturn(testExpense);
+
+        // Act
+        expenseService.createExpense(request);
+
+        // Assert
+        ArgumentCaptor<Expense> expenseCaptor = ArgumentCaptor.forClass(Expense.class);
+        verify(expenseRepository).save(expenseCaptor.capture());
+        assertThat(expenseCaptor.getValue().getVendor()).isEqualTo("UBER *TRIP");
+        assertThat(expenseCaptor.getValue().getCanonicalVendor()).isEqualTo(uber);
+        verify(vendorDirectory).recordUsage(uber.getId(), testUser.getId());
+    }
+
+    @Test
+    void createExpense_WhenRuleMatches_ShouldSaveRuleSegments() {
+        // Arrange
+        CreateExpenseRequest request = new CreateExpenseRequest();
+        request.setVendor("Delta Air Lines");
+        request.setAmount(new BigDecimal("100.00"));
+        request.setDescription("Client visit");
+        request.setType(ExpenseType.EXPENSE);
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(expenseRepository.save(any(Expense.class))).thenReturn(testExpense);
+        CategoryDictionary.Entry travel =
+                new CategoryDictionary.Entry(0, UUID.randomUUID(), "Travel", true);
+        CategoryDictionary.Entry meals =
+                new CategoryDictionary.Entry(1, UUID.randomUUID(), "Meals", true);
+        when(segmentationRuleEngine.match(
+                        "Delta Air Lines", "Client visit", new BigDecimal("100.00")))
+                .thenReturn(
+                        Optional.of(
+                                new SegmentationRuleEngine.Match(
+                                        UUID.randomUUID(),
+                                        "Client flights",
+                                        List.of(
+                                                new CreateExpenseSegmentRequest(
+                                                        "Travel", new BigDecimal("70.00"), null),
+                                                new CreateExpenseSegmentRequest(
+                                                        "Meals", new BigDecimal("30.00"), null)),
+                                        List.of(travel, meals))));
+
+        // Act
+        expenseService.createExpense(request);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ExpenseSegment>> segmentsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(expenseSegmentRepository).saveAll(segmentsCaptor.capture());
+        assertThat(segmentsCaptor.getValue())
+                .extracting(
+                        ExpenseSegment::getCategory,
+                        ExpenseSegment::getCategoryId,
+                        ExpenseSegment::getPercentage)
+                .containsExactly(
+                        tuple("Travel", travel.id(), new BigDecimal("70.00")),
+                        tuple("Meals", meals.id(), new BigDecimal("30.00")));
+        assertThat(segmentsCaptor.getValue())
+                .allSatisfy(segment -> assertThat(segment.getExpense()).isSameAs(testExpense));
     }
 
     @Test
@@ -132,7 +239,8 @@ class ExpenseServiceTest {
         request.setAmount(new BigDecimal("100.00"));
         request.setType(ExpenseType.EXPENSE);
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
         when(expenseRepository.save(any(Expense.class))).thenReturn(testExpense);
 
         // Act
@@ -154,7 +262,8 @@ class ExpenseServiceTest {
         request.setAmount(new BigDecimal("100.00"));
         request.setType(ExpenseType.EXPENSE);
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.empty());
+        when(currentUserProvider.get())
+                .thenThrow(new ResourceNotFoundException("User", "email", testUser.getEmail()));
 
         // Act & Assert
         assertThatThrownBy(() -> expenseService.createExpense(request))
@@ -166,12 +275,12 @@ class ExpenseServiceTest {
     void getExpenseById_WithValidId_ShouldReturnExpense() {
         // Arrange
         UUID expenseId = testExpense.getId();
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findByIdWithCreatedBy(expenseId))
                 .thenReturn(Optional.of(testExpense));
 
         // Act
-        ExpenseResponse response = expenseService.getExpenseById(expenseId);
+        ExpenseResponse response = expenseService.getExpenseById(expenseId, Set.of());
 
         // Assert
         assertThat(response).isNotNull();
@@ -186,39 +295,172 @@ class ExpenseServiceTest {
         when(expenseRepository.findByIdWithCreatedBy(invalidId)).thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThatThrownBy(() -> expenseService.getExpenseById(invalidId))
+        assertThatThrownBy(() -> expenseService.getExpenseById(invalidId, Set.of()))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Expense");
+    }
+
+    @Test
+    void getExpenseETag_ShouldChangeWithVersionWithoutLoadingExpense() {
+        // Arrange
+        UUID expenseId = testExpense.getId();
+        LocalDateTime updatedAt = LocalDateTime.now();
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findVersionById(expenseId))
+                .thenReturn(
+                        Optional.of(
+                                new ExpenseVersionRow(
+                                        testUser.getId(), 1L, updatedAt, updatedAt)))
+                .thenReturn(
+                        Optional.of(
+                                new ExpenseVersionRow(
+                                        testUser.getId(), 1L, updatedAt, updatedAt)))
+                .thenReturn(
+                        Optional.of(
+                                new ExpenseVersionRow(
+                                        testUser.getId(), 2L, updatedAt, updatedAt)));
+
+        // Act
+        String first = expenseService.getExpenseETag(expenseId, Set.of());
+        String unchanged = expenseService.getExpenseETag(expenseId, Set.of());
+        String changed = expenseService.getExpenseETag(expenseId, Set.of());
+
+        // Assert
+        assertThat(unchanged).isEqualTo(first);
+        assertThat(changed).isNotEqualTo(first);
+        verify(expenseRepository, never()).findByIdWithCreatedBy(any());
+    }
+
+    @Test
+    void getExpenseETag_WithInvalidId_ShouldThrowException() {
+        // Arrange
+        UUID invalidId = UUID.randomUUID();
+        when(expenseRepository.findVersionById(invalidId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> expenseService.getExpenseETag(invalidId, Set.of()))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("Expense");
     }
 
     @Test
-    void getExpensesByUser_WithValidUserId_ShouldReturnUserExpenses() {
+    void getExpenseETag_AsEmployeeForOtherUsersExpense_ShouldThrowSecurityException() {
+        // Arrange
+        Role employeeRole = new Role();
+        employeeRole.setId(UUID.randomUUID());
+        employeeRole.setName(RoleType.EMPLOYEE);
+        User employee = new User();
+        employee.setId(UUID.randomUUID());
+        employee.setEmail("employee@example.com");
+        employee.setName("Employee");
+        employee.setRole(employeeRole);
+
+        UUID expenseId = testExpense.getId();
+        LocalDateTime updatedAt = LocalDateTime.now();
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(employee));
+        when(expenseRepository.findVersionById(expenseId))
+                .thenReturn(
+                        Optional.of(
+                                new ExpenseVersionRow(
+                                        testUser.getId(), 0L, updatedAt, updatedAt)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> expenseService.getExpenseETag(expenseId, Set.of()))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    void getExpensesByUser_WithValidUserId_ShouldReturnPageWithoutLookingUpUser() {
         // Arrange
         UUID userId = testUser.getId();
-        when(userRepository.existsById(userId)).thenReturn(true);
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(expenseRepository.findByCreatedById(userId)).thenReturn(Arrays.asList(testExpense));
+        LocalDate dateFrom = LocalDate.now().minusMonths(1);
+        Expense second = new Expense();
+        second.setId(UUID.randomUUID());
+        second.setCreatedBy(testUser);
+        testExpense.setCreatedAt(LocalDateTime.now());
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(
+                        userId, dateFrom, null, null, null, 0, 2, null))
+                .thenReturn(rows(testExpense, second));
 
         // Act
-        List<ExpenseResponse> responses = expenseService.getExpensesByUser(userId);
+        PagedExpenseResponse response =
+                expenseService.getExpensesByUser(userId, 1, null, dateFrom, null, null);
 
         // Assert
-        assertThat(responses).hasSize(1);
-        assertThat(responses.get(0).getCreatedById()).isEqualTo(testUser.getId());
+        assertThat(response.getExpenses())
+                .extracting(ExpenseResponse::getCreatedById)
+                .containsExactly(testUser.getId());
+        assertThat(response.isFirst()).isTrue();
+        assertThat(response.isLast()).isFalse();
+        assertThat(response.getTotalSource()).isEqualTo(TotalSource.NONE);
+        assertThat(ExpenseCursor.decode(response.getNextCursor()))
+                .isEqualTo(ExpenseCursor.of(row(testExpense)));
+        verify(userIdentityCache, never()).findById(any());
+    }
+
+    @Test
+    void getExpensesByUser_WithCursor_ShouldSeekPastCursor() {
+        // Arrange
+        UUID userId = testUser.getId();
+        ExpenseCursor cursor =
+                new ExpenseCursor(LocalDate.now(), LocalDateTime.now(), UUID.randomUUID());
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesAfterCursor(
+                        userId,
+                        null,
+                        null,
+                        null,
+                        null,
+                        cursor.date(),
+                        cursor.createdAt(),
+                        cursor.id(),
+                        11,
+                        null))
+                .thenReturn(List.of());
+
+        // Act
+        PagedExpenseResponse response =
+                expenseService.getExpensesByUser(userId, 10, cursor.encode(), null, null, null);
+
+        // Assert
+        assertThat(response.getExpenses()).isEmpty();
+        assertThat(response.isFirst()).isFalse();
+        assertThat(response.isLast()).isTrue();
+        assertThat(response.getNextCursor()).isNull();
     }
 
     @Test
     void getExpensesByUser_WithInvalidUserId_ShouldThrowException() {
         // Arrange
         UUID invalidUserId = UUID.randomUUID();
-        when(userRepository.existsById(invalidUserId)).thenReturn(false);
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(
+                        invalidUserId, null, null, null, null, 0, 11, null))
+                .thenReturn(List.of());
+        when(userIdentityCache.findById(invalidUserId)).thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThatThrownBy(() -> expenseService.getExpensesByUser(invalidUserId))
+        assertThatThrownBy(
+                        () ->
+                                expenseService.getExpensesByUser(
+                                        invalidUserId, 10, null, null, null, null))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("User");
     }
 
+    @Test
+    void checkCanListExpensesOf_WithUnknownUser_ShouldThrowException() {
+        // Arrange
+        UUID invalidUserId = UUID.randomUUID();
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userIdentityCache.findById(invalidUserId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> expenseService.checkCanListExpensesOf(invalidUserId))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
     @Test
     void getExpenseById_AsEmployee_ShouldOnlyAllowOwnExpense() {
         // Arrange
@@ -226,12 +468,12 @@ class ExpenseServiceTest {
         employeeRole.setName(RoleType.EMPLOYEE);
         testUser.setRole(employeeRole);
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findByIdWithCreatedBy(testExpense.getId()))
                 .thenReturn(Optional.of(testExpense));
 
         // Act
-        ExpenseResponse response = expenseService.getExpenseById(testExpense.getId());
+        ExpenseResponse response = expenseService.getExpenseById(testExpense.getId(), Set.of());
 
         // Assert
         assertThat(response).isNotNull();
@@ -253,12 +495,12 @@ class ExpenseServiceTest {
         otherExpense.setId(UUID.randomUUID());
         otherExpense.setCreatedBy(otherUser);
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findByIdWithCreatedBy(otherExpense.getId()))
                 .thenReturn(Optional.of(otherExpense));
 
         // Act & Assert
-        assertThatThrownBy(() -> expenseService.getExpenseById(otherExpense.getId()))
+        assertThatThrownBy(() -> expenseService.getExpenseById(otherExpense.getId(), Set.of()))
                 .isInstanceOf(SecurityException.class)
                 .hasMessageContaining("not authorized");
     }
@@ -282,12 +524,12 @@ class ExpenseServiceTest {
         otherExpense.setType(ExpenseType.EXPENSE);
         otherExpense.setStatus(ExpenseStatus.SUBMITTED);
 
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findByIdWithCreatedBy(otherExpense.getId()))
                 .thenReturn(Optional.of(otherExpense));
 
         // Act
-        ExpenseResponse response = expenseService.getExpenseById(otherExpense.getId());
+        ExpenseResponse response = expenseService.getExpenseById(otherExpense.getId(), Set.of());
 
         // Assert
         assertThat(response).isNotNull();
@@ -301,17 +543,15 @@ class ExpenseServiceTest {
         employeeRole.setName(RoleType.EMPLOYEE);
         testUser.setRole(employeeRole);
 
-        Pageable pageable = Pageable.ofSize(10);
-        Page<Expense> expensePage = new PageImpl<>(Arrays.asList(testExpense), pageable, 1);
-
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findExpensesWithFilters(
-                        any(UUID.class), any(), any(), any(), any(), any(Pageable.class)))
-                .thenReturn(expensePage);
+                        testUser.getId(), null, null, null, null, 0, 11, null))
+                .thenReturn(rows(testExpense));
 
         // Act
         PagedExpenseResponse response =
-                expenseService.getExpensesWithFilters(0, 10, null, null, null, null);
+                expenseService.getExpensesWithFilters(
+                        0, 10, null, null, null, null, null, false, null, Set.of());
 
         // Assert
         assertThat(response).isNotNull();
@@ -339,18 +579,14 @@ class ExpenseServiceTest {
         expense2.setType(ExpenseType.INVOICE);
         expense2.setStatus(ExpenseStatus.SUBMITTED);
 
-        Pageable pageable = Pageable.ofSize(10);
-        Page<Expense> expensePage =
-                new PageImpl<>(Arrays.asList(testExpense, expense2), pageable, 2);
-
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(expenseRepository.findExpensesWithFilters(
-                        any(), any(), any(), any(), any(), any(Pageable.class)))
-                .thenReturn(expensePage);
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(null, null, null, null, null, 0, 11, null))
+                .thenReturn(rows(testExpense, expense2));
 
         // Act
         PagedExpenseResponse response =
-                expenseService.getExpensesWithFilters(0, 10, null, null, null, null);
+                expenseService.getExpensesWithFilters(
+                        0, 10, null, null, null, null, null, false, null, Set.of());
 
         // Assert
         assertThat(response).isNotNull();
@@ -368,33 +604,411 @@ class ExpenseServiceTest {
         LocalDate dateFrom = LocalDate.now().minusDays(7);
         LocalDate dateTo = LocalDate.now();
 
-        Pageable pageable = Pageable.ofSize(10);
-        Page<Expense> expensePage = new PageImpl<>(Arrays.asList(testExpense), pageable, 1);
-
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
         when(expenseRepository.findExpensesWithFilters(
                         any(),
                         any(LocalDate.class),
                         any(LocalDate.class),
                         any(),
                         any(),
-                        any(Pageable.class)))
-                .thenReturn(expensePage);
+                        anyLong(),
+                        anyInt(),
+                        any()))
+                .thenReturn(rows(testExpense));
 
         // Act
         PagedExpenseResponse response =
-                expenseService.getExpensesWithFilters(0, 10, dateFrom, dateTo, null, null);
+                expenseService.getExpensesWithFilters(
+                        0, 10, dateFrom, dateTo, null, null, null, false, null, Set.of());
 
         // Assert
         assertThat(response).isNotNull();
         assertThat(response.getExpenses()).hasSize(1);
         verify(expenseRepository)
-                .findExpensesWithFilters(
-                        any(),
-                        any(LocalDate.class),
-                        any(LocalDate.class),
-                        any(),
-                        any(),
-                        any(Pageable.class));
+                .findExpensesWithFilters(null, dateFrom, dateTo, null, null, 0, 11, null);
+    }
+
+    @Test
+    void getExpensesWithFilters_WithMorePages_ShouldReturnCursorOfLastRow() {
+        // Arrange
+        testExpense.setCreatedAt(LocalDateTime.now());
+        Expense next = new Expense();
+        next.setId(UUID.randomUUID());
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(null, null, null, null, null, 0, 2, null))
+                .thenReturn(rows(testExpense, next));
+        when(expenseRepository.countExpensesWithFilters(null, null, null, null, null))
+                .thenReturn(3L);
+
+        // Act
+        PagedExpenseResponse response =
+                expenseService.getExpensesWithFilters(
+                        0, 1, null, null, null, null, null, false, null, Set.of());
+
+        // Assert
+        assertThat(response.getExpenses()).hasSize(1);
+        assertThat(response.isFirst()).isTrue();
+        assertThat(response.isLast()).isFalse();
+        assertThat(response.getTotalPages()).isEqualTo(3);
+        assertThat(ExpenseCursor.decode(response.getNextCursor()))
+                .isEqualTo(ExpenseCursor.of(row(testExpense)));
+    }
+
+    @Test
+    void getExpensesWithFilters_OnLastPage_ShouldDeriveTotalWithoutCounting() {
+        // Arrange
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(null, null, null, null, null, 20, 11, null))
+                .thenReturn(rows(testExpense));
+
+        // Act
+        PagedExpenseResponse response =
+                expenseService.getExpensesWithFilters(
+                        2, 10, null, null, null, null, null, false, null, Set.of());
+
+        // Assert
+        assertThat(response.isLast()).isTrue();
+        assertThat(response.getNextCursor()).isNull();
+        assertThat(response.getTotalElements()).isEqualTo(21);
+        assertThat(response.getTotalPages()).isEqualTo(3);
+        assertThat(response.getTotalSource()).isEqualTo(TotalSource.EXACT);
+        verify(expenseRepository, never())
+                .countExpensesWithFilters(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getExpensesWithFilters_WithRepeatedRequest_ShouldServeCachedTotal() {
+        // Arrange
+        Expense next = new Expense();
+        next.setId(UUID.randomUUID());
+        testExpense.setCreatedAt(LocalDateTime.now());
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(
+                        null, null, null, null, ExpenseStatus.SUBMITTED, 0, 2, null))
+                .thenReturn(rows(testExpense, next));
+        when(expenseRepository.countExpensesWithFilters(
+                        null, null, null, null, ExpenseStatus.SUBMITTED))
+                .thenReturn(40L);
+
+        // Act
+        PagedExpenseResponse first =
+                expenseService.getExpensesWithFilters(
+                        0,
+                        1,
+                        null,
+                        null,
+                        null,
+                        ExpenseStatus.SUBMITTED,
+                        null,
+                        false,
+                        null,
+                        Set.of());
+        PagedExpenseResponse second =
+                expenseService.getExpensesWithFilters(
+                        0,
+                        1,
+                        null,
+                        null,
+                        null,
+                        ExpenseStatus.SUBMITTED,
+                        null,
+                        false,
+                        null,
+                        Set.of());
+
+        // Assert
+        assertThat(first.getTotalSource()).isEqualTo(TotalSource.EXACT);
+        assertThat(second.getTotalSource()).isEqualTo(TotalSource.CACHED);
+        assertThat(second.getTotalElements()).isEqualTo(40);
+        verify(expenseRepository, times(1))
+                .countExpensesWithFilters(null, null, null, null, ExpenseStatus.SUBMITTED);
+    }
+
+    @Test
+    void getExpensesWithFilters_AfterCreatingExpense_ShouldRecountTotal() {
+        // Arrange
+        Expense next = new Expense();
+        next.setId(UUID.randomUUID());
+        testExpense.setCreatedAt(LocalDateTime.now());
+        CreateExpenseRequest request = new CreateExpenseRequest();
+        request.setVendor("New Vendor");
+        request.setAmount(new BigDecimal("5.00"));
+        request.setType(ExpenseType.EXPENSE);
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(expenseRepository.save(any(Expense.class))).thenReturn(testExpense);
+        when(expenseRepository.findExpensesWithFilters(null, null, null, null, null, 0, 2, null))
+                .thenReturn(rows(testExpense, next));
+        when(expenseRepository.countExpensesWithFilters(null, null, null, null, null))
+                .thenReturn(40L, 41L);
+
+        // Act
+        expenseService.getExpensesWithFilters(
+                0, 1, null, null, null, null, null, false, null, Set.of());
+        expenseService.createExpense(request);
+        PagedExpenseResponse afterCreate =
+                expenseService.getExpensesWithFilters(
+                        0, 1, null, null, null, null, null, false, null, Set.of());
+
+        // Assert
+        assertThat(afterCreate.getTotalSource()).isEqualTo(TotalSource.EXACT);
+        assertThat(afterCreate.getTotalElements()).isEqualTo(41);
+    }
+
+    @Test
+    void getExpensesWithFilters_InSliceMode_ShouldNotCount() {
+        // Arrange
+        Expense next = new Expense();
+        next.setId(UUID.randomUUID());
+        testExpense.setCreatedAt(LocalDateTime.now());
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(null, null, null, null, null, 5, 6, null))
+                .thenReturn(rows(testExpense, next, next, next, next, next));
+
+        // Act
+        PagedExpenseResponse response =
+                expenseService.getExpensesWithFilters(
+                        1, 5, null, null, null, null, null, true, null, Set.of());
+
+        // Assert
+        assertThat(response.getExpenses()).hasSize(5);
+        assertThat(response.isLast()).isFalse();
+        assertThat(response.getTotalElements()).isNull();
+        assertThat(response.getTotalPages()).isNull();
+        assertThat(response.getTotalSource()).isEqualTo(TotalSource.NONE);
+        verify(expenseRepository, never())
+                .countExpensesWithFilters(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getExpensesWithFilters_WithCursor_ShouldSeekPastCursorWithoutOffset() {
+        // Arrange
+        ExpenseCursor cursor =
+                new ExpenseCursor(LocalDate.now(), LocalDateTime.now(), UUID.randomUUID());
+        Expense second = new Expense();
+        second.setId(UUID.randomUUID());
+        second.setDate(LocalDate.now().minusDays(1));
+        second.setCreatedAt(LocalDateTime.now().minusDays(1));
+        second.setVendor("Vendor 2");
+        second.setAmount(new BigDecimal("20.00"));
+        second.setType(ExpenseType.EXPENSE);
+        second.setStatus(ExpenseStatus.SUBMITTED);
+        second.setCreatedBy(testUser);
+        testExpense.setCreatedAt(LocalDateTime.now());
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesAfterCursor(
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        cursor.date(),
+                        cursor.createdAt(),
+                        cursor.id(),
+                        2,
+                        null))
+                .thenReturn(rows(testExpense, second));
+        when(expenseRepository.countExpensesWithFilters(null, null, null, null, null))
+                .thenReturn(5L);
+
+        // Act
+        PagedExpenseResponse response =
+                expenseService.getExpensesWithFilters(
+                        3, 1, null, null, null, null, cursor.encode(), false, null, Set.of());
+
+        // Assert
+        assertThat(response.getExpenses())
+                .extracting(ExpenseResponse::getId)
+                .containsExactly(testExpense.getId());
+        assertThat(response.getPage()).isEqualTo(3);
+        assertThat(response.getTotalElements()).isEqualTo(5);
+        assertThat(response.getTotalPages()).isEqualTo(5);
+        assertThat(response.isFirst()).isFalse();
+        assertThat(response.isLast()).isFalse();
+        assertThat(ExpenseCursor.decode(response.getNextCursor()))
+                .isEqualTo(ExpenseCursor.of(row(testExpense)));
+    }
+
+    @Test
+    void getExpensesWithFilters_WithMalformedCursor_ShouldThrowException() {
+        // Arrange
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+
+        // Act & Assert
+        assertThatThrownBy(
+                        () ->
+                                expenseService.getExpensesWithFilters(
+                                        0,
+                                        10,
+                                        null,
+                                        null,
+                                        null,
+                                        null,
+                                        "not-a-cursor",
+                                        false,
+                                        null,
+                                        Set.of()))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessageContaining("cursor");
+    }
+
+    @Test
+    void getExpensesWithFilters_WithInvalidPageSize_ShouldThrowException() {
+        // Act & Assert
+        assertThatThrownBy(
+                        () ->
+                                expenseService.getExpensesWithFilters(
+                                        0, 0, null, null, null, null, null, false, null, Set.of()))
+                .isInstanceOf(InvalidOperationException.class);
+    }
+
+    @Test
+    void getExpensesWithFilters_WithDescriptionLength_ShouldPassItToQuery() {
+        // Arrange
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(null, null, null, null, null, 0, 11, 20))
+                .thenReturn(rows(testExpense));
+
+        // Act
+        PagedExpenseResponse response =
+                expenseService.getExpensesWithFilters(
+                        0, 10, null, null, null, null, null, false, 20, Set.of());
+
+        // Assert
+        assertThat(response.getExpenses()).hasSize(1);
+    }
+
+    @Test
+    void getExpensesWithFilters_WithInvalidDescriptionLength_ShouldThrowException() {
+        // Act & Assert
+        assertThatThrownBy(
+                        () ->
+                                expenseService.getExpensesWithFilters(
+                                        0, 10, null, null, null, null, null, false, 0, Set.of()))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessageContaining("Description length");
+    }
+
+    @Test
+    void getExpensesWithFilters_WithInclude_ShouldBatchLoadChildrenForPage() {
+        // Arrange
+        Set<ExpenseInclude> include = Set.of(ExpenseInclude.SEGMENTS);
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.findExpensesWithFilters(null, null, null, null, null, 0, 11, null))
+                .thenReturn(rows(testExpense));
+
+        // Act
+        PagedExpenseResponse response =
+                expenseService.getExpensesWithFilters(
+                        0, 10, null, null, null, null, null, false, null, include);
+
+        // Assert
+        verify(expenseIncludeLoader).load(response.getExpenses(), include);
+    }
+
+    @Test
+    void getExpenseById_WithInclude_ShouldLoadChildrenAfterAuthorization() {
+        // Arrange
+        Set<ExpenseInclude> include = Set.of(ExpenseInclude.ATTACHMENTS);
+        when(expenseRepository.findByIdWithCreatedBy(testExpense.getId()))
+                .thenReturn(Optional.of(testExpense));
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+
+        // Act
+        ExpenseResponse response = expenseService.getExpenseById(testExpense.getId(), include);
+
+        // Assert
+        verify(expenseIncludeLoader).load(List.of(response), include);
+    }
+
+    @Test
+    void searchExpenses_AsFinance_ShouldSearchAllAndReturnNextCursor() {
+        // Arrange
+        Expense second = new Expense();
+        second.setId(UUID.randomUUID());
+        second.setVendor("Airport Taxi");
+        second.setType(ExpenseType.EXPENSE);
+        second.setStatus(ExpenseStatus.SUBMITTED);
+        second.setCreatedBy(testUser);
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.searchExpenses(null, "taxi", null, null, 2, null))
+                .thenReturn(
+                        List.of(
+                                new ExpenseSearchRow(row(testExpense), 0.6f),
+                                new ExpenseSearchRow(row(second), 0.3f)));
+
+        // Act
+        PagedExpenseResponse response = expenseService.searchExpenses(" taxi ", 1, null, null);
+
+        // Assert
+        assertThat(response.getExpenses())
+                .extracting(ExpenseResponse::getId)
+                .containsExactly(testExpense.getId());
+        assertThat(response.isFirst()).isTrue();
+        assertThat(response.isLast()).isFalse();
+        assertThat(response.getTotalSource()).isEqualTo(TotalSource.NONE);
+        assertThat(ExpenseSearchCursor.decode(response.getNextCursor()))
+                .isEqualTo(new ExpenseSearchCursor(0.6f, testExpense.getId()));
+    }
+
+    @Test
+    void searchExpenses_AsEmployeeWithCursor_ShouldSearchOwnExpensesAfterCursor() {
+        // Arrange
+        Role employeeRole = new Role();
+        employeeRole.setId(UUID.randomUUID());
+        employeeRole.setName(RoleType.EMPLOYEE);
+        testUser.setRole(employeeRole);
+        ExpenseSearchCursor cursor = new ExpenseSearchCursor(0.5f, UUID.randomUUID());
+
+        when(currentUserProvider.get()).thenReturn(AuthenticatedUser.from(testUser));
+        when(expenseRepository.searchExpenses(
+                        testUser.getId(), "taxi", 0.5f, cursor.id(), 11, 50))
+                .thenReturn(List.of(new ExpenseSearchRow(row(testExpense), 0.4f)));
+
+        // Act
+        PagedExpenseResponse response =
+                expenseService.searchExpenses("taxi", 10, cursor.encode(), 50);
+
+        // Assert
+        assertThat(response.getExpenses()).hasSize(1);
+        assertThat(response.isFirst()).isFalse();
+        assertThat(response.isLast()).isTrue();
+        assertThat(response.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchExpenses_WithBlankQuery_ShouldThrowException() {
+        // Act & Assert
+        assertThatThrownBy(() -> expenseService.searchExpenses("  ", 10, null, null))
+                .isInstanceOf(InvalidOperationException.class);
+        verify(expenseRepository, never())
+                .searchExpenses(any(), any(), any(), any(), anyInt(), any());
+    }
+
+    private static ExpenseListRow row(Expense expense) {
+        User creator = expense.getCreatedBy();
+        return new ExpenseListRow(
+                expense.getId(),
+                expense.getDate(),
+                expense.getVendor(),
+                expense.getAmount(),
+                expense.getDescription(),
+                expense.getType(),
+                creator != null ? creator.getId() : null,
+                creator != null ? creator.getName() : null,
+                creator != null ? creator.getEmail() : null,
+                expense.getStatus(),
+                expense.getCreatedAt(),
+                expense.getUpdatedAt());
+    }
+
+    private static List<ExpenseListRow> rows(Expense... expenses) {
+        return Arrays.stream(expenses).map(ExpenseServiceTest::row).toList();
     }
 }
@@ -0,0 +1,90 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.expense.segmentation.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LoginAttemptLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginAttemptLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = newLimiter(true);
+    }
+
+    @Test
+    void checkAllowed_BelowLimits_ShouldPass() {
+        // Given
+        limiter.recordFailure("john@example.com", "10.0.0.1");
+        limiter.recordFailure("john@example.com", "10.0.0.1");
+
+        // When & Then
+        assertThatCode(() -> limiter.checkAllowed("john@example.com", "10.0.0.1"))
+                .doesNotThrowAnyException();
+        assertThat(meterRegistry.counter("auth.login.failures").count()).isEqualTo(2);
+    }
+
+    @Test
+    void checkAllowed_AfterTooManyFailuresForEmail_ShouldThrowException() {
+        // Given - failures from different addresses, emails differing only in case
+        limiter.recordFailure("john@example.com", "10.0.0.1");
+        limiter.recordFailure("John@Example.com", "10.0.0.2");
+        limiter.recordFailure(" john@example.com", "10.0.0.3");
+
+        // When & Then
+        assertThatThrownBy(() -> limiter.checkAllowed("john@example.com", "10.0.0.4"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessageContaining("Too many failed login attempts");
+        assertThatCode(() -> limiter.checkAllowed("jane@example.com", "10.0.0.4"))
+                .doesNotThrowAnyException();
+        assertThat(meterRegistry.counter("auth.login.throttled", "key", "email").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void checkAllowed_AfterTooManyFailuresFromIp_ShouldThrowException() {
+        // Given - a credential stuffing run over many emails
+        for (int i = 0; i < 5; i++) {
+            limiter.recordFailure("user" + i + "@example.com", "10.0.0.1");
+        }
+
+        // When & Then
+        assertThatThrownBy(() -> limiter.checkAllowed("fresh@example.com", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .satisfies(
+                        e ->
+                                assertThat(((TooManyRequestsException) e).getRetryAfter())
+                                        .isEqualTo(Duration.ofMinutes(3)));
+        assertThatCode(() -> limiter.checkAllowed("fresh@example.com", "10.0.0.2"))
+                .doesNotThrowAnyException();
+        assertThat(meterRegistry.counter("auth.login.throttled", "key", "ip").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void checkAllowed_WhenDisabled_ShouldNeverThrow() {
+        // Given
+        limiter = newLimiter(false);
+        for (int i = 0; i < 10; i++) {
+            limiter.recordFailure("john@example.com", "10.0.0.1");
+        }
+
+        // When & Then
+        assertThatCode(() -> limiter.checkAllowed("john@example.com", "10.0.0.1"))
+                .doesNotThrowAnyException();
+    }
+
+    private LoginAttemptLimiter newLimiter(boolean enabled) {
+        return new LoginAttemptLimiter(
+                meterRegistry, enabled, 3, 5, Duration.ofMinutes(15), 5, 1_000);
+    }
+}
@@ -0,0 +1,159 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.expense.segmentation.exception.TooManyRequestsException;
+import com.expense.segmentation.model.ExpenseStatus;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelExpenseExporterTest {
+
+    /** PostgreSQL's UUID order: unsigned, byte by byte. */
+    private static final Comparator<UUID> POSTGRES_ORDER =
+            Comparator.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+                    .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    @TempDir Path tempDir;
+
+    @Test
+    void keyRanges_ShouldBeContiguousAndCoverTheWholeKeySpace() {
+        // When
+        List<ParallelExpenseExporter.KeyRange> ranges = ParallelExpenseExporter.keyRanges(4);
+
+        // Then
+        assertThat(ranges).hasSize(4);
+        assertThat(ranges.get(0).from()).isNull();
+        assertThat(ranges.get(3).to()).isNull();
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i).from()).isEqualTo(ranges.get(i - 1).to());
+        }
+        assertThat(ranges.get(1).from())
+                .isEqualTo(UUID.fromString("40000000-0000-0000-0000-000000000000"));
+        assertThat(ranges.get(2).from())
+                .isEqualTo(UUID.fromString("80000000-0000-0000-0000-000000000000"));
+    }
+
+    @Test
+    void keyRanges_ShouldPlaceEveryKeyInExactlyOneRange() {
+        // Given
+        List<ParallelExpenseExporter.KeyRange> ranges = ParallelExpenseExporter.keyRanges(3);
+        List<UUID> keys = new ArrayList<>();
+        keys.add(new UUID(0L, 0L));
+        keys.add(new UUID(-1L, -1L));
+        for (int i = 0; i < 1000; i++) {
+            keys.add(UUID.randomUUID());
+        }
+
+        // When & Then
+        for (UUID key : keys) {
+            assertThat(ranges.stream().filter(range -> contains(range, key))).hasSize(1);
+        }
+    }
+
+    @Test
+    void keyRanges_WithOneWorker_ShouldBeUnbounded() {
+        // When & Then
+        assertThat(ParallelExpenseExporter.keyRanges(1))
+                .containsExactly(new ParallelExpenseExporter.KeyRange(null, null));
+    }
+
+    @Test
+    void rowQuery_ShouldBindRangeAndSuppliedFiltersOnly() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        ParallelExpenseExporter.KeyRange range = ParallelExpenseExporter.keyRanges(2).get(1);
+        List<Object> parameters = new ArrayList<>();
+
+        // When
+        String sql =
+                ParallelExpenseExporter.rowQuery(
+                        range,
+                        new ParallelExpenseExporter.Filters(
+                                userId, null, null, null, ExpenseStatus.APPROVED),
+                        parameters);
+
+        // Then
+        assertThat(sql)
+                .contains("e.id >= ?", "e.created_by = ?", "e.status = ?")
+                .doesNotContain("e.id < ?", "e.date", "e.type = ?")
+                .endsWith("ORDER BY e.id");
+        assertThat(parameters).containsExactly(range.from(), userId, "APPROVED");
+    }
+
+    @Test
+    void reserve_WhenAllSlotsAreTaken_ShouldThrowTooManyRequests() {
+        // Given
+        ParallelExpenseExporter exporter = exporter(1);
+        try {
+            exporter.reserve();
+
+            // When & Then
+            assertThatThrownBy(exporter::reserve)
+                    .isInstanceOf(TooManyRequestsException.class)
+                    .hasMessageContaining("Too many parallel exports");
+        } finally {
+            exporter.shutdown();
+        }
+    }
+
+    @Test
+    void export_WhenItFails_ShouldReleaseItsSlot() {
+        // Given - no data source, so the export fails straight away
+        ParallelExpenseExporter exporter = exporter(1);
+        try {
+            exporter.reserve();
+            assertThatThrownBy(
+                    () ->
+                            exporter.export(
+                                    ExpenseExportFormat.CSV,
+                                    null,
+                                    null,
+                                    null,
+                                    null,
+                                    null,
+                                    false,
+                                    OutputStream.nullOutputStream()));
+
+            // When & Then
+            assertThatCode(exporter::reserve).doesNotThrowAnyException();
+        } finally {
+            exporter.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_ShouldCreatePartsDirectoryReadableOnlyByOwner() throws Exception {
+        // When
+        ParallelExpenseExporter exporter = exporter(1);
+        exporter.shutdown();
+
+        // Then
+        Path partsDirectory = tempDir.resolve("parts");
+        assertThat(partsDirectory).isDirectory();
+        if (partsDirectory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(partsDirectory)))
+                    .isEqualTo("rwx------");
+        }
+    }
+
+    private ParallelExpenseExporter exporter(int maxParallelExports) {
+        return new ParallelExpenseExporter(
+                null, null, null, 2, 100, maxParallelExports, tempDir.resolve("parts").toString());
+    }
+
+    private static boolean contains(ParallelExpenseExporter.KeyRange range, UUID key) {
+        return (range.from() == null || POSTGRES_ORDER.compare(key, range.from()) >= 0)
+                && (range.to() == null || POSTGRES_ORDER.compare(key, range.to()) < 0);
+    }
+}
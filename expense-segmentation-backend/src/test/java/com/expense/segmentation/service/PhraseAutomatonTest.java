@@ -0,0 +1,49 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PhraseAutomatonTest {
+
+    @Test
+    void scan_ShouldReportOverlappingAndNestedPhrases() {
+        // Given
+        PhraseAutomaton automaton = PhraseAutomaton.build(List.of("he", "she", "his", "hers"));
+        List<String> matches = new ArrayList<>();
+
+        // When
+        automaton.scan("ushers", (phrase, end) -> matches.add(phrase + "@" + end));
+
+        // Then
+        assertThat(matches).containsExactly("1@3", "0@3", "3@5");
+    }
+
+    @Test
+    void scan_ShouldReportRepeatedOccurrences() {
+        // Given
+        PhraseAutomaton automaton = PhraseAutomaton.build(List.of(" uber "));
+        List<Integer> ends = new ArrayList<>();
+
+        // When
+        automaton.scan(" uber uber uberti ", (phrase, end) -> ends.add(end));
+
+        // Then
+        assertThat(ends).containsExactly(5, 10);
+    }
+
+    @Test
+    void scan_WithoutPhrases_ShouldReportNothing() {
+        // Given
+        PhraseAutomaton automaton = PhraseAutomaton.build(List.of());
+        List<Integer> ends = new ArrayList<>();
+
+        // When
+        automaton.scan("anything", (phrase, end) -> ends.add(end));
+
+        // Then
+        assertThat(ends).isEmpty();
+    }
+}
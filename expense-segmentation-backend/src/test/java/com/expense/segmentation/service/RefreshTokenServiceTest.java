@@ -0,0 +1,229 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.config.RevokedSessionRegistry;
+import com.expense.segmentation.exception.InvalidTokenException;
+import com.expense.segmentation.model.RefreshToken;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.RefreshTokenRepository;
+import com.expense.segmentation.service.RefreshTokenService.IssuedRefreshToken;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock private RevokedSessionRegistry revokedSessionRegistry;
+
+    private RefreshTokenService refreshTokenService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService =
+                new RefreshTokenService(refreshTokenRepository, revokedSessionRegistry);
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("john@example.com");
+        user.setStatus(UserStatus.ACTIVE);
+    }
+
+    @Test
+    void startSession_ShouldStoreOnlyTheTokenHash() {
+        // When
+        IssuedRefreshToken issued = refreshTokenService.startSession(user);
+
+        // Then
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken stored = captor.getValue();
+
+        assertThat(issued.token()).isNotBlank();
+        assertThat(issued.user()).isEqualTo(user);
+        assertThat(stored.getSessionId()).isEqualTo(issued.sessionId());
+        assertThat(stored.getUser()).isEqualTo(user);
+        assertThat(stored.getTokenHash()).hasSize(64).isNotEqualTo(issued.token());
+        assertThat(stored.getExpiresAt()).isAfter(LocalDateTime.now().plusDays(13));
+        assertThat(stored.getRevokedAt()).isNull();
+    }
+
+    @Test
+    void startSession_ShouldIssueDistinctTokensAndSessions() {
+        // When
+        IssuedRefreshToken first = refreshTokenService.startSession(user);
+        IssuedRefreshToken second = refreshTokenService.startSession(user);
+
+        // Then
+        assertThat(first.token()).isNotEqualTo(second.token());
+        assertThat(first.sessionId()).isNotEqualTo(second.sessionId());
+    }
+
+    @Test
+    void rotate_WithActiveToken_ShouldConsumeItAndIssueSuccessorInSameSession() {
+        // Given
+        RefreshToken current = storedToken(null, LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString()))
+                .thenReturn(Optional.of(current));
+
+        // When
+        IssuedRefreshToken rotated = refreshTokenService.rotate("raw-token");
+
+        // Then
+        assertThat(current.getRevokedAt()).isNotNull();
+        assertThat(rotated.sessionId()).isEqualTo(current.getSessionId());
+        assertThat(rotated.token()).isNotEqualTo("raw-token");
+        assertThat(rotated.user()).isEqualTo(user);
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+        verify(refreshTokenRepository, never()).revokeSession(any(), any());
+    }
+
+    @Test
+    void rotate_WithUnknownToken_ShouldThrowException() {
+        // Given
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString()))
+                .thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotate("unknown"))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Invalid refresh token");
+    }
+
+    @Test
+    void rotate_WithExpiredToken_ShouldThrowException() {
+        // Given
+        RefreshToken current = storedToken(null, LocalDateTime.now().minusMinutes(1));
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString()))
+                .thenReturn(Optional.of(current));
+
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotate("expired"))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Refresh token has expired");
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_WithAlreadyUsedToken_ShouldEndSession() {
+        // Given
+        RefreshToken current =
+                storedToken(LocalDateTime.now().minusMinutes(5), LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString()))
+                .thenReturn(Optional.of(current));
+
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotate("reused"))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Refresh token has already been used");
+        verify(refreshTokenRepository).revokeSession(eq(current.getSessionId()), any());
+        verify(revokedSessionRegistry).revoke(List.of(current.getSessionId()));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_WithTokenRotatedMomentsAgo_ShouldKeepSession() {
+        // Given - another tab refreshed with the same token a second ago
+        RefreshToken current =
+                storedToken(LocalDateTime.now().minusSeconds(1), LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString()))
+                .thenReturn(Optional.of(current));
+
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotate("raced"))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Refresh token has just been rotated");
+        verify(refreshTokenRepository, never()).revokeSession(any(), any());
+        verify(revokedSessionRegistry, never()).revoke(any());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_WhenUserIsInactive_ShouldEndSession() {
+        // Given
+        user.setStatus(UserStatus.INACTIVE);
+        RefreshToken current = storedToken(null, LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString()))
+                .thenReturn(Optional.of(current));
+
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotate("raw-token"))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("User account is not active");
+        verify(refreshTokenRepository).revokeSession(eq(current.getSessionId()), any());
+    }
+
+    @Test
+    void endSession_WithKnownToken_ShouldRevokeSession() {
+        // Given
+        RefreshToken current = storedToken(null, LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(current));
+
+        // When
+        refreshTokenService.endSession("raw-token");
+
+        // Then
+        verify(refreshTokenRepository).revokeSession(eq(current.getSessionId()), any());
+        verify(revokedSessionRegistry).revoke(List.of(current.getSessionId()));
+    }
+
+    @Test
+    void endSession_WithUnknownToken_ShouldDoNothing() {
+        // Given
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        // When
+        refreshTokenService.endSession("unknown");
+
+        // Then
+        verify(refreshTokenRepository, never()).revokeSession(any(), any());
+        verify(revokedSessionRegistry, never()).revoke(any());
+    }
+
+    @Test
+    void endAllSessions_ShouldRevokeEveryActiveSessionOfUser() {
+        // Given
+        List<UUID> sessionIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        when(refreshTokenRepository.findActiveSessionIdsByUserId(user.getId()))
+                .thenReturn(sessionIds);
+        when(refreshTokenRepository.revokeAllByUserId(eq(user.getId()), any())).thenReturn(2);
+
+        // When
+        refreshTokenService.endAllSessions(user.getId());
+
+        // Then
+        verify(refreshTokenRepository).revokeAllByUserId(eq(user.getId()), any());
+        verify(revokedSessionRegistry).revoke(sessionIds);
+    }
+
+    private RefreshToken storedToken(LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        RefreshToken token = new RefreshToken();
+        token.setId(UUID.randomUUID());
+        token.setUser(user);
+        token.setSessionId(UUID.randomUUID());
+        token.setTokenHash("hash");
+        token.setExpiresAt(expiresAt);
+        token.setRevokedAt(revokedAt);
+        return token;
+    }
+}
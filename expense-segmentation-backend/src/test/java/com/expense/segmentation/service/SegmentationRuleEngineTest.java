@@ -0,0 +1,244 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.dto.CreateExpenseSegmentRequest;
+import com.expense.segmentation.model.Category;
+import com.expense.segmentation.model.SegmentAllocation;
+import com.expense.segmentation.model.SegmentationRule;
+import com.expense.segmentation.repository.CategoryRepository;
+import com.expense.segmentation.repository.SegmentationRuleRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class SegmentationRuleEngineTest {
+
+    @Mock private SegmentationRuleRepository segmentationRuleRepository;
+
+    @Mock private CategoryRepository categoryRepository;
+
+    private CategoryDictionary categoryDictionary;
+
+    private SegmentationRuleEngine segmentationRuleEngine;
+
+    // Rules reference categories by ID; tests name them for readability
+    private final Map<String, Category> categories = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        categoryDictionary = new CategoryDictionary(categoryRepository);
+        for (String name : List.of("Travel", "Meals", "Office", "Other", "Training")) {
+            Category category = new Category();
+            category.setId(UUID.randomUUID());
+            category.setName(name);
+            category.setActive(true);
+            categories.put(name, category);
+            categoryDictionary.register(category);
+        }
+        segmentationRuleEngine =
+                new SegmentationRuleEngine(segmentationRuleRepository, categoryDictionary);
+    }
+
+    @Test
+    void match_ShouldRequireEveryPatternOfTheRule() {
+        // Given
+        SegmentationRule rule = rule("Client flights", 0, "Delta", "client", "Travel", "70");
+        rule.getAllocations().add(allocation("Meals", "30.00"));
+        load(rule);
+
+        // When / Then
+        Optional<SegmentationRuleEngine.Match> match =
+                segmentationRuleEngine.match(
+                        "DELTA AIR *123", "Visit to Client HQ", new BigDecimal("100.00"));
+        assertThat(match).isPresent();
+        assertThat(match.get().ruleId()).isEqualTo(rule.getId());
+        assertThat(match.get().segments())
+                .extracting(
+                        CreateExpenseSegmentRequest::getCategory,
+                        CreateExpenseSegmentRequest::getAmount)
+                .containsExactly(
+                        tuple("Travel", new BigDecimal("70.00")),
+                        tuple("Meals", new BigDecimal("30.00")));
+
+        assertThat(segmentationRuleEngine.match("Delta", "Team offsite", new BigDecimal("10")))
+                .isEmpty();
+        // The vendor pattern must occur in the vendor, not in the description
+        assertThat(
+                        segmentationRuleEngine.match(
+                                "United", "Delta client", new BigDecimal("10")))
+                .isEmpty();
+    }
+
+    @Test
+    void match_ShouldOnlyMatchWholeWords() {
+        // Given
+        load(rule("Rides", 0, "uber", null, "Travel", "100"));
+
+        // When / Then
+        assertThat(segmentationRuleEngine.match("UBER *TRIP", null, BigDecimal.TEN)).isPresent();
+        assertThat(segmentationRuleEngine.match("Uberti Bistro", null, BigDecimal.TEN)).isEmpty();
+    }
+
+    @Test
+    void match_ShouldPickTheLowestPriorityAmongThousandsOfRules() {
+        // Given
+        List<SegmentationRule> rules = new ArrayList<>();
+        IntStream.range(0, 2000)
+                .forEach(
+                        i ->
+                                rules.add(
+                                        rule(
+                                                "Vendor " + i,
+                                                10,
+                                                "vendor " + i,
+                                                null,
+                                                "Other",
+                                                "100")));
+        SegmentationRule catchAll = rule("Conferences", 5, null, "conference", "Training", "100");
+        SegmentationRule specific =
+                rule("Vendor conference", 1, "vendor 1234", "conference", "Travel", "100");
+        rules.add(catchAll);
+        rules.add(specific);
+        load(rules.toArray(SegmentationRule[]::new));
+
+        // When / Then
+        assertThat(
+                        segmentationRuleEngine
+                                .match("Vendor 1234", "Annual conference", BigDecimal.TEN)
+                                .map(SegmentationRuleEngine.Match::ruleId))
+                .contains(specific.getId());
+        assertThat(
+                        segmentationRuleEngine
+                                .match("Vendor 77", "Annual conference", BigDecimal.TEN)
+                                .map(SegmentationRuleEngine.Match::ruleId))
+                .contains(catchAll.getId());
+        assertThat(
+                        segmentationRuleEngine
+                                .match("Vendor 77", "Lunch", BigDecimal.TEN)
+                                .map(SegmentationRuleEngine.Match::ruleName))
+                .contains("Vendor 77");
+    }
+
+    @Test
+    void match_ShouldSplitIntoCentsThatAddUpToTheAmount() {
+        // Given
+        SegmentationRule rule = rule("Thirds", 0, "acme", null, "Travel", "33.33");
+        rule.getAllocations().add(allocation("Meals", "33.33"));
+        rule.getAllocations().add(allocation("Office", "33.34"));
+        SegmentationRule small = rule("Small", 0, "tiny", null, "Travel", "70");
+        small.getAllocations().add(allocation("Meals", "30.00"));
+        load(rule, small);
+
+        // When / Then
+        assertThat(segments("Acme", "10.00"))
+                .extracting(CreateExpenseSegmentRequest::getAmount)
+                .containsExactly(
+                        new BigDecimal("3.33"), new BigDecimal("3.33"), new BigDecimal("3.34"));
+        // 3.5 and 1.5 cents: the tied remainder goes to the first allocation
+        assertThat(segments("Tiny", "0.05"))
+                .extracting(CreateExpenseSegmentRequest::getAmount)
+                .containsExactly(new BigDecimal("0.04"), new BigDecimal("0.01"));
+        // A share that rounds to no cents is left out
+        assertThat(segments("Tiny", "0.01"))
+                .extracting(CreateExpenseSegmentRequest::getCategory)
+                .containsExactly("Travel");
+    }
+
+    @Test
+    void match_WhenCategoryWasRenamed_ShouldUseTheCurrentName() {
+        // Given
+        load(rule("Rides", 0, "uber", null, "Travel", "100"));
+        Category travel = categories.get("Travel");
+        travel.setName("Business travel");
+        categoryDictionary.register(travel);
+
+        // When / Then
+        assertThat(segments("Uber", "10.00"))
+                .extracting(CreateExpenseSegmentRequest::getCategory)
+                .containsExactly("Business travel");
+        assertThat(segmentationRuleEngine.match("Uber", null, BigDecimal.TEN).orElseThrow())
+                .extracting(match -> match.categories().get(0).id())
+                .isEqualTo(travel.getId());
+    }
+
+    @Test
+    void match_WhenWinningRuleHasInactiveCategory_ShouldFallBackToNextRule() {
+        // Given
+        SegmentationRule retired = rule("Team rides", 0, "uber", null, "Meals", "100");
+        SegmentationRule fallback = rule("Rides", 1, "uber", null, "Travel", "100");
+        load(retired, fallback);
+        Category meals = categories.get("Meals");
+        meals.setActive(false);
+        categoryDictionary.register(meals);
+
+        // When / Then
+        assertThat(
+                        segmentationRuleEngine
+                                .match("Uber", null, BigDecimal.TEN)
+                                .map(SegmentationRuleEngine.Match::ruleId))
+                .contains(fallback.getId());
+    }
+
+    @Test
+    void refresh_WhenDatabaseFails_ShouldKeepPreviousRules() {
+        // Given
+        load(rule("Rides", 0, "uber", null, "Travel", "100"));
+        when(segmentationRuleRepository.findActiveWithAllocations())
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // When
+        segmentationRuleEngine.refresh();
+
+        // Then
+        assertThat(segmentationRuleEngine.match("Uber", null, BigDecimal.TEN)).isPresent();
+    }
+
+    private void load(SegmentationRule... rules) {
+        when(segmentationRuleRepository.findActiveWithAllocations()).thenReturn(List.of(rules));
+        segmentationRuleEngine.refresh();
+    }
+
+    private List<CreateExpenseSegmentRequest> segments(String vendor, String amount) {
+        return segmentationRuleEngine
+                .match(vendor, null, new BigDecimal(amount))
+                .orElseThrow()
+                .segments();
+    }
+
+    private SegmentationRule rule(
+            String name,
+            int priority,
+            String vendorPattern,
+            String descriptionPattern,
+            String category,
+            String percentage) {
+        SegmentationRule rule = new SegmentationRule();
+        rule.setId(UUID.randomUUID());
+        rule.setName(name);
+        rule.setPriority(priority);
+        rule.setVendorPattern(vendorPattern);
+        rule.setDescriptionPattern(descriptionPattern);
+        rule.getAllocations().add(allocation(category, percentage));
+        return rule;
+    }
+
+    private SegmentAllocation allocation(String category, String percentage) {
+        return new SegmentAllocation(
+                categories.get(category).getId(), category, new BigDecimal(percentage));
+    }
+}
@@ -0,0 +1,227 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.dto.CreateSegmentationRuleRequest;
+import com.expense.segmentation.dto.SegmentAllocationRequest;
+import com.expense.segmentation.dto.SegmentationRuleResponse;
+import com.expense.segmentation.exception.InvalidOperationException;
+import com.expense.segmentation.exception.ResourceNotFoundException;
+import com.expense.segmentation.mapper.SegmentationRuleMapper;
+import com.expense.segmentation.model.Category;
+import com.expense.segmentation.model.SegmentAllocation;
+import com.expense.segmentation.model.SegmentationRule;
+import com.expense.segmentation.repository.CategoryRepository;
+import com.expense.segmentation.repository.SegmentationRuleRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SegmentationRuleServiceTest {
+
+    @Mock private SegmentationRuleRepository segmentationRuleRepository;
+
+    @Mock private SegmentationRuleEngine segmentationRuleEngine;
+
+    @Mock private CategoryRepository categoryRepository;
+
+    private CategoryDictionary categoryDictionary;
+
+    private SegmentationRuleService segmentationRuleService;
+
+    @BeforeEach
+    void setUp() {
+        categoryDictionary = new CategoryDictionary(categoryRepository);
+        for (String name : List.of("Travel", "Meals", "Other", "Retired")) {
+            Category category = new Category();
+            category.setId(UUID.randomUUID());
+            category.setName(name);
+            category.setActive(!"Retired".equals(name));
+            categoryDictionary.register(category);
+        }
+        segmentationRuleService =
+                new SegmentationRuleService(
+                        segmentationRuleRepository,
+                        new SegmentationRuleMapper(),
+                        segmentationRuleEngine,
+                        categoryDictionary);
+    }
+
+    @Test
+    void createRule_ShouldSaveRuleAndRebuildEngine() {
+        // Given
+        CreateSegmentationRuleRequest request =
+                request(" Client flights ", " Delta ", "  ", allocation("Travel ", "70"));
+        request.getAllocations().add(allocation("Meals", "30"));
+        when(segmentationRuleRepository.save(any(SegmentationRule.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        SegmentationRuleResponse response = segmentationRuleService.createRule(request);
+
+        // Then
+        assertThat(response.getName()).isEqualTo("Client flights");
+        assertThat(response.getVendorPattern()).isEqualTo("Delta");
+        assertThat(response.getDescriptionPattern()).isNull();
+        assertThat(response.getPriority()).isZero();
+        assertThat(response.getActive()).isTrue();
+        assertThat(response.getAllocations())
+                .extracting(SegmentAllocationRequest::getCategory)
+                .containsExactly("Travel", "Meals");
+        verify(segmentationRuleEngine).requestRebuild();
+    }
+
+    @Test
+    void createRule_WhenPercentagesDoNotAddUpTo100_ShouldThrowException() {
+        // Given
+        CreateSegmentationRuleRequest request =
+                request("Flights", "Delta", null, allocation("Travel", "70"));
+        request.getAllocations().add(allocation("Meals", "20"));
+
+        // When / Then
+        assertThatThrownBy(() -> segmentationRuleService.createRule(request))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessageContaining("add up to 100");
+        verify(segmentationRuleRepository, never()).save(any());
+        verify(segmentationRuleEngine, never()).requestRebuild();
+    }
+
+    @Test
+    void createRule_WhenCategoryRepeats_ShouldThrowException() {
+        // Given
+        CreateSegmentationRuleRequest request =
+                request("Flights", "Delta", null, allocation("Travel", "50"));
+        request.getAllocations().add(allocation(" travel", "50"));
+
+        // When / Then
+        assertThatThrownBy(() -> segmentationRuleService.createRule(request))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessageContaining("unique");
+    }
+
+    @Test
+    void createRule_WhenCategoryDoesNotExist_ShouldThrowException() {
+        // Given
+        CreateSegmentationRuleRequest request =
+                request("Flights", "Delta", null, allocation("Travel", "50"));
+        request.getAllocations().add(allocation(" Airfare ", "50"));
+
+        // When / Then
+        assertThatThrownBy(() -> segmentationRuleService.createRule(request))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessage("Unknown allocation category 'Airfare'");
+        verify(segmentationRuleRepository, never()).save(any());
+    }
+
+    @Test
+    void createRule_WhenCategoryIsInactive_ShouldThrowException() {
+        // Given
+        CreateSegmentationRuleRequest request =
+                request("Flights", "Delta", null, allocation("Travel", "50"));
+        request.getAllocations().add(allocation("retired", "50"));
+
+        // When / Then
+        assertThatThrownBy(() -> segmentationRuleService.createRule(request))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessage("Allocation category 'Retired' is inactive");
+        verify(segmentationRuleRepository, never()).save(any());
+    }
+
+    @Test
+    void createRule_WhenPatternsHaveNoWords_ShouldThrowException() {
+        // Given
+        CreateSegmentationRuleRequest request =
+                request("Anything", "***", "--", allocation("Other", "100"));
+
+        // When / Then
+        assertThatThrownBy(() -> segmentationRuleService.createRule(request))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessageContaining("pattern");
+    }
+
+    @Test
+    void updateRule_ShouldReplaceAllocations() {
+        // Given
+        SegmentationRule rule = new SegmentationRule();
+        rule.setId(UUID.randomUUID());
+        rule.setName("Flights");
+        rule.setVendorPattern("Delta");
+        rule.getAllocations()
+                .add(new SegmentAllocation(UUID.randomUUID(), "Travel", new BigDecimal("100")));
+        when(segmentationRuleRepository.findById(rule.getId())).thenReturn(Optional.of(rule));
+        when(segmentationRuleRepository.save(rule)).thenReturn(rule);
+
+        CreateSegmentationRuleRequest request =
+                request("Flights", null, "client", allocation("Travel", "60"));
+        request.getAllocations().add(allocation("meals", "40"));
+        request.setPriority(3);
+        request.setActive(false);
+
+        // When
+        SegmentationRuleResponse response =
+                segmentationRuleService.updateRule(rule.getId(), request);
+
+        // Then
+        assertThat(response.getVendorPattern()).isNull();
+        assertThat(response.getDescriptionPattern()).isEqualTo("client");
+        assertThat(response.getPriority()).isEqualTo(3);
+        assertThat(response.getActive()).isFalse();
+        assertThat(rule.getAllocations())
+                .extracting(
+                        SegmentAllocation::getCategoryId,
+                        SegmentAllocation::getCategory,
+                        SegmentAllocation::getPercentage)
+                .containsExactly(
+                        tuple(idOf("Travel"), "Travel", new BigDecimal("60")),
+                        tuple(idOf("Meals"), "Meals", new BigDecimal("40")));
+        verify(segmentationRuleEngine).requestRebuild();
+    }
+
+    @Test
+    void deleteRule_WhenRuleDoesNotExist_ShouldThrowException() {
+        // Given
+        UUID id = UUID.randomUUID();
+        when(segmentationRuleRepository.findById(id)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThatThrownBy(() -> segmentationRuleService.deleteRule(id))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(segmentationRuleEngine, never()).requestRebuild();
+    }
+
+    private UUID idOf(String category) {
+        return categoryDictionary.resolve(category).orElseThrow().id();
+    }
+
+    private static CreateSegmentationRuleRequest request(
+            String name,
+            String vendorPattern,
+            String descriptionPattern,
+            SegmentAllocationRequest allocation) {
+        return new CreateSegmentationRuleRequest(
+                name,
+                vendorPattern,
+                descriptionPattern,
+                null,
+                null,
+                new ArrayList<>(List.of(allocation)));
+    }
+
+    private static SegmentAllocationRequest allocation(String category, String percentage) {
+        return new SegmentAllocationRequest(category, new BigDecimal(percentage));
+    }
+}
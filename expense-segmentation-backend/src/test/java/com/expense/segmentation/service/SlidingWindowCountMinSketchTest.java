@@ -0,0 +1,150 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowCountMinSketchTest {
+
+    private AtomicLong now;
+    private SlidingWindowCountMinSketch sketch;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000L);
+        sketch = new SlidingWindowCountMinSketch(1024, 4, Duration.ofMinutes(10), 5, now::get);
+    }
+
+    @Test
+    void estimate_ShouldCountEventsPerKey() {
+        // When
+        for (int i = 0; i < 7; i++) {
+            sketch.increment("john@example.com");
+        }
+        sketch.increment("jane@example.com");
+
+        // Then
+        assertThat(sketch.estimate("john@example.com")).isEqualTo(7);
+        assertThat(sketch.estimate("jane@example.com")).isEqualTo(1);
+        assertThat(sketch.estimate("nobody@example.com")).isZero();
+    }
+
+    @Test
+    void estimate_ShouldSumEventsAcrossBucketsWithinWindow() {
+        // Given
+        sketch.increment("key");
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+        sketch.increment("key");
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+        sketch.increment("key");
+
+        // When & Then
+        assertThat(sketch.estimate("key")).isEqualTo(3);
+    }
+
+    @Test
+    void estimate_ShouldDropEventsOlderThanWindow() {
+        // Given
+        sketch.increment("key");
+        sketch.increment("key");
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+        sketch.increment("key");
+
+        // When
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+
+        // Then
+        assertThat(sketch.estimate("key")).isEqualTo(1);
+
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+        assertThat(sketch.estimate("key")).isZero();
+    }
+
+    @Test
+    void increment_WhenBucketIsReused_ShouldStartFromZero() {
+        // Given
+        sketch.increment("key");
+        now.addAndGet(Duration.ofMinutes(10).toMillis());
+
+        // When
+        sketch.increment("key");
+
+        // Then
+        assertThat(sketch.estimate("key")).isEqualTo(1);
+    }
+
+    @Test
+    void estimate_WithManyKeys_ShouldNeverUndercount() {
+        // Given
+        for (int i = 0; i < 5_000; i++) {
+            sketch.increment("user" + i + "@example.com");
+        }
+
+        // When & Then
+        for (int i = 0; i < 5_000; i++) {
+            assertThat(sketch.estimate("user" + i + "@example.com")).isGreaterThanOrEqualTo(1);
+        }
+    }
+
+    @Test
+    void increment_WhenSketchIsOverloaded_ShouldKeepOvercountsLow() {
+        // Given - four keys per counter; incrementing every row would estimate about 3 per key
+        SlidingWindowCountMinSketch small =
+                new SlidingWindowCountMinSketch(256, 4, Duration.ofMinutes(10), 5, now::get);
+        for (int i = 0; i < 1_024; i++) {
+            small.increment("user" + i + "@example.com");
+        }
+
+        // When
+        long total = 0;
+        for (int i = 0; i < 1_024; i++) {
+            total += small.estimate("user" + i + "@example.com");
+        }
+
+        // Then
+        assertThat(total / 1_024.0).isLessThan(2.5);
+    }
+
+    @Test
+    void widthFor_ShouldAllowFourCountersPerExpectedKey() {
+        assertThat(SlidingWindowCountMinSketch.widthFor(5_000)).isEqualTo(32_768);
+        assertThat(SlidingWindowCountMinSketch.widthFor(4_096)).isEqualTo(16_384);
+        assertThat(SlidingWindowCountMinSketch.widthFor(0)).isEqualTo(4);
+        assertThat(SlidingWindowCountMinSketch.widthFor(Long.MAX_VALUE / 8)).isEqualTo(1 << 24);
+    }
+
+    @Test
+    void increment_FromConcurrentThreads_ShouldNotLoseUpdates() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 8_000; i++) {
+            executor.execute(() -> sketch.increment("key"));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(sketch.estimate("key")).isEqualTo(8_000);
+    }
+
+    @Test
+    void bucketLength_ShouldSplitWindowEvenly() {
+        assertThat(sketch.bucketLength()).isEqualTo(Duration.ofMinutes(2));
+    }
+
+    @Test
+    void constructor_WithWidthNotPowerOfTwo_ShouldThrowException() {
+        assertThatThrownBy(
+                        () -> new SlidingWindowCountMinSketch(1000, 4, Duration.ofMinutes(10), 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
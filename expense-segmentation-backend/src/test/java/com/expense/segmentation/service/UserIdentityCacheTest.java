@@ -0,0 +1,164 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.model.Department;
+import com.expense.segmentation.model.Role;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.User;
+import com.expense.segmentation.model.UserStatus;
+import com.expense.segmentation.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class UserIdentityCacheTest {
+
+    @Mock private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserIdentityCache userIdentityCache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userIdentityCache = newCache(true);
+
+        Role role = new Role();
+        role.setName(RoleType.MANAGER);
+
+        Department department = new Department();
+        department.setId(UUID.randomUUID());
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("manager@example.com");
+        user.setRole(role);
+        user.setDepartment(department);
+        user.setStatus(UserStatus.ACTIVE);
+    }
+
+    @Test
+    void findByEmail_ShouldLoadOnceAndServeFromCache() {
+        // Given
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        // When
+        Optional<UserIdentity> first = userIdentityCache.findByEmail(user.getEmail());
+        Optional<UserIdentity> second = userIdentityCache.findByEmail(user.getEmail());
+
+        // Then
+        assertThat(first).contains(UserIdentity.from(user));
+        assertThat(second).isEqualTo(first);
+        verify(userRepository, times(1)).findByEmail(user.getEmail());
+    }
+
+    @Test
+    void findById_ShouldLoadWithRoleAndDepartment() {
+        // Given
+        when(userRepository.findByIdWithDepartmentAndRole(user.getId()))
+                .thenReturn(Optional.of(user));
+
+        // When
+        userIdentityCache.findById(user.getId());
+        Optional<UserIdentity> result = userIdentityCache.findById(user.getId());
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().role()).isEqualTo(RoleType.MANAGER);
+        assertThat(result.get().departmentId()).isEqualTo(user.getDepartment().getId());
+        verify(userRepository, times(1)).findByIdWithDepartmentAndRole(user.getId());
+    }
+
+    @Test
+    void invalidate_ShouldForceReload() {
+        // Given
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findByIdWithDepartmentAndRole(user.getId()))
+                .thenReturn(Optional.of(user));
+        userIdentityCache.findByEmail(user.getEmail());
+        userIdentityCache.findById(user.getId());
+
+        Role admin = new Role();
+        admin.setName(RoleType.ADMIN);
+        user.setRole(admin);
+
+        // When
+        userIdentityCache.invalidate(user.getId(), user.getEmail());
+
+        // Then
+        assertThat(userIdentityCache.findByEmail(user.getEmail()).get().role())
+                .isEqualTo(RoleType.ADMIN);
+        assertThat(userIdentityCache.findById(user.getId()).get().role())
+                .isEqualTo(RoleType.ADMIN);
+        verify(userRepository, times(2)).findByEmail(user.getEmail());
+        verify(userRepository, times(2)).findByIdWithDepartmentAndRole(user.getId());
+    }
+
+    @Test
+    void findByEmail_WhenUserMissing_ShouldNotCacheAbsence() {
+        // Given
+        when(userRepository.findByEmail("missing@example.com")).thenReturn(Optional.empty());
+
+        // When
+        Optional<UserIdentity> first = userIdentityCache.findByEmail("missing@example.com");
+        Optional<UserIdentity> second = userIdentityCache.findByEmail("missing@example.com");
+
+        // Then
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        verify(userRepository, times(2)).findByEmail("missing@example.com");
+    }
+
+    @Test
+    void findByEmail_WhenDisabled_ShouldAlwaysLoad() {
+        // Given
+        userIdentityCache = newCache(false);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        // When
+        userIdentityCache.findByEmail(user.getEmail());
+        userIdentityCache.findByEmail(user.getEmail());
+
+        // Then
+        verify(userRepository, times(2)).findByEmail(user.getEmail());
+    }
+
+    @Test
+    void findByEmail_ShouldPublishCacheMetrics() {
+        // Given
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        // When
+        userIdentityCache.findByEmail(user.getEmail());
+        userIdentityCache.findByEmail(user.getEmail());
+
+        // Then
+        double hits =
+                meterRegistry
+                        .get("cache.gets")
+                        .tag("cache", "users.byEmail")
+                        .tag("result", "hit")
+                        .functionCounter()
+                        .count();
+        assertThat(hits).isEqualTo(1.0);
+    }
+
+    private UserIdentityCache newCache(boolean enabled) {
+        return new UserIdentityCache(
+                userRepository, meterRegistry, enabled, 100, Duration.ofMinutes(10));
+    }
+}
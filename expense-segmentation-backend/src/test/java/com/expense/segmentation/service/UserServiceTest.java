@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.expense.segmentation.config.TokenEpochRegistry;
 import com.expense.segmentation.dto.UpdateUserRequest;
 import com.expense.segmentation.dto.UserResponse;
 import com.expense.segmentation.exception.InvalidOperationException;
@@ -36,6 +37,14 @@ class UserServiceTest {
 
     @Mock private DepartmentService departmentService;
 
+    @Mock private TokenEpochRegistry tokenEpochRegistry;
+
+    @Mock private UserIdentityCache userIdentityCache;
+
+    @Mock private RefreshTokenService refreshTokenService;
+
+    @Mock private ApiKeyRegistry apiKeyRegistry;
+
     private UserService userService;
 
     private UserMapper userMapper;
@@ -51,7 +60,16 @@ class UserServiceTest {
     void setUp() {
         // Initialize real mapper
         userMapper = new UserMapper();
-        userService = new UserService(userRepository, roleService, departmentService, userMapper);
+        userService =
+                new UserService(
+                        userRepository,
+                        roleService,
+                        departmentService,
+                        userMapper,
+                        tokenEpochRegistry,
+                        userIdentityCache,
+                        refreshTokenService,
+                        apiKeyRegistry);
 
         employeeRole = new Role();
         employeeRole.setId(UUID.randomUUID());
@@ -332,6 +350,10 @@ class UserServiceTest {
         assertThat(user1.getStatus()).isEqualTo(UserStatus.INACTIVE);
         verify(userRepository).findByIdWithDepartmentAndRole(user1.getId());
         verify(userRepository).save(user1);
+        verify(tokenEpochRegistry).revokeTokens(user1.getId(), 1L);
+        verify(userIdentityCache).invalidate(user1.getId(), user1.getEmail());
+        verify(refreshTokenService).endAllSessions(user1.getId());
+        verify(apiKeyRegistry).reloadUser(user1.getId());
     }
 
     @Test
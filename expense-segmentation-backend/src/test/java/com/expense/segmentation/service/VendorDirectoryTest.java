@@ -0,0 +1,185 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.model.Vendor;
+import com.expense.segmentation.repository.ExpenseRepository;
+import com.expense.segmentation.repository.VendorAliasRepository;
+import com.expense.segmentation.repository.VendorAliasRow;
+import com.expense.segmentation.repository.VendorRepository;
+import com.expense.segmentation.repository.VendorUsageRow;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class VendorDirectoryTest {
+
+    @Mock private VendorRepository vendorRepository;
+
+    @Mock private VendorAliasRepository vendorAliasRepository;
+
+    @Mock private ExpenseRepository expenseRepository;
+
+    private VendorDirectory vendorDirectory;
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    private Vendor uber;
+    private Vendor ubereats;
+    private Vendor starbucks;
+
+    @BeforeEach
+    void setUp() {
+        vendorDirectory =
+                new VendorDirectory(vendorRepository, vendorAliasRepository, expenseRepository);
+        uber = vendor("Uber");
+        ubereats = vendor("Uber Eats");
+        starbucks = vendor("Starbucks");
+    }
+
+    @Test
+    void refresh_ShouldResolveNamesAndAliases() {
+        // Given
+        when(vendorRepository.findAll()).thenReturn(List.of(uber, starbucks));
+        when(vendorAliasRepository.findAllRows())
+                .thenReturn(List.of(new VendorAliasRow("sbux", starbucks.getId())));
+        when(expenseRepository.findVendorUsage()).thenReturn(List.of());
+
+        // When
+        vendorDirectory.refresh();
+
+        // Then
+        assertThat(vendorDirectory.resolve("uber").map(VendorDirectory.Entry::id))
+                .contains(uber.getId());
+        assertThat(vendorDirectory.resolve("sbux").map(VendorDirectory.Entry::id))
+                .contains(starbucks.getId());
+        assertThat(vendorDirectory.resolve("lyft")).isEmpty();
+    }
+
+    @Test
+    void suggest_ShouldRankMatchesByUsage() {
+        // Given
+        when(vendorRepository.findAll()).thenReturn(List.of(uber, ubereats, starbucks));
+        when(vendorAliasRepository.findAllRows()).thenReturn(List.of());
+        when(expenseRepository.findVendorUsage())
+                .thenReturn(
+                        List.of(
+                                new VendorUsageRow(uber.getId(), bob, 3L),
+                                new VendorUsageRow(ubereats.getId(), bob, 5L),
+                                new VendorUsageRow(starbucks.getId(), bob, 9L)));
+        vendorDirectory.refresh();
+
+        // When & Then
+        assertThat(names(vendorDirectory.suggest("UB", null, 10)))
+                .containsExactly("Uber Eats", "Uber");
+        assertThat(names(vendorDirectory.suggest("uber e", null, 10)))
+                .containsExactly("Uber Eats");
+        assertThat(names(vendorDirectory.suggest("", null, 2)))
+                .containsExactly("Starbucks", "Uber Eats");
+        assertThat(vendorDirectory.suggest("lyft", null, 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_ShouldPutUsersOwnVendorsFirst() {
+        // Given
+        when(vendorRepository.findAll()).thenReturn(List.of(uber, ubereats));
+        when(vendorAliasRepository.findAllRows()).thenReturn(List.of());
+        when(expenseRepository.findVendorUsage())
+                .thenReturn(
+                        List.of(
+                                new VendorUsageRow(ubereats.getId(), bob, 50L),
+                                new VendorUsageRow(uber.getId(), alice, 2L)));
+        vendorDirectory.refresh();
+
+        // When & Then
+        assertThat(names(vendorDirectory.suggest("ub", alice, 10)))
+                .containsExactly("Uber", "Uber Eats");
+        assertThat(names(vendorDirectory.suggest("ub", bob, 10)))
+                .containsExactly("Uber Eats", "Uber");
+    }
+
+    @Test
+    void recordUsage_ShouldMoveVendorUpIncrementally() {
+        // Given
+        vendorDirectory.register(uber);
+        vendorDirectory.register(ubereats);
+        vendorDirectory.recordUsage(ubereats.getId(), bob);
+
+        // When
+        vendorDirectory.recordUsage(uber.getId(), alice);
+        vendorDirectory.recordUsage(uber.getId(), alice);
+
+        // Then
+        assertThat(names(vendorDirectory.suggest("ub", null, 10)))
+                .containsExactly("Uber", "Uber Eats");
+        assertThat(names(vendorDirectory.suggest("ub", bob, 10)))
+                .containsExactly("Uber Eats", "Uber");
+    }
+
+    @Test
+    void registerAlias_ShouldResolveAndSuggestUnderAlias() {
+        // Given
+        vendorDirectory.register(starbucks);
+
+        // When
+        vendorDirectory.registerAlias(starbucks.getId(), "sbux");
+
+        // Then
+        assertThat(vendorDirectory.resolve("sbux")).isPresent();
+        assertThat(names(vendorDirectory.suggest("sb", null, 10))).containsExactly("Starbucks");
+    }
+
+    @Test
+    void suggest_ShouldKeepOnlyTopKPerPrefix() {
+        // Given
+        IntStream.range(0, VendorDirectory.TOP_K + 5)
+                .mapToObj(i -> vendor("Shop " + i))
+                .forEach(
+                        shop -> {
+                            vendorDirectory.register(shop);
+                            vendorDirectory.recordUsage(shop.getId(), bob);
+                        });
+        Vendor popular = vendor("Shop Popular");
+        vendorDirectory.register(popular);
+        vendorDirectory.recordUsage(popular.getId(), alice);
+        vendorDirectory.recordUsage(popular.getId(), alice);
+
+        // When
+        List<VendorDirectory.Entry> suggestions = vendorDirectory.suggest("shop", null, 100);
+
+        // Then
+        assertThat(suggestions).hasSize(VendorDirectory.TOP_K);
+        assertThat(suggestions.get(0).name()).isEqualTo("Shop Popular");
+    }
+
+    @Test
+    void refresh_WhenDatabaseFails_ShouldKeepPreviousIndex() {
+        // Given
+        vendorDirectory.register(uber);
+        when(vendorRepository.findAll())
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        // When
+        vendorDirectory.refresh();
+
+        // Then
+        assertThat(vendorDirectory.resolve("uber")).isPresent();
+    }
+
+    private static Vendor vendor(String name) {
+        return new Vendor(UUID.randomUUID(), name, VendorNames.normalize(name), null);
+    }
+
+    private static List<String> names(List<VendorDirectory.Entry> entries) {
+        return entries.stream().map(VendorDirectory.Entry::name).toList();
+    }
+}
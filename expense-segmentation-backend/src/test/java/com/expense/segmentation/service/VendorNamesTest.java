@@ -0,0 +1,35 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class VendorNamesTest {
+
+    @Test
+    void normalize_ShouldFoldSpellingsOfOneVendorToOneKey() {
+        assertThat(VendorNames.normalize("Uber")).isEqualTo("uber");
+        assertThat(VendorNames.normalize("UBER *TRIP")).isEqualTo("uber");
+        assertThat(VendorNames.normalize("uber technologies")).isEqualTo("uber");
+        assertThat(VendorNames.normalize("  Uber Technologies, Inc. ")).isEqualTo("uber");
+    }
+
+    @Test
+    void normalize_ShouldKeepNamesMadeOnlyOfSuffixes() {
+        assertThat(VendorNames.normalize("The Company")).isEqualTo("the");
+        assertThat(VendorNames.normalize("Company")).isEqualTo("company");
+    }
+
+    @Test
+    void normalize_WithoutLettersOrDigits_ShouldReturnEmpty() {
+        assertThat(VendorNames.normalize(null)).isEmpty();
+        assertThat(VendorNames.normalize("*1234")).isEmpty();
+        assertThat(VendorNames.normalize(" - ")).isEmpty();
+    }
+
+    @Test
+    void fold_ShouldKeepSuffixesForPrefixMatching() {
+        assertThat(VendorNames.fold("Acme Co")).isEqualTo("acme co");
+        assertThat(VendorNames.fold("Café  Nero")).isEqualTo("café nero");
+    }
+}
@@ -0,0 +1,186 @@
+package com.expense.segmentation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.expense.segmentation.config.AuthenticatedUser;
+import com.expense.segmentation.dto.CreateVendorAliasRequest;
+import com.expense.segmentation.dto.VendorResponse;
+import com.expense.segmentation.exception.DuplicateResourceException;
+import com.expense.segmentation.exception.InvalidOperationException;
+import com.expense.segmentation.model.RoleType;
+import com.expense.segmentation.model.Vendor;
+import com.expense.segmentation.model.VendorAlias;
+import com.expense.segmentation.repository.VendorAliasRepository;
+import com.expense.segmentation.repository.VendorRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class VendorServiceTest {
+
+    @Mock private VendorRepository vendorRepository;
+
+    @Mock private VendorAliasRepository vendorAliasRepository;
+
+    @Mock private VendorDirectory vendorDirectory;
+
+    @Mock private CurrentUserProvider currentUserProvider;
+
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private VendorService vendorService;
+
+    private Vendor uber;
+
+    @BeforeEach
+    void setUp() {
+        vendorService =
+                new VendorService(
+                        vendorRepository,
+                        vendorAliasRepository,
+                        vendorDirectory,
+                        currentUserProvider,
+                        transactionManager);
+        uber = new Vendor(UUID.randomUUID(), "Uber", "uber", null);
+    }
+
+    @Test
+    void resolve_WithKnownName_ShouldNotQueryVendors() {
+        // Given
+        when(vendorDirectory.resolve("uber"))
+                .thenReturn(Optional.of(new VendorDirectory.Entry(uber.getId(), "Uber")));
+        when(vendorRepository.getReferenceById(uber.getId())).thenReturn(uber);
+
+        // When
+        Vendor resolved = vendorService.resolve("UBER *TRIP");
+
+        // Then
+        assertThat(resolved).isSameAs(uber);
+        verify(vendorAliasRepository, never()).findVendorIdByAliasKey(any());
+        verify(vendorRepository, never()).findByNormalizedName(any());
+    }
+
+    @Test
+    void resolve_WithNewName_ShouldCreateAndRegisterVendor() {
+        // Given
+        Vendor created =
+                new Vendor(UUID.randomUUID(), "Blue Bottle Coffee", "blue bottle coffee", null);
+        when(vendorDirectory.resolve("blue bottle coffee")).thenReturn(Optional.empty());
+        when(vendorAliasRepository.findVendorIdByAliasKey("blue bottle coffee"))
+                .thenReturn(Optional.empty());
+        when(vendorRepository.findByNormalizedName("blue bottle coffee"))
+                .thenReturn(Optional.empty());
+        when(vendorRepository.saveAndFlush(any(Vendor.class))).thenReturn(created);
+        when(vendorRepository.getReferenceById(created.getId())).thenReturn(created);
+
+        // When
+        Vendor resolved = vendorService.resolve(" Blue Bottle Coffee Inc ");
+
+        // Then
+        ArgumentCaptor<Vendor> vendorCaptor = ArgumentCaptor.forClass(Vendor.class);
+        verify(vendorRepository).saveAndFlush(vendorCaptor.capture());
+        assertThat(vendorCaptor.getValue().getName()).isEqualTo("Blue Bottle Coffee Inc");
+        assertThat(vendorCaptor.getValue().getNormalizedName()).isEqualTo("blue bottle coffee");
+        assertThat(resolved).isSameAs(created);
+        verify(vendorDirectory).register(created);
+    }
+
+    @Test
+    void resolve_WhenCreatedConcurrently_ShouldUseOtherRequestsVendor() {
+        // Given
+        when(vendorDirectory.resolve("uber")).thenReturn(Optional.empty());
+        when(vendorAliasRepository.findVendorIdByAliasKey("uber")).thenReturn(Optional.empty());
+        when(vendorRepository.findByNormalizedName("uber"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(uber));
+        when(vendorRepository.saveAndFlush(any(Vendor.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(vendorRepository.getReferenceById(uber.getId())).thenReturn(uber);
+
+        // When
+        Vendor resolved = vendorService.resolve("Uber");
+
+        // Then
+        assertThat(resolved).isSameAs(uber);
+        verify(vendorDirectory, never()).register(any());
+    }
+
+    @Test
+    void resolve_WithoutLettersOrDigits_ShouldReturnNull() {
+        assertThat(vendorService.resolve("***")).isNull();
+    }
+
+    @Test
+    void addAlias_WithNewSpelling_ShouldSaveAndRegisterAlias() {
+        // Given
+        when(vendorRepository.findById(uber.getId())).thenReturn(Optional.of(uber));
+        when(vendorAliasRepository.findVendorIdByAliasKey("ubr")).thenReturn(Optional.empty());
+        when(vendorRepository.findByNormalizedName("ubr")).thenReturn(Optional.empty());
+
+        // When
+        VendorResponse response =
+                vendorService.addAlias(uber.getId(), new CreateVendorAliasRequest("UBR"));
+
+        // Then
+        ArgumentCaptor<VendorAlias> aliasCaptor = ArgumentCaptor.forClass(VendorAlias.class);
+        verify(vendorAliasRepository).save(aliasCaptor.capture());
+        assertThat(aliasCaptor.getValue().getAliasKey()).isEqualTo("ubr");
+        assertThat(aliasCaptor.getValue().getVendor()).isEqualTo(uber);
+        assertThat(response.getName()).isEqualTo("Uber");
+        verify(vendorDirectory).registerAlias(uber.getId(), "ubr");
+    }
+
+    @Test
+    void addAlias_WithSpellingOfAnotherVendor_ShouldThrowException() {
+        // Given
+        when(vendorRepository.findById(uber.getId())).thenReturn(Optional.of(uber));
+        when(vendorAliasRepository.findVendorIdByAliasKey("lyft")).thenReturn(Optional.empty());
+        when(vendorRepository.findByNormalizedName("lyft"))
+                .thenReturn(Optional.of(new Vendor(UUID.randomUUID(), "Lyft", "lyft", null)));
+
+        // When & Then
+        assertThatThrownBy(
+                        () ->
+                                vendorService.addAlias(
+                                        uber.getId(), new CreateVendorAliasRequest("Lyft")))
+                .isInstanceOf(DuplicateResourceException.class);
+        verify(vendorAliasRepository, never()).save(any());
+    }
+
+    @Test
+    void autocomplete_ShouldPersonalizeForCurrentUser() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(currentUserProvider.get())
+                .thenReturn(
+                        new AuthenticatedUser(userId, "user@example.com", RoleType.EMPLOYEE, null));
+        when(vendorDirectory.suggest("ub", userId, 5))
+                .thenReturn(List.of(new VendorDirectory.Entry(uber.getId(), "Uber")));
+
+        // When
+        List<VendorResponse> suggestions = vendorService.autocomplete("ub", 5);
+
+        // Then
+        assertThat(suggestions).containsExactly(new VendorResponse(uber.getId(), "Uber"));
+    }
+
+    @Test
+    void autocomplete_WithLimitAboveTopK_ShouldThrowException() {
+        assertThatThrownBy(() -> vendorService.autocomplete("ub", VendorDirectory.TOP_K + 1))
+                .isInstanceOf(InvalidOperationException.class);
+    }
+}
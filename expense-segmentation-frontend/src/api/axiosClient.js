@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { createTokenRefresher, createUnauthorizedHandler } from './unauthorizedHandler';
 
 const API_BASE_URL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080';
 
@@ -9,6 +10,20 @@ const axiosClient = axios.create({
   },
 });
 
+const clearSession = () => {
+  localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
+  localStorage.removeItem('user');
+};
+
+const refreshAccessToken = createTokenRefresher({
+  requestRefresh: (refreshToken) =>
+    axios
+      .post(`${API_BASE_URL}/auth/refresh`, { refreshToken })
+      .then((response) => response.data),
+  storage: localStorage,
+});
+
 // Request interceptor to add JWT token to requests
 axiosClient.interceptors.request.use(
   (config) => {
@@ -28,15 +43,16 @@ axiosClient.interceptors.response.use(
   (response) => {
     return response;
   },
-  (error) => {
-    if (error.response && error.response.status === 401) {
+  createUnauthorizedHandler({
+    refresh: refreshAccessToken,
+    retry: (request) => axiosClient(request),
+    hasRefreshToken: () => Boolean(localStorage.getItem('refreshToken')),
+    onSessionExpired: () => {
       // Clear token and redirect to login
-      localStorage.removeItem('token');
-      localStorage.removeItem('user');
+      clearSession();
       window.location.href = '/login';
-    }
-    return Promise.reject(error);
-  }
+    },
+  })
 );
 
 export default axiosClient;
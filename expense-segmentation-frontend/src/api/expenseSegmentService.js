@@ -21,6 +21,11 @@ export const expenseSegmentService = {
     return response.data;
   },
 
+  replaceSegmentsInBulk: async (expenses) => {
+    const response = await axiosClient.post('/expenses/segments/bulk', { expenses });
+    return response.data;
+  },
+
   updateExpenseSegment: async (expenseId, segmentId, segmentData) => {
     const response = await axiosClient.put(`/expenses/${expenseId}/segments/${segmentId}`, segmentData);
     return response.data;
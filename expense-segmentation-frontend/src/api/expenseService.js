@@ -23,6 +23,7 @@ const expenseService = {
    * @param {string} params.dateTo - Filter by date to (YYYY-MM-DD)
    * @param {string} params.type - Filter by expense type (EXPENSE, INVOICE)
    * @param {string} params.status - Filter by status
+   * @param {string} params.include - Child collections to embed (segments,attachments)
    * @returns {Promise} Paginated expense list with metadata
    */
   getExpenses: async (params = {}) => {
@@ -43,20 +44,27 @@ const expenseService = {
   /**
    * Get expense by ID
    * @param {string} expenseId - Expense ID
+   * @param {object} params - Query parameters
+   * @param {string} params.include - Child collections to embed (segments,attachments)
    * @returns {Promise} Expense details
    */
-  getExpenseById: async (expenseId) => {
-    const response = await axiosClient.get(`/expenses/${expenseId}`);
+  getExpenseById: async (expenseId, params = {}) => {
+    const response = await axiosClient.get(`/expenses/${expenseId}`, { params });
     return response.data;
   },
 
   /**
-   * Get expenses by user ID (Manager, Finance, Admin)
+   * Get one page of expenses by user ID (Manager, Finance, Admin)
    * @param {string} userId - User ID
-   * @returns {Promise} List of expenses for the user
+   * @param {object} params - Query parameters
+   * @param {number} params.size - Page size
+   * @param {string} params.cursor - nextCursor of the previous page
+   * @param {string} params.dateFrom - Filter by date from (YYYY-MM-DD)
+   * @param {string} params.dateTo - Filter by date to (YYYY-MM-DD)
+   * @returns {Promise} Page of the user's expenses with nextCursor
    */
-  getExpensesByUser: async (userId) => {
-    const response = await axiosClient.get(`/expenses/user/${userId}`);
+  getExpensesByUser: async (userId, params = {}) => {
+    const response = await axiosClient.get(`/expenses/user/${userId}`, { params });
     return response.data;
   },
 };
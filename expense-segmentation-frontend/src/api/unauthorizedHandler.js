@@ -0,0 +1,72 @@
+// Auth endpoints whose 401 means bad credentials or a dead refresh token, not an expired access
+// token. Every other endpoint, including /auth/me, is retried once after a refresh.
+export const NO_REFRESH_URLS = ['/auth/login', '/auth/register', '/auth/refresh', '/auth/logout'];
+
+const isRefreshable = (config) => {
+  const path = config.url?.split('?')[0];
+  return !NO_REFRESH_URLS.includes(path);
+};
+
+// Builds the 401 handler of the response interceptor. Dependencies are passed in so the handler
+// can be exercised without a browser or a server.
+export const createUnauthorizedHandler = ({ refresh, retry, hasRefreshToken, onSessionExpired }) =>
+  async (error) => {
+    const originalRequest = error.config;
+    if (error.response && error.response.status === 401) {
+      // Access tokens are short-lived; try once to refresh before giving up
+      const canRefresh =
+        originalRequest &&
+        !originalRequest._retry &&
+        isRefreshable(originalRequest) &&
+        hasRefreshToken();
+      if (canRefresh) {
+        originalRequest._retry = true;
+        try {
+          const token = await refresh();
+          originalRequest.headers.Authorization = `Bearer ${token}`;
+          return retry(originalRequest);
+        } catch (refreshError) {
+          console.error('Token refresh failed:', refreshError);
+        }
+      }
+
+      onSessionExpired();
+    }
+    return Promise.reject(error);
+  };
+
+// Builds the refresh of the access token. Concurrent 401s share a single refresh, since refresh
+// tokens are single-use. Other tabs share the storage: when one of them rotated the token this
+// refresh sent, the server rejects it and the successor that tab stored is tried once instead.
+export const createTokenRefresher = ({ requestRefresh, storage }) => {
+  let refreshPromise = null;
+
+  const refreshWith = async (refreshToken) => {
+    const tokens = await requestRefresh(refreshToken);
+    storage.setItem('token', tokens.token);
+    storage.setItem('refreshToken', tokens.refreshToken);
+    return tokens.token;
+  };
+
+  const refreshOnce = async () => {
+    const sent = storage.getItem('refreshToken');
+    try {
+      return await refreshWith(sent);
+    } catch (error) {
+      const latest = storage.getItem('refreshToken');
+      if (latest && latest !== sent) {
+        return refreshWith(latest);
+      }
+      throw error;
+    }
+  };
+
+  return () => {
+    if (!refreshPromise) {
+      refreshPromise = refreshOnce().finally(() => {
+        refreshPromise = null;
+      });
+    }
+    return refreshPromise;
+  };
+};
@@ -0,0 +1,144 @@
+import { test } from 'node:test';
+import assert from 'node:assert/strict';
+import { createTokenRefresher, createUnauthorizedHandler } from './unauthorizedHandler.js';
+
+const unauthorized = (config) => ({ config, response: { status: 401 } });
+
+const setUp = ({ refreshToken = true, refresh = async () => 'new-token' } = {}) => {
+  const calls = { refresh: 0, retried: [], expired: 0 };
+  const handler = createUnauthorizedHandler({
+    refresh: () => {
+      calls.refresh += 1;
+      return refresh();
+    },
+    retry: async (request) => {
+      calls.retried.push(request);
+      return { status: 200, config: request };
+    },
+    hasRefreshToken: () => refreshToken,
+    onSessionExpired: () => {
+      calls.expired += 1;
+    },
+  });
+  return { handler, calls };
+};
+
+test('reload after the access token expired refreshes and retries /auth/me', async () => {
+  const { handler, calls } = setUp();
+  const request = { url: '/auth/me', headers: { Authorization: 'Bearer expired' } };
+
+  const response = await handler(unauthorized(request));
+
+  assert.equal(response.status, 200);
+  assert.equal(calls.refresh, 1);
+  assert.equal(calls.retried[0].headers.Authorization, 'Bearer new-token');
+  assert.equal(calls.expired, 0);
+});
+
+test('failed login is not retried with a refresh', async () => {
+  const { handler, calls } = setUp();
+  const error = unauthorized({ url: '/auth/login', headers: {} });
+
+  await assert.rejects(handler(error), (rejected) => rejected === error);
+
+  assert.equal(calls.refresh, 0);
+  assert.equal(calls.expired, 1);
+});
+
+test('rejected refresh ends the session', async () => {
+  const { handler, calls } = setUp({
+    refresh: async () => {
+      throw new Error('refresh token revoked');
+    },
+  });
+  const error = unauthorized({ url: '/auth/me', headers: {} });
+
+  await assert.rejects(handler(error), (rejected) => rejected === error);
+
+  assert.equal(calls.retried.length, 0);
+  assert.equal(calls.expired, 1);
+});
+
+test('retried request that fails again is not refreshed twice', async () => {
+  const { handler, calls } = setUp();
+  const error = unauthorized({ url: '/expenses', headers: {}, _retry: true });
+
+  await assert.rejects(handler(error), (rejected) => rejected === error);
+
+  assert.equal(calls.refresh, 0);
+  assert.equal(calls.expired, 1);
+});
+
+test('without a refresh token the session ends immediately', async () => {
+  const { handler, calls } = setUp({ refreshToken: false });
+  const error = unauthorized({ url: '/auth/me', headers: {} });
+
+  await assert.rejects(handler(error), (rejected) => rejected === error);
+
+  assert.equal(calls.refresh, 0);
+  assert.equal(calls.expired, 1);
+});
+
+const memoryStorage = (items) => {
+  const values = new Map(Object.entries(items));
+  return {
+    getItem: (key) => values.get(key) ?? null,
+    setItem: (key, value) => values.set(key, value),
+  };
+};
+
+test('concurrent 401s share a single refresh', async () => {
+  const sent = [];
+  const storage = memoryStorage({ refreshToken: 'r1' });
+  const refresh = createTokenRefresher({
+    requestRefresh: async (refreshToken) => {
+      sent.push(refreshToken);
+      return { token: 'a2', refreshToken: 'r2' };
+    },
+    storage,
+  });
+
+  const tokens = await Promise.all([refresh(), refresh()]);
+
+  assert.deepEqual(tokens, ['a2', 'a2']);
+  assert.deepEqual(sent, ['r1']);
+  assert.equal(storage.getItem('refreshToken'), 'r2');
+});
+
+test('refresh raced by another tab retries with the successor it stored', async () => {
+  const sent = [];
+  const storage = memoryStorage({ refreshToken: 'r1' });
+  const refresh = createTokenRefresher({
+    requestRefresh: async (refreshToken) => {
+      sent.push(refreshToken);
+      if (refreshToken === 'r1') {
+        // The other tab consumed r1 first and stored r2
+        storage.setItem('refreshToken', 'r2');
+        throw new Error('Refresh token has just been rotated');
+      }
+      return { token: 'a3', refreshToken: 'r3' };
+    },
+    storage,
+  });
+
+  const token = await refresh();
+
+  assert.equal(token, 'a3');
+  assert.deepEqual(sent, ['r1', 'r2']);
+  assert.equal(storage.getItem('refreshToken'), 'r3');
+});
+
+test('refresh rejected without a newer stored token fails', async () => {
+  const sent = [];
+  const refresh = createTokenRefresher({
+    requestRefresh: async (refreshToken) => {
+      sent.push(refreshToken);
+      throw new Error('Refresh token has already been used');
+    },
+    storage: memoryStorage({ refreshToken: 'r1' }),
+  });
+
+  await assert.rejects(refresh(), /already been used/);
+
+  assert.deepEqual(sent, ['r1']);
+});
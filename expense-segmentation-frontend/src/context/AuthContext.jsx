@@ -22,6 +22,7 @@ export const AuthProvider = ({ children }) => {
           console.error('Failed to fetch user:', error);
           // Token might be invalid, clear it
           localStorage.removeItem('token');
+          localStorage.removeItem('refreshToken');
           localStorage.removeItem('user');
           setToken(null);
           setIsAuthenticated(false);
@@ -36,10 +37,11 @@ export const AuthProvider = ({ children }) => {
   const login = async (email, password) => {
     try {
       const response = await axiosClient.post('/auth/login', { email, password });
-      const { token: newToken } = response.data;
+      const { token: newToken, refreshToken } = response.data;
 
-      // Store token first
+      // Store tokens first
       localStorage.setItem('token', newToken);
+      localStorage.setItem('refreshToken', refreshToken);
       setToken(newToken);
 
       // Fetch complete user data
@@ -55,6 +57,7 @@ export const AuthProvider = ({ children }) => {
       console.error('Login failed:', error);
       // Clean up on error
       localStorage.removeItem('token');
+      localStorage.removeItem('refreshToken');
       localStorage.removeItem('user');
       setToken(null);
       setUser(null);
@@ -69,10 +72,11 @@ export const AuthProvider = ({ children }) => {
   const register = async (name, email, password) => {
     try {
       const response = await axiosClient.post('/auth/register', { name, email, password });
-      const { token: newToken } = response.data;
+      const { token: newToken, refreshToken } = response.data;
 
-      // Store token first
+      // Store tokens first
       localStorage.setItem('token', newToken);
+      localStorage.setItem('refreshToken', refreshToken);
       setToken(newToken);
 
       // Fetch complete user data
@@ -88,6 +92,7 @@ export const AuthProvider = ({ children }) => {
       console.error('Registration failed:', error);
       // Clean up on error
       localStorage.removeItem('token');
+      localStorage.removeItem('refreshToken');
       localStorage.removeItem('user');
       setToken(null);
       setUser(null);
@@ -100,7 +105,16 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
+    // End the session on the server; local state is cleared regardless of the outcome
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (refreshToken) {
+      axiosClient.post('/auth/logout', { refreshToken }).catch((error) => {
+        console.error('Logout request failed:', error);
+      });
+    }
+
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('user');
     setToken(null);
     setUser(null);
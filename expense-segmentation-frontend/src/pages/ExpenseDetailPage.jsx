@@ -107,11 +107,12 @@ const ExpenseDetailPage = () => {
       setError(null);
 
       try {
-        const data = await expenseService.getExpenseById(id);
+        // Segments and attachments come embedded, saving two extra round trips
+        const { segments: segmentData, attachments: attachmentData, ...data } =
+          await expenseService.getExpenseById(id, { include: 'segments,attachments' });
         setExpense(data);
-        // Fetch attachments, segments, and categories
-        fetchAttachments();
-        fetchSegments();
+        setSegments(segmentData ?? []);
+        setAttachments(attachmentData ?? []);
         fetchCategories();
       } catch (err) {
         console.error('Failed to fetch expense:', err);
@@ -124,7 +125,7 @@ const ExpenseDetailPage = () => {
     if (id) {
       fetchExpense();
     }
-  }, [id, fetchAttachments, fetchSegments, fetchCategories]);
+  }, [id, fetchCategories]);
 
   const handleFileSelect = (file) => {
     setSelectedFile(file);